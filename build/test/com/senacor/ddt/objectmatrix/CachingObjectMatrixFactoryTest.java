@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.objectmatrix.excel.ExcelObjectMatrixFactory;
+
+public class CachingObjectMatrixFactoryTest extends TestCase {
+  private static final String XLS = "com/senacor/ddt/objectmatrix/objectmap-test.xls";
+  
+  private static final String[] SHEETS = new String[] { "keyList", "annotations", "getObject", "annotations2" };
+  
+  private File cacheDirectory;
+  
+  private URL source;
+  
+  private CountingFactory delegate;
+  
+  protected void setUp() throws Exception {
+    this.cacheDirectory = File.createTempFile("ddt-cache", "");
+    this.cacheDirectory.delete();
+    this.source = getClass().getClassLoader().getResource(XLS);
+    this.delegate = new CountingFactory(SHEETS, true);
+  }
+  
+  protected void tearDown() throws Exception {
+    final File[] files = this.cacheDirectory.listFiles();
+    for (int i = 0; (files != null) && (i < files.length); i++) {
+      files[i].delete();
+    }
+    this.cacheDirectory.delete();
+  }
+  
+  public void testSecondCreateUsesCache() throws Exception {
+    final ObjectMatrix[] expected = new ExcelObjectMatrixFactory(XLS, SHEETS).create();
+    
+    final CachingObjectMatrixFactory factory =
+        new CachingObjectMatrixFactory(this.delegate, this.source, this.cacheDirectory);
+    assertFalse(factory.getCacheFile().exists());
+    assertSameMatrices(expected, factory.create());
+    assertEquals(1, this.delegate.calls);
+    assertTrue(factory.getCacheFile().isFile());
+    
+    final CachingObjectMatrixFactory secondFactory =
+        new CachingObjectMatrixFactory(this.delegate, this.source, this.cacheDirectory);
+    assertSameMatrices(expected, secondFactory.create());
+    assertEquals(1, this.delegate.calls);
+  }
+  
+  public void testVariantChangesCacheFile() throws Exception {
+    final CachingObjectMatrixFactory factory =
+        new CachingObjectMatrixFactory(this.delegate, this.source, this.cacheDirectory);
+    final File plain = factory.getCacheFile();
+    assertEquals(plain, factory.getCacheFile());
+    assertFalse(plain.equals(factory.setVariant("transposed").getCacheFile()));
+    assertTrue(plain.getName().startsWith("objectmap-test.xls."));
+    assertTrue(plain.getName().endsWith(CachingObjectMatrixFactory.CACHE_FILE_SUFFIX));
+  }
+  
+  public void testStaleCacheFilesAreDeleted() throws Exception {
+    final CachingObjectMatrixFactory old =
+        new CachingObjectMatrixFactory(this.delegate, this.source, this.cacheDirectory).setVariant("old");
+    old.create();
+    final File stale = old.getCacheFile();
+    assertTrue(stale.isFile());
+    // same hash, but a different source; and the same source, but no hash
+    final File otherSource =
+        new File(this.cacheDirectory, "other.xls" + stale.getName().substring("objectmap-test.xls".length()));
+    final File unrelated =
+        new File(this.cacheDirectory, "objectmap-test.xls.backup" + CachingObjectMatrixFactory.CACHE_FILE_SUFFIX);
+    new FileOutputStream(otherSource).close();
+    new FileOutputStream(unrelated).close();
+    
+    final CachingObjectMatrixFactory factory =
+        new CachingObjectMatrixFactory(this.delegate, this.source, this.cacheDirectory);
+    factory.create();
+    assertTrue(factory.getCacheFile().isFile());
+    assertFalse(stale.exists());
+    assertTrue(otherSource.exists());
+    assertTrue(unrelated.exists());
+  }
+  
+  public void testDelegateConfigurationChangesCacheFile() throws Exception {
+    final File plain =
+        new CachingObjectMatrixFactory(new ExcelObjectMatrixFactory(XLS, SHEETS), this.source, this.cacheDirectory)
+            .getCacheFile();
+    final File otherSheets =
+        new CachingObjectMatrixFactory(new ExcelObjectMatrixFactory(XLS, "keyList"), this.source, this.cacheDirectory)
+            .getCacheFile();
+    final File transposed =
+        new CachingObjectMatrixFactory(new ExcelObjectMatrixFactory(XLS, SHEETS).setTransposed(true), this.source,
+            this.cacheDirectory).getCacheFile();
+    assertFalse(plain.equals(otherSheets));
+    assertFalse(plain.equals(transposed));
+    assertFalse(plain.equals(new CachingObjectMatrixFactory(new CountingFactory(SHEETS, true), this.source,
+        this.cacheDirectory).getCacheFile()));
+  }
+  
+  public void testDelegateWithoutCacheKeyIsNotCached() throws Exception {
+    final CountingFactory keyless = new CountingFactory(SHEETS, false);
+    final CachingObjectMatrixFactory factory = new CachingObjectMatrixFactory(keyless, this.source, this.cacheDirectory);
+    assertNull(factory.getCacheFile());
+    
+    final ObjectMatrix[] expected = new ExcelObjectMatrixFactory(XLS, SHEETS).create();
+    assertSameMatrices(expected, factory.create());
+    assertSameMatrices(expected, factory.create());
+    assertEquals(2, keyless.calls);
+    assertFalse(this.cacheDirectory.exists());
+  }
+  
+  public void testNullCellsStayNull() throws Exception {
+    this.cacheDirectory.mkdirs();
+    final File file = new File(this.cacheDirectory, "nulls" + CachingObjectMatrixFactory.CACHE_FILE_SUFFIX);
+    BinaryMatrixCache.write(file, new StringMatrixReader[] { new SnapshotStringMatrixReader(new String[][] {
+        { "a", null }, { "", "b" } }, "nulls") });
+    final StringMatrixReader cached = BinaryMatrixCache.read(file)[0];
+    assertEquals("a", cached.getString(0, 0));
+    assertNull(cached.getString(0, 1));
+    assertEquals("", cached.getString(1, 0));
+    assertEquals("b", cached.getString(1, 1));
+  }
+  
+  public void testCorruptCacheFileIsReplaced() throws Exception {
+    final CachingObjectMatrixFactory factory =
+        new CachingObjectMatrixFactory(this.delegate, this.source, this.cacheDirectory);
+    this.cacheDirectory.mkdirs();
+    final FileOutputStream out = new FileOutputStream(factory.getCacheFile());
+    out.write("garbage".getBytes());
+    out.close();
+    
+    final ObjectMatrix[] expected = new ExcelObjectMatrixFactory(XLS, SHEETS).create();
+    assertSameMatrices(expected, factory.create());
+    assertEquals(1, this.delegate.calls);
+    assertSameMatrices(expected, factory.create());
+    assertEquals(1, this.delegate.calls);
+  }
+  
+  public void testCachedReaderBounds() throws Exception {
+    final StringMatrixReader reader =
+        new CachingObjectMatrixFactory(this.delegate, this.source, this.cacheDirectory).createReaders()[0];
+    final StringMatrixReader cached =
+        new CachingObjectMatrixFactory(this.delegate, this.source, this.cacheDirectory).createReaders()[0];
+    assertEquals(reader.getNumberOfColumns(), cached.getNumberOfColumns());
+    assertEquals(reader.getNumberOfRows(), cached.getNumberOfRows());
+    try {
+      cached.getString(cached.getNumberOfColumns(), 0);
+      fail("should have thrown exception");
+    } catch (final IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+  
+  private static void assertSameMatrices(final ObjectMatrix[] expected, final ObjectMatrix[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getMatrixIdentifier(), actual[i].getMatrixIdentifier());
+      assertEquals(expected[i].getColNames(), actual[i].getColNames());
+      assertEquals(expected[i].getRowNames(), actual[i].getRowNames());
+      for (final Iterator cols = expected[i].getColNames().iterator(); cols.hasNext();) {
+        final String col = (String) cols.next();
+        for (final Iterator rows = expected[i].getRowNames().iterator(); rows.hasNext();) {
+          final String row = (String) rows.next();
+          assertEquals(expected[i].getString(col, row), actual[i].getString(col, row));
+          assertEquals(expected[i].getAnnotation(col, row), actual[i].getAnnotation(col, row));
+        }
+      }
+    }
+  }
+  
+  private static class CountingFactory extends AbstractDefaultStringMatrixBasedObjectMatrixFactory {
+    private final String[] sheets;
+    
+    private final boolean cacheable;
+    
+    private int calls;
+    
+    CountingFactory(final String[] sheets, final boolean cacheable) {
+      this.sheets = sheets;
+      this.cacheable = cacheable;
+    }
+    
+    protected StringMatrixReader[] createReaders() {
+      this.calls++;
+      return new ExcelObjectMatrixFactory(XLS, this.sheets).createReaders();
+    }
+    
+    protected String getCacheKey() {
+      return this.cacheable ? Arrays.asList(this.sheets).toString() : null;
+    }
+  }
+}
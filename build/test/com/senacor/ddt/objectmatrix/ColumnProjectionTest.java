@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.objectmatrix.csv.CsvObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.csv.CsvStringMatrixReader;
+
+public class ColumnProjectionTest extends TestCase {
+  private static final String CSV =
+      ";base;test1;test2~type=foo;~~note=x;Reserved;other;test3\n" + "bean.name;Base;~ref=base;Bob;;r;o;~ref=other\n"
+          + "bean.age;1;2;3;;;4;5\n";
+  
+  private static ColumnProjection projection(final String[] names) {
+    return new ColumnProjection(Arrays.asList(names));
+  }
+  
+  public void testIsWanted() {
+    final ColumnProjection projection = projection(new String[] { "test2" });
+    assertTrue(projection.isWanted("test2"));
+    assertTrue(projection.isWanted(" test2~type=foo "));
+    assertTrue(projection.isWanted("Reserved"));
+    assertTrue(projection.isWanted("reserved"));
+    assertTrue(projection.isWanted("~~note=x"));
+    assertFalse(projection.isWanted("test1"));
+    assertFalse(projection.isWanted(""));
+    assertFalse(projection.isWanted(null));
+  }
+  
+  public void testGetReferenceTarget() {
+    assertEquals("base", ColumnProjection.getReferenceTarget("~ref=base"));
+    assertEquals("base", ColumnProjection.getReferenceTarget("value~ref = base "));
+    assertEquals("base", ColumnProjection.getReferenceTarget("~~ref=base"));
+    assertNull(ColumnProjection.getReferenceTarget("~type=base"));
+    assertNull(ColumnProjection.getReferenceTarget("~ref="));
+    assertNull(ColumnProjection.getReferenceTarget("plain"));
+    assertNull(ColumnProjection.getReferenceTarget(null));
+  }
+  
+  public void testReaderKeepsOnlySelectedColumns() throws Exception {
+    final StringMatrixReader reader =
+        new CsvStringMatrixReader(new StringReader(CSV), ';', "csv", projection(new String[] { "test2" }));
+    assertEquals(4, reader.getNumberOfColumns());
+    assertEquals("", reader.getString(0, 0));
+    assertEquals("test2~type=foo", reader.getString(1, 0));
+    assertEquals("~~note=x", reader.getString(2, 0));
+    assertEquals("Reserved", reader.getString(3, 0));
+    assertEquals(3, reader.getNumberOfRows());
+  }
+  
+  public void testReferencedColumnsAreKeptTransitively() throws Exception {
+    final StringMatrixReader source = new CsvStringMatrixReader(new StringReader(CSV), ';', "csv");
+    final int[] columns = projection(new String[] { "test1", "test3" }).selectColumns(source);
+    assertTrue(Arrays.equals(new int[] { 0, 1, 2, 4, 5, 6, 7 }, columns));
+  }
+  
+  public void testProjectReturnsSourceIfAllColumnsAreKept() throws Exception {
+    final StringMatrixReader source = new CsvStringMatrixReader(new StringReader(CSV), ';', "csv");
+    final ColumnProjection projection =
+        projection(new String[] { "base", "test1", "test2", "other", "test3" });
+    assertSame(source, projection.project(source));
+    final StringMatrixReader projected = projection(new String[] { "test3" }).project(source);
+    assertEquals(5, projected.getNumberOfColumns());
+    assertEquals("test3", projected.getString(4, 0));
+    assertEquals("csv", projected.getIdentifier());
+  }
+  
+  public void testAtTitles() throws Exception {
+    final SnapshotStringMatrixReader source =
+        new SnapshotStringMatrixReader(new String[][] { { "x", "", "a" }, { "y", "test1", "1" },
+            { "z", "test2", "2" } }, "shifted");
+    final int[] columns = projection(new String[] { "test2" }).atTitles(0, 1).selectColumns(source);
+    assertTrue(Arrays.equals(new int[] { 0, 2 }, columns));
+  }
+  
+  public void testFactoryCreatesProjectedMatrix() {
+    final CsvObjectMatrixFactory factory = new CsvObjectMatrixFactory(new StringReader(CSV), ';', "csv");
+    factory.setColumnProjection(projection(new String[] { "test1" }));
+    final ObjectMatrix matrix = factory.create()[0];
+    assertFalse(matrix.getColNames().contains("test2"));
+    assertFalse(matrix.getColNames().contains("test3"));
+    assertEquals("Base", matrix.getString("test1", "bean.name"));
+    assertEquals(new Integer(2), matrix.getInteger("test1", "bean.age"));
+  }
+}
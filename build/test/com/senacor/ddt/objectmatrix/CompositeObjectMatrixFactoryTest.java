@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.objectmatrix.csv.CsvObjectMatrixFactory;
+
+public class CompositeObjectMatrixFactoryTest extends TestCase {
+  private static ObjectMatrixFactory csv(final String identifier) {
+    return new CsvObjectMatrixFactory(new StringReader(";test1;test2\nname;a;b\n"), ';', identifier);
+  }
+  
+  /**
+   * Waits until the latch is released, so it finishes after the factories given after it.
+   */
+  private static class WaitingFactory implements ObjectMatrixFactory {
+    private final CountDownLatch latch;
+    
+    private final ObjectMatrixFactory delegate;
+    
+    WaitingFactory(final CountDownLatch latch, final ObjectMatrixFactory delegate) {
+      this.latch = latch;
+      this.delegate = delegate;
+    }
+    
+    public ObjectMatrix[] create() {
+      try {
+        this.latch.await();
+      } catch (final InterruptedException e) {
+        throw new IllegalStateException("interrupted");
+      }
+      return this.delegate.create();
+    }
+  }
+  
+  public void testResultsKeepFactoryOrder() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    final CompositeObjectMatrixFactory factory =
+        new CompositeObjectMatrixFactory(new ObjectMatrixFactory[] { new WaitingFactory(latch, csv("first")),
+            csv("second"), csv("third") });
+    final Future[] futures = factory.start();
+    assertEquals(3, futures.length);
+    assertEquals("third", ((ObjectMatrix[]) futures[2].get())[0].getMatrixIdentifier());
+    assertFalse(futures[0].isDone());
+    latch.countDown();
+    final ObjectMatrix[] matrices = factory.create();
+    assertEquals(3, matrices.length);
+    assertEquals("first", matrices[0].getMatrixIdentifier());
+    assertEquals("second", matrices[1].getMatrixIdentifier());
+    assertEquals("third", matrices[2].getMatrixIdentifier());
+    assertEquals("b", matrices[1].getString("test2", "name"));
+  }
+  
+  public void testStartIsIdempotentUntilCreate() {
+    final CompositeObjectMatrixFactory factory =
+        new CompositeObjectMatrixFactory(new ObjectMatrixFactory[] { csv("first") }).setThreads(1);
+    final Future[] first = factory.start();
+    assertTrue(Arrays.equals(first, factory.start()));
+    assertEquals(1, factory.create().length);
+  }
+  
+  public void testFailureIsRethrown() {
+    final ObjectMatrixFactory failing = new ObjectMatrixFactory() {
+      public ObjectMatrix[] create() {
+        throw new ObjectMatrixCreationFailedException("broken", null);
+      }
+    };
+    final CompositeObjectMatrixFactory factory =
+        new CompositeObjectMatrixFactory(new ObjectMatrixFactory[] { csv("first"), failing }).setThreads(2);
+    try {
+      factory.create();
+      fail();
+    } catch (final ObjectMatrixCreationFailedException e) {
+      assertEquals("broken", e.getMessage());
+    }
+  }
+  
+  public void testProjectionIsPassedOn() {
+    final CompositeObjectMatrixFactory factory =
+        new CompositeObjectMatrixFactory(new ObjectMatrixFactory[] { csv("first") });
+    factory.setColumnProjection(new ColumnProjection(Arrays.asList(new String[] { "test2" })));
+    assertEquals(Arrays.asList(new String[] { "Reserved", "test2" }), factory.create()[0].getColNames());
+  }
+  
+  public void testOneOffProjectionIsNotKept() {
+    final ObjectMatrixFactory reusable = new AbstractDefaultStringMatrixBasedObjectMatrixFactory() {
+      protected StringMatrixReader[] createReaders() {
+        final StringMatrixReader reader =
+            new SnapshotStringMatrixReader(new String[][] { { "", "name" }, { "test1", "a" }, { "test2", "b" } },
+                "first");
+        final ColumnProjection projection = getColumnProjection();
+        return new StringMatrixReader[] { (projection == null) ? reader : projection.project(reader) };
+      }
+    };
+    final CompositeObjectMatrixFactory factory =
+        new CompositeObjectMatrixFactory(new ObjectMatrixFactory[] { reusable });
+    final ColumnProjection projection = new ColumnProjection(Arrays.asList(new String[] { "test2" }));
+    assertEquals(Arrays.asList(new String[] { "Reserved", "test2" }), factory.create(projection)[0].getColNames());
+    assertTrue(factory.create()[0].getColNames().size() > 2);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.csv.CsvObjectMatrixFactory;
+import com.senacor.ddt.typetransformer.Transformer;
+
+public class LazyObjectMatrixTest extends TestCase {
+  private static final String CSV =
+      ";test1~type=foo;test2;Reserved\n" + "bean.name;Anna;~ref=test1;x\n" + "bean.age~type=int;42;;y\n";
+  
+  private static ObjectMatrix create(final boolean lazy) {
+    final CsvObjectMatrixFactory factory = new CsvObjectMatrixFactory(new StringReader(CSV), ';', "lazy");
+    factory.setLazy(lazy);
+    return factory.create()[0];
+  }
+  
+  public void testNamesDoNotMaterialize() {
+    final LazyObjectMatrix matrix = (LazyObjectMatrix) create(true);
+    assertEquals("lazy", matrix.getMatrixIdentifier());
+    assertEquals(Arrays.asList(new String[] { "Reserved", "test1", "test2", "Reserved" }), matrix.getColNames());
+    assertEquals(Arrays.asList(new String[] { "Reserved", "bean.name", "bean.age" }), matrix.getRowNames());
+    assertEquals(Arrays.asList(new String[] { "test1", "test2" }), matrix.filterColumnNames("test", null, null));
+    assertEquals(Arrays.asList(new String[] { "bean.age" }), matrix.filterRowNames(null, null, "age"));
+    assertFalse(matrix.isMaterialized());
+  }
+  
+  public void testFirstAccessMaterializes() {
+    final LazyObjectMatrix matrix = (LazyObjectMatrix) create(true);
+    assertEquals("Anna", matrix.getString("test2", "bean.name"));
+    assertTrue(matrix.isMaterialized());
+  }
+  
+  public void testSameContentAsEagerMatrix() {
+    final ObjectMatrix eager = create(false);
+    final ObjectMatrix lazy = create(true);
+    assertTrue(eager instanceof DelegatingObjectMatrix);
+    assertEquals(eager.getColNames(), lazy.getColNames());
+    assertEquals(eager.getString("test2", "bean.name"), lazy.getString("test2", "bean.name"));
+    assertEquals(eager.getInteger("test1", "bean.age"), lazy.getInteger("test1", "bean.age"));
+    assertEquals(CellAnnotation.forCell(eager, "test1", "bean.age"), CellAnnotation.forCell(lazy, "test1", "bean.age"));
+    assertEquals("foo", CellAnnotation.forCell(lazy, "test1", "bean.name").get("type"));
+    assertEquals(eager.getObjectMapForColumn("test1").getKeys(), lazy.getObjectMapForColumn("test1").getKeys());
+  }
+  
+  public void testCycleIsReportedAtLoadTime() {
+    final CsvObjectMatrixFactory factory =
+        new CsvObjectMatrixFactory(new StringReader(";a;b\n" + "ok;1;2\n" + "cycle;~ref=b;~ref=a\n"), ';', "lazy");
+    factory.setLazy(true);
+    try {
+      factory.create();
+      fail("should have thrown exception");
+    } catch (final CircularReferenceException e) {
+      assertTrue(e.getMessage(), e.getMessage().indexOf("'cycle'") > 0);
+    }
+  }
+  
+  public void testCycleThroughColumnAnnotationIsReportedAtLoadTime() {
+    final CsvObjectMatrixFactory factory =
+        new CsvObjectMatrixFactory(new StringReader(";a;b~ref=a\n" + "row;~ref=b;2\n"), ';', "lazy");
+    factory.setLazy(true);
+    try {
+      factory.create();
+      fail("should have thrown exception");
+    } catch (final CircularReferenceException e) {
+      // expected
+    }
+  }
+  
+  public void testReferencesAreResolvedWithoutMaterializing() {
+    final LazyObjectMatrix matrix = (LazyObjectMatrix) create(true);
+    assertFalse(matrix.isMaterialized());
+    assertEquals("Anna", matrix.getString("test2", "bean.name"));
+  }
+  
+  public void testLocalTransformerIsApplied() {
+    final Transformer transformer = new Transformer();
+    final CsvObjectMatrixFactory factory = new CsvObjectMatrixFactory(new StringReader(CSV), ';', "lazy");
+    factory.setLazy(true);
+    factory.setLocalTransformer(transformer);
+    final ObjectMatrix matrix = factory.create()[0];
+    assertSame(transformer, matrix.getTransformer());
+    assertSame(transformer, matrix.getObjectMapForColumn("test1").getTransformer());
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.csv.CsvObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.csv.CsvStringMatrixReader;
+
+public class ValueCacheTest extends TestCase {
+  private static final String CSV = ";a;b;c\n" + "int;1;2;\n" + "dec;1,5;2.5;\n" + "date;2007-01-02;;\n";
+  
+  private static DelegatingObjectMatrix createMatrix(final ValueCache cache) throws Exception {
+    final DelegatingObjectMatrix matrix =
+        new DelegatingObjectMatrix(new EmbeddedAnnotationMatrixDecorator(new DefaultStringMatrix(
+            new CsvStringMatrixReader(new StringReader(CSV), ';', "cache"))));
+    matrix.setValueCache(cache);
+    return matrix;
+  }
+  
+  public void testHitsAndMisses() throws Exception {
+    final ValueCache cache = new ValueCache(100);
+    final DelegatingObjectMatrix matrix = createMatrix(cache);
+    assertEquals(new Integer(1), matrix.getInteger("a", "int"));
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(new Integer(1), matrix.getInteger("a", "int"));
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getSize());
+    // a different conversion of the same cell is cached separately
+    assertEquals(new Long(1), matrix.getLong("a", "int"));
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getSize());
+    assertEquals(new Integer(1), matrix.getObject("a", "int", int.class));
+    assertEquals(new Integer(1), matrix.getObject("a", "int", Integer.class));
+    assertEquals(2, cache.getHits());
+  }
+  
+  public void testConversionsAreKeptApart() throws Exception {
+    final DelegatingObjectMatrix matrix = createMatrix(new ValueCache(100));
+    assertEquals(new BigDecimal("1.5"), matrix.getBigDecimal("a", "dec"));
+    assertEquals(new BigDecimal("1.5"), matrix.getBigDecimal("a", "dec"));
+    assertEquals("1,5", matrix.getObject("a", "dec", String.class));
+  }
+  
+  public void testNullIsCached() throws Exception {
+    final ValueCache cache = new ValueCache(100);
+    final DelegatingObjectMatrix matrix = createMatrix(cache);
+    assertNull(matrix.getInteger("c", "int"));
+    assertNull(matrix.getInteger("c", "int"));
+    assertEquals(1, cache.getHits());
+  }
+  
+  public void testDatesAreCopied() throws Exception {
+    final ValueCache cache = new ValueCache(100);
+    final DelegatingObjectMatrix matrix = createMatrix(cache);
+    final Date first = matrix.getDate("a", "date");
+    final long time = first.getTime();
+    first.setTime(0);
+    final Date second = matrix.getDate("a", "date");
+    assertEquals(1, cache.getHits());
+    assertEquals(time, second.getTime());
+    assertNotSame(first, second);
+  }
+  
+  public void testMutableValuesAreNotCached() {
+    final ValueCache cache = new ValueCache(100);
+    cache.put("a", "int", StringBuffer.class, new StringBuffer("1"));
+    assertSame(ValueCache.MISS, cache.get("a", "int", StringBuffer.class));
+    assertEquals(0, cache.getSize());
+  }
+  
+  public void testLimit() throws Exception {
+    final ValueCache cache = new ValueCache(2);
+    final DelegatingObjectMatrix matrix = createMatrix(cache);
+    matrix.getInteger("a", "int");
+    matrix.getInteger("b", "int");
+    assertEquals(new BigDecimal("2.5"), matrix.getBigDecimal("b", "dec"));
+    assertEquals(2, cache.getSize());
+    assertEquals(new BigDecimal("2.5"), matrix.getBigDecimal("b", "dec"));
+    assertEquals(0, cache.getHits());
+    cache.clear();
+    assertEquals(0, cache.getSize());
+    matrix.getBigDecimal("b", "dec");
+    assertEquals(1, cache.getSize());
+  }
+  
+  public void testLimitHoldsForConcurrentPuts() throws Exception {
+    final ValueCache cache = new ValueCache(10);
+    final Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      final String column = "col" + i;
+      threads[i] = new Thread() {
+        public void run() {
+          for (int row = 0; row < 1000; row++) {
+            cache.put(column, "row" + row, Integer.class, new Integer(row));
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (int i = 0; i < threads.length; i++) {
+      threads[i].join();
+    }
+    assertEquals(10, cache.getSize());
+  }
+  
+  public void testNullNamesAreReportedAsWithoutCache() throws Exception {
+    final Class expected = getExceptionClass(createMatrix(null));
+    assertNotNull(expected);
+    assertEquals(expected, getExceptionClass(createMatrix(new ValueCache(100))));
+  }
+  
+  private static Class getExceptionClass(final DelegatingObjectMatrix matrix) {
+    try {
+      matrix.getInteger(null, "int");
+      return null;
+    } catch (final RuntimeException e) {
+      return e.getClass();
+    }
+  }
+  
+  public void testFactorySetting() throws Exception {
+    final CsvObjectMatrixFactory factory = new CsvObjectMatrixFactory(new StringReader(CSV), ';', "cache");
+    factory.setValueCacheSize(10);
+    final DelegatingObjectMatrix matrix = (DelegatingObjectMatrix) factory.create()[0];
+    assertNotNull(matrix.getValueCache());
+    assertEquals(10, matrix.getValueCache().getMaxEntries());
+    
+    final CsvObjectMatrixFactory uncached = new CsvObjectMatrixFactory(new StringReader(CSV), ';', "cache");
+    assertNull(((DelegatingObjectMatrix) uncached.create()[0]).getValueCache());
+  }
+}
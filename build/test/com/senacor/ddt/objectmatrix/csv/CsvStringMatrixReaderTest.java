@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.csv;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
+
+public class CsvStringMatrixReaderTest extends TestCase {
+  private static final String IDENTIFIER =
+      "com.senacor.ddt.objectmatrix.reader.csv.CsvStringMatrixReaderTest.IDENTIFIER";
+  
+  private CsvStringMatrixReader reader;
+  
+  protected void setUp() throws Exception {
+    reader =
+        new CsvStringMatrixReader(new InputStreamReader(this.getClass().getResourceAsStream("/test.csv")), ';',
+            IDENTIFIER);
+  }
+  
+  public void testReadFields() throws Exception {
+    assertEquals("foo", reader.getString(0, 0));
+    assertEquals("quux", reader.getString(1, 1));
+    assertEquals("", reader.getString(3, 0));
+  }
+  
+  public void testSize() throws Exception {
+    assertEquals(6, reader.getNumberOfColumns());
+    assertEquals(8, reader.getNumberOfRows()); // must not break over empty lines
+  }
+  
+  public void testIdentifier() throws Exception {
+    assertEquals(IDENTIFIER, reader.getIdentifier());
+  }
+  
+  public void testQuoted() throws Exception {
+    assertEquals("foo;bar", reader.getString(0, 5));
+    assertEquals("foo\nbar", reader.getString(0, 6));
+    assertEquals("foo\"bar", reader.getString(0, 7));
+  }
+  
+  public void testLineEndingsAndEmptyLines() throws Exception {
+    final CsvStringMatrixReader csv =
+        new CsvStringMatrixReader(new StringReader("a;b\r\nc;d\re;f\n\n  \ng;h\n"), ';', "endings");
+    assertEquals(2, csv.getNumberOfColumns());
+    assertEquals(6, csv.getNumberOfRows());
+    assertEquals("d", csv.getString(1, 1));
+    assertEquals("e", csv.getString(0, 2));
+    assertEquals("", csv.getString(1, 3));
+    assertEquals("", csv.getString(0, 4));
+    assertEquals("h", csv.getString(1, 5));
+  }
+  
+  public void testQuotesInsideFields() throws Exception {
+    final CsvStringMatrixReader csv =
+        new CsvStringMatrixReader(new StringReader("a\"b;\"\";\"x\"y;\"\"\"\"\"\"\n"), ';', "quotes");
+    assertEquals(1, csv.getNumberOfRows());
+    assertEquals("a\"b", csv.getString(0, 0));
+    assertEquals("", csv.getString(1, 0));
+    assertEquals("xy", csv.getString(2, 0));
+    assertEquals("\"\"", csv.getString(3, 0));
+  }
+  
+  public void testFieldCountMismatch() throws Exception {
+    try {
+      new CsvStringMatrixReader(new StringReader("a;b\nc;d\ne;f;g\n"), ';', "mismatch");
+      fail("expected IllegalArgumentException");
+    } catch (final IllegalArgumentException e) {
+      assertEquals("Field count in line 2 differs from field count in first line", e.getMessage());
+    }
+    try {
+      new CsvStringMatrixReader(new StringReader("a;b\nc\n"), ';', "mismatch");
+      fail("expected IllegalArgumentException");
+    } catch (final IllegalArgumentException e) {
+      assertEquals("Field count in line 1 differs from field count in first line", e.getMessage());
+    }
+  }
+  
+  public void testUnterminatedQuote() throws Exception {
+    try {
+      new CsvStringMatrixReader(new StringReader("a;b\n\"c\nd;e\n"), ';', "unterminated");
+      fail("expected IllegalArgumentException");
+    } catch (final IllegalArgumentException e) {
+      assertEquals("Quoted field starting in line 2 is not terminated", e.getMessage());
+    }
+  }
+  
+  public void testEmptyFile() throws Exception {
+    try {
+      new CsvStringMatrixReader(new StringReader(""), ';', "empty");
+      fail("expected IllegalArgumentException");
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  public void testBytes() throws Exception {
+    final String content = "\u00e4;\"\u20ac;\n\u00df\"\r\n";
+    final CsvStringMatrixReader utf8 =
+        new CsvStringMatrixReader(new ByteArrayInputStream(content.getBytes("UTF-8")), ';', "UTF-8", "utf8");
+    assertEquals("\u00e4", utf8.getString(0, 0));
+    assertEquals("\u20ac;\n\u00df", utf8.getString(1, 0));
+    
+    final CsvStringMatrixReader latin1 =
+        new CsvStringMatrixReader(new ByteArrayInputStream("\u00e4;\u00ff".getBytes("ISO-8859-1")), ';',
+            "ISO-8859-1", "latin1");
+    assertEquals("\u00e4", latin1.getString(0, 0));
+    assertEquals("\u00ff", latin1.getString(1, 0));
+  }
+  
+  public void testMalformedBytes() throws Exception {
+    try {
+      new CsvStringMatrixReader(new ByteArrayInputStream("\u00e4;b".getBytes("ISO-8859-1")), ';', "UTF-8", "broken");
+      fail("expected IOException");
+    } catch (final IOException e) {
+      // expected
+    }
+  }
+  
+  public void testReadsWhatTheWriterWrites() throws Exception {
+    // long fields and many rows make fields and quote pairs straddle the tokenizer's buffer boundaries
+    final StringBuffer longField = new StringBuffer();
+    for (int i = 0; i < 20000; i++) {
+      longField.append("\"\u00e4;\n");
+    }
+    final String[][] data = new String[3][3000];
+    for (int row = 0; row < 3000; row++) {
+      data[0][row] = "row" + row;
+      data[1][row] = (row % 3 == 0) ? "say \"hi\";\r\nbye" : "\u20ac" + row;
+      data[2][row] = (row == 1500) ? longField.toString() : "";
+    }
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new CsvStringMatrixWriter(Channels.newChannel(out), ';', "UTF-8").write(new SnapshotStringMatrixReader(data,
+        "written"));
+    
+    final CsvStringMatrixReader fromBytes =
+        new CsvStringMatrixReader(new ByteArrayInputStream(out.toByteArray()), ';', "UTF-8", "bytes");
+    final CsvStringMatrixReader fromChars =
+        new CsvStringMatrixReader(new StringReader(out.toString("UTF-8")), ';', "chars");
+    final CsvStringMatrixReader[] readers = { fromBytes, fromChars };
+    for (int i = 0; i < readers.length; i++) {
+      assertEquals(3, readers[i].getNumberOfColumns());
+      assertEquals(3000, readers[i].getNumberOfRows());
+      for (int row = 0; row < 3000; row++) {
+        for (int col = 0; col < 3; col++) {
+          assertEquals(data[col][row].trim(), readers[i].getString(col, row));
+        }
+      }
+    }
+  }
+}
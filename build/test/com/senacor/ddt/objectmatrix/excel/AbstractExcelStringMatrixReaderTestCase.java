@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.excel;
+
+import java.io.InputStream;
+
+import junit.framework.TestCase;
+import jxl.Workbook;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+
+public abstract class AbstractExcelStringMatrixReaderTestCase extends TestCase {
+  protected StringMatrixReader stringMatrixReader;
+  
+  protected boolean transposed = false;
+  
+  protected String sheetName = "Test";
+  
+  protected boolean snapshot = false;
+  
+  protected void setUp() throws Exception {
+    InputStream in = getClass().getClassLoader().getResourceAsStream("test.xls");
+    JExcelStringMatrixReader excelReader =
+        new JExcelStringMatrixReader(Workbook.getWorkbook(in), sheetName, transposed);
+    if (snapshot) {
+      stringMatrixReader = excelReader.snapshot();
+    } else {
+      stringMatrixReader = excelReader;
+    }
+    in.close();
+  }
+  
+  protected void tearDown() throws Exception {
+    stringMatrixReader = null;
+    super.tearDown();
+  }
+  
+  protected final void transpose() {
+    transposed = true;
+    sheetName = "TestTransposed";
+  }
+  
+  protected final void useSnapshot() {
+    snapshot = true;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.excel;
+
+import java.util.Iterator;
+
+/**
+ * @author Carl-Eric Menzel
+ * @version $Id$
+ */
+public class AlternateTitlePositionExcelStringMatrixTest extends AbstractExcelStringMatrixTestCase {
+  protected void setUp() throws Exception {
+    columnContainingRowTitles = 10;
+    rowContainingColumnTitles = 45;
+    super.setUp();
+  }
+  
+  public void testTitles() {
+    Iterator rowTitles = stringMatrix.getRowNames().iterator();
+    assertEquals("e", rowTitles.next());
+    assertEquals("f", rowTitles.next());
+    assertEquals("g", rowTitles.next());
+    assertEquals("h", rowTitles.next());
+    
+    Iterator colTitles = stringMatrix.getColNames().iterator();
+    assertEquals("a", colTitles.next());
+    assertEquals("b", colTitles.next());
+    assertEquals("c", colTitles.next());
+    assertEquals("d", colTitles.next());
+  }
+  
+  public void testCellAccess() {
+    assertEquals("Foo", stringMatrix.getString("b", "g"));
+    assertEquals("Baz2", stringMatrix.getString("d", "h"));
+  }
+  
+  public void testReference() {
+    assertEquals("reftarget", stringMatrix.getString("c", "refrow"));
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.excel;
+
+import com.senacor.ddt.objectmatrix.IndexedStringMatrix;
+
+public class ExcelIndexedStringMatrixTest extends AbstractExcelStringMatrixTestCase {
+  private IndexedStringMatrix indexedStringMatrix;
+  
+  protected void setUp() throws Exception {
+    super.setUp();
+    this.indexedStringMatrix = (IndexedStringMatrix) this.stringMatrix;
+  }
+  
+  public void testSimpleRead() {
+    assertEquals("Reserved", indexedStringMatrix.getString(0, 0));
+    assertEquals("Row 1", indexedStringMatrix.getString(0, 2));
+    assertEquals("Bar2", indexedStringMatrix.getString(2, 3));
+    assertEquals("", indexedStringMatrix.getString(1, 0));
+    assertEquals("", indexedStringMatrix.getString(1, 1));
+  }
+  
+  public void testMixedNameAccess() throws Exception {
+    assertEquals("Foo", indexedStringMatrix.getString(1, "Row 1"));
+    assertEquals("Bar", indexedStringMatrix.getString("Col 1", 2));
+  }
+  
+}
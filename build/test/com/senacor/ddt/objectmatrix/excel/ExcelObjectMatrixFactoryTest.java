@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.excel;
+
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.DuplicateColumnTitleException;
+import com.senacor.ddt.objectmatrix.ObjectMatrix;
+
+public class ExcelObjectMatrixFactoryTest extends TestCase {
+  private static final String XLS = "com/senacor/ddt/objectmatrix/objectmap-test.xls";
+  
+  private static final String[] SHEETS = new String[] { "keyList", "annotations", "getObject", "annotations2" };
+  
+  public void testParallelLoadingKeepsSheetOrder() throws Exception {
+    final ObjectMatrix[] sequential = new ExcelObjectMatrixFactory(XLS, SHEETS).create();
+    
+    final ExcelObjectMatrixFactory factory = new ExcelObjectMatrixFactory(XLS, SHEETS);
+    factory.setLoaderThreads(3);
+    assertSameMatrices(sequential, factory.create());
+  }
+  
+  public void testParallelSnapshotLoading() throws Exception {
+    final ObjectMatrix[] sequential = new ExcelObjectMatrixFactory(XLS, SHEETS).create();
+    
+    final ExcelObjectMatrixFactory factory = new ExcelObjectMatrixFactory(XLS, SHEETS).setSnapshot(true);
+    factory.setLoaderThreads(8);
+    assertSameMatrices(sequential, factory.create());
+  }
+  
+  public void testLazySnapshotLoading() throws Exception {
+    final ObjectMatrix[] sequential = new ExcelObjectMatrixFactory(XLS, SHEETS).create();
+    
+    final ExcelObjectMatrixFactory factory = new ExcelObjectMatrixFactory(XLS, SHEETS).setSnapshot(true);
+    factory.setLazy(true);
+    assertSameMatrices(sequential, factory.create());
+  }
+  
+  public void testParallelLoadingPropagatesOriginalException() throws Exception {
+    final ExcelObjectMatrixFactory factory =
+        new ExcelObjectMatrixFactory("test.xls", new String[] { "Test", "DuplicateColumnTitles" });
+    factory.setLoaderThreads(2);
+    try {
+      factory.create();
+      fail("should have thrown exception");
+    } catch (final DuplicateColumnTitleException e) {
+      // expected
+    }
+  }
+  
+  private void assertSameMatrices(final ObjectMatrix[] expected, final ObjectMatrix[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals("[" + SHEETS[i] + "]", actual[i].getMatrixIdentifier());
+      assertEquals(expected[i].getMatrixIdentifier(), actual[i].getMatrixIdentifier());
+      assertEquals(expected[i].getColNames(), actual[i].getColNames());
+      assertEquals(expected[i].getRowNames(), actual[i].getRowNames());
+      final Iterator cols = expected[i].getColNames().iterator();
+      while (cols.hasNext()) {
+        final String col = (String) cols.next();
+        final Iterator rows = expected[i].getRowNames().iterator();
+        while (rows.hasNext()) {
+          final String row = (String) rows.next();
+          assertEquals(expected[i].getString(col, row), actual[i].getString(col, row));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.test;
+
+import java.io.InputStreamReader;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.senacor.ddt.objectmatrix.ObjectMatrix;
+import com.senacor.ddt.objectmatrix.csv.CsvObjectMatrixFactory;
+
+import junit.framework.TestCase;
+
+public abstract class AbstractFilterTestCase extends TestCase {
+  
+  protected TestCaseData[] tcds;
+  
+  protected void setUp() throws Exception {
+    CsvObjectMatrixFactory factory =
+        new CsvObjectMatrixFactory(new InputStreamReader(this.getClass().getResourceAsStream("/namerangetest.csv")),
+            ';', "testcsv");
+    
+    ObjectMatrix matrix = factory.create()[0];
+    TestSuiteConfiguration config = new TestSuiteConfiguration();
+    tcds = new TestCaseData[5];
+    tcds[0] = new TestCaseData(matrix, "col0", config);
+    tcds[1] = new TestCaseData(matrix, "col1", config);
+    tcds[2] = new TestCaseData(matrix, "col2", config);
+    tcds[3] = new TestCaseData(matrix, "col3", config);
+    tcds[4] = new TestCaseData(matrix, "col4", config);
+  }
+  
+  protected Set runThroughFilter(TestCaseFilter filter) {
+    Set result = new HashSet();
+    for (int i = 0; i < tcds.length; i++) {
+      if (filter.isTestCaseAllowedToRun(tcds[i])) {
+        result.add(tcds[i]);
+      }
+    }
+    
+    return result;
+  }
+  
+}
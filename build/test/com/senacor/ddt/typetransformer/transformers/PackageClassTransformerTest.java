@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.senacor.ddt.typetransformer.transformers;
+
+import com.senacor.ddt.typetransformer.Transformer;
+
+import junit.framework.TestCase;
+
+public class PackageClassTransformerTest extends TestCase {
+  private PackageClassTransformer trans;
+  
+  protected void setUp() throws Exception {
+    this.trans = new PackageClassTransformer();
+  }
+  
+  public void testDefaultTransformerTransformsWithDefaultPackages() throws Exception {
+    assertEquals(String.class, Transformer.get().transform("String", Class.class));
+    assertEquals(java.util.Date.class, Transformer.get().transform("Date", Class.class));
+    assertEquals(java.math.BigDecimal.class, Transformer.get().transform("BigDecimal", Class.class));
+  }
+  
+  public void testTransformsWithCustomPackages() throws Exception {
+    final String packageName = getClass().getPackage().getName();
+    final String className = getClass().getName().substring(packageName.length() + 1);
+    this.trans.addPackage(packageName);
+    assertEquals(getClass(), this.trans.transform(className, Class.class));
+  }
+  
+  public void testTriesCustomPackageFirst() throws Exception {
+    this.trans.addPackage("java.sql");
+    assertEquals(java.sql.Date.class, this.trans.transform("Date", Class.class));
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice,
+ * this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.senacor.ddt.typetransformer.transformers;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import com.senacor.ddt.typetransformer.SpecificTransformer;
+
+import junit.framework.TestCase;
+
+public class RelativeDateTransformerTest extends TestCase {
+  private final SpecificTransformer trans = new RelativeDateTransformer();
+  
+  public void testTransformsToUtilDate() throws Exception {
+    final java.util.Date date = (Date) this.trans.transform("NOW", java.util.Date.class);
+  }
+  
+  public void testTransformsToSqlDate() throws Exception {
+    final java.sql.Date date = (java.sql.Date) this.trans.transform("NOW", java.sql.Date.class);
+  }
+  
+  public void testTransformsToCalendar() throws Exception {
+    final Calendar date = (Calendar) this.trans.transform("NOW", java.util.Calendar.class);
+  }
+  
+  public void testTransformsToGregorianCalendar() throws Exception {
+    final GregorianCalendar date = (GregorianCalendar) this.trans.transform("NOW", java.util.GregorianCalendar.class);
+  }
+}
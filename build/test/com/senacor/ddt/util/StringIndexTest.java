@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class StringIndexTest extends TestCase {
+  private static final List STRINGS =
+      Arrays.asList(new String[] { "person.name", "person2.name", "Reserved", "person.age", "", "other.age",
+          "person[0]", "person.address.street", "pers" });
+  
+  private final StringIndex index = new StringIndex(STRINGS);
+  
+  private void assertFilter(final String prefix, final String infix, final String suffix) {
+    final List expected = StringUtils.filterStringList(prefix, infix, suffix, STRINGS);
+    assertEquals(expected, this.index.filter(prefix, infix, suffix));
+  }
+  
+  public void testPrefix() {
+    assertEquals(Arrays.asList(new String[] { "person.name", "person.age", "person.address.street" }), this.index
+        .filter("person.", null, null));
+    assertFilter("person", null, null);
+    assertFilter("pers", null, null);
+    assertFilter("persons", null, null);
+    assertFilter("", null, null);
+    assertFilter("zzz", null, null);
+  }
+  
+  public void testSuffix() {
+    assertEquals(Arrays.asList(new String[] { "person.age", "other.age" }), this.index.filter(null, null, ".age"));
+    assertFilter(null, null, "name");
+    assertFilter(null, null, "]");
+    assertFilter(null, null, "");
+  }
+  
+  public void testCombinations() {
+    assertFilter("person", "address", null);
+    assertFilter("person", null, "name");
+    assertFilter(null, "son", "age");
+    assertFilter("p", "e", "e");
+    assertFilter(null, "2", null);
+    assertFilter(null, null, null);
+  }
+  
+  public void testResultIsUnmodifiable() {
+    try {
+      this.index.filter("person", null, null).add("foo");
+      fail("expected UnsupportedOperationException");
+    } catch (final UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      this.index.getStrings().clear();
+      fail("expected UnsupportedOperationException");
+    } catch (final UnsupportedOperationException e) {
+      // expected
+    }
+  }
+  
+  public void testSourceIsCopied() {
+    final List source = new ArrayList(STRINGS);
+    final StringIndex copy = new StringIndex(source);
+    source.clear();
+    assertEquals(STRINGS, copy.getStrings());
+  }
+  
+  public void testDuplicates() {
+    final StringIndex duplicates = new StringIndex(Arrays.asList(new String[] { "", "a.b", "", "a.b", "Reserved" }));
+    assertEquals(Arrays.asList(new String[] { "a.b", "a.b" }), duplicates.filter("a.", null, null));
+    assertEquals(5, duplicates.filter("", null, null).size());
+  }
+  
+  public void testEmpty() {
+    assertTrue(new StringIndex(new ArrayList()).filter("a", "b", "c").isEmpty());
+  }
+}
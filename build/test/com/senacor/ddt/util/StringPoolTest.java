@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.util;
+
+import junit.framework.TestCase;
+
+public class StringPoolTest extends TestCase {
+  public void testReturnsSharedInstance() {
+    final StringPool pool = new StringPool(10);
+    final String first = new String("EUR");
+    final String second = new String("EUR");
+    assertSame(first, pool.intern(first));
+    assertSame(first, pool.intern(second));
+    assertSame(first, pool.intern(first));
+    assertEquals(1, pool.size());
+    assertEquals(3, pool.getLookups());
+    assertEquals(1, pool.getHits());
+    assertEquals(StringPool.estimateSize(second), pool.getBytesSaved());
+    assertNull(pool.intern(null));
+  }
+  
+  public void testBounded() {
+    final StringPool pool = new StringPool(2);
+    pool.intern("a");
+    pool.intern("b");
+    final String c = new String("c");
+    assertSame(c, pool.intern(c));
+    assertNotSame(c, pool.intern(new String("c")));
+    assertEquals(2, pool.size());
+    assertSame("a", pool.intern(new String("a")));
+  }
+  
+  public void testEstimateSize() {
+    assertEquals(40, StringPool.estimateSize(""));
+    assertEquals(48, StringPool.estimateSize("abc"));
+    assertEquals(48, StringPool.estimateSize("abcd"));
+    assertEquals(56, StringPool.estimateSize("abcde"));
+  }
+  
+  public void testConcurrentUse() throws Exception {
+    final StringPool pool = new StringPool(50);
+    final Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread() {
+        public void run() {
+          for (int i = 0; i < 1000; i++) {
+            pool.intern(String.valueOf(i % 100));
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (int t = 0; t < threads.length; t++) {
+      threads[t].join();
+    }
+    assertEquals(50, pool.size());
+    assertEquals(4000, pool.getLookups());
+  }
+  
+  public void testRejectsInvalidSize() {
+    try {
+      new StringPool(0);
+      fail();
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable index over a list of strings that answers the queries of
+ * {@link StringUtils#filterStringList(String, String, String, List)} without scanning the whole list. The strings are
+ * kept sorted once forwards and once backwards, so a prefix or suffix query is a binary search followed by a walk over
+ * the matching range. Only queries with nothing but an infix have to look at every string. Membership is checked
+ * through a hash set.
+ * <p>
+ * Results keep the order of the original list. Instances are safe for use by concurrent threads.
+ * 
+ * @version $Id$
+ */
+public class StringIndex {
+  private final List strings;
+  
+  private final Set members;
+  
+  private final Entry[] byPrefix;
+  
+  private final Entry[] bySuffix;
+  
+  /**
+   * Index the given strings. The list is copied, so later changes to it are not reflected.
+   * 
+   * @param strings
+   *          List<String> to index. Must not be null or contain null.
+   */
+  public StringIndex(final List strings) {
+    ParamChecker.notNull("strings", strings);
+    this.strings = Collections.unmodifiableList(new ArrayList(strings));
+    this.members = new HashSet(this.strings);
+    final int size = this.strings.size();
+    this.byPrefix = new Entry[size];
+    this.bySuffix = new Entry[size];
+    for (int i = 0; i < size; i++) {
+      final String string = (String) this.strings.get(i);
+      ParamChecker.require("strings must not contain null", string != null);
+      this.byPrefix[i] = new Entry(string, i);
+      this.bySuffix[i] = new Entry(reverse(string), i);
+    }
+    Arrays.sort(this.byPrefix, Entry.ORDER);
+    Arrays.sort(this.bySuffix, Entry.ORDER);
+  }
+  
+  /**
+   * @return the unmodifiable List<String> of all indexed strings, in their original order
+   */
+  public List getStrings() {
+    return this.strings;
+  }
+  
+  /**
+   * @param string
+   *          The string to look for.
+   * @return <code>true</code> if the string is indexed, <code>false</code> otherwise
+   */
+  public boolean contains(final String string) {
+    return this.members.contains(string);
+  }
+  
+  /**
+   * Find all strings that start with the given prefix, contain the given infix and end with the given suffix. All
+   * three search arguments are optional.
+   * 
+   * @param prefix
+   *          Prefix to look for. If null, this method will not filter by prefixes.
+   * @param infix
+   *          Infix to look for. If null, this method will not filter by infixes.
+   * @param suffix
+   *          Suffix to look for. If null, this method will not filter by suffixes.
+   * @return unmodifiable List<String> of the matching strings, in their original order
+   */
+  public List filter(final String prefix, final String infix, final String suffix) {
+    if ((prefix == null) && (infix == null) && (suffix == null)) {
+      return this.strings;
+    }
+    
+    // start from the narrowest range the sorted arrays can give us
+    Entry[] entries = this.byPrefix;
+    int from = 0;
+    int to = entries.length;
+    if (prefix != null) {
+      from = lowerBound(this.byPrefix, prefix);
+      to = upperBound(this.byPrefix, prefix, from);
+    }
+    if (suffix != null) {
+      final String reversedSuffix = reverse(suffix);
+      final int suffixFrom = lowerBound(this.bySuffix, reversedSuffix);
+      final int suffixTo = upperBound(this.bySuffix, reversedSuffix, suffixFrom);
+      if ((suffixTo - suffixFrom) < (to - from)) {
+        entries = this.bySuffix;
+        from = suffixFrom;
+        to = suffixTo;
+      }
+    }
+    
+    final int[] positions = new int[to - from];
+    int count = 0;
+    for (int i = from; i < to; i++) {
+      final int position = entries[i].position;
+      final String string = (String) this.strings.get(position);
+      if (((prefix == null) || string.startsWith(prefix)) && ((infix == null) || (string.indexOf(infix) > -1))
+          && ((suffix == null) || string.endsWith(suffix))) {
+        positions[count++] = position;
+      }
+    }
+    
+    Arrays.sort(positions, 0, count);
+    final List result = new ArrayList(count);
+    for (int i = 0; i < count; i++) {
+      result.add(this.strings.get(positions[i]));
+    }
+    return Collections.unmodifiableList(result);
+  }
+  
+  /**
+   * @return the index of the first entry that is not less than <code>key</code>
+   */
+  private static int lowerBound(final Entry[] entries, final String key) {
+    int low = 0;
+    int high = entries.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (entries[mid].key.compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+  
+  /**
+   * @return the index of the first entry at or after <code>from</code> that does not start with <code>prefix</code>.
+   *         All entries starting with the prefix are contiguous and begin at the lower bound of the prefix.
+   */
+  private static int upperBound(final Entry[] entries, final String prefix, final int from) {
+    int low = from;
+    int high = entries.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (entries[mid].key.startsWith(prefix)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+  
+  private static String reverse(final String string) {
+    return new StringBuffer(string).reverse().toString();
+  }
+  
+  /**
+   * A sort key together with the position of its string in the original list.
+   */
+  private static final class Entry {
+    private static final Comparator ORDER = new Comparator() {
+      public int compare(final Object o1, final Object o2) {
+        return ((Entry) o1).key.compareTo(((Entry) o2).key);
+      }
+    };
+    
+    private final String key;
+    
+    private final int position;
+    
+    private Entry(final String key, final int position) {
+      this.key = key;
+      this.position = position;
+    }
+  }
+}
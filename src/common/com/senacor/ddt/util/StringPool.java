@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replaces equal strings by a single shared instance, so that duplicates read from a data source can be garbage
+ * collected. Unlike {@link String#intern()}, the pool is an ordinary object: It is meant to be used while loading data
+ * and then dropped, along with all of its entries.
+ * <p>
+ * The pool holds at most a fixed number of distinct strings. Once it is full, strings that are not in the pool yet are
+ * returned as they are. The pool counts how many duplicates it has replaced and estimates how many bytes that saved.
+ * Instances are safe for use by concurrent threads.
+ * 
+ * @version $Id$
+ */
+public class StringPool {
+  /**
+   * Estimated size of a String object without its characters, assuming a 64 bit JVM with compressed references: 24
+   * bytes for the String itself plus a 16 byte array header.
+   */
+  private static final int STRING_OVERHEAD = 40;
+  
+  private final ConcurrentMap strings; // Map<String, String>
+  
+  private final int maxEntries;
+  
+  private final AtomicInteger entries = new AtomicInteger();
+  
+  private final AtomicLong lookups = new AtomicLong();
+  
+  private final AtomicLong hits = new AtomicLong();
+  
+  private final AtomicLong bytesSaved = new AtomicLong();
+  
+  /**
+   * @param maxEntries
+   *          The maximum number of distinct strings to pool. Must be positive.
+   */
+  public StringPool(final int maxEntries) {
+    ParamChecker.require("maxEntries must be positive", maxEntries > 0);
+    this.maxEntries = maxEntries;
+    this.strings = new ConcurrentHashMap(Math.min(maxEntries, 1024));
+  }
+  
+  /**
+   * Look up the shared instance of a string, adding the string to the pool if it is new and the pool is not full.
+   * 
+   * @param string
+   *          The string to look up. May be null.
+   * @return a string equal to the given one, or null if string is null
+   */
+  public String intern(final String string) {
+    if (string == null) {
+      return null;
+    }
+    this.lookups.incrementAndGet();
+    String shared = (String) this.strings.get(string);
+    if (shared == null) {
+      // reserve a slot first, so that concurrent additions can't exceed maxEntries
+      if (this.entries.incrementAndGet() > this.maxEntries) {
+        this.entries.decrementAndGet();
+        return string;
+      }
+      shared = (String) this.strings.putIfAbsent(string, string);
+      if (shared == null) {
+        return string;
+      }
+      this.entries.decrementAndGet();
+    }
+    if (shared != string) {
+      this.hits.incrementAndGet();
+      this.bytesSaved.addAndGet(estimateSize(string));
+    }
+    return shared;
+  }
+  
+  /**
+   * @param string
+   *          a String
+   * @return the estimated number of bytes taken by the string, rounded up to whole 8 byte words
+   */
+  public static long estimateSize(final String string) {
+    return (STRING_OVERHEAD + (2L * string.length()) + 7) & ~7L;
+  }
+  
+  /**
+   * @return the number of distinct strings in the pool
+   */
+  public int size() {
+    return this.entries.get();
+  }
+  
+  /**
+   * @return the number of non-null strings looked up so far
+   */
+  public long getLookups() {
+    return this.lookups.get();
+  }
+  
+  /**
+   * @return the number of strings that were replaced by an equal, pooled instance
+   */
+  public long getHits() {
+    return this.hits.get();
+  }
+  
+  /**
+   * @return the estimated number of bytes taken by the replaced strings
+   */
+  public long getBytesSaved() {
+    return this.bytesSaved.get();
+  }
+  
+  /**
+   * @see java.lang.Object#toString()
+   */
+  public String toString() {
+    return "StringPool[" + size() + " strings, " + getHits() + " of " + getLookups() + " lookups replaced, ~"
+        + getBytesSaved() + " bytes saved]";
+  }
+}
@@ -32,8 +32,8 @@
 package com.senacor.ddt.util;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 
 /**
  * Small helper class for dealing with strings.
@@ -46,6 +46,8 @@ public class StringUtils {
    * Filters the given list of strings, taking all elements that start with the given prefix, contain the given infix
    * and end with the given suffix and returning them as a new list. The given list will not be modified. All three
    * search arguments are optional.
+   * <p>
+   * This scans the whole list. To filter the same list repeatedly, use a {@link StringIndex}.
    * 
    * @param prefix
    *          Prefix to look for. If null, this method will not filter by prefixes.
@@ -62,35 +64,31 @@ public class StringUtils {
     if ((list == null) || list.isEmpty()) {
       return new ArrayList();
     }
-    final List result = new ArrayList(list);
-    final ListIterator iter = result.listIterator();
+    final List result = new ArrayList();
+    final Iterator iter = list.iterator();
     
     while (iter.hasNext()) {
       final String rowName = (String) iter.next();
       
       if (prefix != null) {
         if (!rowName.startsWith(prefix)) {
-          iter.remove();
-          
           continue;
         }
       }
       
       if (infix != null) {
         if (!(rowName.indexOf(infix) > -1)) {
-          iter.remove();
-          
           continue;
         }
       }
       
       if (suffix != null) {
         if (!rowName.endsWith(suffix)) {
-          iter.remove();
-          
           continue;
         }
       }
+      
+      result.add(rowName);
     }
     return result;
   }
@@ -34,15 +34,20 @@ package com.senacor.ddt.test;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.senacor.ddt.objectmatrix.ColumnProjection;
 import com.senacor.ddt.objectmatrix.ObjectMatrix;
 import com.senacor.ddt.objectmatrix.ObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.ProjectableObjectMatrixFactory;
 import com.senacor.ddt.objectmatrix.StringMatrix;
 import com.senacor.ddt.util.ParamChecker;
 
@@ -108,13 +113,16 @@ public abstract class AbstractTestSuiteBuilder {
    * Prepares the test suite. Converters available in the TestSuiteConfiguration are registered. If necessary, a
    * {@link NameRangeTestCaseFilter} is created and added to the filters in the TestSuiteConfiguration. Object matrices
    * are retrieved from the factory, {@link TestCaseData} instances are collected and returned to the calling subclass.
+   * <p>
+   * If column projection is enabled in the configuration, the filters name their test cases up front and the factory
+   * is a {@link ProjectableObjectMatrixFactory}, only the columns of the allowed test cases are loaded.
    * 
    * @return an array of all TestCaseData instances that are applicable to the current configuration.
    */
   protected final synchronized TestCaseData[] prepareSuite() {
     createFiltersIfNecessary();
     
-    final ObjectMatrix[] matrices = this.matrixFactory.create();
+    final ObjectMatrix[] matrices = createMatrices();
     assert matrices.length > 0 : "matrixFactory returned empty array!";
     
     final TestCaseData[] testCaseDatas = collectActiveTestCaseData(matrices);
@@ -143,7 +151,7 @@ public abstract class AbstractTestSuiteBuilder {
       final Iterator testCaseNames = currentMatrix.getColNames().iterator();
       while (testCaseNames.hasNext()) {
         final String currentTestCaseName = (String) testCaseNames.next();
-        if ((currentTestCaseName.length() == 0) || StringMatrix.Tokens.RESERVED.equals(currentTestCaseName)) {
+        if ((currentTestCaseName.length() == 0) || StringMatrix.Tokens.RESERVED.equalsIgnoreCase(currentTestCaseName)) {
           // we don't take columns that are reserved or don't have a name. all valid test cases have
           // a name.
           continue;
@@ -165,6 +173,41 @@ public abstract class AbstractTestSuiteBuilder {
     return (TestCaseData[]) collectedTestCaseData.toArray(new TestCaseData[collectedTestCaseData.size()]);
   }
   
+  /**
+   * Create the matrices, projected on the columns that can pass the filters if possible. Only
+   * {@link NamedTestCaseFilter}s can name their test cases up front, all other filters need the test case data. Since
+   * a test case has to pass all filters, it must be named by every such filter.
+   */
+  private ObjectMatrix[] createMatrices() {
+    if (!this.config.getProjectColumns() || !(this.matrixFactory instanceof ProjectableObjectMatrixFactory)) {
+      return this.matrixFactory.create();
+    }
+    Set allowedNames = null; // Set<String>
+    final Iterator iter = this.config.getFilters().iterator();
+    while (iter.hasNext()) {
+      final Object filter = iter.next();
+      final Collection names =
+          (filter instanceof NamedTestCaseFilter) ? ((NamedTestCaseFilter) filter).getAllowedTestCaseNames() : null;
+      if (names == null) {
+        if (log.isDebugEnabled()) {
+          log.debug("filter '" + filter + "' does not name its test cases up front");
+        }
+      } else if (allowedNames == null) {
+        allowedNames = new HashSet(names);
+      } else {
+        allowedNames.retainAll(names);
+      }
+    }
+    if (allowedNames == null) {
+      log.debug("no filter names its test cases, loading all columns");
+      return this.matrixFactory.create();
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("projecting matrices on test cases " + allowedNames);
+    }
+    return ((ProjectableObjectMatrixFactory) this.matrixFactory).create(new ColumnProjection(allowedNames));
+  }
+  
   /**
    * If either of the first/lastTestCaseName properties in TestSuiteConfiguration is specified, add a
    * NameRangeTestCaseFilter to the configuration.
@@ -69,4 +69,12 @@ public class ExcludingNameListTestCaseFilter extends NameListTestCaseFilter {
   public boolean isTestCaseAllowedToRun(final TestCaseData tcd) {
     return !super.isTestCaseAllowedToRun(tcd);
   }
+  
+  /**
+   * @return null, since every test case that is not in the list is allowed
+   * @see com.senacor.ddt.test.NameListTestCaseFilter#getAllowedTestCaseNames()
+   */
+  public Collection getAllowedTestCaseNames() {
+    return null;
+  }
 }
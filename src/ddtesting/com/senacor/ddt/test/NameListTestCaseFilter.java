@@ -39,11 +39,13 @@ import java.util.List;
 
 /**
  * Test case filter that only allows test cases in its name list.
+ * <p>
+ * Subclasses that allow test cases which are not in the list must override {@link #getAllowedTestCaseNames()}.
  * 
  * @author Carl-Eric Menzel
  * @version $Id$
  */
-public class NameListTestCaseFilter implements TestCaseFilter {
+public class NameListTestCaseFilter implements NamedTestCaseFilter {
   private final List allowedNames = new ArrayList(); // List<String>
   
   /**
@@ -80,6 +82,14 @@ public class NameListTestCaseFilter implements TestCaseFilter {
     return Collections.unmodifiableList(this.allowedNames);
   }
   
+  /**
+   * @return the names in the list
+   * @see com.senacor.ddt.test.NamedTestCaseFilter#getAllowedTestCaseNames()
+   */
+  public Collection getAllowedTestCaseNames() {
+    return getAllowedNames();
+  }
+  
   /**
    * @return true if <code>getAllowedNames().contains(tcd.getTestCaseName())</code>.
    * @see com.senacor.ddt.test.TestCaseFilter#isTestCaseAllowedToRun(com.senacor.ddt.test.TestCaseData)
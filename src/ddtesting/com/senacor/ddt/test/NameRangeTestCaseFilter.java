@@ -31,6 +31,9 @@
 
 package com.senacor.ddt.test;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import com.senacor.ddt.util.ParamChecker;
 
 /**
@@ -42,7 +45,7 @@ import com.senacor.ddt.util.ParamChecker;
  * @author Carl-Eric Menzel
  * @version $Id$
  */
-public class NameRangeTestCaseFilter implements TestCaseFilter {
+public class NameRangeTestCaseFilter implements NamedTestCaseFilter {
   private final String first;
   
   private final String last;
@@ -82,6 +85,20 @@ public class NameRangeTestCaseFilter implements TestCaseFilter {
     }
   }
   
+  /**
+   * Which test cases lie within a range depends on the order of the columns, so they are only known up front if the
+   * range consists of a single test case.
+   * 
+   * @return the single allowed test case name if first and last name are equal, null otherwise
+   * @see com.senacor.ddt.test.NamedTestCaseFilter#getAllowedTestCaseNames()
+   */
+  public Collection getAllowedTestCaseNames() {
+    if ((this.first != null) && this.first.equals(this.last)) {
+      return Collections.singleton(this.first);
+    }
+    return null;
+  }
+  
   /**
    * @see com.senacor.ddt.test.TestCaseFilter#isTestCaseAllowedToRun(com.senacor.ddt.test.TestCaseData)
    */
@@ -37,6 +37,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
+import com.senacor.ddt.objectmatrix.DelegatingObjectMap;
 import com.senacor.ddt.objectmatrix.ObjectMap;
 import com.senacor.ddt.objectmatrix.ObjectMatrix;
 import com.senacor.ddt.objectmatrix.StringMatrix;
@@ -58,7 +60,13 @@ public final class TestCaseData {
   
   private final String testId;
   
-  private final ObjectMap objectMap;
+  private final ObjectMatrix objectMatrix;
+  
+  /**
+   * The column of the test case. Fetched on first use, so that lazily built matrices are only built for test cases that
+   * actually run.
+   */
+  private ObjectMap objectMap;
   
   private final StringFilter beanFillerKeyFilter;
   
@@ -80,7 +88,7 @@ public final class TestCaseData {
     ParamChecker.notNull("config", config);
     if (objectMatrix.getColNames().contains(testCaseName)) {
       this.testCaseName = testCaseName;
-      this.objectMap = objectMatrix.getObjectMapForColumn(testCaseName);
+      this.objectMatrix = objectMatrix;
       this.config = config;
       this.testId = "(Test '" + getTestCaseName() + "' on Object Matrix '" + objectMatrix.getMatrixIdentifier() + "') ";
       this.ignoreAllNulls = config.getIgnoreAllNulls();
@@ -91,12 +99,19 @@ public final class TestCaseData {
     this.beanFillerKeyFilter = new StringFilter();
   }
   
+  private ObjectMap getObjectMap() {
+    if (this.objectMap == null) {
+      this.objectMap = this.objectMatrix.getObjectMapForColumn(this.testCaseName);
+    }
+    return this.objectMap;
+  }
+  
   private BeanFiller createBeanFiller() {
     BeanFiller bf;
     if (this.config.getBeanAccessStrategyFactory() != null) {
-      bf = new BeanFiller(this.objectMap, this.config.getBeanAccessStrategyFactory().create());
+      bf = new BeanFiller(getObjectMap(), this.config.getBeanAccessStrategyFactory().create());
     } else {
-      bf = new BeanFiller(this.objectMap);
+      bf = new BeanFiller(getObjectMap());
     }
     bf.setIgnoreAllNulls(this.ignoreAllNulls);
     bf.setKeyFilter(this.beanFillerKeyFilter);
@@ -110,6 +125,7 @@ public final class TestCaseData {
    */
   public TestCaseData(final TestCaseData original) {
     this.testCaseName = original.testCaseName;
+    this.objectMatrix = original.objectMatrix;
     this.objectMap = original.objectMap;
     this.config = original.config;
     this.beanFillerKeyFilter = new StringFilter(original.beanFillerKeyFilter);
@@ -135,49 +151,49 @@ public final class TestCaseData {
    * @see ObjectMap#getBoolean(java.lang.String)
    */
   public Boolean getBoolean(final String rowName) {
-    return this.objectMap.getBoolean(rowName);
+    return getObjectMap().getBoolean(rowName);
   }
   
   /**
    * @see ObjectMap#getString(java.lang.String)
    */
   public String getString(final String rowName) {
-    return this.objectMap.getString(rowName);
+    return getObjectMap().getString(rowName);
   }
   
   /**
    * @see ObjectMap#getBigDecimal(java.lang.String)
    */
   public BigDecimal getBigDecimal(final String rowName) {
-    return this.objectMap.getBigDecimal(rowName);
+    return getObjectMap().getBigDecimal(rowName);
   }
   
   /**
    * @see ObjectMap#getInteger(java.lang.String)
    */
   public Integer getInteger(final String rowName) {
-    return this.objectMap.getInteger(rowName);
+    return getObjectMap().getInteger(rowName);
   }
   
   /**
    * @see ObjectMap#getLong(java.lang.String)
    */
   public Long getLong(final String rowName) {
-    return this.objectMap.getLong(rowName);
+    return getObjectMap().getLong(rowName);
   }
   
   /**
    * @see ObjectMap#getDouble(java.lang.String)
    */
   public Double getDouble(final String rowName) {
-    return this.objectMap.getDouble(rowName);
+    return getObjectMap().getDouble(rowName);
   }
   
   /**
    * @see ObjectMap#getDate(java.lang.String)
    */
   public Date getDate(final String rowName) {
-    return this.objectMap.getDate(rowName);
+    return getObjectMap().getDate(rowName);
   }
   
   /**
@@ -199,7 +215,7 @@ public final class TestCaseData {
    * @see ObjectMap#getObject(java.lang.String,java.lang.Class)
    */
   public Object getObject(final Class type, final String rowName) {
-    return this.objectMap.getObject(rowName, type);
+    return getObjectMap().getObject(rowName, type);
   }
   
   /**
@@ -209,20 +225,28 @@ public final class TestCaseData {
    * @return The description, or an empty String if there is none.
    */
   public String getDescription() {
-    if (this.objectMap.getKeys().contains("description")) {
+    if (containsKey("description")) {
       return getString("description");
     } else {
       return "";
     }
   }
   
+  private boolean containsKey(final String key) {
+    final ObjectMap map = getObjectMap();
+    if (map instanceof DelegatingObjectMap) {
+      return ((DelegatingObjectMap) map).containsKey(key);
+    }
+    return map.getKeys().contains(key);
+  }
+  
   /**
    * Returns the list of all available row names for the underlying matrix.
    * 
    * @return the list
    */
   public List getRowNames() {
-    return this.objectMap.getKeys();
+    return getObjectMap().getKeys();
   }
   
   /**
@@ -251,7 +275,14 @@ public final class TestCaseData {
    * @see ObjectMap#getAnnotation(String)
    */
   public Properties getAnnotation(final String rowName) {
-    return this.objectMap.getAnnotation(rowName);
+    return getObjectMap().getAnnotation(rowName);
+  }
+  
+  /**
+   * @see CellAnnotation#forKey(ObjectMap, String)
+   */
+  public CellAnnotation getCellAnnotation(final String rowName) {
+    return CellAnnotation.forKey(getObjectMap(), rowName);
   }
   
   /**
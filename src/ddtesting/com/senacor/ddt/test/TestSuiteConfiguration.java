@@ -53,6 +53,8 @@ public class TestSuiteConfiguration {
   
   private int numberOfThreads = 1;
   
+  private boolean projectColumns;
+  
   private final List filters = new ArrayList();
   
   private BeanAccessStrategyFactory beanAccessStrategyFactory;
@@ -115,6 +117,29 @@ public class TestSuiteConfiguration {
     this.numberOfThreads = numberOfThreads;
   }
   
+  /**
+   * @return whether only the columns of allowed test cases are loaded
+   */
+  public boolean getProjectColumns() {
+    return this.projectColumns;
+  }
+  
+  /**
+   * Load only the columns of the test cases that can pass the filters, if the filters name these test cases up front
+   * (see {@link NamedTestCaseFilter}) and the matrix factory is a
+   * {@link com.senacor.ddt.objectmatrix.ProjectableObjectMatrixFactory}. This saves memory and time for large sheets
+   * of which only a few test cases are run. The columns of other test cases can't be read by the test code then,
+   * except for the columns that annotations refer to, see {@link com.senacor.ddt.objectmatrix.ColumnProjection}.
+   * The projection only applies to the matrices created for the suite, the factory itself is not changed. Defaults to
+   * false.
+   * 
+   * @param projectColumns
+   *          projection flag
+   */
+  public void setProjectColumns(final boolean projectColumns) {
+    this.projectColumns = projectColumns;
+  }
+  
   /**
    * Add a {@link TestCaseFilter}.
    * 
@@ -31,45 +31,286 @@
 
 package com.senacor.ddt.objectmatrix;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+import com.senacor.ddt.util.StringPool;
 
 /**
  * An abstract {@link ObjectMatrixFactory} implementation based on {@link DefaultStringMatrix}. Subclasses will only
  * have to provide the appropriate {@link DefaultStringMatrix.StringMatrixReader StringMatrixReader} implementations,
  * this class will create {@link DelegatingObjectMatrix} instances on top of {@link DefaultStringMatrix
  * DefaultStringMatrices} using the given readers.
+ * <p>
+ * Building the title indices and parsing the annotations of each matrix can be spread over several threads, see
+ * {@link #setLoaderThreads(int)}, or put off until a matrix is actually used, see {@link #setLazy(boolean)}.
+ * <p>
+ * Subclasses whose readers can skip unneeded columns pass {@link #getColumnProjection()} on to them.
+ * <p>
+ * Equal strings in the matrices of one {@link #create()} call can be shared, see {@link #setStringPoolSize(int)}.
+ * <p>
+ * How long each phase of {@link #create()} takes and how much heap each matrix retains is reported to the listeners
+ * added by {@link #addLoadListener(MatrixLoadListener)}, and logged with level INFO if
+ * {@link #setLogLoadStatistics(boolean)} is switched on.
  * 
  * @author Carl-Eric Menzel
  * @version $Id$
  */
 public abstract class AbstractDefaultStringMatrixBasedObjectMatrixFactory extends
-    AbstractDelegatingOMBasedObjectMatrixFactory {
+    AbstractDelegatingOMBasedObjectMatrixFactory implements ProjectableObjectMatrixFactory {
+  private static final Log log = LogFactory.getLog(AbstractDefaultStringMatrixBasedObjectMatrixFactory.class);
+  
+  private static final long NANOS_PER_MILLI = 1000000L;
+  
   private int rowContainingColumnTitles = 0;
   
   private int columnContainingRowTitles = 0;
   
+  private int loaderThreads = 1;
+  
+  private boolean lazy = false;
+  
+  private ColumnProjection columnProjection = null;
+  
+  private int stringPoolSize = 0;
+  
+  private volatile long stringBytesSaved = 0;
+  
+  private final List loadListeners = new CopyOnWriteArrayList(); // List<MatrixLoadListener>
+  
+  private boolean logLoadStatistics = false;
+  
+  /**
+   * Build the string matrices and the object matrices on top of them, timing each phase. In lazy mode, hand out
+   * {@link LazyObjectMatrix} handles instead of building the matrices right away.
+   */
+  ObjectMatrix[] createObjectMatrices() {
+    final long start = System.nanoTime();
+    final StringPool pool = createStringPool();
+    final StringMatrixReader[] readers = createReaders();
+    final long read = System.nanoTime();
+    final ObjectMatrix[] matrices = new ObjectMatrix[readers.length];
+    final MatrixLoadStatistics[] statistics;
+    final long built;
+    if (this.lazy) {
+      // there is no concurrent phase in lazy mode, so prepare the readers and share the strings right away
+      for (int i = 0; i < readers.length; i++) {
+        readers[i] = prepareReader(readers[i]);
+      }
+      readersPrepared();
+      internStrings(readers, pool);
+      releaseStringPool(pool);
+      statistics = isInstrumented() ? new MatrixLoadStatistics[0] : null;
+      built = read;
+      for (int i = 0; i < readers.length; i++) {
+        matrices[i] =
+            new LazyObjectMatrix(readers[i], this.columnContainingRowTitles, this.rowContainingColumnTitles,
+                getLocalTransformer(), getValueCacheSize());
+      }
+    } else {
+      statistics = isInstrumented() ? new MatrixLoadStatistics[readers.length] : null;
+      final AnnotatedStringMatrix[] stringMatrices = createStringMatrices(readers, pool, statistics);
+      readersPrepared();
+      releaseStringPool(pool);
+      built = System.nanoTime();
+      for (int i = 0; i < readers.length; i++) {
+        matrices[i] = createObjectMatrix(stringMatrices[i], getLocalTransformer(), getValueCacheSize());
+      }
+    }
+    if (statistics != null) {
+      loadFinished(statistics, read - start, built - read, System.nanoTime() - built);
+    }
+    return matrices;
+  }
+  
   /**
    * @return -
    * @see com.senacor.ddt.objectmatrix.ObjectMatrixFactory#create()
    */
   protected final AnnotatedStringMatrix[] createStringMatrices() {
     // get the readers
-    final StringMatrixReader[] readers = createReaders();
+    final StringPool pool = createStringPool();
+    final AnnotatedStringMatrix[] matrices = createStringMatrices(createReaders(), pool, null);
+    readersPrepared();
+    releaseStringPool(pool);
     
+    return matrices;
+  }
+  
+  /**
+   * Create one matrix for each reader.
+   * 
+   * @param statistics
+   *          If not null, the statistics of each matrix are stored at the index of its reader.
+   */
+  private AnnotatedStringMatrix[] createStringMatrices(final StringMatrixReader[] readers, final StringPool pool,
+      final MatrixLoadStatistics[] statistics) {
     // we'll have one matrix for each reader
     final AnnotatedStringMatrix[] matrices = new AnnotatedStringMatrix[readers.length];
     
-    // walk over the readers and create the matrices
-    for (int i = 0; i < matrices.length; i++) {
-      final StringMatrixReader reader = readers[i];
-      final DefaultStringMatrix stringMatrix =
-          new DefaultStringMatrix(reader, this.columnContainingRowTitles, this.rowContainingColumnTitles);
-      matrices[i] = new EmbeddedAnnotationMatrixDecorator(stringMatrix);
+    final int threads = Math.min(this.loaderThreads, readers.length);
+    if (threads <= 1) {
+      // walk over the readers and create the matrices
+      for (int i = 0; i < matrices.length; i++) {
+        matrices[i] = createStringMatrix(readers, i, pool, statistics);
+      }
+    } else {
+      createStringMatricesConcurrently(readers, matrices, threads, pool, statistics);
     }
     
     return matrices;
   }
   
+  /**
+   * Create the matrices for all readers on a fixed pool of worker threads. Each matrix is stored at the index of its
+   * reader, so the result order does not depend on which thread finishes first.
+   */
+  private void createStringMatricesConcurrently(final StringMatrixReader[] readers,
+      final AnnotatedStringMatrix[] matrices, final int threads, final StringPool pool,
+      final MatrixLoadStatistics[] statistics) {
+    log.debug("Creating " + readers.length + " matrices using " + threads + " threads...");
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final Future[] results = new Future[readers.length];
+      for (int i = 0; i < readers.length; i++) {
+        final int index = i;
+        results[i] = executor.submit(new Callable() {
+          public Object call() {
+            return createStringMatrix(readers, index, pool, statistics);
+          }
+        });
+      }
+      for (int i = 0; i < results.length; i++) {
+        matrices[i] = (AnnotatedStringMatrix) results[i].get();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ObjectMatrixCreationFailedException("Interrupted while creating matrices", e);
+    } catch (final ExecutionException e) {
+      // rethrow the original exception, e.g. a DuplicateColumnTitleException, just as in the sequential case
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new ObjectMatrixCreationFailedException("Failed to create matrix", cause);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    log.debug("Creating " + readers.length + " matrices using " + threads + " threads... done.");
+  }
+  
+  /**
+   * Prepare a single reader and share its strings through the pool, then build its title index and annotations. This
+   * runs on the loader threads, so copying the cells of several readers is spread over them as well. If statistics are
+   * wanted, they are stored at the index of the reader and reported right away.
+   */
+  private AnnotatedStringMatrix createStringMatrix(final StringMatrixReader[] readers, final int index,
+      final StringPool pool, final MatrixLoadStatistics[] statistics) {
+    StringMatrixReader reader = prepareReader(readers[index]);
+    if (pool != null) {
+      reader = new SnapshotStringMatrixReader(reader, pool);
+    }
+    // the original reader can be garbage collected now
+    readers[index] = reader;
+    final long start = System.nanoTime();
+    final DefaultStringMatrix stringMatrix =
+        new DefaultStringMatrix(reader, this.columnContainingRowTitles, this.rowContainingColumnTitles);
+    final long indexed = System.nanoTime();
+    final EmbeddedAnnotationMatrixDecorator matrix = new EmbeddedAnnotationMatrixDecorator(stringMatrix, false, pool);
+    if (statistics != null) {
+      final long split = System.nanoTime();
+      final HeapEstimate heap = new HeapEstimate();
+      stringMatrix.estimateRetainedBytes(heap);
+      matrix.estimateRetainedBytes(heap);
+      statistics[index] =
+          new MatrixLoadStatistics(reader.getIdentifier(), reader.getNumberOfColumns(), reader.getNumberOfRows(),
+              indexed - start, split - indexed, heap);
+      matrixLoaded(statistics[index]);
+    }
+    return matrix;
+  }
+  
+  /**
+   * @return true if the statistics of the matrices should be gathered
+   */
+  private boolean isInstrumented() {
+    return this.logLoadStatistics || !this.loadListeners.isEmpty();
+  }
+  
+  private void matrixLoaded(final MatrixLoadStatistics statistics) {
+    if (this.logLoadStatistics) {
+      log.info(statistics);
+    } else {
+      log.debug(statistics);
+    }
+    final Iterator listeners = this.loadListeners.iterator();
+    while (listeners.hasNext()) {
+      ((MatrixLoadListener) listeners.next()).matrixLoaded(statistics);
+    }
+  }
+  
+  private void loadFinished(final MatrixLoadStatistics[] statistics, final long readNanos, final long buildNanos,
+      final long objectNanos) {
+    if (this.logLoadStatistics || log.isDebugEnabled()) {
+      final String summary =
+          "Created " + statistics.length + " matrices in " + ((readNanos + buildNanos + objectNanos) / NANOS_PER_MILLI)
+              + " ms: reading " + (readNanos / NANOS_PER_MILLI) + " ms, building " + (buildNanos / NANOS_PER_MILLI)
+              + " ms, creating object matrices " + (objectNanos / NANOS_PER_MILLI) + " ms";
+      if (this.logLoadStatistics) {
+        log.info(summary);
+      } else {
+        log.debug(summary);
+      }
+    }
+    final Iterator listeners = this.loadListeners.iterator();
+    while (listeners.hasNext()) {
+      ((MatrixLoadListener) listeners.next()).loadFinished(statistics, readNanos, buildNanos, objectNanos);
+    }
+  }
+  
+  /**
+   * @return a new pool for a single call to {@link #create()}, or null if strings are not to be shared
+   */
+  private StringPool createStringPool() {
+    return (this.stringPoolSize > 0) ? new StringPool(this.stringPoolSize) : null;
+  }
+  
+  /**
+   * Copy each reader into a snapshot whose cells are shared through the pool. The original readers can be garbage
+   * collected afterwards.
+   */
+  private static void internStrings(final StringMatrixReader[] readers, final StringPool pool) {
+    if (pool != null) {
+      for (int i = 0; i < readers.length; i++) {
+        readers[i] = new SnapshotStringMatrixReader(readers[i], pool);
+      }
+    }
+  }
+  
+  /**
+   * Report the savings of the pool. The pool itself is not referenced afterwards.
+   */
+  private void releaseStringPool(final StringPool pool) {
+    if (pool != null) {
+      this.stringBytesSaved = pool.getBytesSaved();
+      log.info("Shared equal strings while loading: " + pool);
+    }
+  }
+  
   /**
    * Create the appropriate number of {@link DefaultStringMatrix.StringMatrixReader}s of the correct type. This method
    * will be called during {@link #create()}. The implementation depends on the requirements of the StringMatrixReaders
@@ -79,6 +320,44 @@ public abstract class AbstractDefaultStringMatrixBasedObjectMatrixFactory extend
    */
   protected abstract StringMatrixReader[] createReaders();
   
+  /**
+   * Called once for each reader returned by {@link #createReaders()}, on the loader threads (see
+   * {@link #setLoaderThreads(int)}) right before the title index of the reader is built. Subclasses can do expensive
+   * work per reader here, e.g. copy it into a {@link SnapshotStringMatrixReader}, so that it is spread over the loader
+   * threads. Several readers may be prepared concurrently. In lazy mode, all readers are prepared by the calling thread
+   * during {@link #create()}. The default implementation returns the reader unchanged.
+   * 
+   * @param reader
+   *          one of the readers returned by {@link #createReaders()}
+   * @return the reader to build the matrix from
+   */
+  protected StringMatrixReader prepareReader(final StringMatrixReader reader) {
+    return reader;
+  }
+  
+  /**
+   * Called once by the calling thread after all readers returned by {@link #createReaders()} have been prepared, see
+   * {@link #prepareReader(StringMatrixReader)}. Subclasses can release resources here that were only needed to prepare
+   * the readers. It is not called if preparing a reader or building a matrix failed. The default implementation does
+   * nothing.
+   */
+  protected void readersPrepared() {
+    // nothing to release
+  }
+  
+  /**
+   * Describe everything besides the content of the source that determines the cells returned by
+   * {@link #createReaders()}, e.g. the names of the sheets to read or the delimiter of a CSV file. Two factories of the
+   * same class with equal keys must return equal cells for the same source. {@link CachingObjectMatrixFactory} adds
+   * the key to the name of its cache file. The column projection does not need to be part of the key. The default
+   * implementation returns null.
+   * 
+   * @return the key, or null if the readers of this factory must not be cached
+   */
+  protected String getCacheKey() {
+    return null;
+  }
+  
   /**
    * Index of the column containing the embedded row titles. Defaults to 0.
    * 
@@ -102,4 +381,137 @@ public abstract class AbstractDefaultStringMatrixBasedObjectMatrixFactory extend
   public void setRowContainingColumnTitles(final int rowContainingColumnTitles) {
     this.rowContainingColumnTitles = rowContainingColumnTitles;
   }
+  
+  /**
+   * Maximum number of threads used to build the title indices and annotations of the matrices returned by
+   * {@link #createReaders()}. The readers themselves are always created by the calling thread. Defaults to 1, i.e. all
+   * matrices are built one after another by the calling thread.
+   * <p>
+   * Note that the readers returned by {@link #createReaders()} may then be read concurrently, so they must be
+   * thread-safe.
+   * 
+   * @param loaderThreads
+   *          number of threads, at least 1
+   */
+  public void setLoaderThreads(final int loaderThreads) {
+    ParamChecker.require("loaderThreads must be at least 1", loaderThreads >= 1);
+    this.loaderThreads = loaderThreads;
+  }
+  
+  /**
+   * @return the maximum number of loader threads, see {@link #setLoaderThreads(int)}
+   */
+  protected int getLoaderThreads() {
+    return this.loaderThreads;
+  }
+  
+  /**
+   * Put off building the matrices until they are used. If <code>true</code>, {@link #create()} only creates the
+   * readers and returns a {@link LazyObjectMatrix} for each. Its row and column names are read from the titles, and
+   * cell references are checked for cycles, right away; all other cells are only parsed when the first cell is read.
+   * This makes it cheap to create many matrices of which only a few are used, e.g. when test case filters drop most of
+   * them. A {@link CircularReferenceException} is still thrown by {@link #create()}. The loader threads are not used in
+   * lazy mode. Defaults to <code>false</code>.
+   * 
+   * @param lazy
+   *          <code>true</code> to build the matrices on first use
+   */
+  public void setLazy(final boolean lazy) {
+    this.lazy = lazy;
+  }
+  
+  /**
+   * Share equal strings between all matrices created by one call to {@link #create()}. The cells of each reader are
+   * copied into a {@link SnapshotStringMatrixReader} on the loader threads, see {@link #setLoaderThreads(int)}, and
+   * the cells of all readers as well as the cell contents without annotations are looked up in a common
+   * {@link StringPool}. This saves memory if the same values, e.g. "true", "0" or class names, appear many times. The
+   * pool is dropped when <code>create()</code> returns. In lazy mode, only the cells of the readers are shared, on the
+   * calling thread. Defaults to 0, i.e. strings are not shared.
+   * 
+   * @param maxEntries
+   *          The maximum number of distinct strings in the pool. If 0, strings will not be shared.
+   */
+  public void setStringPoolSize(final int maxEntries) {
+    ParamChecker.require("maxEntries must not be negative", maxEntries >= 0);
+    this.stringPoolSize = maxEntries;
+  }
+  
+  /**
+   * @return the estimated number of bytes saved by sharing strings during the last call to {@link #create()}, see
+   *         {@link #setStringPoolSize(int)}
+   */
+  public long getStringBytesSaved() {
+    return this.stringBytesSaved;
+  }
+  
+  /**
+   * Report the duration of each phase of {@link #create()} and the estimated heap retained by each matrix to the given
+   * listener. Gathering the statistics takes extra time, so it is only done while at least one listener is registered
+   * or {@link #setLogLoadStatistics(boolean)} is switched on. While listeners are registered, the statistics are also
+   * logged with level DEBUG.
+   * 
+   * @param listener
+   *          the listener. Must not be null.
+   */
+  public void addLoadListener(final MatrixLoadListener listener) {
+    ParamChecker.notNull("listener", listener);
+    this.loadListeners.add(listener);
+  }
+  
+  /**
+   * @param listener
+   *          a listener added by {@link #addLoadListener(MatrixLoadListener)}
+   */
+  public void removeLoadListener(final MatrixLoadListener listener) {
+    this.loadListeners.remove(listener);
+  }
+  
+  /**
+   * Log the statistics of every {@link #create()} with level INFO: one line per matrix with its phase timings and
+   * estimated heap, see {@link MatrixLoadStatistics#toString()}, and one summary line per call. This works without
+   * registering a listener. Enabling DEBUG logging alone does not gather the statistics, since that takes extra time.
+   * Defaults to <code>false</code>.
+   * 
+   * @param logLoadStatistics
+   *          <code>true</code> to log the statistics of each matrix
+   */
+  public void setLogLoadStatistics(final boolean logLoadStatistics) {
+    this.logLoadStatistics = logLoadStatistics;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ProjectableObjectMatrixFactory#setColumnProjection(ColumnProjection)
+   */
+  public void setColumnProjection(final ColumnProjection projection) {
+    this.columnProjection = projection;
+  }
+  
+  /**
+   * The projection is set for the duration of the call and restored afterwards, so this must not be called while
+   * another thread creates matrices with the same factory.
+   * 
+   * @see com.senacor.ddt.objectmatrix.ProjectableObjectMatrixFactory#create(ColumnProjection)
+   */
+  public synchronized ObjectMatrix[] create(final ColumnProjection projection) {
+    final ColumnProjection previous = this.columnProjection;
+    this.columnProjection = projection;
+    try {
+      return create();
+    } finally {
+      this.columnProjection = previous;
+    }
+  }
+  
+  /**
+   * The columns the readers returned by {@link #createReaders()} should keep, adjusted to the title row and column of
+   * this factory.
+   * 
+   * @return the projection, or null if all columns should be kept
+   */
+  protected ColumnProjection getColumnProjection() {
+    if (this.columnProjection == null) {
+      return null;
+    }
+    return this.columnProjection.atTitles(this.columnContainingRowTitles, this.rowContainingColumnTitles);
+  }
 }
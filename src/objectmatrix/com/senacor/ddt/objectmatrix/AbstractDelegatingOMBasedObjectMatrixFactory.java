@@ -50,6 +50,8 @@ import com.senacor.ddt.util.ParamChecker;
 public abstract class AbstractDelegatingOMBasedObjectMatrixFactory implements ObjectMatrixFactory {
   private Transformer localTransformer;
   
+  private int valueCacheSize;
+  
   /**
    * Set a local master transformer. This transformer will be passed to the newly created {@link DelegatingObjectMatrix}
    * instances.
@@ -62,6 +64,19 @@ public abstract class AbstractDelegatingOMBasedObjectMatrixFactory implements Ob
     this.localTransformer = localTransformer;
   }
   
+  /**
+   * Give each newly created {@link DelegatingObjectMatrix} its own {@link ValueCache} of the given size. By default,
+   * converted values are not cached.
+   * 
+   * @param maxEntries
+   *          The maximum number of cached values per matrix. If 0, values will not be cached.
+   * @see DelegatingObjectMatrix#setValueCache(ValueCache)
+   */
+  public void setValueCacheSize(final int maxEntries) {
+    ParamChecker.require("maxEntries must not be negative", maxEntries >= 0);
+    this.valueCacheSize = maxEntries;
+  }
+  
   /**
    * A simple wrapper around {@link URL#openStream()}. This is used to facilitate a null check on the URL object. The
    * constructor calling this method can't do it, since it is not allowed to place any statements before constructor
@@ -89,25 +104,61 @@ public abstract class AbstractDelegatingOMBasedObjectMatrixFactory implements Ob
    * @see com.senacor.ddt.objectmatrix.ObjectMatrixFactory#create()
    */
   public final ObjectMatrix[] create() {
+    return createObjectMatrices();
+  }
+  
+  /**
+   * Create the object matrices over the string matrices provided by {@link #createStringMatrices()}. Subclasses in this
+   * package may override this to hand out matrices that are built later.
+   * 
+   * @return the result of {@link #create()}
+   */
+  ObjectMatrix[] createObjectMatrices() {
     final AnnotatedStringMatrix[] stringMatrices = createStringMatrices();
     
     final ObjectMatrix[] objectMatrices = new ObjectMatrix[stringMatrices.length];
     
     // walk over the readers and create the matrices
     for (int i = 0; i < objectMatrices.length; i++) {
-      final AnnotatedStringMatrix stringMatrix = stringMatrices[i];
-      final DelegatingObjectMatrix objectMatrix;
-      if (this.localTransformer == null) {
-        objectMatrix = new DelegatingObjectMatrix(stringMatrix);
-      } else {
-        objectMatrix = new DelegatingObjectMatrix(stringMatrix, this.localTransformer);
-      }
-      objectMatrices[i] = objectMatrix;
+      objectMatrices[i] = createObjectMatrix(stringMatrices[i], this.localTransformer, this.valueCacheSize);
     }
     
     return objectMatrices;
   }
   
+  /**
+   * Create a single object matrix with the given settings.
+   * 
+   * @param stringMatrix
+   *          The string matrix to delegate to.
+   * @param localTransformer
+   *          The transformer to use, or null for the global one.
+   * @param valueCacheSize
+   *          The size of the value cache, or 0 for none.
+   * @return the new matrix
+   */
+  static DelegatingObjectMatrix createObjectMatrix(final AnnotatedStringMatrix stringMatrix,
+      final Transformer localTransformer, final int valueCacheSize) {
+    final DelegatingObjectMatrix objectMatrix;
+    if (localTransformer == null) {
+      objectMatrix = new DelegatingObjectMatrix(stringMatrix);
+    } else {
+      objectMatrix = new DelegatingObjectMatrix(stringMatrix, localTransformer);
+    }
+    if (valueCacheSize > 0) {
+      objectMatrix.setValueCache(new ValueCache(valueCacheSize));
+    }
+    return objectMatrix;
+  }
+  
+  Transformer getLocalTransformer() {
+    return this.localTransformer;
+  }
+  
+  int getValueCacheSize() {
+    return this.valueCacheSize;
+  }
+  
   /**
    * Provide all required {@link StringMatrix} instances. This factory will call this method to receive from concrete
    * subclasses the StringMatrices required to create the ObjectMatrices.
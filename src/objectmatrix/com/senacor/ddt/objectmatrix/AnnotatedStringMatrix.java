@@ -36,6 +36,10 @@ import java.util.Properties;
 /**
  * A StringMatrix that provides annotations for each field in the form of key-value pairs, modeled as Java Properties
  * objects.
+ * <p>
+ * Implementations that keep the annotations as {@link CellAnnotation}s also implement
+ * {@link CellAnnotatedStringMatrix}. {@link CellAnnotation#forCell(AnnotatedStringMatrix, String, String)} reads the
+ * annotations of any AnnotatedStringMatrix as a CellAnnotation.
  * 
  * @author Carl-Eric Menzel
  * @version $Id$
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+
+/**
+ * Reads and writes the binary cache files used by {@link CachingObjectMatrixFactory}. A cache file holds the raw cells
+ * of any number of matrices, i.e. exactly what the original {@link StringMatrixReader}s returned, including the title
+ * row and column and all embedded annotations. Every distinct string is stored only once.
+ * <p>
+ * Layout, all numbers are big endian ints:
+ * <ul>
+ * <li>Header: magic, version, number of matrices, number of strings.</li>
+ * <li>String index: offset (in bytes, relative to the start of the file) and length (in chars) of every string.</li>
+ * <li>For every matrix: string index of its identifier, number of columns, number of rows and the string indices of
+ * all cells, column by column. A null cell is stored as {@value #NULL_INDEX}.</li>
+ * <li>String data: the characters of all strings as UTF-16.</li>
+ * </ul>
+ * Cache files are read via a read-only memory mapping. Cells are decoded on first access only, so opening a cache file
+ * costs little more than paging it in.
+ * 
+ * @version $Id$
+ */
+final class BinaryMatrixCache {
+  /**
+   * "DDTM"
+   */
+  private static final int MAGIC = 0x4444544D;
+  
+  private static final int VERSION = 2;
+  
+  /**
+   * The string index of null cells, which are kept apart from empty strings.
+   */
+  static final int NULL_INDEX = -1;
+  
+  private static final int HEADER_SIZE = 16;
+  
+  private BinaryMatrixCache() {
+    // static helper
+  }
+  
+  /**
+   * Write the cells of the given readers to the given file. The file is first written under a temporary name and then
+   * renamed, so concurrent readers never see a partially written cache file.
+   * 
+   * @param file
+   *          The cache file to write.
+   * @param readers
+   *          The readers to store.
+   * @throws IOException
+   *           if the file can't be written
+   */
+  static void write(final File file, final StringMatrixReader[] readers) throws IOException {
+    final Map stringIndices = new HashMap();
+    final List strings = new ArrayList();
+    final int[][] cells = new int[readers.length][];
+    final int[] identifiers = new int[readers.length];
+    int cellCount = 0;
+    for (int m = 0; m < readers.length; m++) {
+      final StringMatrixReader reader = readers[m];
+      final int columns = reader.getNumberOfColumns();
+      final int rows = reader.getNumberOfRows();
+      identifiers[m] = indexOf(reader.getIdentifier(), stringIndices, strings);
+      cells[m] = new int[columns * rows];
+      for (int col = 0; col < columns; col++) {
+        for (int row = 0; row < rows; row++) {
+          cells[m][col * rows + row] = indexOf(reader.getString(col, row), stringIndices, strings);
+        }
+      }
+      cellCount += cells[m].length;
+    }
+    
+    final File tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+    try {
+      final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+      try {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(readers.length);
+        out.writeInt(strings.size());
+        
+        // strings come after the index and the matrices
+        int offset = HEADER_SIZE + 8 * strings.size() + 4 * (3 * readers.length + cellCount);
+        for (int i = 0; i < strings.size(); i++) {
+          final int length = ((String) strings.get(i)).length();
+          out.writeInt(offset);
+          out.writeInt(length);
+          offset += 2 * length;
+        }
+        for (int m = 0; m < readers.length; m++) {
+          out.writeInt(identifiers[m]);
+          out.writeInt(readers[m].getNumberOfColumns());
+          out.writeInt(readers[m].getNumberOfRows());
+          for (int i = 0; i < cells[m].length; i++) {
+            out.writeInt(cells[m][i]);
+          }
+        }
+        for (int i = 0; i < strings.size(); i++) {
+          out.writeChars((String) strings.get(i));
+        }
+      } finally {
+        out.close();
+      }
+      file.delete();
+      if (!tempFile.renameTo(file)) {
+        throw new IOException("Could not rename " + tempFile + " to " + file);
+      }
+    } finally {
+      tempFile.delete();
+    }
+  }
+  
+  private static int indexOf(final String string, final Map stringIndices, final List strings) {
+    if (string == null) {
+      return NULL_INDEX;
+    }
+    final Integer index = (Integer) stringIndices.get(string);
+    if (index != null) {
+      return index.intValue();
+    }
+    stringIndices.put(string, new Integer(strings.size()));
+    strings.add(string);
+    return strings.size() - 1;
+  }
+  
+  /**
+   * Map the given cache file into memory and return one reader for each matrix stored in it.
+   * 
+   * @param file
+   *          The cache file to read.
+   * @return the readers, in the order they were written
+   * @throws IOException
+   *           if the file can't be read or is not a valid cache file
+   */
+  static StringMatrixReader[] read(final File file) throws IOException {
+    final MappedByteBuffer buffer;
+    final FileInputStream in = new FileInputStream(file);
+    try {
+      final FileChannel channel = in.getChannel();
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      // the mapping stays valid after the channel has been closed
+      in.close();
+    }
+    
+    final int limit = buffer.limit();
+    check(limit >= HEADER_SIZE, file);
+    check(buffer.getInt(0) == MAGIC, file);
+    check(buffer.getInt(4) == VERSION, file);
+    final int matrixCount = buffer.getInt(8);
+    final int stringCount = buffer.getInt(12);
+    check(matrixCount >= 0 && stringCount >= 0 && stringCount <= (limit - HEADER_SIZE) / 8, file);
+    
+    for (int i = 0; i < stringCount; i++) {
+      final int offset = buffer.getInt(HEADER_SIZE + 8 * i);
+      final int length = buffer.getInt(HEADER_SIZE + 8 * i + 4);
+      check(offset >= 0 && length >= 0 && (long) offset + 2L * length <= limit, file);
+    }
+    
+    final MappedStrings strings = new MappedStrings(buffer, stringCount);
+    final StringMatrixReader[] readers = new StringMatrixReader[matrixCount];
+    int position = HEADER_SIZE + 8 * stringCount;
+    for (int m = 0; m < matrixCount; m++) {
+      check(position + 12 <= limit, file);
+      final int identifier = buffer.getInt(position);
+      final int columns = buffer.getInt(position + 4);
+      final int rows = buffer.getInt(position + 8);
+      check(identifier >= 0 && identifier < stringCount && columns >= 0 && rows >= 0, file);
+      check((long) columns * rows * 4 <= limit - position - 12, file);
+      readers[m] = new MappedReader(strings, strings.get(identifier), position + 12, columns, rows);
+      position += 12 + 4 * columns * rows;
+    }
+    return readers;
+  }
+  
+  private static void check(final boolean condition, final File file) throws IOException {
+    if (!condition) {
+      throw new IOException("Not a valid matrix cache file: " + file);
+    }
+  }
+  
+  /**
+   * The string table of a mapped cache file. Strings are decoded on first access and then kept. Only absolute reads
+   * are used on the shared buffer, so instances can be read concurrently.
+   */
+  private static final class MappedStrings {
+    private final ByteBuffer buffer;
+    
+    private final String[] decoded;
+    
+    MappedStrings(final ByteBuffer buffer, final int count) {
+      this.buffer = buffer;
+      this.decoded = new String[count];
+    }
+    
+    String get(final int index) {
+      String string = this.decoded[index];
+      if (string == null) {
+        final int offset = this.buffer.getInt(HEADER_SIZE + 8 * index);
+        final char[] chars = new char[this.buffer.getInt(HEADER_SIZE + 8 * index + 4)];
+        for (int i = 0; i < chars.length; i++) {
+          chars[i] = this.buffer.getChar(offset + 2 * i);
+        }
+        // Strings are immutable, so a racing thread at worst decodes the same string again
+        string = new String(chars);
+        this.decoded[index] = string;
+      }
+      return string;
+    }
+    
+    /**
+     * Count the strings decoded so far. The mapped file itself is not on the heap.
+     */
+    void estimateRetainedBytes(final HeapEstimate estimate) {
+      estimate.addReferenceArray(this.decoded.length);
+      for (int i = 0; i < this.decoded.length; i++) {
+        estimate.addString(this.decoded[i]);
+      }
+    }
+  }
+  
+  /**
+   * Reads the cells of a single matrix from a mapped cache file.
+   */
+  private static final class MappedReader implements StringMatrixReader, HeapEstimating {
+    private final MappedStrings strings;
+    
+    private final String identifier;
+    
+    private final int cellOffset;
+    
+    private final int columns;
+    
+    private final int rows;
+    
+    MappedReader(final MappedStrings strings, final String identifier, final int cellOffset, final int columns,
+        final int rows) {
+      this.strings = strings;
+      this.identifier = identifier;
+      this.cellOffset = cellOffset;
+      this.columns = columns;
+      this.rows = rows;
+    }
+    
+    /**
+     * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getString(int, int)
+     */
+    public String getString(final int colIndex, final int rowIndex) throws IndexOutOfBoundsException {
+      if ((colIndex < 0) || (colIndex >= this.columns) || (rowIndex < 0) || (rowIndex >= this.rows)) {
+        throw new IndexOutOfBoundsException("No cell at column " + colIndex + ", row " + rowIndex + " in "
+            + this.identifier);
+      }
+      final int index = this.strings.buffer.getInt(this.cellOffset + 4 * (colIndex * this.rows + rowIndex));
+      return (index == NULL_INDEX) ? null : this.strings.get(index);
+    }
+    
+    /**
+     * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfRows()
+     */
+    public int getNumberOfRows() {
+      return this.rows;
+    }
+    
+    /**
+     * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfColumns()
+     */
+    public int getNumberOfColumns() {
+      return this.columns;
+    }
+    
+    /**
+     * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getIdentifier()
+     */
+    public String getIdentifier() {
+      return this.identifier;
+    }
+    
+    /**
+     * The cells are read from the mapped file and take no heap. The strings decoded so far are shared by all matrices
+     * of the cache file, and are counted for each of them.
+     * 
+     * @see com.senacor.ddt.objectmatrix.HeapEstimating#estimateRetainedBytes(HeapEstimate)
+     */
+    public void estimateRetainedBytes(final HeapEstimate estimate) {
+      this.strings.estimateRetainedBytes(estimate);
+    }
+  }
+}
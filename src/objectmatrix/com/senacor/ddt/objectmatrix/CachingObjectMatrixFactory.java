@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * An {@link ObjectMatrixFactory} that caches the matrices read by another factory in a binary cache file, so the
+ * source (e.g. an Excel workbook) only has to be parsed again when its content has changed.
+ * <p>
+ * The cache file is keyed by a hash over the content of the source, the class of the delegate factory, its
+ * configuration as described by {@link AbstractDefaultStringMatrixBasedObjectMatrixFactory#getCacheKey()}, its column
+ * projection and an optional variant (see {@link #setVariant(String)}). When a matching cache file exists, it is
+ * memory-mapped and its cells are decoded on demand instead of parsing the source. Otherwise the delegate's readers are
+ * used and their content is written to a new cache file. If the cache file can't be written or read, the delegate is
+ * used as if there was no cache. Delegates that provide no cache key are never cached.
+ * <p>
+ * After a new cache file has been written, the older cache files of the same source in the cache directory are
+ * deleted, so editing the source does not pile up cache files. Factories that cache the same source with a different
+ * delegate configuration or variant therefore replace each other's cache files if they share a cache directory; give
+ * them separate directories to keep both cached.
+ * <p>
+ * Note that only the raw cells are taken from the delegate. Title positions, the local transformer and the number of
+ * loader threads have to be configured on this factory.
+ * 
+ * @version $Id$
+ */
+public class CachingObjectMatrixFactory extends AbstractDefaultStringMatrixBasedObjectMatrixFactory {
+  private static final Log log = LogFactory.getLog(CachingObjectMatrixFactory.class);
+  
+  /**
+   * Suffix of all cache files.
+   */
+  public static final String CACHE_FILE_SUFFIX = ".ddtcache";
+  
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+  
+  /**
+   * Length of an MD5 hash in bytes.
+   */
+  private static final int HASH_LENGTH = 16;
+  
+  private final AbstractDefaultStringMatrixBasedObjectMatrixFactory delegate;
+  
+  private final URL source;
+  
+  private final File cacheDirectory;
+  
+  private String variant = "";
+  
+  /**
+   * Cache the matrices read by the given factory from the given file. The cache file is placed next to the source file
+   * unless a cache directory is given.
+   * 
+   * @param delegate
+   *          The factory that reads the source. Must not be null.
+   * @param source
+   *          The file the delegate reads. Its content determines the cache key. Must not be null.
+   * @param cacheDirectory
+   *          The directory to store the cache file in. If null, the directory containing the source is used.
+   */
+  public CachingObjectMatrixFactory(final AbstractDefaultStringMatrixBasedObjectMatrixFactory delegate,
+      final File source, final File cacheDirectory) {
+    this(delegate, toUrl(source), (cacheDirectory == null) ? source.getAbsoluteFile().getParentFile()
+        : cacheDirectory);
+  }
+  
+  /**
+   * Cache the matrices read by the given factory from the given URL, e.g. a resource from the classpath.
+   * 
+   * @param delegate
+   *          The factory that reads the source. Must not be null.
+   * @param source
+   *          The URL the delegate reads. Its content determines the cache key. Must not be null.
+   * @param cacheDirectory
+   *          The directory to store the cache file in. Must not be null.
+   */
+  public CachingObjectMatrixFactory(final AbstractDefaultStringMatrixBasedObjectMatrixFactory delegate,
+      final URL source, final File cacheDirectory) {
+    ParamChecker.notNull("delegate", delegate);
+    ParamChecker.notNull("source", source);
+    ParamChecker.notNull("cacheDirectory", cacheDirectory);
+    this.delegate = delegate;
+    this.source = source;
+    this.cacheDirectory = cacheDirectory;
+  }
+  
+  private static URL toUrl(final File file) {
+    ParamChecker.notNull("source", file);
+    try {
+      return file.toURI().toURL();
+    } catch (final MalformedURLException e) {
+      throw new IllegalArgumentException("Can't convert " + file + " to an URL: " + e.getMessage());
+    }
+  }
+  
+  /**
+   * Distinguish cache files for delegates whose readers depend on something that neither the source nor the cache key
+   * of the delegate covers, e.g. system properties read by a custom delegate. Defaults to "".
+   * 
+   * @param variant
+   *          Any string describing the additional state. Must not be null.
+   * @return <code>this</code>, for method chaining
+   */
+  public CachingObjectMatrixFactory setVariant(final String variant) {
+    ParamChecker.notNull("variant", variant);
+    this.variant = variant;
+    return this;
+  }
+  
+  /**
+   * The cache always holds all columns. A column projection is applied to the readers after they have been loaded.
+   * 
+   * @see com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory#createReaders()
+   */
+  public StringMatrixReader[] createReaders() {
+    final StringMatrixReader[] readers = loadReaders();
+    final ColumnProjection projection = getColumnProjection();
+    if (projection != null) {
+      for (int i = 0; i < readers.length; i++) {
+        readers[i] = projection.project(readers[i]);
+      }
+    }
+    return readers;
+  }
+  
+  private StringMatrixReader[] loadReaders() {
+    final File cacheFile = getCacheFile();
+    if (cacheFile == null) {
+      log.warn(this.delegate.getClass().getName() + " provides no cache key, not caching " + this.source);
+      final StringMatrixReader[] readers = this.delegate.createReaders();
+      for (int i = 0; i < readers.length; i++) {
+        readers[i] = this.delegate.prepareReader(readers[i]);
+      }
+      this.delegate.readersPrepared();
+      return readers;
+    }
+    if (cacheFile.isFile()) {
+      try {
+        final StringMatrixReader[] readers = BinaryMatrixCache.read(cacheFile);
+        log.info("Using cached matrices from " + cacheFile);
+        return readers;
+      } catch (final IOException e) {
+        log.warn("Ignoring unreadable cache file " + cacheFile + ": " + e.getMessage());
+      }
+    }
+    
+    final StringMatrixReader[] readers = this.delegate.createReaders();
+    final StringMatrixReader[] snapshots = new StringMatrixReader[readers.length];
+    for (int i = 0; i < readers.length; i++) {
+      snapshots[i] = new SnapshotStringMatrixReader(this.delegate.prepareReader(readers[i]));
+    }
+    this.delegate.readersPrepared();
+    try {
+      this.cacheDirectory.mkdirs();
+      BinaryMatrixCache.write(cacheFile, snapshots);
+      log.info("Cached matrices in " + cacheFile);
+    } catch (final IOException e) {
+      log.warn("Could not write cache file " + cacheFile + ": " + e.getMessage());
+      return snapshots;
+    }
+    deleteStaleCacheFiles(cacheFile);
+    return snapshots;
+  }
+  
+  /**
+   * Delete the cache files of the same source other than the given one. Files that can't be deleted, e.g. because
+   * another process still has them mapped, are left alone.
+   * 
+   * @param current
+   *          The cache file to keep.
+   */
+  private void deleteStaleCacheFiles(final File current) {
+    final String prefix = getSourceName() + ".";
+    final File[] stale = this.cacheDirectory.listFiles(new FilenameFilter() {
+      public boolean accept(final File dir, final String name) {
+        // the hash is the only part that differs, so other sources whose names start alike are not matched
+        return name.startsWith(prefix) && name.endsWith(CACHE_FILE_SUFFIX)
+            && (name.length() == prefix.length() + 2 * HASH_LENGTH + CACHE_FILE_SUFFIX.length())
+            && !name.equals(current.getName());
+      }
+    });
+    if (stale == null) {
+      return;
+    }
+    for (int i = 0; i < stale.length; i++) {
+      if (stale[i].delete()) {
+        log.info("Deleted stale cache file " + stale[i]);
+      } else {
+        log.debug("Could not delete stale cache file " + stale[i]);
+      }
+    }
+  }
+  
+  /**
+   * Determine the cache file for the current content of the source.
+   * 
+   * @return the cache file, which does not need to exist, or null if the delegate provides no cache key
+   * @throws ObjectMatrixCreationFailedException
+   *           if the source can't be read
+   */
+  File getCacheFile() throws ObjectMatrixCreationFailedException {
+    final String cacheKey = this.delegate.getCacheKey();
+    if (cacheKey == null) {
+      return null;
+    }
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("MD5");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new ObjectMatrixCreationFailedException("MD5 is not available", e);
+    }
+    try {
+      final InputStream in = this.source.openStream();
+      try {
+        final byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          digest.update(buffer, 0, read);
+        }
+      } finally {
+        in.close();
+      }
+    } catch (final IOException e) {
+      throw new ObjectMatrixCreationFailedException("Could not read " + this.source, e);
+    }
+    digest.update(toBytes(this.delegate.getClass().getName()));
+    digest.update((byte) 0);
+    digest.update(toBytes(cacheKey));
+    digest.update((byte) 0);
+    digest.update(toBytes(String.valueOf(this.delegate.getColumnProjection())));
+    digest.update((byte) 0);
+    digest.update(toBytes(this.variant));
+    
+    return new File(this.cacheDirectory, getSourceName() + "." + toHex(digest.digest()) + CACHE_FILE_SUFFIX);
+  }
+  
+  /**
+   * @return the last part of the source's path, which starts the names of its cache files
+   */
+  private String getSourceName() {
+    final String path = this.source.getPath();
+    return path.substring(path.lastIndexOf('/') + 1);
+  }
+  
+  private static byte[] toBytes(final String string) {
+    try {
+      return string.getBytes("UTF-8");
+    } catch (final IOException e) {
+      throw new IllegalStateException("UTF-8 is not supported");
+    }
+  }
+  
+  private static String toHex(final byte[] bytes) {
+    final char[] hex = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+      hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+    }
+    return new String(hex);
+  }
+}
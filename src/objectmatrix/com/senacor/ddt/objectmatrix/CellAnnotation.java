@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.util.Enumeration;
+import java.util.Properties;
+
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * The immutable annotations of a single cell, i.e. a small set of String key/value pairs. Most cells have no annotation
+ * at all or a single one, so there are specialized implementations for these cases. Larger annotations are stored in
+ * two small arrays.
+ * <p>
+ * All keys are interned. Looking up one of the well-known keys, e.g. from {@link ObjectMatrix.AnnotationKeys}, is
+ * therefore usually decided by a reference comparison.
+ * <p>
+ * Code that still expects the annotations as {@link Properties} can use {@link #toProperties()}.
+ * 
+ * @version $Id$
+ */
+public abstract class CellAnnotation {
+  /**
+   * The annotation of a cell without any annotations.
+   */
+  public static final CellAnnotation EMPTY = new Empty();
+  
+  CellAnnotation() {
+    // only the implementations in this class
+  }
+  
+  /**
+   * Create an annotation containing the given properties.
+   * 
+   * @param properties
+   *          The properties to copy. Must not be null.
+   * @return an annotation with the same key/value pairs
+   */
+  public static CellAnnotation valueOf(final Properties properties) {
+    ParamChecker.notNull("properties", properties);
+    final Builder builder = new Builder();
+    final Enumeration names = properties.propertyNames();
+    while (names.hasMoreElements()) {
+      final String key = (String) names.nextElement();
+      builder.put(key, properties.getProperty(key));
+    }
+    return builder.build();
+  }
+  
+  /**
+   * Get the annotations of a field of any {@link AnnotatedStringMatrix}. They are taken directly from a
+   * {@link CellAnnotatedStringMatrix}, and copied from {@link AnnotatedStringMatrix#getAnnotation(String, String)}
+   * otherwise.
+   * 
+   * @param matrix
+   *          The matrix. Must not be null.
+   * @param column
+   *          Column
+   * @param row
+   *          Row
+   * @return the annotations of the field. Not null.
+   * @throws MatrixReadFailedException
+   *           if anything goes wrong
+   */
+  public static CellAnnotation forCell(final AnnotatedStringMatrix matrix, final String column, final String row)
+      throws MatrixReadFailedException {
+    if (matrix instanceof CellAnnotatedStringMatrix) {
+      return ((CellAnnotatedStringMatrix) matrix).getCellAnnotation(column, row);
+    }
+    return valueOf(matrix.getAnnotation(column, row));
+  }
+  
+  /**
+   * Get the annotations of a key of any {@link ObjectMap}. They are taken directly from a
+   * {@link CellAnnotatedObjectMap}, and copied from {@link ObjectMap#getAnnotation(String)} otherwise.
+   * 
+   * @param map
+   *          The map. Must not be null.
+   * @param key
+   *          The key. Must not be blank.
+   * @return the annotations of the key. Not null.
+   */
+  public static CellAnnotation forKey(final ObjectMap map, final String key) {
+    if (map instanceof CellAnnotatedObjectMap) {
+      return ((CellAnnotatedObjectMap) map).getCellAnnotation(key);
+    }
+    return valueOf(map.getAnnotation(key));
+  }
+  
+  /**
+   * Get the value for the given key.
+   * 
+   * @param key
+   *          The key.
+   * @return the value, or null if there is no such key
+   */
+  public String get(final String key) {
+    final int index = indexOf(key);
+    return (index < 0) ? null : getValue(index);
+  }
+  
+  /**
+   * Get the value for the given key.
+   * 
+   * @param key
+   *          The key.
+   * @param defaultValue
+   *          The value to return if there is no such key.
+   * @return the value, or <code>defaultValue</code> if there is no such key
+   */
+  public String get(final String key, final String defaultValue) {
+    final int index = indexOf(key);
+    return (index < 0) ? defaultValue : getValue(index);
+  }
+  
+  /**
+   * Check whether the given key is present.
+   * 
+   * @param key
+   *          The key.
+   * @return true if the annotation contains the given key, with any value
+   */
+  public boolean has(final String key) {
+    return indexOf(key) >= 0;
+  }
+  
+  /**
+   * @return the number of key/value pairs
+   */
+  public abstract int size();
+  
+  /**
+   * @return true if there are no key/value pairs
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+  
+  /**
+   * @param index
+   *          0-based index, less than {@link #size()}
+   * @return the key at the given index
+   */
+  public abstract String getKey(int index);
+  
+  /**
+   * @param index
+   *          0-based index, less than {@link #size()}
+   * @return the value at the given index
+   */
+  public abstract String getValue(int index);
+  
+  abstract int indexOf(String key);
+  
+  /**
+   * Compatibility adapter for code that expects annotations as {@link Properties}. Every call returns a new copy, so
+   * the caller may modify it without affecting this annotation or any other cell sharing it.
+   * 
+   * @return the key/value pairs of this annotation as new Properties
+   */
+  public Properties toProperties() {
+    final Properties result = new Properties();
+    for (int i = 0; i < size(); i++) {
+      result.setProperty(getKey(i), getValue(i));
+    }
+    return result;
+  }
+  
+  /**
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  public boolean equals(final Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof CellAnnotation)) {
+      return false;
+    }
+    final CellAnnotation that = (CellAnnotation) obj;
+    if (that.size() != size()) {
+      return false;
+    }
+    for (int i = 0; i < size(); i++) {
+      if (!getValue(i).equals(that.get(getKey(i)))) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Independent of the order of the key/value pairs, just as {@link java.util.Map#hashCode()}.
+   * 
+   * @see java.lang.Object#hashCode()
+   */
+  public int hashCode() {
+    int hash = 0;
+    for (int i = 0; i < size(); i++) {
+      hash += getKey(i).hashCode() ^ getValue(i).hashCode();
+    }
+    return hash;
+  }
+  
+  /**
+   * @see java.lang.Object#toString()
+   */
+  public String toString() {
+    final StringBuffer buffer = new StringBuffer("{");
+    for (int i = 0; i < size(); i++) {
+      if (i > 0) {
+        buffer.append(", ");
+      }
+      buffer.append(getKey(i)).append('=').append(getValue(i));
+    }
+    return buffer.append('}').toString();
+  }
+  
+  /**
+   * Collects key/value pairs and creates the most compact {@link CellAnnotation} for them. Putting a key that is
+   * already present replaces its value, just like {@link Properties#setProperty(String, String)}.
+   */
+  public static class Builder {
+    private String[] keys = new String[4];
+    
+    private String[] values = new String[4];
+    
+    private int size;
+    
+    /**
+     * Add a key/value pair.
+     * 
+     * @param key
+     *          The key. Must not be null.
+     * @param value
+     *          The value. Must not be null.
+     * @return <code>this</code>, for method chaining
+     */
+    public Builder put(final String key, final String value) {
+      ParamChecker.notNull("key", key);
+      ParamChecker.notNull("value", value);
+      for (int i = 0; i < this.size; i++) {
+        if (this.keys[i].equals(key)) {
+          this.values[i] = value;
+          return this;
+        }
+      }
+      if (this.size == this.keys.length) {
+        this.keys = grow(this.keys);
+        this.values = grow(this.values);
+      }
+      this.keys[this.size] = key.intern();
+      this.values[this.size] = value;
+      this.size++;
+      return this;
+    }
+    
+    private static String[] grow(final String[] array) {
+      final String[] result = new String[array.length * 2];
+      System.arraycopy(array, 0, result, 0, array.length);
+      return result;
+    }
+    
+    /**
+     * @return an annotation containing all key/value pairs added so far
+     */
+    public CellAnnotation build() {
+      if (this.size == 0) {
+        return EMPTY;
+      } else if (this.size == 1) {
+        return new Single(this.keys[0], this.values[0]);
+      } else {
+        final String[] keyArray = new String[this.size];
+        final String[] valueArray = new String[this.size];
+        System.arraycopy(this.keys, 0, keyArray, 0, this.size);
+        System.arraycopy(this.values, 0, valueArray, 0, this.size);
+        return new Small(keyArray, valueArray);
+      }
+    }
+  }
+  
+  /**
+   * No key/value pairs at all.
+   */
+  private static final class Empty extends CellAnnotation {
+    public int size() {
+      return 0;
+    }
+    
+    public String getKey(final int index) {
+      throw new IndexOutOfBoundsException("Empty annotation");
+    }
+    
+    public String getValue(final int index) {
+      throw new IndexOutOfBoundsException("Empty annotation");
+    }
+    
+    int indexOf(final String key) {
+      return -1;
+    }
+  }
+  
+  /**
+   * Exactly one key/value pair.
+   */
+  private static final class Single extends CellAnnotation {
+    private final String key;
+    
+    private final String value;
+    
+    Single(final String key, final String value) {
+      this.key = key;
+      this.value = value;
+    }
+    
+    public int size() {
+      return 1;
+    }
+    
+    public String getKey(final int index) {
+      if (index != 0) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: 1");
+      }
+      return this.key;
+    }
+    
+    public String getValue(final int index) {
+      if (index != 0) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: 1");
+      }
+      return this.value;
+    }
+    
+    int indexOf(final String other) {
+      return ((this.key == other) || this.key.equals(other)) ? 0 : -1;
+    }
+  }
+  
+  /**
+   * Several key/value pairs in two parallel arrays, searched linearly.
+   */
+  private static final class Small extends CellAnnotation {
+    private final String[] keys;
+    
+    private final String[] values;
+    
+    Small(final String[] keys, final String[] values) {
+      this.keys = keys;
+      this.values = values;
+    }
+    
+    public int size() {
+      return this.keys.length;
+    }
+    
+    public String getKey(final int index) {
+      return this.keys[index];
+    }
+    
+    public String getValue(final int index) {
+      return this.values[index];
+    }
+    
+    int indexOf(final String key) {
+      // keys are interned, so try the cheap reference comparison first
+      for (int i = 0; i < this.keys.length; i++) {
+        if (this.keys[i] == key) {
+          return i;
+        }
+      }
+      if (key != null) {
+        for (int i = 0; i < this.keys.length; i++) {
+          if (this.keys[i].equals(key)) {
+            return i;
+          }
+        }
+      }
+      return -1;
+    }
+  }
+}
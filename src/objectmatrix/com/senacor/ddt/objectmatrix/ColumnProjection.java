@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * Describes which columns of a matrix are actually needed, so that {@link StringMatrixReader} implementations can skip
+ * storing the others. This is useful when only a few test cases of a large sheet are run.
+ * <p>
+ * A column is kept if
+ * <ul>
+ * <li>it contains the row titles,</li>
+ * <li>its title without annotations is one of the wanted names,</li>
+ * <li>its title is "Reserved" or starts with an annotation mark, e.g. a global annotation column, or</li>
+ * <li>a cell of a kept column refers to it with a <code>ref</code> annotation.</li>
+ * </ul>
+ * Columns with empty titles are dropped.
+ * <p>
+ * Readers use {@link #selectColumns(StringMatrixReader)} to find the columns to keep. Readers that do not support
+ * projection themselves can be reduced by {@link #project(StringMatrixReader)}. Instances are immutable.
+ * 
+ * @version $Id$
+ * @see ProjectableObjectMatrixFactory
+ */
+public class ColumnProjection {
+  private final Set wantedColumns;
+  
+  private final int columnContainingRowTitles;
+  
+  private final int rowContainingColumnTitles;
+  
+  /**
+   * Create a projection for matrices with their titles in column 0 and row 0.
+   * 
+   * @param wantedColumns
+   *          Collection<String> of the column names to keep, without annotations. Must not be null.
+   */
+  public ColumnProjection(final Collection wantedColumns) {
+    this(new HashSet(checkNotNull(wantedColumns)), 0, 0);
+  }
+  
+  private ColumnProjection(final Set wantedColumns, final int columnContainingRowTitles,
+      final int rowContainingColumnTitles) {
+    this.wantedColumns = Collections.unmodifiableSet(wantedColumns);
+    this.columnContainingRowTitles = columnContainingRowTitles;
+    this.rowContainingColumnTitles = rowContainingColumnTitles;
+  }
+  
+  private static Collection checkNotNull(final Collection wantedColumns) {
+    ParamChecker.notNull("wantedColumns", wantedColumns);
+    return wantedColumns;
+  }
+  
+  /**
+   * @param columnContainingRowTitles
+   *          index of the column that contains the row titles
+   * @param rowContainingColumnTitles
+   *          index of the row that contains the column titles
+   * @return a projection of the same columns for matrices with their titles at the given indices
+   */
+  public ColumnProjection atTitles(final int columnContainingRowTitles, final int rowContainingColumnTitles) {
+    return new ColumnProjection(this.wantedColumns, columnContainingRowTitles, rowContainingColumnTitles);
+  }
+  
+  /**
+   * @return the unmodifiable Set<String> of wanted column names
+   */
+  public Set getWantedColumns() {
+    return this.wantedColumns;
+  }
+  
+  /**
+   * Check whether a column must be kept because of its title alone. Columns referred to by other columns are not
+   * taken into account here.
+   * 
+   * @param columnTitle
+   *          The title of the column, possibly with annotations.
+   * @return <code>true</code> if the column is needed
+   */
+  public boolean isWanted(final String columnTitle) {
+    if (columnTitle == null) {
+      return false;
+    }
+    final String title = columnTitle.trim();
+    if (title.startsWith(EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK)) {
+      return true;
+    }
+    final String name = stripAnnotation(title);
+    if (name.length() == 0) {
+      return false;
+    }
+    return StringMatrix.Tokens.RESERVED.equalsIgnoreCase(name) || this.wantedColumns.contains(name);
+  }
+  
+  /**
+   * Find the column a cell refers to.
+   * 
+   * @param cell
+   *          The raw content of a cell, possibly with an annotation.
+   * @return the name of the column given by the cell's <code>ref</code> annotation, or null if there is none
+   */
+  public static String getReferenceTarget(final String cell) {
+    if (cell == null) {
+      return null;
+    }
+    final int mark = cell.indexOf(EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK);
+    if (mark == -1) {
+      return null;
+    }
+    String annotation = cell.substring(mark + 1);
+    // global annotations have a second mark
+    if (annotation.startsWith(EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK)) {
+      annotation = annotation.substring(1);
+    }
+    final int separator = annotation.indexOf(EmbeddedAnnotationMatrixDecorator.ANNOTATION_KEYVALUE_SEPARATOR);
+    if ((separator <= 0) || !ObjectMatrix.AnnotationKeys.REFERENCE.equals(annotation.substring(0, separator).trim())) {
+      return null;
+    }
+    final String target = annotation.substring(separator + 1).trim();
+    return (target.length() == 0) ? null : target;
+  }
+  
+  private static String stripAnnotation(final String title) {
+    final int mark = title.indexOf(EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK);
+    return ((mark == -1) ? title : title.substring(0, mark)).trim();
+  }
+  
+  /**
+   * Find the columns of the given reader that must be kept.
+   * 
+   * @param source
+   *          The complete matrix.
+   * @return the indices of the columns to keep, in ascending order
+   * @throws MatrixReadFailedException
+   *           if reading the source fails
+   */
+  public int[] selectColumns(final StringMatrixReader source) throws MatrixReadFailedException {
+    ParamChecker.notNull("source", source);
+    final int columns = source.getNumberOfColumns();
+    final int rows = source.getNumberOfRows();
+    final String[] names = new String[columns];
+    final boolean[] kept = new boolean[columns];
+    final List pending = new ArrayList();
+    for (int col = 0; col < columns; col++) {
+      final String title =
+          (rows > this.rowContainingColumnTitles) ? source.getString(col, this.rowContainingColumnTitles) : null;
+      names[col] = (title == null) ? "" : stripAnnotation(title.trim());
+      if ((col == this.columnContainingRowTitles) || isWanted(title)) {
+        kept[col] = true;
+        pending.add(new Integer(col));
+      }
+    }
+    
+    // follow the references of all kept columns, including the ones found on the way
+    final Set followed = new HashSet();
+    while (!pending.isEmpty()) {
+      final int col = ((Integer) pending.remove(pending.size() - 1)).intValue();
+      for (int row = 0; row < rows; row++) {
+        final String target = getReferenceTarget(source.getString(col, row));
+        if ((target != null) && followed.add(target)) {
+          for (int other = 0; other < columns; other++) {
+            if (!kept[other] && target.equals(names[other])) {
+              kept[other] = true;
+              pending.add(new Integer(other));
+            }
+          }
+        }
+      }
+    }
+    
+    int count = 0;
+    for (int col = 0; col < columns; col++) {
+      if (kept[col]) {
+        count++;
+      }
+    }
+    final int[] result = new int[count];
+    count = 0;
+    for (int col = 0; col < columns; col++) {
+      if (kept[col]) {
+        result[count++] = col;
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Reduce the given reader to the columns that must be kept. If all columns are needed, the reader is returned as it
+   * is. Otherwise, the kept columns are copied into a {@link SnapshotStringMatrixReader}, so the source can be garbage
+   * collected.
+   * 
+   * @param source
+   *          The complete matrix.
+   * @return a reader with the kept columns only
+   * @throws MatrixReadFailedException
+   *           if reading the source fails
+   */
+  public StringMatrixReader project(final StringMatrixReader source) throws MatrixReadFailedException {
+    final int[] columns = selectColumns(source);
+    if (columns.length == source.getNumberOfColumns()) {
+      return source;
+    }
+    if (source instanceof SnapshotStringMatrixReader) {
+      return ((SnapshotStringMatrixReader) source).selectColumns(columns);
+    }
+    final int rows = source.getNumberOfRows();
+    final String[][] data = new String[columns.length][rows];
+    for (int i = 0; i < columns.length; i++) {
+      for (int row = 0; row < rows; row++) {
+        data[i][row] = source.getString(columns[i], row);
+      }
+    }
+    return new SnapshotStringMatrixReader(data, source.getIdentifier());
+  }
+  
+  /**
+   * Pick the given columns from a column-major cell array. The column arrays are shared, not copied.
+   * 
+   * @param data
+   *          The cells, indexed as <code>data[column][row]</code>.
+   * @param columns
+   *          The indices of the columns to pick, as returned by {@link #selectColumns(StringMatrixReader)}.
+   * @return the picked columns
+   */
+  public static String[][] pickColumns(final String[][] data, final int[] columns) {
+    final String[][] result = new String[columns.length][];
+    for (int i = 0; i < columns.length; i++) {
+      result[i] = data[columns[i]];
+    }
+    return result;
+  }
+  
+  /**
+   * The wanted columns are sorted and the title positions are included, so equal projections have equal strings.
+   * 
+   * @see java.lang.Object#toString()
+   */
+  public String toString() {
+    return "ColumnProjection" + new TreeSet(this.wantedColumns) + " at column " + this.columnContainingRowTitles
+        + ", row " + this.rowContainingColumnTitles;
+  }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import com.senacor.ddt.typetransformer.Transformer;
+import com.senacor.ddt.util.ParamChecker;
+import com.senacor.ddt.util.StringIndex;
+
+/**
+ * An {@link ObjectMatrix} that presents the columns of several matrices as one, e.g. the test cases of one test class
+ * that are spread over several sheets. Nothing is copied: Each column is looked up in a hash index and every call
+ * concerning it goes to the matrix it comes from. Values, annotations and references are therefore resolved within
+ * that matrix, a reference cannot point to a column of another matrix.
+ * <p>
+ * The matrices should have compatible rows. The rows of the composite are the union of their rows, in the order in
+ * which they first appear. Reading a row from a column whose matrix does not have it fails just as it would on that
+ * matrix.
+ * <p>
+ * Column names must be unique across all matrices. Empty and reserved columns are left out, as they cannot be accessed
+ * by name anyway. The list returned by {@link #getColNames()} answers <code>contains</code> through the index.
+ * <p>
+ * Instances are safe for use by concurrent threads, provided the matrices are.
+ * 
+ * @version $Id$
+ */
+public class CompositeObjectMatrix implements ObjectMatrix, CellAnnotatedStringMatrix {
+  private final ObjectMatrix[] matrices;
+  
+  private final String identifier;
+  
+  /**
+   * Map<String, ObjectMatrix> from column name to the matrix containing it.
+   */
+  private final Map columnIndex;
+  
+  private final StringIndex colNames;
+  
+  private final StringIndex rowNames;
+  
+  private final List colNameList;
+  
+  private final List rowNameList;
+  
+  /**
+   * @param matrices
+   *          The matrices to combine. Must not be null, empty or contain null.
+   * @param identifier
+   *          The identifier of the composite. Must not be blank.
+   * @throws DuplicateColumnTitleException
+   *           if two matrices have a column of the same name
+   */
+  public CompositeObjectMatrix(final ObjectMatrix[] matrices, final String identifier) {
+    ParamChecker.notNullAnywhere("matrices", matrices);
+    ParamChecker.notBlank("identifier", identifier);
+    this.matrices = (ObjectMatrix[]) matrices.clone();
+    this.identifier = identifier;
+    this.columnIndex = new HashMap();
+    final List cols = new ArrayList();
+    final Set rowSet = new HashSet();
+    final List rows = new ArrayList();
+    for (int i = 0; i < this.matrices.length; i++) {
+      final Iterator colIter = this.matrices[i].getColNames().iterator();
+      while (colIter.hasNext()) {
+        final String colName = (String) colIter.next();
+        if ((colName.length() == 0) || StringMatrix.Tokens.RESERVED.equalsIgnoreCase(colName)) {
+          continue;
+        }
+        final ObjectMatrix previous = (ObjectMatrix) this.columnIndex.put(colName, this.matrices[i]);
+        if (previous != null) {
+          throw new DuplicateColumnTitleException("Column '" + colName + "' exists in '"
+              + previous.getMatrixIdentifier() + "' and '" + this.matrices[i].getMatrixIdentifier() + "'");
+        }
+        cols.add(colName);
+      }
+      final Iterator rowIter = this.matrices[i].getRowNames().iterator();
+      while (rowIter.hasNext()) {
+        final String rowName = (String) rowIter.next();
+        if (rowSet.add(rowName)) {
+          rows.add(rowName);
+        }
+      }
+    }
+    this.colNames = new StringIndex(cols);
+    this.rowNames = new StringIndex(rows);
+    this.colNameList = new IndexedList(this.colNames);
+    this.rowNameList = new IndexedList(this.rowNames);
+  }
+  
+  /**
+   * @return the matrices given to the constructor
+   */
+  public ObjectMatrix[] getMatrices() {
+    return (ObjectMatrix[]) this.matrices.clone();
+  }
+  
+  /**
+   * Find the matrix containing the given column.
+   * 
+   * @param column
+   *          The name of the column.
+   * @return the matrix
+   * @throws ColumnNotFoundException
+   *           if none of the matrices has the column
+   */
+  public ObjectMatrix getMatrixForColumn(final String column) throws ColumnNotFoundException {
+    final ObjectMatrix matrix = (ObjectMatrix) this.columnIndex.get(column);
+    if (matrix == null) {
+      throw new ColumnNotFoundException("Column '" + column + "' not found in '" + this.identifier + "'");
+    }
+    return matrix;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getMatrixIdentifier()
+   */
+  public String getMatrixIdentifier() {
+    return this.identifier;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getRowNames()
+   */
+  public List getRowNames() {
+    return this.rowNameList;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getColNames()
+   */
+  public List getColNames() {
+    return this.colNameList;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#filterRowNames(java.lang.String, java.lang.String, java.lang.String)
+   */
+  public List filterRowNames(final String rowPrefix, final String rowInfix, final String rowSuffix) {
+    return this.rowNames.filter(rowPrefix, rowInfix, rowSuffix);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#filterColumnNames(java.lang.String, java.lang.String,
+   *      java.lang.String)
+   */
+  public List filterColumnNames(final String colPrefix, final String colInfix, final String colSuffix) {
+    return this.colNames.filter(colPrefix, colInfix, colSuffix);
+  }
+  
+  /**
+   * @return the transformer of the first matrix. Values are converted by the transformer of the matrix they come from.
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getTransformer()
+   */
+  public Transformer getTransformer() {
+    return this.matrices[0].getTransformer();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getString(java.lang.String, java.lang.String)
+   */
+  public String getString(final String column, final String row) {
+    return getMatrixForColumn(column).getString(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getBoolean(java.lang.String, java.lang.String)
+   */
+  public Boolean getBoolean(final String column, final String row) {
+    return getMatrixForColumn(column).getBoolean(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getInteger(java.lang.String, java.lang.String)
+   */
+  public Integer getInteger(final String column, final String row) {
+    return getMatrixForColumn(column).getInteger(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getBigDecimal(java.lang.String, java.lang.String)
+   */
+  public BigDecimal getBigDecimal(final String column, final String row) {
+    return getMatrixForColumn(column).getBigDecimal(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getLong(java.lang.String, java.lang.String)
+   */
+  public Long getLong(final String column, final String row) {
+    return getMatrixForColumn(column).getLong(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getDouble(java.lang.String, java.lang.String)
+   */
+  public Double getDouble(final String column, final String row) {
+    return getMatrixForColumn(column).getDouble(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getDate(java.lang.String, java.lang.String)
+   */
+  public Date getDate(final String column, final String row) {
+    return getMatrixForColumn(column).getDate(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getObject(java.lang.String, java.lang.String, java.lang.Class)
+   */
+  public Object getObject(final String column, final String row, final Class type) {
+    return getMatrixForColumn(column).getObject(column, row, type);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.CellAnnotatedStringMatrix#getCellAnnotation(java.lang.String, java.lang.String)
+   */
+  public CellAnnotation getCellAnnotation(final String column, final String row) {
+    return CellAnnotation.forCell(getMatrixForColumn(column), column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.AnnotatedStringMatrix#getAnnotation(java.lang.String, java.lang.String)
+   */
+  public Properties getAnnotation(final String column, final String row) {
+    return getMatrixForColumn(column).getAnnotation(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#isDefinedAt(java.lang.String, java.lang.String)
+   */
+  public boolean isDefinedAt(final String colName, final String rowName) {
+    return getMatrixForColumn(colName).isDefinedAt(colName, rowName);
+  }
+  
+  /**
+   * @return the map of the matrix containing the column
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getObjectMapForColumn(java.lang.String)
+   */
+  public ObjectMap getObjectMapForColumn(final String columnName) {
+    return getMatrixForColumn(columnName).getObjectMapForColumn(columnName);
+  }
+  
+  /**
+   * @return a map over the row in all matrices, keyed by the column names of the composite
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getObjectMapForRow(java.lang.String)
+   */
+  public ObjectMap getObjectMapForRow(final String rowName) {
+    return new DelegatingObjectMap(this, rowName, DelegatingObjectMap.Mode.ROW, null, this.colNames);
+  }
+  
+  /**
+   * Read-only view of the strings of a StringIndex whose <code>contains</code> uses the index instead of scanning.
+   */
+  private static class IndexedList extends AbstractList {
+    private final StringIndex index;
+    
+    private final List strings;
+    
+    IndexedList(final StringIndex index) {
+      this.index = index;
+      this.strings = index.getStrings();
+    }
+    
+    public Object get(final int i) {
+      return this.strings.get(i);
+    }
+    
+    public int size() {
+      return this.strings.size();
+    }
+    
+    public boolean contains(final Object o) {
+      return (o instanceof String) && this.index.contains((String) o);
+    }
+  }
+}
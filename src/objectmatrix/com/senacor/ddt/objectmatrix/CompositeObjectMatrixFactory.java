@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * An {@link ObjectMatrixFactory} that combines the matrices of several other factories, e.g. a CSV, an Excel and a
+ * properties factory, and runs them concurrently on a bounded number of threads.
+ * <p>
+ * {@link #create()} returns the matrices of all factories in the order the factories were given, regardless of which
+ * factory finishes first. Loading can be started ahead of time with {@link #start()}, so that parsing large files
+ * overlaps with other work, e.g. setting up the test environment. A later call to <code>create()</code> then waits
+ * for the running factories instead of starting new ones.
+ * <p>
+ * Since the factories run in threads of their own, they should not rely on thread-local state of the caller, such as
+ * a {@link com.senacor.ddt.typetransformer.Transformer} registered for the current thread only.
+ * <p>
+ * If the matrices hold the test cases of a single test class, they can be combined into one
+ * {@link CompositeObjectMatrix}, see {@link #setUnionIdentifier(String)}.
+ * 
+ * @version $Id$
+ */
+public class CompositeObjectMatrixFactory implements ProjectableObjectMatrixFactory {
+  private static final Log log = LogFactory.getLog(CompositeObjectMatrixFactory.class);
+  
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  
+  private final ObjectMatrixFactory[] factories;
+  
+  private int threads;
+  
+  private String unionIdentifier = null;
+  
+  /**
+   * The factories that have been started but not collected by {@link #create()} yet, or null.
+   */
+  private Future[] running;
+  
+  /**
+   * @param factories
+   *          The factories to combine. Must not be null, empty or contain null.
+   */
+  public CompositeObjectMatrixFactory(final ObjectMatrixFactory[] factories) {
+    ParamChecker.notNullAnywhere("factories", factories);
+    this.factories = (ObjectMatrixFactory[]) factories.clone();
+    this.threads = this.factories.length;
+  }
+  
+  /**
+   * Maximum number of factories that run at the same time. Defaults to the number of factories.
+   * 
+   * @param threads
+   *          number of threads, at least 1
+   * @return <code>this</code>, for method chaining
+   */
+  public CompositeObjectMatrixFactory setThreads(final int threads) {
+    ParamChecker.require("threads must be at least 1", threads >= 1);
+    this.threads = threads;
+    return this;
+  }
+  
+  /**
+   * Have {@link #create()} return a single {@link CompositeObjectMatrix} over all matrices instead of the matrices
+   * themselves.
+   * 
+   * @param unionIdentifier
+   *          The identifier of the composite matrix, or null to return the matrices separately, which is the default.
+   * @return <code>this</code>, for method chaining
+   */
+  public CompositeObjectMatrixFactory setUnionIdentifier(final String unionIdentifier) {
+    this.unionIdentifier = unionIdentifier;
+    return this;
+  }
+  
+  /**
+   * Pass the projection on to all factories that support it.
+   * 
+   * @see com.senacor.ddt.objectmatrix.ProjectableObjectMatrixFactory#setColumnProjection(ColumnProjection)
+   */
+  public void setColumnProjection(final ColumnProjection projection) {
+    for (int i = 0; i < this.factories.length; i++) {
+      if (this.factories[i] instanceof ProjectableObjectMatrixFactory) {
+        ((ProjectableObjectMatrixFactory) this.factories[i]).setColumnProjection(projection);
+      }
+    }
+  }
+  
+  /**
+   * Start all factories in the background, unless they are already running. The factories are started in the order
+   * they were given.
+   * 
+   * @return one Future<ObjectMatrix[]> per factory, in the order of the factories
+   */
+  public synchronized Future[] start() {
+    return start(false, null);
+  }
+  
+  private synchronized Future[] start(final boolean project, final ColumnProjection projection) {
+    if (this.running == null) {
+      final int poolSize = Math.min(this.threads, this.factories.length);
+      log.debug("Starting " + this.factories.length + " factories on " + poolSize + " threads...");
+      final ExecutorService executor = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+        public Thread newThread(final Runnable runnable) {
+          final Thread thread = new Thread(runnable, "ddt-matrix-loader-" + threadCount.incrementAndGet());
+          // don't keep the JVM alive if nobody collects the results
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+      final Future[] futures = new Future[this.factories.length];
+      for (int i = 0; i < this.factories.length; i++) {
+        final ObjectMatrixFactory factory = this.factories[i];
+        futures[i] = executor.submit(new Callable() {
+          public Object call() {
+            if (project && (factory instanceof ProjectableObjectMatrixFactory)) {
+              return ((ProjectableObjectMatrixFactory) factory).create(projection);
+            }
+            return factory.create();
+          }
+        });
+      }
+      // the threads end as soon as all factories are done
+      executor.shutdown();
+      this.running = futures;
+    }
+    return (Future[]) this.running.clone();
+  }
+  
+  /**
+   * Wait for all factories and combine their matrices. Starts the factories first if {@link #start()} hasn't been
+   * called. Each call to <code>start()</code> is collected by exactly one call to <code>create()</code>.
+   * 
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrixFactory#create()
+   */
+  public ObjectMatrix[] create() throws ObjectMatrixCreationFailedException {
+    return create(false, null);
+  }
+  
+  /**
+   * Like {@link #create()}, but pass the projection on to all factories that support it. Factories that have already
+   * been started by {@link #start()} are collected without projection.
+   * 
+   * @see com.senacor.ddt.objectmatrix.ProjectableObjectMatrixFactory#create(ColumnProjection)
+   */
+  public ObjectMatrix[] create(final ColumnProjection projection) throws ObjectMatrixCreationFailedException {
+    return create(true, projection);
+  }
+  
+  private ObjectMatrix[] create(final boolean project, final ColumnProjection projection) {
+    final Future[] futures;
+    synchronized (this) {
+      futures = start(project, projection);
+      this.running = null;
+    }
+    final List matrices = new ArrayList();
+    for (int i = 0; i < futures.length; i++) {
+      matrices.addAll(Arrays.asList(getResult(futures[i])));
+    }
+    log.debug("Created " + matrices.size() + " matrices from " + this.factories.length + " factories.");
+    final ObjectMatrix[] result = (ObjectMatrix[]) matrices.toArray(new ObjectMatrix[matrices.size()]);
+    if (this.unionIdentifier != null) {
+      return new ObjectMatrix[] { new CompositeObjectMatrix(result, this.unionIdentifier) };
+    }
+    return result;
+  }
+  
+  private static ObjectMatrix[] getResult(final Future future) {
+    try {
+      return (ObjectMatrix[]) future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ObjectMatrixCreationFailedException("Interrupted while creating matrices", e);
+    } catch (final ExecutionException e) {
+      // rethrow the original exception, just as if the factory had been called directly
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new ObjectMatrixCreationFailedException("Failed to create matrix", cause);
+      }
+    }
+  }
+}
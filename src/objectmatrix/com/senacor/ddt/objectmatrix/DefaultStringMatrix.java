@@ -40,6 +40,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.senacor.ddt.util.ParamChecker;
+import com.senacor.ddt.util.StringIndex;
 import com.senacor.ddt.util.StringUtils;
 
 /**
@@ -71,6 +72,10 @@ public class DefaultStringMatrix implements IndexedStringMatrix {
   
   private final StringMatrixReader reader;
   
+  private final StringIndex rowTitleIndex;
+  
+  private final StringIndex colTitleIndex;
+  
   /**
    * Construct a DefaultStringMatrix based on the given reader, placing the title column/row at the default indices
    * (0,0). Delegates to {@link #DefaultStringMatrix(StringMatrixReader, int, int)}. See there.
@@ -108,6 +113,8 @@ public class DefaultStringMatrix implements IndexedStringMatrix {
     this.columnContainingRowTitles = columnContainingRowTitles;
     this.rowContainingColumnTitles = rowContainingColumnTitles;
     populateTitleMaps();
+    this.rowTitleIndex = new StringIndex(this.rowTitles);
+    this.colTitleIndex = new StringIndex(this.colTitles);
   }
   
   /**
@@ -153,7 +160,7 @@ public class DefaultStringMatrix implements IndexedStringMatrix {
       }
       
       // empty column titles and reserved columns are allowed to appear multiple times
-      if (!titleList.contains(titleString) || (titleString.length() == 0)
+      if (!titleMap.containsKey(titleString) || (titleString.length() == 0)
           || Tokens.RESERVED.equalsIgnoreCase(titleString)) {
         titleMap.put(titleString, new Integer(i));
         titleList.add(titleString);
@@ -254,7 +261,7 @@ public class DefaultStringMatrix implements IndexedStringMatrix {
    * @see com.senacor.ddt.objectmatrix.StringMatrix#filterRowNames(java.lang.String, java.lang.String, java.lang.String)
    */
   public List filterRowNames(final String rowPrefix, final String rowInfix, final String rowSuffix) {
-    return StringUtils.filterStringList(rowPrefix, rowInfix, rowSuffix, getRowNames());
+    return this.rowTitleIndex.filter(rowPrefix, rowInfix, rowSuffix);
   }
   
   /**
@@ -263,7 +270,7 @@ public class DefaultStringMatrix implements IndexedStringMatrix {
    */
   public List filterColumnNames(final String colPrefix, final String colInfix, final String colSuffix)
       throws MatrixReadFailedException {
-    return StringUtils.filterStringList(colPrefix, colInfix, colSuffix, getColNames());
+    return this.colTitleIndex.filter(colPrefix, colInfix, colSuffix);
   }
   
   /**
@@ -276,6 +283,16 @@ public class DefaultStringMatrix implements IndexedStringMatrix {
     return this.reader.getIdentifier();
   }
   
+  /**
+   * Add the cells of the reader to the given estimate, see {@link HeapEstimate#addReader(StringMatrixReader)}.
+   * 
+   * @param estimate
+   *          the estimate to add to
+   */
+  void estimateRetainedBytes(final HeapEstimate estimate) {
+    estimate.addReader(this.reader);
+  }
+  
   /**
    * Interface used by {@link DefaultStringMatrix} to actually read the data from an underlying datasource. To utilize a
    * datasource that contains embedded row and column titles, implement this interface and give an instance of it to
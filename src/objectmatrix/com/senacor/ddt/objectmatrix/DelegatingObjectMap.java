@@ -33,15 +33,15 @@ package com.senacor.ddt.objectmatrix;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Properties;
+import java.util.Set;
 
 import com.senacor.ddt.typetransformer.Transformer;
 import com.senacor.ddt.util.ParamChecker;
-import com.senacor.ddt.util.StringUtils;
+import com.senacor.ddt.util.StringIndex;
 
 /**
  * Default implementation of {@link ObjectMap} that delegates to an {@link ObjectMatrix} instance.
@@ -49,7 +49,7 @@ import com.senacor.ddt.util.StringUtils;
  * @author Carl-Eric Menzel
  * @version $Id$
  */
-public class DelegatingObjectMap implements ObjectMap {
+public class DelegatingObjectMap implements CellAnnotatedObjectMap {
   
   private final ObjectMatrix matrix;
   
@@ -57,7 +57,7 @@ public class DelegatingObjectMap implements ObjectMap {
   
   private final Mode accessMode;
   
-  private List keys;
+  private final StringIndex keys;
   
   private final String identifier;
   
@@ -73,6 +73,28 @@ public class DelegatingObjectMap implements ObjectMap {
    *          not be null.
    */
   public DelegatingObjectMap(final ObjectMatrix matrix, final String rowOrColumnName, final Mode accessMode) {
+    this(matrix, rowOrColumnName, accessMode, null, null);
+  }
+  
+  /**
+   * Create an ObjectMap over a row or column of a given ObjectMatrix, sharing the names and keys already collected by
+   * the matrix. This saves scanning and copying the names for every map.
+   * 
+   * @param matrix
+   *          The matrix. Must not be null.
+   * @param rowOrColumnName
+   *          The name of the row or column. Must not be blank.
+   * @param accessMode
+   *          {@link Mode#COLUMN} if <code>rowOrColumnName</code> refers to a column, {@link Mode#ROW} otherwise. Must
+   *          not be null.
+   * @param names
+   *          Set<String> of all column names in {@link Mode#COLUMN}, or all row names in {@link Mode#ROW}. If null,
+   *          they are read from the matrix.
+   * @param keys
+   *          The keys as created by {@link #createKeyIndex(List)}. If null, they are read from the matrix.
+   */
+  DelegatingObjectMap(final ObjectMatrix matrix, final String rowOrColumnName, final Mode accessMode, final Set names,
+      final StringIndex keys) {
     ParamChecker.notNull("matrix", matrix);
     ParamChecker.notBlank("rowOrColumnName", rowOrColumnName);
     ParamChecker.notNull("accessMode", accessMode);
@@ -80,40 +102,43 @@ public class DelegatingObjectMap implements ObjectMap {
     this.rowOrColumnName = rowOrColumnName;
     this.accessMode = accessMode;
     if (accessMode == Mode.COLUMN) {
-      ParamChecker.require("Given matrix must contain column with given name '" + rowOrColumnName + "'", matrix
-          .getColNames().contains(rowOrColumnName));
+      ParamChecker.require("Given matrix must contain column with given name '" + rowOrColumnName + "'",
+          (names != null) ? names.contains(rowOrColumnName) : matrix.getColNames().contains(rowOrColumnName));
       this.identifier = "[Column '" + rowOrColumnName + "' on Matrix '" + matrix.getMatrixIdentifier() + "']";
     } else if (accessMode == Mode.ROW) {
-      ParamChecker.require("Given matrix must contain row with given name '" + rowOrColumnName + "'", matrix
-          .getRowNames().contains(rowOrColumnName));
+      ParamChecker.require("Given matrix must contain row with given name '" + rowOrColumnName + "'",
+          (names != null) ? names.contains(rowOrColumnName) : matrix.getRowNames().contains(rowOrColumnName));
       this.identifier = "[Row '" + rowOrColumnName + "' on Matrix '" + matrix.getMatrixIdentifier() + "']";
     } else {
       throw new AssertionError("impossible case");
     }
-    setupKeyList();
+    if (keys != null) {
+      this.keys = keys;
+    } else if (accessMode == Mode.COLUMN) {
+      this.keys = createKeyIndex(matrix.getRowNames());
+    } else {
+      this.keys = createKeyIndex(matrix.getColNames());
+    }
   }
   
   /**
-   * Read the row or column names - depending on this.accessMode - from the underlying matrix and create our key list
-   * from it. Skip empty and reserved keys.
+   * Create the key list from the given row or column names. Skip empty and reserved keys. The keys are indexed for
+   * {@link #filterKeys(String, String, String)} and {@link #containsKey(String)}.
+   * 
+   * @param names
+   *          List<String> of the row names for maps over a column, or the column names for maps over a row.
+   * @return the indexed keys
    */
-  private void setupKeyList() {
-    final List tempKeys;
-    if (this.accessMode == Mode.COLUMN) {
-      tempKeys = new ArrayList(this.matrix.getRowNames());
-    } else if (this.accessMode == Mode.ROW) {
-      tempKeys = new ArrayList(this.matrix.getColNames());
-    } else {
-      throw new AssertionError("impossible case");
-    }
-    final ListIterator iter = tempKeys.listIterator();
+  static StringIndex createKeyIndex(final List names) {
+    final List tempKeys = new ArrayList(names.size());
+    final Iterator iter = names.iterator();
     while (iter.hasNext()) {
       final String key = (String) iter.next();
-      if ("".equals(key) || StringMatrix.Tokens.RESERVED.equals(key)) {
-        iter.remove();
+      if (!"".equals(key) && !StringMatrix.Tokens.RESERVED.equalsIgnoreCase(key)) {
+        tempKeys.add(key);
       }
     }
-    this.keys = Collections.unmodifiableList(tempKeys);
+    return new StringIndex(tempKeys);
   }
   
   /**
@@ -142,7 +167,19 @@ public class DelegatingObjectMap implements ObjectMap {
    * @see com.senacor.ddt.objectmatrix.ObjectMap#getKeys()
    */
   public List getKeys() {
-    return this.keys;
+    return this.keys.getStrings();
+  }
+  
+  /**
+   * Check whether the given key is contained in this map. Unlike <code>getKeys().contains(key)</code>, this does not
+   * scan the list of keys.
+   * 
+   * @param key
+   *          The key to look for.
+   * @return <code>true</code> if {@link #getKeys()} contains the key, <code>false</code> otherwise.
+   */
+  public boolean containsKey(final String key) {
+    return this.keys.contains(key);
   }
   
   /**
@@ -231,14 +268,21 @@ public class DelegatingObjectMap implements ObjectMap {
    * @see com.senacor.ddt.objectmatrix.ObjectMap#filterKeys(java.lang.String, java.lang.String, java.lang.String)
    */
   public List filterKeys(final String prefix, final String infix, final String postfix) {
-    return StringUtils.filterStringList(prefix, infix, postfix, getKeys());
+    return this.keys.filter(prefix, infix, postfix);
   }
   
   /**
    * @see com.senacor.ddt.objectmatrix.ObjectMap#getAnnotation(java.lang.String)
    */
   public Properties getAnnotation(final String key) {
-    return this.matrix.getAnnotation(getColName(key), getRowName(key));
+    return getCellAnnotation(key).toProperties();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.CellAnnotatedObjectMap#getCellAnnotation(java.lang.String)
+   */
+  public CellAnnotation getCellAnnotation(final String key) {
+    return CellAnnotation.forCell(this.matrix, getColName(key), getRowName(key));
   }
   
   /**
@@ -32,9 +32,17 @@
 package com.senacor.ddt.objectmatrix;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.beanutils.ConversionException;
 import org.apache.commons.logging.Log;
@@ -45,20 +53,64 @@ import com.senacor.ddt.typetransformer.TransformationException;
 import com.senacor.ddt.typetransformer.TransformationFailedException;
 import com.senacor.ddt.typetransformer.Transformer;
 import com.senacor.ddt.util.ParamChecker;
+import com.senacor.ddt.util.StringIndex;
 
 /**
  * Default ObjectMatrix implementation that uses an arbitrary underlying StringMatrix as a data source.
+ * <p>
+ * All <code>ref</code> annotations of the matrix are resolved once, when the matrix is created. Chains of references
+ * are collapsed to their final target column, so reading a referenced cell costs no more than reading any other cell.
+ * Circular references are reported at that time by a {@link CircularReferenceException}.
+ * <p>
+ * Converted values can optionally be cached, see {@link #setValueCache(ValueCache)}.
  * 
  * @author Carl-Eric Menzel
  * @version $Id$
  */
-public class DelegatingObjectMatrix implements ObjectMatrix {
+public class DelegatingObjectMatrix implements ObjectMatrix, CellAnnotatedStringMatrix {
   private static final Log log = LogFactory.getLog(DelegatingObjectMatrix.class);
   
+  /*
+   * identify the conversions of the typed getters in the value cache. getObject uses the target type instead.
+   */
+  private static final String BOOLEAN = "getBoolean";
+  
+  private static final String INTEGER = "getInteger";
+  
+  private static final String BIG_DECIMAL = "getBigDecimal";
+  
+  private static final String LONG = "getLong";
+  
+  private static final String DOUBLE = "getDouble";
+  
+  private static final String DATE = "getDate";
+  
   private final AnnotatedStringMatrix stringMatrix;
   
   private final Transformer localTransformer;
   
+  /**
+   * The final target column of every cell that has a reference annotation, mapped by row name and then by column name.
+   */
+  private final Map /* <String, Map<String, String>> */resolvedReferences;
+  
+  private volatile ValueCache valueCache;
+  
+  /**
+   * The names and keys shared by all object maps over this matrix. Created on first use, guarded by <code>this</code>.
+   */
+  private ObjectMapKeys objectMapKeys;
+  
+  /**
+   * The object maps handed out so far, by column name.
+   */
+  private final ConcurrentMap /* <String, ObjectMap> */columnMaps = new ConcurrentHashMap();
+  
+  /**
+   * The object maps handed out so far, by row name.
+   */
+  private final ConcurrentMap /* <String, ObjectMap> */rowMaps = new ConcurrentHashMap();
+  
   /**
    * Create an ObjectMatrix delegating to the given string matrix and using the default Transformer (
    * {@link Transformer#get()}).
@@ -77,12 +129,110 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
    *          The string matrix to delegate to.
    * @param localTransformer
    *          The transformer to use.
+   * @throws CircularReferenceException
+   *           if the reference annotations of the string matrix contain a cycle
    */
-  public DelegatingObjectMatrix(final AnnotatedStringMatrix stringMatrix, final Transformer localTransformer) {
+  public DelegatingObjectMatrix(final AnnotatedStringMatrix stringMatrix, final Transformer localTransformer)
+      throws CircularReferenceException {
     ParamChecker.notNull("stringMatrix", stringMatrix);
     ParamChecker.notNull("localTransformer", localTransformer);
     this.localTransformer = localTransformer;
     this.stringMatrix = stringMatrix;
+    this.resolvedReferences = resolveReferences(stringMatrix);
+  }
+  
+  /**
+   * Find all cells with a reference annotation and follow each reference to its final target.
+   * 
+   * @param stringMatrix
+   *          The matrix to look at.
+   * @return the final target columns, mapped by row name and then by column name
+   * @throws CircularReferenceException
+   *           if a cycle is found
+   */
+  static Map resolveReferences(final AnnotatedStringMatrix stringMatrix) throws CircularReferenceException {
+    final Map result = new HashMap();
+    final List colNames = stringMatrix.getColNames();
+    final Iterator rows = stringMatrix.getRowNames().iterator();
+    while (rows.hasNext()) {
+      final String rowName = (String) rows.next();
+      final Map targets = new HashMap();
+      final Iterator cols = colNames.iterator();
+      while (cols.hasNext()) {
+        final String colName = (String) cols.next();
+        final String target = getReference(stringMatrix, colName, rowName);
+        if (target != null) {
+          targets.put(colName, followReferences(stringMatrix, colName, rowName, target, targets));
+        }
+      }
+      if (!targets.isEmpty()) {
+        result.put(rowName, targets);
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Resolved references in " + result.size() + " rows of " + stringMatrix.getMatrixIdentifier());
+    }
+    return result;
+  }
+  
+  /**
+   * Read the reference annotation of a cell. A decorator that has not split its cells yet only looks at the cells
+   * that may carry one.
+   */
+  private static String getReference(final AnnotatedStringMatrix stringMatrix, final String colName,
+      final String rowName) {
+    if (stringMatrix instanceof EmbeddedAnnotationMatrixDecorator) {
+      return ((EmbeddedAnnotationMatrixDecorator) stringMatrix).getAnnotationValue(AnnotationKeys.REFERENCE, colName,
+          rowName);
+    }
+    return CellAnnotation.forCell(stringMatrix, colName, rowName).get(AnnotationKeys.REFERENCE);
+  }
+  
+  /**
+   * Follow a chain of references within a row.
+   * 
+   * @param stringMatrix
+   *          The matrix to look at.
+   * @param colName
+   *          The column the chain starts at.
+   * @param rowName
+   *          The row.
+   * @param firstTarget
+   *          The column referenced by the first cell.
+   * @param resolved
+   *          The final targets already known for this row.
+   * @return the column at the end of the chain
+   * @throws CircularReferenceException
+   *           if the chain leads back to a column it has already visited
+   */
+  private static String followReferences(final AnnotatedStringMatrix stringMatrix, final String colName,
+      final String rowName, final String firstTarget, final Map resolved) throws CircularReferenceException {
+    final List visited = new ArrayList();
+    visited.add(colName);
+    String target = firstTarget;
+    while (true) {
+      if (visited.contains(target)) {
+        visited.add(target);
+        throw new CircularReferenceException("Circular reference in row '" + rowName + "' of "
+            + stringMatrix.getMatrixIdentifier() + ": " + visited);
+      }
+      final String known = (String) resolved.get(target);
+      if (known != null) {
+        return known;
+      }
+      visited.add(target);
+      final String next;
+      try {
+        next = getReference(stringMatrix, target, rowName);
+      } catch (final ColumnNotFoundException e) {
+        // reading the cell reports this, just like an unresolved reference would
+        return target;
+      }
+      if (next == null) {
+        return target;
+      }
+      target = next;
+    }
   }
   
   /**
@@ -92,23 +242,41 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
     if (log.isTraceEnabled()) {
       log.trace("getString(" + colName + ", " + rowName + ")");
     }
-    final Properties annotation = this.stringMatrix.getAnnotation(colName, rowName);
+    final Map targets = (Map) this.resolvedReferences.get(rowName);
+    if (targets != null) {
+      final String target = (String) targets.get(colName);
+      if (target != null) {
+        if (log.isDebugEnabled()) {
+          log.debug("following resolved column reference to: " + target);
+        }
+        return getResolvedString(target, rowName);
+      }
+    }
+    return getResolvedString(colName, rowName);
+  }
+  
+  /**
+   * Read a cell whose references have already been resolved. Cells addressed by names other than the virtual column
+   * and row names of the string matrix may still carry a reference, which is followed here.
+   */
+  private String getResolvedString(final String colName, final String rowName) {
+    final CellAnnotation annotation = CellAnnotation.forCell(this.stringMatrix, colName, rowName);
     // Follow references, if necessary.
-    final String redirect = (annotation).getProperty(AnnotationKeys.REFERENCE);
+    final String redirect = annotation.get(AnnotationKeys.REFERENCE);
     if (redirect != null) {
       if (log.isDebugEnabled()) {
         log.debug("following column reference to: " + redirect);
       }
       return getString(redirect, rowName);
     } else {
-      if (annotation.containsKey(AnnotationKeys.NULL)) {
+      if (annotation.has(AnnotationKeys.NULL)) {
         return null;
       }
       final String string =
           (String) getTransformer().transform(this.stringMatrix.getString(colName, rowName), String.class);
       if ((string == null) || string.equals("")) {
-        if (annotation.containsKey(AnnotationKeys.DEFAULT_VALUE)) {
-          return annotation.getProperty(AnnotationKeys.DEFAULT_VALUE);
+        if (annotation.has(AnnotationKeys.DEFAULT_VALUE)) {
+          return annotation.get(AnnotationKeys.DEFAULT_VALUE);
         } else {
           return "";
         }
@@ -118,6 +286,43 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
     }
   }
   
+  /**
+   * Cache the values converted by the typed getters and {@link #getObject(String, String, Class)}. Only immutable
+   * values are cached, see {@link ValueCache}. By default, there is no cache.
+   * 
+   * @param valueCache
+   *          The cache to use, or null to disable caching.
+   */
+  public void setValueCache(final ValueCache valueCache) {
+    this.valueCache = valueCache;
+  }
+  
+  /**
+   * @return the cache of converted values, or null if there is none
+   */
+  public ValueCache getValueCache() {
+    return this.valueCache;
+  }
+  
+  /**
+   * Look up a cached value. Null names are never cached, so that reading the cell reports them as usual.
+   */
+  private Object lookup(final String column, final String row, final Object conversion) {
+    final ValueCache cache = this.valueCache;
+    if ((cache == null) || (column == null) || (row == null)) {
+      return ValueCache.MISS;
+    }
+    return cache.get(column, row, conversion);
+  }
+  
+  private Object store(final String column, final String row, final Object conversion, final Object value) {
+    final ValueCache cache = this.valueCache;
+    if ((cache != null) && (column != null) && (row != null)) {
+      cache.put(column, row, conversion, value);
+    }
+    return value;
+  }
+  
   /**
    * @see com.senacor.ddt.objectmatrix.StringMatrix#getRowNames()
    */
@@ -142,12 +347,16 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
     if (log.isTraceEnabled()) {
       log.trace("getBoolean(" + column + ", " + row + ")");
     }
+    final Object cached = lookup(column, row, BOOLEAN);
+    if (cached != ValueCache.MISS) {
+      return (Boolean) cached;
+    }
     final String value = getString(column, row);
     
     if (nullOrBlank(value)) {
-      return null;
+      return (Boolean) store(column, row, BOOLEAN, null);
     } else {
-      return (Boolean) getLocalTransformer().transform(value, Boolean.class);
+      return (Boolean) store(column, row, BOOLEAN, getLocalTransformer().transform(value, Boolean.class));
     }
   }
   
@@ -179,12 +388,16 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
    * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getInteger(java.lang.String, java.lang.String)
    */
   public Integer getInteger(final String column, final String row) {
+    final Object cached = lookup(column, row, INTEGER);
+    if (cached != ValueCache.MISS) {
+      return (Integer) cached;
+    }
     final String string = getString(column, row);
     
     if (nullOrBlank(string)) {
-      return null;
+      return (Integer) store(column, row, INTEGER, null);
     } else {
-      return (Integer) parseNumber(column, row, string, Integer.class);
+      return (Integer) store(column, row, INTEGER, parseNumber(column, row, string, Integer.class));
     }
   }
   
@@ -192,13 +405,17 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
    * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getBigDecimal(java.lang.String, java.lang.String)
    */
   public BigDecimal getBigDecimal(final String column, final String row) {
+    final Object cached = lookup(column, row, BIG_DECIMAL);
+    if (cached != ValueCache.MISS) {
+      return (BigDecimal) cached;
+    }
     String string = getString(column, row);
     
     if (nullOrBlank(string)) {
-      return null;
+      return (BigDecimal) store(column, row, BIG_DECIMAL, null);
     } else {
       string = string.replace(',', '.');
-      return (BigDecimal) parseNumber(column, row, string, BigDecimal.class);
+      return (BigDecimal) store(column, row, BIG_DECIMAL, parseNumber(column, row, string, BigDecimal.class));
     }
   }
   
@@ -206,12 +423,16 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
    * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getLong(java.lang.String, java.lang.String)
    */
   public Long getLong(final String column, final String row) {
+    final Object cached = lookup(column, row, LONG);
+    if (cached != ValueCache.MISS) {
+      return (Long) cached;
+    }
     final String string = getString(column, row);
     
     if (nullOrBlank(string)) {
-      return null;
+      return (Long) store(column, row, LONG, null);
     } else {
-      return (Long) parseNumber(column, row, string, Long.class);
+      return (Long) store(column, row, LONG, parseNumber(column, row, string, Long.class));
     }
   }
   
@@ -247,12 +468,16 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
    * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getDouble(java.lang.String, java.lang.String)
    */
   public Double getDouble(final String column, final String row) {
+    final Object cached = lookup(column, row, DOUBLE);
+    if (cached != ValueCache.MISS) {
+      return (Double) cached;
+    }
     final String string = getString(column, row);
     
     if (nullOrBlank(string)) {
-      return null;
+      return (Double) store(column, row, DOUBLE, null);
     } else {
-      return (Double) parseNumber(column, row, string, Double.class);
+      return (Double) store(column, row, DOUBLE, parseNumber(column, row, string, Double.class));
     }
   }
   
@@ -260,13 +485,17 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
    * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getDate(java.lang.String, java.lang.String)
    */
   public Date getDate(final String column, final String row) {
+    final Object cached = lookup(column, row, DATE);
+    if (cached != ValueCache.MISS) {
+      return (Date) cached;
+    }
     final String string = getString(column, row);
     
     if (nullOrBlank(string)) {
-      return null;
+      return (Date) store(column, row, DATE, null);
     } else {
       try {
-        return (Date) getLocalTransformer().transform(string, Date.class);
+        return (Date) store(column, row, DATE, getLocalTransformer().transform(string, Date.class));
       } catch (final RuntimeException e) {
         throw addFieldInfoToException(column, row, e);
       }
@@ -347,10 +576,15 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
       type = (Class) Transformer.BOXED_TYPES.get(type);
     }
     
+    final Object cached = lookup(column, row, type);
+    if (cached != ValueCache.MISS) {
+      return cached;
+    }
+    
     final String string = getString(column, row);
     
     if (nullOrEmpty(string)) {
-      return null;
+      return store(column, row, type, null);
     } else {
       Object value;
       try {
@@ -365,7 +599,7 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
             + ", row " + row + ")");
       }
       
-      return value;
+      return store(column, row, type, value);
     }
   }
   
@@ -394,6 +628,13 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
     return this.stringMatrix.getAnnotation(column, row);
   }
   
+  /**
+   * @see com.senacor.ddt.objectmatrix.CellAnnotatedStringMatrix#getCellAnnotation(java.lang.String, java.lang.String)
+   */
+  public CellAnnotation getCellAnnotation(final String column, final String row) throws MatrixReadFailedException {
+    return CellAnnotation.forCell(this.stringMatrix, column, row);
+  }
+  
   /**
    * @see com.senacor.ddt.objectmatrix.StringMatrix#filterColumnNames(java.lang.String, java.lang.String,
    *      java.lang.String)
@@ -407,14 +648,59 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
    * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getObjectMapForColumn(java.lang.String)
    */
   public ObjectMap getObjectMapForColumn(final String columnName) {
-    return new DelegatingObjectMap(this, columnName, DelegatingObjectMap.Mode.COLUMN);
+    ParamChecker.notBlank("columnName", columnName);
+    final ObjectMap cached = (ObjectMap) this.columnMaps.get(columnName);
+    if (cached != null) {
+      return cached;
+    }
+    final ObjectMapKeys keys = getObjectMapKeys();
+    final ObjectMap map =
+        new DelegatingObjectMap(this, columnName, DelegatingObjectMap.Mode.COLUMN, keys.colNames, keys.rowKeys);
+    final ObjectMap existing = (ObjectMap) this.columnMaps.putIfAbsent(columnName, map);
+    return (existing != null) ? existing : map;
   }
   
   /**
    * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getObjectMapForRow(java.lang.String)
    */
   public ObjectMap getObjectMapForRow(final String rowName) {
-    return new DelegatingObjectMap(this, rowName, DelegatingObjectMap.Mode.ROW);
+    ParamChecker.notBlank("rowName", rowName);
+    final ObjectMap cached = (ObjectMap) this.rowMaps.get(rowName);
+    if (cached != null) {
+      return cached;
+    }
+    final ObjectMapKeys keys = getObjectMapKeys();
+    final ObjectMap map =
+        new DelegatingObjectMap(this, rowName, DelegatingObjectMap.Mode.ROW, keys.rowNames, keys.colKeys);
+    final ObjectMap existing = (ObjectMap) this.rowMaps.putIfAbsent(rowName, map);
+    return (existing != null) ? existing : map;
+  }
+  
+  private synchronized ObjectMapKeys getObjectMapKeys() {
+    if (this.objectMapKeys == null) {
+      this.objectMapKeys = new ObjectMapKeys(getRowNames(), getColNames());
+    }
+    return this.objectMapKeys;
+  }
+  
+  /**
+   * The row and column names of this matrix, once as sets to check map names and once as indexed keys.
+   */
+  private static final class ObjectMapKeys {
+    private final Set rowNames;
+    
+    private final Set colNames;
+    
+    private final StringIndex rowKeys;
+    
+    private final StringIndex colKeys;
+    
+    private ObjectMapKeys(final List rowNames, final List colNames) {
+      this.rowNames = new HashSet(rowNames);
+      this.colNames = new HashSet(colNames);
+      this.rowKeys = DelegatingObjectMap.createKeyIndex(rowNames);
+      this.colKeys = DelegatingObjectMap.createKeyIndex(colNames);
+    }
   }
   
   /**
@@ -425,8 +711,8 @@ public class DelegatingObjectMatrix implements ObjectMatrix {
   }
   
   public boolean isDefinedAt(final String colName, final String rowName) {
-    final Properties annotation = getAnnotation(colName, rowName);
-    return !annotation.containsKey(AnnotationKeys.NULL)
-        && (annotation.containsKey(AnnotationKeys.DEFAULT_VALUE) || this.stringMatrix.isDefinedAt(colName, rowName));
+    final CellAnnotation annotation = getCellAnnotation(colName, rowName);
+    return !annotation.has(AnnotationKeys.NULL)
+        && (annotation.has(AnnotationKeys.DEFAULT_VALUE) || this.stringMatrix.isDefinedAt(colName, rowName));
   }
 }
@@ -42,7 +42,8 @@ import java.util.Properties;
 import java.util.Set;
 
 import com.senacor.ddt.util.ParamChecker;
-import com.senacor.ddt.util.StringUtils;
+import com.senacor.ddt.util.StringIndex;
+import com.senacor.ddt.util.StringPool;
 
 /**
  * Decorator that provides annotation capability to any StringMatrix. The annotations are parsed from cell content, row
@@ -64,46 +65,16 @@ import com.senacor.ddt.util.StringUtils;
  * this decorator will only show the virtual row "foo", which will have two annotations. Cell content is taken from the
  * underlying row "foo". The annotations' values will be taken from their own underlying rows. If there is no underlying
  * row named simply "foo", the last annotated row will be used.
- * 
+ * <p>
+ * All virtual cells are split into content and annotations once, when the decorator is created or, for the lazy
+ * matrices of an {@link AbstractDefaultStringMatrixBasedObjectMatrixFactory}, when the first cell is read. Reading a
+ * cell or its annotations afterwards is a plain table lookup, which is safe for concurrent use. Cells with identical
+ * annotations share the same {@link CellAnnotation} instance.
  * 
  * @author Carl-Eric Menzel
  * @version $Id$
  */
-public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix {
-  /**
-   * Composite key for the annotation cache map.
-   */
-  private static class Key {
-    
-    private final String column;
-    
-    private final String row;
-    
-    Key(final String column, final String row) {
-      this.column = column;
-      this.row = row;
-    }
-    
-    /**
-     * @see java.lang.Object#equals(java.lang.Object)
-     */
-    public boolean equals(final Object obj) {
-      if ((obj == null) || (!(obj instanceof Key))) {
-        return false;
-      }
-      final Key that = (Key) obj;
-      return this.column.equals(that.column) && this.row.equals(that.row);
-    }
-    
-    /**
-     * @see java.lang.Object#hashCode()
-     */
-    public int hashCode() {
-      return this.column.hashCode() + this.row.hashCode();
-    }
-    
-  }
-  
+public class EmbeddedAnnotationMatrixDecorator implements CellAnnotatedStringMatrix {
   /**
    * Although Annotations are simply String key/value pairs, it is useful to represent them as actual types within this
    * parser. This way different subclasses can handle reading of values from the cell itself or other rows/columns.
@@ -324,9 +295,29 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
   private final List colNames = new ArrayList();
   
   /**
-   * Annotation cache.
+   * Answers {@link #filterRowNames(String, String, String)}.
    */
-  private final Map cache = new HashMap();
+  private final StringIndex rowNameIndex;
+  
+  /**
+   * Answers {@link #filterColumnNames(String, String, String)}.
+   */
+  private final StringIndex colNameIndex;
+  
+  /**
+   * Maps each distinct virtual column name to its column index in the {@link Tables}.
+   */
+  private final Map colIndices = new HashMap();
+  
+  /**
+   * Maps each distinct virtual row name to its row index in the {@link Tables}.
+   */
+  private final Map rowIndices = new HashMap();
+  
+  /**
+   * The split cells. Null until first access if creating them was deferred.
+   */
+  private volatile Tables tables;
   
   /**
    * Global annotations. Initialized at construction time.
@@ -338,10 +329,150 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
    *          The StringMatrix to decorate and read from.
    */
   public EmbeddedAnnotationMatrixDecorator(final StringMatrix delegate) {
+    this(delegate, false);
+  }
+  
+  /**
+   * @param delegate
+   *          The StringMatrix to decorate and read from.
+   * @param deferTables
+   *          If <code>true</code>, the cells are split into content and annotations when the first cell is read, not
+   *          now. The row and column names are always available right away.
+   */
+  EmbeddedAnnotationMatrixDecorator(final StringMatrix delegate, final boolean deferTables) {
+    this(delegate, deferTables, null);
+  }
+  
+  /**
+   * @param delegate
+   *          The StringMatrix to decorate and read from.
+   * @param deferTables
+   *          If <code>true</code>, the cells are split into content and annotations when the first cell is read, not
+   *          now. The row and column names are always available right away.
+   * @param pool
+   *          If not null, the cell contents are replaced by their shared instances from this pool. The pool is only
+   *          used during construction, so it has no effect if the tables are deferred.
+   */
+  EmbeddedAnnotationMatrixDecorator(final StringMatrix delegate, final boolean deferTables, final StringPool pool) {
     ParamChecker.notNull("delegate", delegate);
     this.delegate = delegate;
     createAnnotationsAndNecessaryAliases(delegate.getRowNames(), this.rowNames, this.rowAliases, ROWS);
     createAnnotationsAndNecessaryAliases(delegate.getColNames(), this.colNames, this.colAliases, COLUMNS);
+    this.rowNameIndex = new StringIndex(this.rowNames);
+    this.colNameIndex = new StringIndex(this.colNames);
+    
+    indexNames(this.colNames, this.colIndices);
+    indexNames(this.rowNames, this.rowIndices);
+    if (!deferTables) {
+      this.tables = createTables(pool);
+    }
+  }
+  
+  /**
+   * @return the split cells, creating them if this has not happened yet
+   */
+  private Tables getTables() {
+    Tables result = this.tables;
+    if (result == null) {
+      synchronized (this) {
+        result = this.tables;
+        if (result == null) {
+          result = createTables(null);
+          this.tables = result;
+        }
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Assign a table index to each distinct name.
+   * 
+   * @param names
+   *          The virtual names, which may contain duplicates.
+   * @param indices
+   *          Map to store the indices in.
+   */
+  private static void indexNames(final List names, final Map indices) {
+    final Iterator iter = names.iterator();
+    while (iter.hasNext()) {
+      final String name = (String) iter.next();
+      if (!indices.containsKey(name)) {
+        indices.put(name, new Integer(indices.size()));
+      }
+    }
+  }
+  
+  /**
+   * Split all virtual cells into content and annotations. Identical annotations are shared between cells.
+   * 
+   * @param pool
+   *          The pool to share the contents through, or null.
+   * @return the tables
+   */
+  private Tables createTables(final StringPool pool) {
+    final Tables result = new Tables(this.colIndices.size(), this.rowIndices.size());
+    final Map sharedAnnotations = new HashMap();
+    final Iterator cols = this.colIndices.entrySet().iterator();
+    while (cols.hasNext()) {
+      final Map.Entry col = (Map.Entry) cols.next();
+      final String colName = (String) col.getKey();
+      final int colIndex = ((Integer) col.getValue()).intValue();
+      final Iterator rows = this.rowIndices.entrySet().iterator();
+      while (rows.hasNext()) {
+        final Map.Entry row = (Map.Entry) rows.next();
+        final String rowName = (String) row.getKey();
+        final int rowIndex = ((Integer) row.getValue()).intValue();
+        final String content = doGetString(colName, rowName);
+        result.contents[colIndex][rowIndex] = (pool == null) ? content : pool.intern(content);
+        
+        final CellAnnotation annotation = doGetAnnotation(colName, rowName);
+        CellAnnotation shared = (CellAnnotation) sharedAnnotations.get(annotation);
+        if (shared == null) {
+          shared = annotation;
+          sharedAnnotations.put(shared, shared);
+        }
+        result.annotations[colIndex][rowIndex] = shared;
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Add the split cells to the given estimate. Nothing is added if they have not been created yet.
+   * 
+   * @param estimate
+   *          the estimate to add to
+   */
+  void estimateRetainedBytes(final HeapEstimate estimate) {
+    final Tables current = this.tables;
+    if (current == null) {
+      return;
+    }
+    final int columns = current.contents.length;
+    final int rows = (columns == 0) ? 0 : current.contents[0].length;
+    estimate.addCells(columns, rows);
+    estimate.addCells(columns, rows);
+    for (int col = 0; col < columns; col++) {
+      for (int row = 0; row < rows; row++) {
+        estimate.addString(current.contents[col][row]);
+        estimate.addAnnotation(current.annotations[col][row]);
+      }
+    }
+  }
+  
+  /**
+   * The content and annotations of every virtual cell, indexed by <code>[column][row]</code>.
+   */
+  private static final class Tables {
+    private final String[][] contents;
+    
+    private final CellAnnotation[][] annotations;
+    
+    private Tables(final int columns, final int rows) {
+      this.contents = new String[columns][rows];
+      this.annotations = new CellAnnotation[columns][rows];
+    }
   }
   
   /**
@@ -472,7 +603,8 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
   }
   
   /**
-   * Return all currently known annotations for the given row.
+   * Return all currently known annotations for the given row, creating the set if necessary. Only used while the
+   * annotations are collected during construction.
    * 
    * @param rowName
    *          row name
@@ -488,7 +620,8 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
   }
   
   /**
-   * Return all currently known annotations for the given column.
+   * Return all currently known annotations for the given column, creating the set if necessary. Only used while the
+   * annotations are collected during construction.
    * 
    * @param colName
    *          column name
@@ -504,19 +637,66 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
   }
   
   /**
-   * Caching implementation of {@link AnnotatedStringMatrix#getAnnotation(String, String)}. If no annotation is found in
-   * the cache, this method delegates to {@link #doGetAnnotation(String, String)}.
-   * 
    * @see com.senacor.ddt.objectmatrix.AnnotatedStringMatrix#getAnnotation(java.lang.String, java.lang.String)
    */
   public Properties getAnnotation(final String column, final String row) throws MatrixReadFailedException {
-    final Key key = new Key(column, row);
-    Properties ann = (Properties) this.cache.get(key);
-    if (ann == null) {
-      ann = doGetAnnotation(column, row);
-      this.cache.put(key, ann);
+    return getCellAnnotation(column, row).toProperties();
+  }
+  
+  /**
+   * Return the precomputed annotations of the given cell. Cells addressed by names other than the virtual row and
+   * column names are computed on each call by {@link #doGetAnnotation(String, String)}.
+   * 
+   * @see com.senacor.ddt.objectmatrix.CellAnnotatedStringMatrix#getCellAnnotation(java.lang.String, java.lang.String)
+   */
+  public CellAnnotation getCellAnnotation(final String column, final String row) throws MatrixReadFailedException {
+    final Integer colIndex = (Integer) this.colIndices.get(column);
+    final Integer rowIndex = (Integer) this.rowIndices.get(row);
+    if ((colIndex != null) && (rowIndex != null)) {
+      return getTables().annotations[colIndex.intValue()][rowIndex.intValue()];
     }
-    return ann;
+    return doGetAnnotation(column, row);
+  }
+  
+  /**
+   * Look up one annotation of a cell. Unlike {@link #getCellAnnotation(String, String)}, this does not split all cells
+   * if that has been deferred: only a cell whose own content or whose row, column or matrix annotations mention the
+   * key is looked at.
+   * 
+   * @param key
+   *          annotation key
+   * @param column
+   *          column name
+   * @param row
+   *          row name
+   * @return the annotation value, or null if the cell does not have this annotation
+   */
+  String getAnnotationValue(final String key, final String column, final String row) {
+    final Integer colIndex = (Integer) this.colIndices.get(column);
+    final Integer rowIndex = (Integer) this.rowIndices.get(row);
+    if ((this.tables != null) || (colIndex == null) || (rowIndex == null)) {
+      return getCellAnnotation(column, row).get(key);
+    }
+    if (hasKey(this.globalAnnotations, key) || hasKey(findAnnotations(this.rowAnnotations, row), key)
+        || hasKey(findAnnotations(this.columnAnnotations, column), key)) {
+      return doGetAnnotation(column, row).get(key);
+    }
+    final String string = getStringFromDelegate(column, row);
+    // a cheap pre-check, the cell is only split if it may contain the key
+    if ((string != null) && (string.indexOf(ANNOTATION_MARK + key) != -1)) {
+      return doGetAnnotation(column, row).get(key);
+    }
+    return null;
+  }
+  
+  private static boolean hasKey(final Set annotations, final String key) {
+    final Iterator iterator = annotations.iterator();
+    while (iterator.hasNext()) {
+      if (key.equals(((Annotation) iterator.next()).getKey())) {
+        return true;
+      }
+    }
+    return false;
   }
   
   /**
@@ -528,21 +708,31 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
    *          row name
    * @return Global, row, column and local annotations for the cell.
    */
-  private Properties doGetAnnotation(final String virtualColumnName, final String virtualRowName) {
-    final Properties p = new Properties();
+  private CellAnnotation doGetAnnotation(final String virtualColumnName, final String virtualRowName) {
+    final CellAnnotation.Builder p = new CellAnnotation.Builder();
     final String underlyingColumnName = checkForColAlias(virtualColumnName);
     final String underlyingRowName = checkForRowAlias(virtualRowName);
     addAnnotationsToResult(this.globalAnnotations, p, underlyingColumnName, underlyingRowName);
-    addAnnotationsToResult(getAnnotationsForRow(virtualRowName), p, underlyingColumnName, underlyingRowName);
-    addAnnotationsToResult(getAnnotationsForColumn(virtualColumnName), p, underlyingColumnName, underlyingRowName);
+    addAnnotationsToResult(findAnnotations(this.rowAnnotations, virtualRowName), p, underlyingColumnName,
+        underlyingRowName);
+    addAnnotationsToResult(findAnnotations(this.columnAnnotations, virtualColumnName), p, underlyingColumnName,
+        underlyingRowName);
     final String[] cellAnnotation = splitContentAndAnnotation(getStringFromDelegate(virtualColumnName, virtualRowName));
     if (cellAnnotation[ANNOT_KEY].length() > 0) {
-      p.setProperty(cellAnnotation[ANNOT_KEY], cellAnnotation[ANNOT_VALUE]);
+      p.put(cellAnnotation[ANNOT_KEY], cellAnnotation[ANNOT_VALUE]);
     }
-    return p;
+    return p.build();
+  }
+  
+  /**
+   * Look up the annotations of a row or column without modifying the given map.
+   */
+  private static Set findAnnotations(final Map annotationsByName, final String name) {
+    final Set annotationsForName = (Set) annotationsByName.get(name);
+    return (annotationsForName == null) ? Collections.EMPTY_SET : annotationsForName;
   }
   
-  private void addAnnotationsToResult(final Set annotationsFromRow, final Properties p, final String column,
+  private void addAnnotationsToResult(final Set annotationsFromRow, final CellAnnotation.Builder p, final String column,
       final String row) {
     final Iterator iterator = annotationsFromRow.iterator();
     while (iterator.hasNext()) {
@@ -551,8 +741,13 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
     }
   }
   
-  private void addAnnotationToResult(final Annotation annot, final Properties p, final String column, final String row) {
-    p.setProperty(annot.getKey(), annot.getValue(column, row));
+  private void addAnnotationToResult(final Annotation annot, final CellAnnotation.Builder p, final String column,
+      final String row) {
+    final String value = annot.getValue(column, row);
+    // a delegate that returns null cells can't provide a value, which is the same as having no annotation
+    if (value != null) {
+      p.put(annot.getKey(), value);
+    }
   }
   
   private String[] splitContentAndAnnotation(final String string) {
@@ -560,7 +755,8 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
     final String content;
     final String annotationKey;
     final String annotationValue;
-    final int annotationIndex = string.indexOf(ANNOTATION_MARK);
+    // the delegate may return null, e.g. if it is an ObjectMatrix that applies the null token
+    final int annotationIndex = (string == null) ? -1 : string.indexOf(ANNOTATION_MARK);
     if (annotationIndex == -1) {
       content = string;
       annotationKey = "";
@@ -592,7 +788,7 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
    */
   public List filterRowNames(final String rowPrefix, final String rowInfix, final String rowSuffix)
       throws MatrixReadFailedException {
-    return StringUtils.filterStringList(rowPrefix, rowInfix, rowSuffix, getRowNames());
+    return this.rowNameIndex.filter(rowPrefix, rowInfix, rowSuffix);
   }
   
   /**
@@ -620,6 +816,24 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
    * @see com.senacor.ddt.objectmatrix.StringMatrix#getString(java.lang.String, java.lang.String)
    */
   public String getString(final String colName, final String rowName) throws MatrixReadFailedException {
+    final Integer colIndex = (Integer) this.colIndices.get(colName);
+    final Integer rowIndex = (Integer) this.rowIndices.get(rowName);
+    if ((colIndex != null) && (rowIndex != null)) {
+      return getTables().contents[colIndex.intValue()][rowIndex.intValue()];
+    }
+    return doGetString(colName, rowName);
+  }
+  
+  /**
+   * Read the given cell from the delegate and strip its annotation.
+   * 
+   * @param colName
+   *          column name
+   * @param rowName
+   *          row name
+   * @return the content of the cell
+   */
+  private String doGetString(final String colName, final String rowName) {
     if (isMaskedCell(colName, rowName)) {
       return "";
     } else {
@@ -660,7 +874,7 @@ public class EmbeddedAnnotationMatrixDecorator implements AnnotatedStringMatrix
    */
   public List filterColumnNames(final String colPrefix, final String colInfix, final String colSuffix)
       throws MatrixReadFailedException {
-    return StringUtils.filterStringList(colPrefix, colInfix, colSuffix, getColNames());
+    return this.colNameIndex.filter(colPrefix, colInfix, colSuffix);
   }
   
   public boolean isDefinedAt(final String colName, final String rowName) {
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.StringPool;
+
+/**
+ * Adds up the estimated heap taken by the cells of a matrix, assuming a 64 bit JVM with compressed references. Each
+ * String and {@link CellAnnotation} instance is counted only once, however many cells refer to it. Keys of annotations
+ * are interned and shared by all matrices, so they are not counted.
+ * <p>
+ * Readers add their own cells if they implement {@link HeapEstimating}. Other readers are assumed to store their cells
+ * densely, and every cell is read once more to count the strings. Either way this is only done when somebody is
+ * interested in the result.
+ * 
+ * @version $Id$
+ */
+public final class HeapEstimate {
+  private static final int REFERENCE = 4;
+  
+  private static final int ARRAY_HEADER = 16;
+  
+  /**
+   * Object header plus the cached Properties field of a {@link CellAnnotation}.
+   */
+  private static final int ANNOTATION_HEADER = 16;
+  
+  private final Map seen = new IdentityHashMap();
+  
+  private long cellBytes = 0;
+  
+  private long stringBytes = 0;
+  
+  private long annotationBytes = 0;
+  
+  HeapEstimate() {
+    // only created by the factory
+  }
+  
+  /**
+   * Count the cells of the given reader. If it does not implement {@link HeapEstimating}, a dense table is assumed and
+   * every cell is read to count the strings.
+   * 
+   * @param reader
+   *          the reader
+   */
+  public void addReader(final StringMatrixReader reader) {
+    if (reader instanceof HeapEstimating) {
+      ((HeapEstimating) reader).estimateRetainedBytes(this);
+      return;
+    }
+    final int columns = reader.getNumberOfColumns();
+    final int rows = reader.getNumberOfRows();
+    addCells(columns, rows);
+    for (int col = 0; col < columns; col++) {
+      for (int row = 0; row < rows; row++) {
+        addString(reader.getString(col, row));
+      }
+    }
+  }
+  
+  /**
+   * Count a dense table of references, stored as one array per column.
+   * 
+   * @param columns
+   *          number of columns
+   * @param rows
+   *          number of rows
+   */
+  public void addCells(final int columns, final int rows) {
+    this.cellBytes += referenceArray(columns) + (columns * referenceArray(rows));
+  }
+  
+  /**
+   * Count a single array of references that belongs to the cell storage.
+   * 
+   * @param length
+   *          length of the array
+   */
+  public void addReferenceArray(final int length) {
+    this.cellBytes += referenceArray(length);
+  }
+  
+  /**
+   * Count a single int array that belongs to the cell storage, e.g. an index.
+   * 
+   * @param length
+   *          length of the array
+   */
+  public void addIntArray(final int length) {
+    this.cellBytes += align(ARRAY_HEADER + (4L * length));
+  }
+  
+  /**
+   * Count a cell content, unless the same instance has been counted before.
+   * 
+   * @param string
+   *          the content, may be null
+   */
+  public void addString(final String string) {
+    if ((string != null) && (this.seen.put(string, string) == null)) {
+      this.stringBytes += StringPool.estimateSize(string);
+    }
+  }
+  
+  /**
+   * Count an annotation including its values, unless the same instance has been counted before.
+   * 
+   * @param annotation
+   *          the annotation, may be null
+   */
+  void addAnnotation(final CellAnnotation annotation) {
+    if ((annotation == null) || annotation.isEmpty() || (this.seen.put(annotation, annotation) != null)) {
+      return;
+    }
+    final int size = annotation.size();
+    if (size == 1) {
+      this.annotationBytes += align(ANNOTATION_HEADER + (2 * REFERENCE));
+    } else {
+      this.annotationBytes += align(ANNOTATION_HEADER + (2 * REFERENCE)) + (2 * referenceArray(size));
+    }
+    for (int i = 0; i < size; i++) {
+      final String value = annotation.getValue(i);
+      if (this.seen.put(value, value) == null) {
+        this.annotationBytes += StringPool.estimateSize(value);
+      }
+    }
+  }
+  
+  long getCellBytes() {
+    return this.cellBytes;
+  }
+  
+  long getStringBytes() {
+    return this.stringBytes;
+  }
+  
+  long getAnnotationBytes() {
+    return this.annotationBytes;
+  }
+  
+  private static long referenceArray(final int length) {
+    return align(ARRAY_HEADER + ((long) REFERENCE * length));
+  }
+  
+  private static long align(final long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.typetransformer.Transformer;
+
+/**
+ * An {@link ObjectMatrix} that is built on first use. It is handed out by an
+ * {@link AbstractDefaultStringMatrixBasedObjectMatrixFactory} in lazy mode.
+ * <p>
+ * Creating the handle reads the titles from the reader and follows the chains of cell references, so that a
+ * {@link CircularReferenceException} is thrown at load time, just like for an eagerly built matrix. Only the cells
+ * that contain a reference annotation are split for this. All cells are split into content and annotations when the
+ * first cell, annotation or object map is requested. From then on, all calls go to a regular
+ * {@link DelegatingObjectMatrix}.
+ * <p>
+ * Instances are safe for use by concurrent threads, provided the reader is.
+ * 
+ * @version $Id$
+ * @see AbstractDefaultStringMatrixBasedObjectMatrixFactory#setLazy(boolean)
+ */
+public final class LazyObjectMatrix implements ObjectMatrix, CellAnnotatedStringMatrix {
+  private final StringMatrixReader reader;
+  
+  private final int columnContainingRowTitles;
+  
+  private final int rowContainingColumnTitles;
+  
+  private final Transformer localTransformer;
+  
+  private final int valueCacheSize;
+  
+  private volatile EmbeddedAnnotationMatrixDecorator stringMatrix;
+  
+  private volatile DelegatingObjectMatrix objectMatrix;
+  
+  /**
+   * @param reader
+   *          The reader to build the matrix from.
+   * @param columnContainingRowTitles
+   *          index of the column that contains the row titles
+   * @param rowContainingColumnTitles
+   *          index of the row that contains the column titles
+   * @param localTransformer
+   *          The transformer to use, or null for the global one.
+   * @param valueCacheSize
+   *          The size of the value cache, or 0 for none.
+   * @throws CircularReferenceException
+   *           if cell references form a cycle
+   */
+  LazyObjectMatrix(final StringMatrixReader reader, final int columnContainingRowTitles,
+      final int rowContainingColumnTitles, final Transformer localTransformer, final int valueCacheSize)
+      throws CircularReferenceException {
+    this.reader = reader;
+    this.columnContainingRowTitles = columnContainingRowTitles;
+    this.rowContainingColumnTitles = rowContainingColumnTitles;
+    this.localTransformer = localTransformer;
+    this.valueCacheSize = valueCacheSize;
+    DelegatingObjectMatrix.resolveReferences(getStringMatrix());
+  }
+  
+  /**
+   * @return <code>true</code> if the cells have been parsed, <code>false</code> if only the names are known so far
+   */
+  public boolean isMaterialized() {
+    return this.objectMatrix != null;
+  }
+  
+  /**
+   * @return the string matrix, with its names but without parsed cells until the first cell is read
+   */
+  private AnnotatedStringMatrix getStringMatrix() {
+    EmbeddedAnnotationMatrixDecorator result = this.stringMatrix;
+    if (result == null) {
+      synchronized (this) {
+        result = this.stringMatrix;
+        if (result == null) {
+          result =
+              new EmbeddedAnnotationMatrixDecorator(new DefaultStringMatrix(this.reader,
+                  this.columnContainingRowTitles, this.rowContainingColumnTitles), true);
+          this.stringMatrix = result;
+        }
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * @return the fully built matrix
+   */
+  private ObjectMatrix getObjectMatrix() {
+    DelegatingObjectMatrix result = this.objectMatrix;
+    if (result == null) {
+      synchronized (this) {
+        result = this.objectMatrix;
+        if (result == null) {
+          result =
+              AbstractDelegatingOMBasedObjectMatrixFactory.createObjectMatrix(getStringMatrix(),
+                  this.localTransformer, this.valueCacheSize);
+          this.objectMatrix = result;
+        }
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getMatrixIdentifier()
+   */
+  public String getMatrixIdentifier() {
+    return this.reader.getIdentifier();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getRowNames()
+   */
+  public List getRowNames() {
+    return getStringMatrix().getRowNames();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getColNames()
+   */
+  public List getColNames() {
+    return getStringMatrix().getColNames();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#filterRowNames(java.lang.String, java.lang.String, java.lang.String)
+   */
+  public List filterRowNames(final String rowPrefix, final String rowInfix, final String rowSuffix) {
+    return getStringMatrix().filterRowNames(rowPrefix, rowInfix, rowSuffix);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#filterColumnNames(java.lang.String, java.lang.String,
+   *      java.lang.String)
+   */
+  public List filterColumnNames(final String colPrefix, final String colInfix, final String colSuffix) {
+    return getStringMatrix().filterColumnNames(colPrefix, colInfix, colSuffix);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getTransformer()
+   */
+  public Transformer getTransformer() {
+    return (this.localTransformer != null) ? this.localTransformer : Transformer.get();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getString(java.lang.String, java.lang.String)
+   */
+  public String getString(final String column, final String row) {
+    return getObjectMatrix().getString(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getBoolean(java.lang.String, java.lang.String)
+   */
+  public Boolean getBoolean(final String column, final String row) {
+    return getObjectMatrix().getBoolean(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getInteger(java.lang.String, java.lang.String)
+   */
+  public Integer getInteger(final String column, final String row) {
+    return getObjectMatrix().getInteger(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getBigDecimal(java.lang.String, java.lang.String)
+   */
+  public BigDecimal getBigDecimal(final String column, final String row) {
+    return getObjectMatrix().getBigDecimal(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getLong(java.lang.String, java.lang.String)
+   */
+  public Long getLong(final String column, final String row) {
+    return getObjectMatrix().getLong(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getDouble(java.lang.String, java.lang.String)
+   */
+  public Double getDouble(final String column, final String row) {
+    return getObjectMatrix().getDouble(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getDate(java.lang.String, java.lang.String)
+   */
+  public Date getDate(final String column, final String row) {
+    return getObjectMatrix().getDate(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getObject(java.lang.String, java.lang.String, java.lang.Class)
+   */
+  public Object getObject(final String column, final String row, final Class type) {
+    return getObjectMatrix().getObject(column, row, type);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.CellAnnotatedStringMatrix#getCellAnnotation(java.lang.String, java.lang.String)
+   */
+  public CellAnnotation getCellAnnotation(final String column, final String row) {
+    return CellAnnotation.forCell(getObjectMatrix(), column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.AnnotatedStringMatrix#getAnnotation(java.lang.String, java.lang.String)
+   */
+  public Properties getAnnotation(final String column, final String row) {
+    return getObjectMatrix().getAnnotation(column, row);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#isDefinedAt(java.lang.String, java.lang.String)
+   */
+  public boolean isDefinedAt(final String colName, final String rowName) {
+    return getObjectMatrix().isDefinedAt(colName, rowName);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getObjectMapForColumn(java.lang.String)
+   */
+  public ObjectMap getObjectMapForColumn(final String columnName) {
+    return getObjectMatrix().getObjectMapForColumn(columnName);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrix#getObjectMapForRow(java.lang.String)
+   */
+  public ObjectMap getObjectMapForRow(final String rowName) {
+    return getObjectMatrix().getObjectMapForRow(rowName);
+  }
+}
@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.typetransformer.Transformer;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * Compares two versions of a matrix cell by cell, e.g. before and after a data migration.
+ * <p>
+ * Rows and columns are matched by their titles through hash maps, so their order may differ between the matrices.
+ * Titles that exist in only one of the matrices are reported by {@link #getMissingColumns()},
+ * {@link #getAddedColumns()}, {@link #getMissingRows()} and {@link #getAddedRows()}. Empty and reserved titles are
+ * not compared. The cells of the common rows and columns are compared by {@link #iterator()}, several columns at a
+ * time on a pool of worker threads. The differences are returned column by column, in the column order of the expected
+ * matrix, while later columns are still being compared.
+ * <p>
+ * Cells are read through {@link IndexedStringMatrix#getString(int, int)}, taking the position of a title in
+ * {@link StringMatrix#getColNames()} or {@link StringMatrix#getRowNames()} as its index, as in
+ * {@link DefaultStringMatrix}. <code>null</code> cells are treated like empty ones.
+ * 
+ * @version $Id$
+ */
+public class MatrixDiff {
+  private static final Log log = LogFactory.getLog(MatrixDiff.class);
+  
+  private static final AtomicInteger threadCount = new AtomicInteger();
+  
+  private final IndexedStringMatrix expected;
+  
+  private final IndexedStringMatrix actual;
+  
+  /**
+   * Indices of the common columns in the expected and the actual matrix, and their names.
+   */
+  private final int[] expectedCols;
+  
+  private final int[] actualCols;
+  
+  private final String[] colNames;
+  
+  /**
+   * Indices of the common rows in the expected and the actual matrix, and their names.
+   */
+  private final int[] expectedRows;
+  
+  private final int[] actualRows;
+  
+  private final String[] rowNames;
+  
+  private final List missingColumns = new ArrayList();
+  
+  private final List addedColumns = new ArrayList();
+  
+  private final List missingRows = new ArrayList();
+  
+  private final List addedRows = new ArrayList();
+  
+  private int threads = Runtime.getRuntime().availableProcessors();
+  
+  private Transformer transformer = null;
+  
+  private Class valueType = null;
+  
+  /**
+   * Match the rows and columns of the given matrices. The cells are not read before {@link #iterator()} is called.
+   * 
+   * @param expected
+   *          The original matrix. Must not be null.
+   * @param actual
+   *          The matrix to compare with the original. Must not be null.
+   */
+  public MatrixDiff(final IndexedStringMatrix expected, final IndexedStringMatrix actual) {
+    ParamChecker.notNull("expected", expected);
+    ParamChecker.notNull("actual", actual);
+    this.expected = expected;
+    this.actual = actual;
+    
+    final List pairs = new ArrayList();
+    join(expected.getColNames(), actual.getColNames(), pairs, this.missingColumns, this.addedColumns);
+    this.expectedCols = new int[pairs.size()];
+    this.actualCols = new int[pairs.size()];
+    this.colNames = new String[pairs.size()];
+    copyPairs(pairs, this.expectedCols, this.actualCols, this.colNames);
+    
+    pairs.clear();
+    join(expected.getRowNames(), actual.getRowNames(), pairs, this.missingRows, this.addedRows);
+    this.expectedRows = new int[pairs.size()];
+    this.actualRows = new int[pairs.size()];
+    this.rowNames = new String[pairs.size()];
+    copyPairs(pairs, this.expectedRows, this.actualRows, this.rowNames);
+  }
+  
+  /**
+   * Hash join of two title lists.
+   * 
+   * @param pairs
+   *          receives an Object[] { title, expected index, actual index } for each title in both lists
+   * @param missing
+   *          receives the titles only in the expected list
+   * @param added
+   *          receives the titles only in the actual list
+   */
+  private static void join(final List expectedTitles, final List actualTitles, final List pairs, final List missing,
+      final List added) {
+    // Map<String, Integer>
+    final Map actualIndices = new HashMap(actualTitles.size() * 4 / 3 + 1);
+    for (int i = 0; i < actualTitles.size(); i++) {
+      final String title = (String) actualTitles.get(i);
+      if (isComparable(title)) {
+        actualIndices.put(title, new Integer(i));
+      }
+    }
+    for (int i = 0; i < expectedTitles.size(); i++) {
+      final String title = (String) expectedTitles.get(i);
+      if (isComparable(title)) {
+        final Integer actualIndex = (Integer) actualIndices.remove(title);
+        if (actualIndex == null) {
+          missing.add(title);
+        } else {
+          pairs.add(new Object[] { title, new Integer(i), actualIndex });
+        }
+      }
+    }
+    // what is left over only exists in the actual matrix; keep its order
+    for (int i = 0; i < actualTitles.size(); i++) {
+      final String title = (String) actualTitles.get(i);
+      if (actualIndices.containsKey(title)) {
+        added.add(title);
+      }
+    }
+  }
+  
+  private static boolean isComparable(final String title) {
+    return (title.length() > 0) && !StringMatrix.Tokens.RESERVED.equalsIgnoreCase(title);
+  }
+  
+  private static void copyPairs(final List pairs, final int[] expectedIndices, final int[] actualIndices,
+      final String[] titles) {
+    for (int i = 0; i < titles.length; i++) {
+      final Object[] pair = (Object[]) pairs.get(i);
+      titles[i] = (String) pair[0];
+      expectedIndices[i] = ((Integer) pair[1]).intValue();
+      actualIndices[i] = ((Integer) pair[2]).intValue();
+    }
+  }
+  
+  /**
+   * Maximum number of columns compared at the same time. Defaults to the number of available processors.
+   * 
+   * @param threads
+   *          number of threads, at least 1. With 1, all columns are compared by the iterating thread.
+   * @return <code>this</code>, for method chaining
+   */
+  public MatrixDiff setThreads(final int threads) {
+    ParamChecker.require("threads must be at least 1", threads >= 1);
+    this.threads = threads;
+    return this;
+  }
+  
+  /**
+   * Compare cells whose strings differ as typed values, e.g. so that "1.50" and "1.5" are equal as BigDecimals. Values
+   * that are {@link Comparable} are equal if <code>compareTo</code> returns 0, others if they are
+   * <code>equals</code>. If either cell cannot be transformed, the cells are different. Cells with equal strings
+   * are always equal and never transformed.
+   * 
+   * @param transformer
+   *          The transformer to use. Must not be null.
+   * @param valueType
+   *          The type to transform both cells to. Must not be null.
+   * @return <code>this</code>, for method chaining
+   */
+  public MatrixDiff setTypedComparison(final Transformer transformer, final Class valueType) {
+    ParamChecker.notNull("transformer", transformer);
+    ParamChecker.notNull("valueType", valueType);
+    this.transformer = transformer;
+    this.valueType = valueType;
+    return this;
+  }
+  
+  /**
+   * @return List<String> of the columns that only exist in the expected matrix
+   */
+  public List getMissingColumns() {
+    return Collections.unmodifiableList(this.missingColumns);
+  }
+  
+  /**
+   * @return List<String> of the columns that only exist in the actual matrix
+   */
+  public List getAddedColumns() {
+    return Collections.unmodifiableList(this.addedColumns);
+  }
+  
+  /**
+   * @return List<String> of the rows that only exist in the expected matrix
+   */
+  public List getMissingRows() {
+    return Collections.unmodifiableList(this.missingRows);
+  }
+  
+  /**
+   * @return List<String> of the rows that only exist in the actual matrix
+   */
+  public List getAddedRows() {
+    return Collections.unmodifiableList(this.addedRows);
+  }
+  
+  /**
+   * @return the number of cells compared by {@link #iterator()}
+   */
+  public long getNumberOfComparedCells() {
+    return (long) this.colNames.length * this.rowNames.length;
+  }
+  
+  /**
+   * Compare the common cells. Each call starts a new comparison. Only a few columns ahead of the one currently being
+   * returned are compared at any time, so the differences are never all held in memory.
+   * 
+   * @return Iterator<Difference> over the cells that differ, column by column. The iterator doesn't support
+   *         <code>remove()</code>.
+   */
+  public Iterator iterator() {
+    return new DifferenceIterator();
+  }
+  
+  /**
+   * Compare one column.
+   * 
+   * @return List<Difference>
+   */
+  private List compareColumn(final int col) {
+    final int expectedCol = this.expectedCols[col];
+    final int actualCol = this.actualCols[col];
+    final List differences = new ArrayList();
+    for (int row = 0; row < this.rowNames.length; row++) {
+      final String expectedValue = normalize(this.expected.getString(expectedCol, this.expectedRows[row]));
+      final String actualValue = normalize(this.actual.getString(actualCol, this.actualRows[row]));
+      if (!expectedValue.equals(actualValue) && !equalAsTypedValues(expectedValue, actualValue)) {
+        differences.add(new Difference(this.colNames[col], this.rowNames[row], expectedValue, actualValue));
+      }
+    }
+    return differences;
+  }
+  
+  private static String normalize(final String cell) {
+    return (cell == null) ? "" : cell;
+  }
+  
+  private boolean equalAsTypedValues(final String expectedValue, final String actualValue) {
+    if (this.transformer == null) {
+      return false;
+    }
+    final Object expectedObject;
+    final Object actualObject;
+    try {
+      expectedObject = this.transformer.transform(expectedValue, this.valueType);
+      actualObject = this.transformer.transform(actualValue, this.valueType);
+    } catch (final RuntimeException e) {
+      return false;
+    }
+    if ((expectedObject == null) || (actualObject == null)) {
+      return expectedObject == actualObject;
+    }
+    if ((expectedObject instanceof Comparable) && expectedObject.getClass().equals(actualObject.getClass())) {
+      return ((Comparable) expectedObject).compareTo(actualObject) == 0;
+    }
+    return expectedObject.equals(actualObject);
+  }
+  
+  /**
+   * A single cell whose content differs between the matrices.
+   */
+  public static final class Difference {
+    private final String column;
+    
+    private final String row;
+    
+    private final String expected;
+    
+    private final String actual;
+    
+    Difference(final String column, final String row, final String expected, final String actual) {
+      this.column = column;
+      this.row = row;
+      this.expected = expected;
+      this.actual = actual;
+    }
+    
+    /**
+     * @return the title of the column
+     */
+    public String getColumn() {
+      return this.column;
+    }
+    
+    /**
+     * @return the title of the row
+     */
+    public String getRow() {
+      return this.row;
+    }
+    
+    /**
+     * @return the content of the cell in the expected matrix, never null
+     */
+    public String getExpected() {
+      return this.expected;
+    }
+    
+    /**
+     * @return the content of the cell in the actual matrix, never null
+     */
+    public String getActual() {
+      return this.actual;
+    }
+    
+    public String toString() {
+      return "[" + this.column + ", " + this.row + "] expected '" + this.expected + "' but was '" + this.actual + "'";
+    }
+  }
+  
+  /**
+   * Keeps up to twice as many columns in the pool as there are threads and returns their differences in column
+   * order.
+   */
+  private class DifferenceIterator implements Iterator {
+    private final ThreadPoolExecutor executor;
+    
+    /**
+     * Future<List<Difference>> of the submitted columns, in column order.
+     */
+    private final LinkedList pending = new LinkedList();
+    
+    private final int window;
+    
+    private int nextColumn = 0;
+    
+    private Iterator current = Collections.EMPTY_LIST.iterator();
+    
+    DifferenceIterator() {
+      final int poolSize = Math.min(MatrixDiff.this.threads, MatrixDiff.this.colNames.length);
+      if (poolSize > 1) {
+        this.executor =
+            new ThreadPoolExecutor(poolSize, poolSize, 1, TimeUnit.SECONDS, new LinkedBlockingQueue(),
+                new ThreadFactory() {
+                  public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "ddt-matrix-diff-" + threadCount.incrementAndGet());
+                    // don't keep the JVM alive if the iterator is abandoned
+                    thread.setDaemon(true);
+                    return thread;
+                  }
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.window = 2 * poolSize;
+      } else {
+        this.executor = null;
+        this.window = 1;
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Comparing " + getNumberOfComparedCells() + " cells of "
+            + MatrixDiff.this.expected.getMatrixIdentifier() + " and " + MatrixDiff.this.actual.getMatrixIdentifier()
+            + " on " + Math.max(poolSize, 1) + " threads");
+      }
+    }
+    
+    public boolean hasNext() {
+      while (!this.current.hasNext()) {
+        fillWindow();
+        if (this.pending.isEmpty()) {
+          if (this.executor != null) {
+            this.executor.shutdown();
+          }
+          return false;
+        }
+        this.current = getResult((Future) this.pending.removeFirst()).iterator();
+      }
+      return true;
+    }
+    
+    public Object next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return this.current.next();
+    }
+    
+    public void remove() {
+      throw new UnsupportedOperationException("differences cannot be removed");
+    }
+    
+    private void fillWindow() {
+      while ((this.pending.size() < this.window) && (this.nextColumn < MatrixDiff.this.colNames.length)) {
+        final int col = this.nextColumn++;
+        final Callable task = new Callable() {
+          public Object call() {
+            return compareColumn(col);
+          }
+        };
+        if (this.executor == null) {
+          final FutureTask future = new FutureTask(task);
+          future.run();
+          this.pending.add(future);
+        } else {
+          this.pending.add(this.executor.submit(task));
+        }
+      }
+    }
+    
+    private List getResult(final Future future) {
+      try {
+        return (List) future.get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new MatrixReadFailedException("Interrupted while comparing matrices", e);
+      } catch (final ExecutionException e) {
+        // rethrow the original exception, e.g. a MatrixReadFailedException of one of the matrices
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        } else {
+          throw new MatrixReadFailedException("Failed to compare matrices", cause);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+/**
+ * Is told how long the phases of {@link ObjectMatrixFactory#create()} took and how much heap the created matrices
+ * retain. Register instances with
+ * {@link AbstractDefaultStringMatrixBasedObjectMatrixFactory#addLoadListener(MatrixLoadListener)}.
+ * 
+ * @version $Id$
+ */
+public interface MatrixLoadListener {
+  /**
+   * Called once for every matrix as soon as its titles are indexed and its annotations are split. If the factory uses
+   * several loader threads, this is called from those threads, possibly concurrently.
+   * 
+   * @param statistics
+   *          the statistics of the matrix
+   */
+  void matrixLoaded(MatrixLoadStatistics statistics);
+  
+  /**
+   * Called once at the end of each call to {@link ObjectMatrixFactory#create()}, from the calling thread.
+   * 
+   * @param matrices
+   *          the statistics of all matrices, in the order of the result of <code>create()</code>. Empty in lazy mode,
+   *          where the matrices are only built when they are used.
+   * @param readNanos
+   *          nanoseconds spent creating the readers, i.e. reading and parsing the files. In lazy mode, this includes
+   *          sharing equal strings.
+   * @param buildNanos
+   *          nanoseconds spent sharing equal strings, indexing the titles and splitting the annotations of all
+   *          matrices
+   * @param objectNanos
+   *          nanoseconds spent creating the object matrices on top of the string matrices
+   */
+  void loadFinished(MatrixLoadStatistics[] matrices, long readNanos, long buildNanos, long objectNanos);
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+/**
+ * What it took to build a single matrix during {@link ObjectMatrixFactory#create()}: the time spent on each phase and
+ * an estimate of the heap the matrix retains. Instances are passed to {@link MatrixLoadListener#matrixLoaded}.
+ * <p>
+ * The retained bytes are estimated for a 64 bit JVM with compressed references. Every String and annotation instance
+ * is counted once per matrix, even if it is shared with other matrices, e.g. through a string pool. The cells of the
+ * reader are counted as the reader stores them if it implements {@link HeapEstimating}, and as a dense table otherwise.
+ * The title indices are not included.
+ * 
+ * @version $Id$
+ */
+public final class MatrixLoadStatistics {
+  private static final long NANOS_PER_MILLI = 1000000L;
+  
+  private final String identifier;
+  
+  private final int columns;
+  
+  private final int rows;
+  
+  private final long indexNanos;
+  
+  private final long annotationNanos;
+  
+  private final long cellBytes;
+  
+  private final long stringBytes;
+  
+  private final long annotationBytes;
+  
+  MatrixLoadStatistics(final String identifier, final int columns, final int rows, final long indexNanos,
+      final long annotationNanos, final HeapEstimate heap) {
+    this.identifier = identifier;
+    this.columns = columns;
+    this.rows = rows;
+    this.indexNanos = indexNanos;
+    this.annotationNanos = annotationNanos;
+    this.cellBytes = heap.getCellBytes();
+    this.stringBytes = heap.getStringBytes();
+    this.annotationBytes = heap.getAnnotationBytes();
+  }
+  
+  /**
+   * @return the identifier of the matrix
+   */
+  public String getIdentifier() {
+    return this.identifier;
+  }
+  
+  /**
+   * @return the number of columns read, including the title column
+   */
+  public int getNumberOfColumns() {
+    return this.columns;
+  }
+  
+  /**
+   * @return the number of rows read, including the title row
+   */
+  public int getNumberOfRows() {
+    return this.rows;
+  }
+  
+  /**
+   * @return the nanoseconds spent collecting and indexing the row and column titles, i.e. constructing the
+   *         {@link DefaultStringMatrix}
+   */
+  public long getIndexNanos() {
+    return this.indexNanos;
+  }
+  
+  /**
+   * @return the nanoseconds spent splitting the cells into contents and annotations, i.e. constructing the
+   *         {@link EmbeddedAnnotationMatrixDecorator}
+   */
+  public long getAnnotationNanos() {
+    return this.annotationNanos;
+  }
+  
+  /**
+   * @return the estimated bytes taken by the arrays referencing the cells
+   */
+  public long getCellBytes() {
+    return this.cellBytes;
+  }
+  
+  /**
+   * @return the estimated bytes taken by the distinct strings in the cells
+   */
+  public long getStringBytes() {
+    return this.stringBytes;
+  }
+  
+  /**
+   * @return the estimated bytes taken by the distinct annotations, including their values
+   */
+  public long getAnnotationBytes() {
+    return this.annotationBytes;
+  }
+  
+  /**
+   * @return the sum of {@link #getCellBytes()}, {@link #getStringBytes()} and {@link #getAnnotationBytes()}
+   */
+  public long getRetainedBytes() {
+    return this.cellBytes + this.stringBytes + this.annotationBytes;
+  }
+  
+  /**
+   * @return a one-line summary, as logged by the factories
+   */
+  public String toString() {
+    return "Matrix " + this.identifier + ": " + this.columns + " columns x " + this.rows + " rows, indexed in "
+        + (this.indexNanos / NANOS_PER_MILLI) + " ms, annotations split in " + (this.annotationNanos / NANOS_PER_MILLI)
+        + " ms, ~" + getRetainedBytes() + " bytes retained (cells " + this.cellBytes + ", strings " + this.stringBytes
+        + ", annotations " + this.annotationBytes + ")";
+  }
+}
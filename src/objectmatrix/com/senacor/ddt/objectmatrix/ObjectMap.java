@@ -41,6 +41,9 @@ import com.senacor.ddt.typetransformer.Transformer;
 /**
  * A map of objects indexed by String keys. This is a one-dimensional variation of {@link ObjectMatrix}, used mostly to
  * provide a view onto a single row or column of a matrix. The methods mirror those in {@linkplain ObjectMatrix}.
+ * <p>
+ * Maps that keep the annotations as {@link CellAnnotation}s also implement {@link CellAnnotatedObjectMap}.
+ * {@link CellAnnotation#forKey(ObjectMap, String)} reads the annotations of any ObjectMap as a CellAnnotation.
  * 
  * @author Carl-Eric Menzel
  * @version $Id$
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+/**
+ * An {@link ObjectMatrixFactory} that can skip storing columns that are not needed. This is used by
+ * {@link com.senacor.ddt.test.AbstractTestSuiteBuilder} when its filters name the test cases to run and column
+ * projection is enabled.
+ * 
+ * @version $Id$
+ */
+public interface ProjectableObjectMatrixFactory extends ObjectMatrixFactory {
+  /**
+   * Restrict the matrices created by {@link #create()} to the given columns. Columns that are needed to resolve the
+   * annotations of the wanted columns are kept as well, see {@link ColumnProjection}.
+   * 
+   * @param projection
+   *          The columns to keep, or null to keep all columns.
+   */
+  void setColumnProjection(ColumnProjection projection);
+  
+  /**
+   * Create the matrices restricted to the given columns once, without changing the projection set by
+   * {@link #setColumnProjection(ColumnProjection)} for later calls to {@link #create()}.
+   * 
+   * @param projection
+   *          The columns to keep, or null to keep all columns.
+   * @return the matrices
+   * @throws ObjectMatrixCreationFailedException
+   *           if the matrices can't be created
+   */
+  ObjectMatrix[] create(ColumnProjection projection) throws ObjectMatrixCreationFailedException;
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * An {@link ObjectMatrixFactory} for long-running processes that picks up changes to its source files. A background
+ * thread checks the files periodically and parses a file again as soon as its content has changed. Files that have not
+ * changed are not parsed again.
+ * <p>
+ * Each call to {@link #create()} returns the matrices of the latest successful load of every file. A reload replaces
+ * them atomically: Matrices that have been handed out before stay unchanged and can still be used, later calls to
+ * <code>create()</code> return the new ones. If a file can't be parsed, e.g. because it is being written, the previous
+ * matrices of that file are kept and the file is tried again on the next check.
+ * <p>
+ * A file counts as changed when its modification time or length differs from the last check and the hash of its
+ * content differs from the last load. Since ObjectMatrixFactories usually can't be reused, a new factory is created
+ * for every load of a file, see {@link FactoryBuilder}.
+ * 
+ * @version $Id$
+ */
+public class ReloadingObjectMatrixFactory implements ObjectMatrixFactory {
+  private static final Log log = LogFactory.getLog(ReloadingObjectMatrixFactory.class);
+  
+  /**
+   * Creates a factory for a single load of a source file.
+   */
+  public static interface FactoryBuilder {
+    /**
+     * @param file
+     *          The file to read.
+     * @return a new factory reading the given file
+     * @throws IOException
+     *           if the file can't be opened
+     */
+    ObjectMatrixFactory createFactory(File file) throws IOException;
+  }
+  
+  private final File[] files;
+  
+  private final FactoryBuilder builder;
+  
+  private long checkInterval = 2000;
+  
+  /**
+   * The current state of all files, replaced as a whole on every reload. Null until the first load.
+   */
+  private volatile Source[] sources;
+  
+  private Thread watcher;
+  
+  private volatile int reloads = 0;
+  
+  /**
+   * Serializes checks, which may run in the watcher thread and in callers of {@link #checkForChanges()}.
+   */
+  private final Object checkLock = new Object();
+  
+  /**
+   * @param files
+   *          The files to read. Must not be null, empty or contain null.
+   * @param builder
+   *          Creates the factory for each load of a file. Must not be null.
+   */
+  public ReloadingObjectMatrixFactory(final File[] files, final FactoryBuilder builder) {
+    ParamChecker.notNullAnywhere("files", files);
+    ParamChecker.notNull("builder", builder);
+    this.files = (File[]) files.clone();
+    this.builder = builder;
+  }
+  
+  /**
+   * Time between two checks of the files. Defaults to 2 seconds.
+   * 
+   * @param millis
+   *          interval in milliseconds, must be positive
+   * @return <code>this</code>, for method chaining
+   */
+  public ReloadingObjectMatrixFactory setCheckInterval(final long millis) {
+    ParamChecker.require("millis must be positive", millis > 0);
+    this.checkInterval = millis;
+    return this;
+  }
+  
+  /**
+   * Return the matrices of all files, loading them first if this hasn't happened yet.
+   * 
+   * @see com.senacor.ddt.objectmatrix.ObjectMatrixFactory#create()
+   */
+  public ObjectMatrix[] create() throws ObjectMatrixCreationFailedException {
+    final Source[] current = getSources();
+    final List matrices = new ArrayList();
+    for (int i = 0; i < current.length; i++) {
+      matrices.addAll(Arrays.asList(current[i].matrices));
+    }
+    return (ObjectMatrix[]) matrices.toArray(new ObjectMatrix[matrices.size()]);
+  }
+  
+  private Source[] getSources() {
+    Source[] result = this.sources;
+    if (result == null) {
+      synchronized (this) {
+        result = this.sources;
+        if (result == null) {
+          result = new Source[this.files.length];
+          for (int i = 0; i < this.files.length; i++) {
+            try {
+              result[i] = load(this.files[i]);
+            } catch (final IOException e) {
+              throw new ObjectMatrixCreationFailedException("Could not read " + this.files[i], e);
+            }
+          }
+          this.sources = result;
+        }
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * Start checking the files in a background thread. The files are loaded first if this hasn't happened yet. Does
+   * nothing if the thread is already running.
+   * 
+   * @return <code>this</code>, for method chaining
+   */
+  public synchronized ReloadingObjectMatrixFactory start() {
+    getSources();
+    if (this.watcher == null) {
+      this.watcher = new Thread("ddt-matrix-watcher") {
+        public void run() {
+          watch(this);
+        }
+      };
+      this.watcher.setDaemon(true);
+      this.watcher.start();
+      log.info("Watching " + this.files.length + " files for changes.");
+    }
+    return this;
+  }
+  
+  /**
+   * Stop checking the files. The matrices loaded so far are still returned by {@link #create()}.
+   */
+  public void stop() {
+    final Thread thread;
+    synchronized (this) {
+      thread = this.watcher;
+      this.watcher = null;
+    }
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+  
+  private void watch(final Thread self) {
+    while (isWatching(self)) {
+      try {
+        Thread.sleep(this.checkInterval);
+      } catch (final InterruptedException e) {
+        return;
+      }
+      if (isWatching(self)) {
+        checkForChanges();
+      }
+    }
+  }
+  
+  private synchronized boolean isWatching(final Thread thread) {
+    return this.watcher == thread;
+  }
+  
+  /**
+   * Check all files once and reload the ones that have changed. This is done periodically after {@link #start()}, but
+   * may also be called directly.
+   * 
+   * @return the number of files that were reloaded
+   */
+  public int checkForChanges() {
+    synchronized (this.checkLock) {
+      return doCheckForChanges();
+    }
+  }
+  
+  private int doCheckForChanges() {
+    final Source[] current = getSources();
+    Source[] changed = null;
+    for (int i = 0; i < current.length; i++) {
+      final Source source = current[i];
+      final File file = this.files[i];
+      if ((file.lastModified() == source.lastModified) && (file.length() == source.length)) {
+        continue;
+      }
+      try {
+        final Source reloaded = reload(file, source);
+        if (reloaded != source) {
+          if (changed == null) {
+            changed = (Source[]) current.clone();
+          }
+          changed[i] = reloaded;
+        }
+      } catch (final IOException e) {
+        log.warn("Could not read " + file + ", keeping the previous matrices: " + e.getMessage());
+      } catch (final RuntimeException e) {
+        log.warn("Could not parse " + file + ", keeping the previous matrices.", e);
+      }
+    }
+    if (changed == null) {
+      return 0;
+    }
+    int count = 0;
+    for (int i = 0; i < changed.length; i++) {
+      if (changed[i] != current[i]) {
+        count++;
+      }
+    }
+    // readers of the old array are not affected
+    this.sources = changed;
+    this.reloads++;
+    return count;
+  }
+  
+  /**
+   * @return a new source if the content of the file has changed, or the given source with updated file stamps
+   */
+  private Source reload(final File file, final Source previous) throws IOException {
+    final long lastModified = file.lastModified();
+    final long length = file.length();
+    final byte[] hash = hash(file);
+    if (Arrays.equals(hash, previous.hash)) {
+      // touched, but not changed. remember the new stamps so the file isn't hashed again next time
+      previous.lastModified = lastModified;
+      previous.length = length;
+      return previous;
+    }
+    log.info("Reloading changed file " + file + "...");
+    final Source source = new Source(lastModified, length, hash, this.builder.createFactory(file).create());
+    log.info("Reloading changed file " + file + "... done.");
+    return source;
+  }
+  
+  private Source load(final File file) throws IOException {
+    final long lastModified = file.lastModified();
+    final long length = file.length();
+    final byte[] hash = hash(file);
+    return new Source(lastModified, length, hash, this.builder.createFactory(file).create());
+  }
+  
+  private static byte[] hash(final File file) throws IOException {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("MD5");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new ObjectMatrixCreationFailedException("MD5 is not available", e);
+    }
+    final InputStream in = new FileInputStream(file);
+    try {
+      final byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+    return digest.digest();
+  }
+  
+  /**
+   * @return the number of times new matrices have been swapped in since the first load
+   */
+  public int getReloadCount() {
+    return this.reloads;
+  }
+  
+  /**
+   * The matrices of one file and the state of the file they were read from.
+   */
+  private static final class Source {
+    private volatile long lastModified;
+    
+    private volatile long length;
+    
+    private final byte[] hash;
+    
+    private final ObjectMatrix[] matrices;
+    
+    private Source(final long lastModified, final long length, final byte[] hash, final ObjectMatrix[] matrices) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.hash = hash;
+      this.matrices = matrices;
+    }
+  }
+}
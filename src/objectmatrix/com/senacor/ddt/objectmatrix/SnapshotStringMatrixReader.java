@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+import com.senacor.ddt.util.StringPool;
+
+/**
+ * An immutable, fully materialized {@link StringMatrixReader}. Usually all cells are held in a plain two-dimensional
+ * String array, so reading a cell is nothing but an array access. Matrices that are mostly empty are stored in a
+ * {@link SparseStringMatrixReader} instead, see {@link SparseStringMatrixReader#MAX_FILL_RATIO}.
+ * <p>
+ * Use this to decouple a matrix from an expensive underlying data source: Once the snapshot has been taken, the source
+ * reader (and whatever it holds on to, e.g. a parsed Excel workbook) is no longer referenced and can be garbage
+ * collected.
+ * <p>
+ * Readers that parse their source sequentially and don't know the size of the matrix in advance can collect the
+ * cells in a {@link Builder}.
+ * 
+ * @version $Id$
+ */
+public class SnapshotStringMatrixReader implements StringMatrixReader, HeapEstimating {
+  private static final Log log = LogFactory.getLog(SnapshotStringMatrixReader.class);
+  
+  /**
+   * The cells of the matrix. The first index selects the column, the second index selects the row. null if the matrix
+   * is stored in {@link #sparse}.
+   */
+  private final String[][] data;
+  
+  /**
+   * The non-empty cells of the matrix, if it is mostly empty. null if the matrix is stored in {@link #data}.
+   */
+  private final SparseStringMatrixReader sparse;
+  
+  private final int rows;
+  
+  private final String identifier;
+  
+  /**
+   * Take a snapshot of the given reader by copying every cell. The source reader is not referenced afterwards.
+   * 
+   * @param source
+   *          The reader to copy. Must not be null.
+   * @throws MatrixReadFailedException
+   *           if reading the source fails
+   */
+  public SnapshotStringMatrixReader(final StringMatrixReader source) throws MatrixReadFailedException {
+    this(source, null);
+  }
+  
+  /**
+   * Take a snapshot of the given reader, replacing each cell by its shared instance from the given pool. Equal strings
+   * from different readers copied with the same pool are then stored only once.
+   * 
+   * @param source
+   *          The reader to copy. Must not be null.
+   * @param pool
+   *          The pool to look up the cells in. If null, the cells are copied as they are.
+   * @throws MatrixReadFailedException
+   *           if reading the source fails
+   */
+  public SnapshotStringMatrixReader(final StringMatrixReader source, final StringPool pool)
+      throws MatrixReadFailedException {
+    this(copyCells(source, pool));
+    if (log.isDebugEnabled()) {
+      log.debug("Took snapshot of " + this.identifier + " with " + getNumberOfColumns() + " columns and " + this.rows
+          + " rows.");
+    }
+  }
+  
+  /**
+   * Copy the cells column by column. They are collected sparsely until there are too many non-empty cells for sparse
+   * storage, and only then copied into a dense array, so a sparse matrix is never held densely.
+   */
+  private static SnapshotStringMatrixReader copyCells(final StringMatrixReader source, final StringPool pool)
+      throws MatrixReadFailedException {
+    ParamChecker.notNull("source", source);
+    final int columns = source.getNumberOfColumns();
+    final int rowCount = source.getNumberOfRows();
+    final SparseStringMatrixReader.Builder sparse =
+        new SparseStringMatrixReader.Builder(rowCount, source.getIdentifier());
+    String[][] dense = SparseStringMatrixReader.isSparseEnough(0, columns, rowCount) ? null : sparse.toDense(columns);
+    for (int col = 0; col < columns; col++) {
+      if (dense == null) {
+        sparse.nextColumn();
+      }
+      for (int row = 0; row < rowCount; row++) {
+        final String cell = (pool == null) ? source.getString(col, row) : pool.intern(source.getString(col, row));
+        if (dense != null) {
+          dense[col][row] = cell;
+        } else if (sparse.add(row, cell)
+            && !SparseStringMatrixReader.isSparseEnough(sparse.getNumberOfNonEmptyCells(), columns, rowCount)) {
+          dense = sparse.toDense(columns);
+        }
+      }
+    }
+    if (dense != null) {
+      return new SnapshotStringMatrixReader(dense, source.getIdentifier());
+    }
+    return new SnapshotStringMatrixReader(sparse.build());
+  }
+  
+  private SnapshotStringMatrixReader(final SnapshotStringMatrixReader copy) {
+    this.data = copy.data;
+    this.sparse = copy.sparse;
+    this.rows = copy.rows;
+    this.identifier = copy.identifier;
+  }
+  
+  /**
+   * Wrap an already materialized cell array. The array is taken over as it is, not copied, so callers must not modify
+   * it afterwards. If the array is mostly empty, only its non-empty cells are kept.
+   * 
+   * @param data
+   *          The cells, indexed as <code>data[column][row]</code>. All columns must have the same length. Must not
+   *          be null.
+   * @param identifier
+   *          The identifier of the matrix. Must not be null.
+   */
+  public SnapshotStringMatrixReader(final String[][] data, final String identifier) {
+    ParamChecker.notNull("data", data);
+    ParamChecker.notNull("identifier", identifier);
+    this.rows = (data.length == 0) ? 0 : data[0].length;
+    this.identifier = identifier;
+    for (int col = 1; col < data.length; col++) {
+      ParamChecker.require("all columns must have the same number of rows", data[col].length == this.rows);
+    }
+    final int nonEmptyCells = SparseStringMatrixReader.countNonEmptyCells(data);
+    if (SparseStringMatrixReader.isSparseEnough(nonEmptyCells, data.length, this.rows)) {
+      this.data = null;
+      this.sparse = new SparseStringMatrixReader(data, identifier);
+      if (log.isDebugEnabled()) {
+        log.debug("Storing " + identifier + " sparsely, only " + nonEmptyCells + " of " + (data.length * this.rows)
+            + " cells are not empty.");
+      }
+    } else {
+      this.data = data;
+      this.sparse = null;
+    }
+  }
+  
+  private SnapshotStringMatrixReader(final SparseStringMatrixReader sparse) {
+    this.data = null;
+    this.sparse = sparse;
+    this.rows = sparse.getNumberOfRows();
+    this.identifier = sparse.getIdentifier();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getString(int, int)
+   */
+  public String getString(final int colIndex, final int rowIndex) throws IndexOutOfBoundsException {
+    if (this.data != null) {
+      return this.data[colIndex][rowIndex];
+    }
+    return this.sparse.getString(colIndex, rowIndex);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfRows()
+   */
+  public int getNumberOfRows() {
+    return this.rows;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfColumns()
+   */
+  public int getNumberOfColumns() {
+    if (this.data != null) {
+      return this.data.length;
+    }
+    return this.sparse.getNumberOfColumns();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getIdentifier()
+   */
+  public String getIdentifier() {
+    return this.identifier;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.HeapEstimating#estimateRetainedBytes(com.senacor.ddt.objectmatrix.HeapEstimate)
+   */
+  public void estimateRetainedBytes(final HeapEstimate estimate) {
+    if (this.sparse != null) {
+      this.sparse.estimateRetainedBytes(estimate);
+      return;
+    }
+    estimate.addCells(this.data.length, this.rows);
+    for (int col = 0; col < this.data.length; col++) {
+      for (int row = 0; row < this.rows; row++) {
+        estimate.addString(this.data[col][row]);
+      }
+    }
+  }
+  
+  /**
+   * @return <code>true</code> if only the non-empty cells are stored
+   */
+  public boolean isSparse() {
+    return this.sparse != null;
+  }
+  
+  /**
+   * Create a snapshot containing only the given columns. The column arrays of a dense snapshot are shared, not copied.
+   * 
+   * @param columns
+   *          The indices of the columns to keep, in the order they should appear in the result.
+   * @return the reduced snapshot
+   * @see ColumnProjection#selectColumns(StringMatrixReader)
+   */
+  public SnapshotStringMatrixReader selectColumns(final int[] columns) {
+    ParamChecker.notNull("columns", columns);
+    if (this.sparse != null) {
+      return new SnapshotStringMatrixReader(this.sparse.selectColumns(columns));
+    }
+    return new SnapshotStringMatrixReader(ColumnProjection.pickColumns(this.data, columns), this.identifier);
+  }
+  
+  /**
+   * Collects cells in any order and grows as needed. Cells that are never set are empty strings in the resulting
+   * matrix. A Builder is not thread-safe and should be discarded after {@link #build()}.
+   */
+  public static class Builder {
+    private static final String[] NO_ROWS = new String[0];
+    
+    private final String identifier;
+    
+    private String[][] columns = new String[8][];
+    
+    private int columnCount = 0;
+    
+    private int rowCount = 0;
+    
+    /**
+     * @param identifier
+     *          The identifier of the resulting matrix. Must not be null.
+     */
+    public Builder(final String identifier) {
+      ParamChecker.notNull("identifier", identifier);
+      this.identifier = identifier;
+    }
+    
+    /**
+     * Set the content of a cell, growing the matrix if necessary.
+     * 
+     * @param colIndex
+     *          0-based column index
+     * @param rowIndex
+     *          0-based row index
+     * @param content
+     *          cell content. null is treated like an empty string.
+     */
+    public void set(final int colIndex, final int rowIndex, final String content) {
+      if (colIndex >= this.columnCount) {
+        if (colIndex >= this.columns.length) {
+          final String[][] grown = new String[Math.max(colIndex + 1, this.columns.length * 2)][];
+          System.arraycopy(this.columns, 0, grown, 0, this.columnCount);
+          this.columns = grown;
+        }
+        for (int i = this.columnCount; i <= colIndex; i++) {
+          this.columns[i] = NO_ROWS;
+        }
+        this.columnCount = colIndex + 1;
+      }
+      String[] column = this.columns[colIndex];
+      if (rowIndex >= column.length) {
+        final String[] grown = new String[Math.max(rowIndex + 1, Math.max(16, column.length * 2))];
+        System.arraycopy(column, 0, grown, 0, column.length);
+        column = grown;
+        this.columns[colIndex] = column;
+      }
+      column[rowIndex] = content;
+      if (rowIndex >= this.rowCount) {
+        this.rowCount = rowIndex + 1;
+      }
+    }
+    
+    /**
+     * @param colIndex
+     *          0-based column index
+     * @param rowIndex
+     *          0-based row index
+     * @return the content of the given cell, or an empty string if it hasn't been set
+     */
+    public String get(final int colIndex, final int rowIndex) {
+      if (colIndex < this.columnCount) {
+        final String[] column = this.columns[colIndex];
+        if ((rowIndex < column.length) && (column[rowIndex] != null)) {
+          return column[rowIndex];
+        }
+      }
+      return "";
+    }
+    
+    /**
+     * @return the number of columns collected so far
+     */
+    public int getNumberOfColumns() {
+      return this.columnCount;
+    }
+    
+    /**
+     * @return the number of rows collected so far
+     */
+    public int getNumberOfRows() {
+      return this.rowCount;
+    }
+    
+    /**
+     * @return an immutable reader containing all cells set so far
+     */
+    public SnapshotStringMatrixReader build() {
+      final String[][] data = new String[this.columnCount][];
+      for (int col = 0; col < this.columnCount; col++) {
+        final String[] source = this.columns[col];
+        final String[] column = new String[this.rowCount];
+        for (int row = 0; row < this.rowCount; row++) {
+          final String content = (row < source.length) ? source[row] : null;
+          column[row] = (content == null) ? "" : content;
+        }
+        data[col] = column;
+      }
+      return new SnapshotStringMatrixReader(data, this.identifier);
+    }
+  }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.util.Arrays;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * An immutable {@link StringMatrixReader} that only stores the non-empty cells, in compressed sparse column form: The
+ * non-empty cells of each column are stored in ascending row order, and a cell is found by a binary search over the
+ * row indices of its column. Memory use is proportional to the number of non-empty cells, reading a cell takes
+ * O(log k) for k non-empty cells in the column. Cells that are not stored are empty strings.
+ * <p>
+ * This suits wide matrices in which each column only fills a few rows. {@link SnapshotStringMatrixReader} switches to
+ * this storage automatically if the fill ratio of a matrix is at most {@link #MAX_FILL_RATIO}.
+ * 
+ * @version $Id$
+ */
+public class SparseStringMatrixReader implements StringMatrixReader, HeapEstimating {
+  /**
+   * Matrices with at most this share of non-empty cells are stored sparsely by {@link SnapshotStringMatrixReader}. A
+   * dense matrix needs one reference per cell, a sparse one needs a reference and an int per non-empty cell, so the
+   * sparse storage is smaller up to a fill ratio of about one half. The lower threshold makes up for the slower
+   * lookups.
+   */
+  public static final double MAX_FILL_RATIO = 0.25;
+  
+  private static final String EMPTY = "";
+  
+  /**
+   * The non-empty cells of column <code>c</code> are stored at the indices from <code>columnStarts[c]</code>
+   * (inclusive) to <code>columnStarts[c + 1]</code> (exclusive) of {@link #rowIndices} and {@link #values}.
+   */
+  private final int[] columnStarts;
+  
+  private final int[] rowIndices;
+  
+  private final String[] values;
+  
+  private final int rows;
+  
+  private final String identifier;
+  
+  /**
+   * Store the non-empty cells of the given array. The array is not referenced afterwards.
+   * 
+   * @param data
+   *          The cells, indexed as <code>data[column][row]</code>. All columns must have the same length. Must not
+   *          be null.
+   * @param identifier
+   *          The identifier of the matrix. Must not be null.
+   */
+  public SparseStringMatrixReader(final String[][] data, final String identifier) {
+    ParamChecker.notNull("data", data);
+    ParamChecker.notNull("identifier", identifier);
+    this.rows = (data.length == 0) ? 0 : data[0].length;
+    this.identifier = identifier;
+    final int cells = countNonEmptyCells(data);
+    this.columnStarts = new int[data.length + 1];
+    this.rowIndices = new int[cells];
+    this.values = new String[cells];
+    int next = 0;
+    for (int col = 0; col < data.length; col++) {
+      ParamChecker.require("all columns must have the same number of rows", data[col].length == this.rows);
+      this.columnStarts[col] = next;
+      for (int row = 0; row < this.rows; row++) {
+        if (!isEmpty(data[col][row])) {
+          this.rowIndices[next] = row;
+          this.values[next] = data[col][row];
+          next++;
+        }
+      }
+    }
+    this.columnStarts[data.length] = next;
+  }
+  
+  private SparseStringMatrixReader(final int[] columnStarts, final int[] rowIndices, final String[] values,
+      final int rows, final String identifier) {
+    this.columnStarts = columnStarts;
+    this.rowIndices = rowIndices;
+    this.values = values;
+    this.rows = rows;
+    this.identifier = identifier;
+  }
+  
+  private static boolean isEmpty(final String cell) {
+    return (cell != null) && (cell.length() == 0);
+  }
+  
+  /**
+   * @param data
+   *          The cells, indexed as <code>data[column][row]</code>.
+   * @return the number of cells that are not empty strings. null cells count as non-empty, since they have to be
+   *         stored to be reproduced.
+   */
+  public static int countNonEmptyCells(final String[][] data) {
+    int count = 0;
+    for (int col = 0; col < data.length; col++) {
+      final String[] column = data[col];
+      for (int row = 0; row < column.length; row++) {
+        if (!isEmpty(column[row])) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+  
+  /**
+   * Check whether a matrix should be stored sparsely.
+   * 
+   * @param nonEmptyCells
+   *          the number of non-empty cells
+   * @param columns
+   *          the number of columns
+   * @param rows
+   *          the number of rows
+   * @return <code>true</code> if the fill ratio is at most {@link #MAX_FILL_RATIO}
+   */
+  public static boolean isSparseEnough(final int nonEmptyCells, final int columns, final int rows) {
+    final long cells = (long) columns * rows;
+    return (cells > 0) && (nonEmptyCells <= (cells * MAX_FILL_RATIO));
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getString(int, int)
+   */
+  public String getString(final int colIndex, final int rowIndex) throws IndexOutOfBoundsException {
+    if ((rowIndex < 0) || (rowIndex >= this.rows)) {
+      throw new IndexOutOfBoundsException("row " + rowIndex + " of " + this.rows);
+    }
+    // throws ArrayIndexOutOfBoundsException for invalid columns, just like a dense array
+    int low = this.columnStarts[colIndex];
+    int high = this.columnStarts[colIndex + 1] - 1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      final int row = this.rowIndices[middle];
+      if (row < rowIndex) {
+        low = middle + 1;
+      } else if (row > rowIndex) {
+        high = middle - 1;
+      } else {
+        return this.values[middle];
+      }
+    }
+    return EMPTY;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfRows()
+   */
+  public int getNumberOfRows() {
+    return this.rows;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfColumns()
+   */
+  public int getNumberOfColumns() {
+    return this.columnStarts.length - 1;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getIdentifier()
+   */
+  public String getIdentifier() {
+    return this.identifier;
+  }
+  
+  /**
+   * @return the number of stored cells
+   */
+  public int getNumberOfNonEmptyCells() {
+    return this.values.length;
+  }
+  
+  /**
+   * Only the index arrays and the non-empty cells are counted.
+   * 
+   * @see com.senacor.ddt.objectmatrix.HeapEstimating#estimateRetainedBytes(com.senacor.ddt.objectmatrix.HeapEstimate)
+   */
+  public void estimateRetainedBytes(final HeapEstimate estimate) {
+    estimate.addIntArray(this.columnStarts.length);
+    estimate.addIntArray(this.rowIndices.length);
+    estimate.addReferenceArray(this.values.length);
+    for (int i = 0; i < this.values.length; i++) {
+      estimate.addString(this.values[i]);
+    }
+  }
+  
+  /**
+   * Create a matrix containing only the given columns.
+   * 
+   * @param columns
+   *          The indices of the columns to keep, in the order they should appear in the result.
+   * @return the reduced matrix
+   * @see ColumnProjection#selectColumns(StringMatrixReader)
+   */
+  public SparseStringMatrixReader selectColumns(final int[] columns) {
+    ParamChecker.notNull("columns", columns);
+    final int[] starts = new int[columns.length + 1];
+    for (int i = 0; i < columns.length; i++) {
+      starts[i + 1] = starts[i] + (this.columnStarts[columns[i] + 1] - this.columnStarts[columns[i]]);
+    }
+    final int[] selectedRows = new int[starts[columns.length]];
+    final String[] selectedValues = new String[selectedRows.length];
+    for (int i = 0; i < columns.length; i++) {
+      final int from = this.columnStarts[columns[i]];
+      System.arraycopy(this.rowIndices, from, selectedRows, starts[i], starts[i + 1] - starts[i]);
+      System.arraycopy(this.values, from, selectedValues, starts[i], starts[i + 1] - starts[i]);
+    }
+    return new SparseStringMatrixReader(starts, selectedRows, selectedValues, this.rows, this.identifier);
+  }
+  
+  /**
+   * Collects the non-empty cells of a matrix column by column, without ever holding all cells. Once the cells can't
+   * be stored sparsely anymore, the caller switches to dense storage with {@link #toDense(int)}.
+   */
+  static final class Builder {
+    private final int rows;
+    
+    private final String identifier;
+    
+    private int[] columnStarts = new int[9];
+    
+    private int columns = 0;
+    
+    private int[] rowIndices = new int[16];
+    
+    private String[] values = new String[16];
+    
+    private int size = 0;
+    
+    Builder(final int rows, final String identifier) {
+      ParamChecker.notNull("identifier", identifier);
+      this.rows = rows;
+      this.identifier = identifier;
+    }
+    
+    /**
+     * Start the next column. All following cells belong to it.
+     */
+    void nextColumn() {
+      if (this.columns + 1 >= this.columnStarts.length) {
+        final int[] grown = new int[this.columnStarts.length * 2];
+        System.arraycopy(this.columnStarts, 0, grown, 0, this.columns + 1);
+        this.columnStarts = grown;
+      }
+      this.columns++;
+      this.columnStarts[this.columns] = this.size;
+    }
+    
+    /**
+     * Add a cell to the current column. Cells must be added in ascending row order.
+     * 
+     * @param row
+     *          the row of the cell
+     * @param content
+     *          the content of the cell. Empty strings are not stored.
+     * @return <code>true</code> if the cell was stored, i.e. it is not empty
+     */
+    boolean add(final int row, final String content) {
+      if (isEmpty(content)) {
+        return false;
+      }
+      if (this.size == this.values.length) {
+        final int[] grownRows = new int[this.size * 2];
+        System.arraycopy(this.rowIndices, 0, grownRows, 0, this.size);
+        this.rowIndices = grownRows;
+        final String[] grownValues = new String[this.size * 2];
+        System.arraycopy(this.values, 0, grownValues, 0, this.size);
+        this.values = grownValues;
+      }
+      this.rowIndices[this.size] = row;
+      this.values[this.size] = content;
+      this.size++;
+      this.columnStarts[this.columns] = this.size;
+      return true;
+    }
+    
+    /**
+     * @return the number of cells stored so far
+     */
+    int getNumberOfNonEmptyCells() {
+      return this.size;
+    }
+    
+    /**
+     * @return a reader over the collected columns
+     */
+    SparseStringMatrixReader build() {
+      final int[] starts = new int[this.columns + 1];
+      System.arraycopy(this.columnStarts, 0, starts, 0, starts.length);
+      final int[] rowIndices = new int[this.size];
+      System.arraycopy(this.rowIndices, 0, rowIndices, 0, this.size);
+      final String[] values = new String[this.size];
+      System.arraycopy(this.values, 0, values, 0, this.size);
+      return new SparseStringMatrixReader(starts, rowIndices, values, this.rows, this.identifier);
+    }
+    
+    /**
+     * Copy the collected cells into a dense array. Cells that have not been added are empty strings.
+     * 
+     * @param columnCount
+     *          the number of columns of the array, at least the number of columns collected so far
+     * @return the cells, indexed as <code>data[column][row]</code>
+     */
+    String[][] toDense(final int columnCount) {
+      final String[][] data = new String[columnCount][this.rows];
+      for (int col = 0; col < columnCount; col++) {
+        Arrays.fill(data[col], EMPTY);
+      }
+      for (int col = 0; col < this.columns; col++) {
+        for (int i = this.columnStarts[col]; i < this.columnStarts[col + 1]; i++) {
+          data[col][this.rowIndices[i]] = this.values[i];
+        }
+      }
+      return data;
+    }
+  }
+}
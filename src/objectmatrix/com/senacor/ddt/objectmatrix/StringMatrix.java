@@ -99,7 +99,7 @@ public interface StringMatrix {
    *          Infix to look for. If null, this method will not filter by infixes.
    * @param rowSuffix
    *          Suffix to look for. If null, this method will not filter by suffixes.
-   * @return filtered List<String> of row names
+   * @return filtered List<String> of row names, in their original order. The list may be unmodifiable.
    * @throws MatrixReadFailedException
    *           if anything goes wrong
    */
@@ -115,7 +115,7 @@ public interface StringMatrix {
    *          Infix to look for. If null, this method will not filter by infixes.
    * @param colSuffix
    *          Suffix to look for. If null, this method will not filter by suffixes.
-   * @return filtered List<String> of column names
+   * @return filtered List<String> of column names, in their original order. The list may be unmodifiable.
    * @throws MatrixReadFailedException
    *           if anything goes wrong
    */
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * Caches the typed values converted by a {@link DelegatingObjectMatrix}, keyed by cell and conversion. Only values of
+ * immutable types (Strings, the primitive wrappers, BigInteger, BigDecimal and Class) are cached, as well as null.
+ * Dates are mutable, so they are copied whenever they are stored or returned.
+ * <p>
+ * The cache holds at most a fixed number of entries. Once it is full, further values are converted as usual, but not
+ * stored. The numbers of hits and misses are counted, so the effect of the cache can be checked.
+ * <p>
+ * Instances are safe for use by concurrent threads.
+ * 
+ * @version $Id$
+ */
+public class ValueCache {
+  /**
+   * Returned by {@link #get(String, String, Object)} if there is no cached value. Null is a valid cached value.
+   */
+  static final Object MISS = new Object();
+  
+  private static final Object NULL = new Object();
+  
+  private static final Set IMMUTABLE_TYPES = new HashSet();
+  
+  static {
+    IMMUTABLE_TYPES.add(String.class);
+    IMMUTABLE_TYPES.add(Boolean.class);
+    IMMUTABLE_TYPES.add(Character.class);
+    IMMUTABLE_TYPES.add(Byte.class);
+    IMMUTABLE_TYPES.add(Short.class);
+    IMMUTABLE_TYPES.add(Integer.class);
+    IMMUTABLE_TYPES.add(Long.class);
+    IMMUTABLE_TYPES.add(Float.class);
+    IMMUTABLE_TYPES.add(Double.class);
+    IMMUTABLE_TYPES.add(BigInteger.class);
+    IMMUTABLE_TYPES.add(BigDecimal.class);
+    IMMUTABLE_TYPES.add(Class.class);
+  }
+  
+  private final ConcurrentMap values = new ConcurrentHashMap();
+  
+  private final int maxEntries;
+  
+  private final AtomicInteger size = new AtomicInteger();
+  
+  private final AtomicLong hits = new AtomicLong();
+  
+  private final AtomicLong misses = new AtomicLong();
+  
+  /**
+   * @param maxEntries
+   *          The maximum number of values to keep. Must be at least 1.
+   */
+  public ValueCache(final int maxEntries) {
+    ParamChecker.require("maxEntries must be at least 1", maxEntries >= 1);
+    this.maxEntries = maxEntries;
+  }
+  
+  /**
+   * Look up a converted value.
+   * 
+   * @param column
+   *          The column of the cell.
+   * @param row
+   *          The row of the cell.
+   * @param conversion
+   *          Identifies the conversion, e.g. the target type.
+   * @return the cached value, which may be null, or {@link #MISS}
+   */
+  Object get(final String column, final String row, final Object conversion) {
+    final Object value = this.values.get(new Key(column, row, conversion));
+    if (value == null) {
+      this.misses.incrementAndGet();
+      return MISS;
+    }
+    this.hits.incrementAndGet();
+    if (value == NULL) {
+      return null;
+    } else if (value instanceof Date) {
+      return ((Date) value).clone();
+    } else {
+      return value;
+    }
+  }
+  
+  /**
+   * Store a converted value, unless its type is not immutable or the cache is full.
+   * 
+   * @param column
+   *          The column of the cell.
+   * @param row
+   *          The row of the cell.
+   * @param conversion
+   *          Identifies the conversion, e.g. the target type.
+   * @param value
+   *          The converted value. May be null.
+   */
+  void put(final String column, final String row, final Object conversion, final Object value) {
+    final Object stored;
+    if (value == null) {
+      stored = NULL;
+    } else if (IMMUTABLE_TYPES.contains(value.getClass())) {
+      stored = value;
+    } else if (value instanceof Date) {
+      stored = ((Date) value).clone();
+    } else {
+      return;
+    }
+    // reserve a slot first, so that concurrent additions can't exceed maxEntries
+    if (this.size.incrementAndGet() > this.maxEntries) {
+      this.size.decrementAndGet();
+      return;
+    }
+    if (this.values.putIfAbsent(new Key(column, row, conversion), stored) != null) {
+      this.size.decrementAndGet();
+    }
+  }
+  
+  /**
+   * @return the number of lookups that found a cached value
+   */
+  public long getHits() {
+    return this.hits.get();
+  }
+  
+  /**
+   * @return the number of lookups that did not find a cached value
+   */
+  public long getMisses() {
+    return this.misses.get();
+  }
+  
+  /**
+   * @return the number of cached values
+   */
+  public int getSize() {
+    return this.size.get();
+  }
+  
+  /**
+   * @return the maximum number of cached values
+   */
+  public int getMaxEntries() {
+    return this.maxEntries;
+  }
+  
+  /**
+   * Remove all cached values. The hit and miss counters are not reset.
+   */
+  public void clear() {
+    // not atomic with concurrent puts, so the size may briefly undercount, which only delays the limit
+    this.values.clear();
+    this.size.set(0);
+  }
+  
+  /**
+   * @see java.lang.Object#toString()
+   */
+  public String toString() {
+    return "ValueCache[size=" + getSize() + "/" + this.maxEntries + ", hits=" + getHits() + ", misses=" + getMisses()
+        + "]";
+  }
+  
+  /**
+   * Composite key of cell and conversion.
+   */
+  private static final class Key {
+    private final String column;
+    
+    private final String row;
+    
+    private final Object conversion;
+    
+    private final int hash;
+    
+    Key(final String column, final String row, final Object conversion) {
+      this.column = column;
+      this.row = row;
+      this.conversion = conversion;
+      this.hash = (column.hashCode() * 31 + row.hashCode()) * 31 + conversion.hashCode();
+    }
+    
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key that = (Key) obj;
+      return this.column.equals(that.column) && this.row.equals(that.row) && this.conversion.equals(that.conversion);
+    }
+    
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+      return this.hash;
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.beanfiller;
+
+import java.util.Properties;
+
+import com.senacor.ddt.objectmatrix.CellAnnotation;
+
+/**
+ * Base class for {@link CellAnnotationBeanAccessStrategy} implementations. The Properties based methods of
+ * {@link BeanAccessStrategy} convert the annotations and call their {@link CellAnnotation} counterparts, so
+ * subclasses only have to implement the latter.
+ * 
+ * @version $Id$
+ */
+public abstract class AbstractCellAnnotationBeanAccessStrategy implements CellAnnotationBeanAccessStrategy {
+  /**
+   * @see BeanAccessStrategy#getPropertyType(Object, String, Properties)
+   */
+  public Class getPropertyType(final Object bean, final String propertyName, final Properties annotation)
+      throws PropertyNotFoundException, PropertyAccessException {
+    return getPropertyType(bean, propertyName, CellAnnotation.valueOf(annotation));
+  }
+  
+  /**
+   * @see BeanAccessStrategy#writeProperty(Object, String, Object, Properties)
+   */
+  public Object writeProperty(final Object bean, final String propertyName, final Object propertyValue,
+      final Properties annotations) throws PropertyNotFoundException, PropertyAccessException {
+    return writeProperty(bean, propertyName, propertyValue, CellAnnotation.valueOf(annotations));
+  }
+  
+  /**
+   * @see BeanAccessStrategy#instantiateAndSet(Object, String, Class, Properties)
+   */
+  public Object instantiateAndSet(final Object bean, final String propertyName, final Class typeToInstantiate,
+      final Properties annotations) throws PropertyNotFoundException, PropertyAccessException {
+    return instantiateAndSet(bean, propertyName, typeToInstantiate, CellAnnotation.valueOf(annotations));
+  }
+  
+  /**
+   * @see BeanAccessStrategy#readProperty(Object, String, Properties)
+   */
+  public Object readProperty(final Object bean, final String propertyName, final Properties annotations)
+      throws PropertyNotFoundException, PropertyAccessException {
+    return readProperty(bean, propertyName, CellAnnotation.valueOf(annotations));
+  }
+  
+  /**
+   * @see BeanAccessStrategy#createHolder(Object, Properties)
+   */
+  public ObjectHolder createHolder(final Object bean, final Properties annotation) {
+    return createHolder(bean, CellAnnotation.valueOf(annotation));
+  }
+}
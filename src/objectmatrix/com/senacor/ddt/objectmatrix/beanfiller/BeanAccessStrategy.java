@@ -45,6 +45,10 @@ import com.senacor.ddt.typetransformer.Transformer;
  * The default implementation {@link JavaBeanAccessStrategy} deals with normal Java beans. Implement this and pass a
  * matching {@link com.senacor.ddt.test.BeanAccessStrategyFactory factory} to {@link BeanFiller} if you need to handle a
  * custom type of object.
+ * <p>
+ * The annotations are passed as a new {@link Properties} copy for every call. Implement
+ * {@link CellAnnotationBeanAccessStrategy} instead, e.g. by extending {@link AbstractCellAnnotationBeanAccessStrategy},
+ * to receive them as {@link com.senacor.ddt.objectmatrix.CellAnnotation}s without conversion.
  * 
  * @author Carl-Eric Menzel
  */
@@ -183,4 +187,4 @@ public interface BeanAccessStrategy {
      */
     public Object getWrapped();
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
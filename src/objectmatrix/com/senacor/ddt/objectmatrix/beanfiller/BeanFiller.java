@@ -37,15 +37,15 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
-import java.util.Properties;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.senacor.ddt.objectmatrix.AnnotatedStringMatrix;
+import com.senacor.ddt.objectmatrix.CellAnnotation;
+import com.senacor.ddt.objectmatrix.DelegatingObjectMap;
 import com.senacor.ddt.objectmatrix.EmbeddedAnnotationMatrixDecorator;
 import com.senacor.ddt.objectmatrix.KeyNotFoundException;
 import com.senacor.ddt.objectmatrix.ObjectMap;
@@ -95,19 +95,24 @@ public class BeanFiller {
    */
   private List relevantKeys;
   
+  /**
+   * The same keys as {@link #relevantKeys}, for fast membership checks.
+   */
+  private Set relevantKeySet;
+  
   /**
    * A cache containing objects already encountered during a filling operation. The key is simply the string path to the
    * object within the current object graph.
    */
   private Map /* <String, Object> */beanCache;
   
-  private Map /* <String, Properties> */annotationCache;
+  private Map /* <String, CellAnnotation> */annotationCache;
   
   private Set /* <String> */leafNodes;
   
   private String lastSeenNullNodeKey;
   
-  private final BeanAccessStrategy accessor;
+  private final CellAnnotationBeanAccessStrategy accessor;
   
   private final Transformer transformer;
   
@@ -120,12 +125,13 @@ public class BeanFiller {
    * @param objectMap
    *          The map this BeanFiller will read data from.
    * @param accessor
-   *          The strategy used to read and write properties.
+   *          The strategy used to read and write properties. Strategies that do not implement
+   *          {@link CellAnnotationBeanAccessStrategy} get the annotations as Properties.
    */
   public BeanFiller(final ObjectMap objectMap, final BeanAccessStrategy accessor) {
     ParamChecker.notNull("objectMap", objectMap);
     ParamChecker.notNull("accessor", accessor);
-    this.accessor = accessor;
+    this.accessor = PropertiesBeanAccessStrategyAdapter.adapt(accessor);
     this.transformer = objectMap.getTransformer();
     this.accessor.setTransformer(this.transformer);
     this.objectMap = objectMap;
@@ -378,9 +384,12 @@ public class BeanFiller {
     ParamChecker.notNull("bean", bean);
     initializeBeanFilling();
     // Filter keys by "beanName.", so that when looking for "person" we don't match "person2"
-    this.relevantKeys = this.objectMap.filterKeys(beanName + ".", null, null);
-    this.relevantKeys.addAll(this.objectMap.filterKeys(beanName + "[", null, null));
-    filterKeysToIgnore();
+    final List dotKeys = this.objectMap.filterKeys(beanName + ".", null, null);
+    final List bracketKeys = this.objectMap.filterKeys(beanName + "[", null, null);
+    this.relevantKeys = new ArrayList(dotKeys.size() + bracketKeys.size());
+    addKeysNotToIgnore(dotKeys);
+    addKeysNotToIgnore(bracketKeys);
+    this.relevantKeySet = new HashSet(this.relevantKeys);
     if (this.relevantKeys.isEmpty()) {
       throw new NoPropertyFoundException(beanName, this.objectMap.getIdentifier());
     } else {
@@ -425,13 +434,13 @@ public class BeanFiller {
    *         ~null annotation is found.
    */
   private Object instantiateFromKey(final String beanName) {
-    if (this.objectMap.getKeys().contains(beanName)) {
-      final Properties p = getAnnotation(beanName);
-      if (p.containsKey(AnnotationKeys.TYPE_HINT)) {
-        if (!p.containsKey(ObjectMatrix.AnnotationKeys.NULL)) {
+    if (containsKey(beanName)) {
+      final CellAnnotation p = getAnnotation(beanName);
+      if (p.has(AnnotationKeys.TYPE_HINT)) {
+        if (!p.has(ObjectMatrix.AnnotationKeys.NULL)) {
           try {
             final Class type =
-                (Class) this.objectMap.getTransformer().transform(p.getProperty(AnnotationKeys.TYPE_HINT), Class.class);
+                (Class) this.objectMap.getTransformer().transform(p.get(AnnotationKeys.TYPE_HINT), Class.class);
             final Object result = this.objectMap.getObject(beanName, type);
             if (result == null) {
               return this.accessor.instantiate(type);
@@ -453,14 +462,14 @@ public class BeanFiller {
   }
   
   /**
-   * Remove all keys from {@link #relevantKeys} as indicated by {@link #shouldSkip(String)}.
+   * Add the given keys to {@link #relevantKeys}, except those indicated by {@link #shouldSkip(String)}.
    */
-  private void filterKeysToIgnore() {
-    final ListIterator iter = this.relevantKeys.listIterator();
+  private void addKeysNotToIgnore(final List keys) {
+    final Iterator iter = keys.iterator();
     while (iter.hasNext()) {
       final String key = (String) iter.next();
-      if (shouldSkip(key)) {
-        iter.remove();
+      if (!shouldSkip(key)) {
+        this.relevantKeys.add(key);
       }
     }
   }
@@ -476,10 +485,12 @@ public class BeanFiller {
   }
   
   /**
-   * Initialize all filling operations: Null {@link #relevantKeys} and clear {@link #annotationCache}.
+   * Initialize all filling operations: Null {@link #relevantKeys} and {@link #relevantKeySet} and clear
+   * {@link #annotationCache}.
    */
   private void initializeFilling() {
     this.relevantKeys = null;
+    this.relevantKeySet = null;
     this.annotationCache = new HashMap();
   }
   
@@ -575,7 +586,7 @@ public class BeanFiller {
     // if this is a leaf type, add this node.
     final Object result;
     {
-      final Properties annotation = getAnnotation(key);
+      final CellAnnotation annotation = getAnnotation(key);
       final Class explicitPropertyTypeFromAnnotation = getTypeFromAnnotation(annotation);
       final Class existingPropertyType = this.accessor.getPropertyType(parent, propertyName, annotation);
       
@@ -596,7 +607,7 @@ public class BeanFiller {
           // there is a value in the map, so get the new object from there:
           final Object fromMap = this.objectMap.getObject(key, typeForProperty);
           if (fromMap == null) {
-            if (annotation.containsKey(ObjectMatrix.AnnotationKeys.NULL)) {
+            if (annotation.has(ObjectMatrix.AnnotationKeys.NULL)) {
               // this is an explicit null...
               if (typeForProperty.isPrimitive()) {
                 // ...but we can't set a primitive property to null
@@ -608,7 +619,7 @@ public class BeanFiller {
                 this.accessor.writeProperty(parent, propertyName, null, annotation);
                 result = null;
               }
-            } else if (annotation.containsKey(AnnotationKeys.INSTANTIATE_EMPTY)) {
+            } else if (annotation.has(AnnotationKeys.INSTANTIATE_EMPTY)) {
               /*
                * just the value in the map is null, but there is an annotation for us to instantiate an empty object, so
                * we do just that. we use the type from the annotation,not the existing type of the property. if there is
@@ -677,10 +688,10 @@ public class BeanFiller {
                                            */
   }
   
-  private Class getTypeFromAnnotation(final Properties annotation) {
-    if (annotation.containsKey(AnnotationKeys.TYPE_HINT)) {
+  private Class getTypeFromAnnotation(final CellAnnotation annotation) {
+    if (annotation.has(AnnotationKeys.TYPE_HINT)) {
       final Class typeInAnnotation =
-          (Class) this.transformer.transform(annotation.getProperty(AnnotationKeys.TYPE_HINT), Class.class);
+          (Class) this.transformer.transform(annotation.get(AnnotationKeys.TYPE_HINT), Class.class);
       return typeInAnnotation;
     } else {
       return null;
@@ -694,22 +705,30 @@ public class BeanFiller {
    *          The key.
    * @return The annotation. Not null.
    */
-  private Properties getAnnotation(final String key) {
-    Properties annotation = (Properties) this.annotationCache.get(key);
+  private CellAnnotation getAnnotation(final String key) {
+    CellAnnotation annotation = (CellAnnotation) this.annotationCache.get(key);
     if (annotation == null) {
       try {
-        annotation = this.objectMap.getAnnotation(key);
+        annotation = CellAnnotation.forKey(this.objectMap, key);
       } catch (final KeyNotFoundException e) {
         // the key could be in the middle of an object graph and not actually appear as a key in the
         // underlying object map.
         // in this case, we eat the exception and just use empty annotations:
-        annotation = new Properties();
+        annotation = CellAnnotation.EMPTY;
       }
       this.annotationCache.put(key, annotation);
     }
     return annotation;
   }
   
+  private boolean containsKey(final String key) {
+    if (this.objectMap instanceof DelegatingObjectMap) {
+      // checks a hash set instead of scanning the key list
+      return ((DelegatingObjectMap) this.objectMap).containsKey(key);
+    }
+    return this.objectMap.getKeys().contains(key);
+  }
+  
   /**
    * Checks whether the given key is specified in the underlying map. The key must be contained in the key list, and if
    * applicable, in the relevantKeys list and not be filtered.
@@ -719,7 +738,7 @@ public class BeanFiller {
    * @return <code>true</code> if the key is specified, <code>false</code> otherwise.
    */
   private boolean isSpecifiedInMap(final String key) {
-    return this.objectMap.getKeys().contains(key) && ((this.relevantKeys == null) || this.relevantKeys.contains(key))
+    return containsKey(key) && ((this.relevantKeySet == null) || this.relevantKeySet.contains(key))
         && !shouldSkip(key);
   }
   
@@ -887,10 +906,10 @@ public class BeanFiller {
    * @return <code>true</code> if annotations indicate that this key should be skipped, <code>false</code> otherwise.
    */
   private boolean shouldSkipWithAnnotations(final String key) {
-    final Properties annotation = getAnnotation(key);
-    final boolean hasIgnoreAnnotation = annotation.getProperty(AnnotationKeys.IGNORE) != null;
-    final boolean hasIgnoreIfNullAnnotation = annotation.getProperty(AnnotationKeys.IGNORE_IF_NULL) != null;
-    final boolean hasEmptyAnnotation = annotation.getProperty(AnnotationKeys.INSTANTIATE_EMPTY) != null;
+    final CellAnnotation annotation = getAnnotation(key);
+    final boolean hasIgnoreAnnotation = annotation.get(AnnotationKeys.IGNORE) != null;
+    final boolean hasIgnoreIfNullAnnotation = annotation.get(AnnotationKeys.IGNORE_IF_NULL) != null;
+    final boolean hasEmptyAnnotation = annotation.get(AnnotationKeys.INSTANTIATE_EMPTY) != null;
     final boolean hasOverridingAnnotation = hasEmptyAnnotation;
     final boolean itemIsNull = !this.objectMap.isDefinedAt(key);
     return hasIgnoreAnnotation || (hasIgnoreIfNullAnnotation && itemIsNull && !hasOverridingAnnotation)
@@ -920,9 +939,9 @@ public class BeanFiller {
     while (keys.hasNext()) {
       final String key = (String) keys.next();
       final Object item = this.objectMap.getObject(key, elementType);
-      final Properties p = getAnnotation(key);
-      if ((p.getProperty(AnnotationKeys.IGNORE) != null)
-          || ((p.getProperty(AnnotationKeys.IGNORE_IF_NULL) != null) && (item == null))) {
+      final CellAnnotation p = getAnnotation(key);
+      if ((p.get(AnnotationKeys.IGNORE) != null)
+          || ((p.get(AnnotationKeys.IGNORE_IF_NULL) != null) && (item == null))) {
         continue; // skip this item
       } else {
         final String mapKey = key.substring(prefix.length()); // strip prefix to get just the part
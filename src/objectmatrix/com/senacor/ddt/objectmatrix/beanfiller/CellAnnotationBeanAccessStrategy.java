@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.beanfiller;
+
+import com.senacor.ddt.objectmatrix.CellAnnotation;
+
+/**
+ * A {@link BeanAccessStrategy} that takes annotations as {@link CellAnnotation}s. {@link BeanFiller} calls these
+ * methods instead of the Properties based ones, which saves converting the annotations of every cell. Strategies that
+ * only implement {@link BeanAccessStrategy} keep working unchanged.
+ * 
+ * @version $Id$
+ * @see AbstractCellAnnotationBeanAccessStrategy
+ */
+public interface CellAnnotationBeanAccessStrategy extends BeanAccessStrategy {
+  /**
+   * @see BeanAccessStrategy#getPropertyType(Object, String, java.util.Properties)
+   */
+  Class getPropertyType(Object bean, String propertyName, CellAnnotation annotation) throws PropertyNotFoundException,
+      PropertyAccessException;
+  
+  /**
+   * @see BeanAccessStrategy#writeProperty(Object, String, Object, java.util.Properties)
+   */
+  Object writeProperty(Object bean, String propertyName, Object propertyValue, CellAnnotation annotations)
+      throws PropertyNotFoundException, PropertyAccessException;
+  
+  /**
+   * @see BeanAccessStrategy#instantiateAndSet(Object, String, Class, java.util.Properties)
+   */
+  Object instantiateAndSet(Object bean, String propertyName, Class typeToInstantiate, CellAnnotation annotations)
+      throws PropertyNotFoundException, PropertyAccessException;
+  
+  /**
+   * @see BeanAccessStrategy#readProperty(Object, String, java.util.Properties)
+   */
+  Object readProperty(Object bean, String propertyName, CellAnnotation annotations) throws PropertyNotFoundException,
+      PropertyAccessException;
+  
+  /**
+   * @see BeanAccessStrategy#createHolder(Object, java.util.Properties)
+   */
+  ObjectHolder createHolder(Object bean, CellAnnotation annotation);
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.beanfiller;
+
+import java.util.Properties;
+
+import com.senacor.ddt.objectmatrix.CellAnnotation;
+import com.senacor.ddt.typetransformer.Transformer;
+
+/**
+ * Lets {@link BeanFiller} use a strategy that only implements the Properties based {@link BeanAccessStrategy}. The
+ * annotations are passed on as {@link CellAnnotation#toProperties()}.
+ * 
+ * @version $Id$
+ */
+final class PropertiesBeanAccessStrategyAdapter implements CellAnnotationBeanAccessStrategy {
+  private final BeanAccessStrategy strategy;
+  
+  private PropertiesBeanAccessStrategyAdapter(final BeanAccessStrategy strategy) {
+    this.strategy = strategy;
+  }
+  
+  /**
+   * @param strategy
+   *          Any strategy. Must not be null.
+   * @return the strategy itself if it takes {@link CellAnnotation}s, an adapter otherwise
+   */
+  static CellAnnotationBeanAccessStrategy adapt(final BeanAccessStrategy strategy) {
+    if (strategy instanceof CellAnnotationBeanAccessStrategy) {
+      return (CellAnnotationBeanAccessStrategy) strategy;
+    }
+    return new PropertiesBeanAccessStrategyAdapter(strategy);
+  }
+  
+  public Class getPropertyType(final Object bean, final String propertyName, final CellAnnotation annotation)
+      throws PropertyNotFoundException, PropertyAccessException {
+    return this.strategy.getPropertyType(bean, propertyName, annotation.toProperties());
+  }
+  
+  public Class getPropertyType(final Object bean, final String propertyName, final Properties annotation)
+      throws PropertyNotFoundException, PropertyAccessException {
+    return this.strategy.getPropertyType(bean, propertyName, annotation);
+  }
+  
+  public Object writeProperty(final Object bean, final String propertyName, final Object propertyValue,
+      final CellAnnotation annotations) throws PropertyNotFoundException, PropertyAccessException {
+    return this.strategy.writeProperty(bean, propertyName, propertyValue, annotations.toProperties());
+  }
+  
+  public Object writeProperty(final Object bean, final String propertyName, final Object propertyValue,
+      final Properties annotations) throws PropertyNotFoundException, PropertyAccessException {
+    return this.strategy.writeProperty(bean, propertyName, propertyValue, annotations);
+  }
+  
+  public Object instantiateAndSet(final Object bean, final String propertyName, final Class typeToInstantiate,
+      final CellAnnotation annotations) throws PropertyNotFoundException, PropertyAccessException {
+    return this.strategy.instantiateAndSet(bean, propertyName, typeToInstantiate, annotations.toProperties());
+  }
+  
+  public Object instantiateAndSet(final Object bean, final String propertyName, final Class typeToInstantiate,
+      final Properties annotations) throws PropertyNotFoundException, PropertyAccessException {
+    return this.strategy.instantiateAndSet(bean, propertyName, typeToInstantiate, annotations);
+  }
+  
+  public Object readProperty(final Object bean, final String propertyName, final CellAnnotation annotations)
+      throws PropertyNotFoundException, PropertyAccessException {
+    return this.strategy.readProperty(bean, propertyName, annotations.toProperties());
+  }
+  
+  public Object readProperty(final Object bean, final String propertyName, final Properties annotations)
+      throws PropertyNotFoundException, PropertyAccessException {
+    return this.strategy.readProperty(bean, propertyName, annotations);
+  }
+  
+  public ObjectHolder createHolder(final Object bean, final CellAnnotation annotation) {
+    return this.strategy.createHolder(bean, annotation.toProperties());
+  }
+  
+  public ObjectHolder createHolder(final Object bean, final Properties annotation) {
+    return this.strategy.createHolder(bean, annotation);
+  }
+  
+  public void setTransformer(final Transformer transformer) {
+    this.strategy.setTransformer(transformer);
+  }
+  
+  public boolean doesObjectImplement(final Class typeToImplement, final Object objectToCheck) {
+    return this.strategy.doesObjectImplement(typeToImplement, objectToCheck);
+  }
+  
+  public Object instantiate(final Class type) {
+    return this.strategy.instantiate(type);
+  }
+  
+  public Class getConcreteType(final Class type) {
+    return this.strategy.getConcreteType(type);
+  }
+}
@@ -30,8 +30,8 @@
  */
 package com.senacor.ddt.objectmatrix.beanfiller.strategy.propertyutils;
 
-import java.util.Properties;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
 import com.senacor.ddt.objectmatrix.beanfiller.BadIndexException;
 import com.senacor.ddt.typetransformer.Transformer;
 
@@ -50,7 +50,7 @@ public abstract class AbstractIndexedPropertyWrapper extends AbstractMultiValued
     super(transformer);
   }
   
-  public AbstractIndexedPropertyWrapper(final Transformer transformer, final Properties annotation) {
+  public AbstractIndexedPropertyWrapper(final Transformer transformer, final CellAnnotation annotation) {
     super(transformer, annotation);
   }
   
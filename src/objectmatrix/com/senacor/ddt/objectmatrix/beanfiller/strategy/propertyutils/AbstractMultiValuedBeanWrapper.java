@@ -30,8 +30,8 @@
  */
 package com.senacor.ddt.objectmatrix.beanfiller.strategy.propertyutils;
 
-import java.util.Properties;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
 import com.senacor.ddt.objectmatrix.beanfiller.BeanFiller;
 import com.senacor.ddt.typetransformer.NoSuccessfulTransformerException;
 import com.senacor.ddt.typetransformer.Transformer;
@@ -50,15 +50,15 @@ public abstract class AbstractMultiValuedBeanWrapper implements BeanWrapper {
     this.transformer = transformer;
   }
   
-  protected AbstractMultiValuedBeanWrapper(final Transformer transformer, final Properties annotation) {
+  protected AbstractMultiValuedBeanWrapper(final Transformer transformer, final CellAnnotation annotation) {
     this(transformer);
     parseElementTypeFromAnnotation(annotation);
   }
   
   private Class elementType;
   
-  protected void parseElementTypeFromAnnotation(final Properties annotation) {
-    final String elementTypeHint = annotation.getProperty(BeanFiller.AnnotationKeys.ELEMENT_TYPE);
+  protected void parseElementTypeFromAnnotation(final CellAnnotation annotation) {
+    final String elementTypeHint = annotation.get(BeanFiller.AnnotationKeys.ELEMENT_TYPE);
     setElementTypeFromString(elementTypeHint);
   }
   
@@ -85,13 +85,13 @@ public abstract class AbstractMultiValuedBeanWrapper implements BeanWrapper {
     return this.elementType;
   }
   
-  public Class getPropertyType(final String propertyName, final Properties annotations) {
+  public Class getPropertyType(final String propertyName, final CellAnnotation annotations) {
     final Object value = read(propertyName);
     if (value != null) {
       return value.getClass();
-    } else if (annotations.containsKey(BeanFiller.AnnotationKeys.TYPE_HINT)) {
+    } else if (annotations.has(BeanFiller.AnnotationKeys.TYPE_HINT)) {
       try {
-        return (Class) this.transformer.transform(annotations.getProperty(BeanFiller.AnnotationKeys.TYPE_HINT),
+        return (Class) this.transformer.transform(annotations.get(BeanFiller.AnnotationKeys.TYPE_HINT),
             Class.class);
       } catch (final NoSuccessfulTransformerException e) {
         throw new TypeDiscoveryFailedException(e);
@@ -102,7 +102,7 @@ public abstract class AbstractMultiValuedBeanWrapper implements BeanWrapper {
   }
   
   public Class resolveTypeForInstantiation(final String propertyName, final Class typeToInstantiate,
-      final Properties annotation) {
+      final CellAnnotation annotation) {
     if (typeToInstantiate == null) {
       return this.elementType;
     } else if (this.elementType.isAssignableFrom(typeToInstantiate)) {
@@ -31,8 +31,8 @@
 package com.senacor.ddt.objectmatrix.beanfiller.strategy.propertyutils;
 
 import java.lang.reflect.Array;
-import java.util.Properties;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
 import com.senacor.ddt.objectmatrix.beanfiller.BeanAccessStrategy;
 import com.senacor.ddt.typetransformer.Transformer;
 import com.senacor.ddt.util.ParamChecker;
@@ -77,7 +77,7 @@ public class ArrayWrapper extends AbstractIndexedPropertyWrapper {
    */
   public ArrayWrapper(final Class type, final Object object, final int minimumSize, final Object parentBean,
       final String propertyNameInParent, final BeanAccessStrategy accessor, final Transformer transformer,
-      final Properties annotation) {
+      final CellAnnotation annotation) {
     super(transformer, annotation);
     ParamChecker.notNull("type", type);
     ParamChecker.require("Type must be an array!", type.isArray());
@@ -117,7 +117,8 @@ public class ArrayWrapper extends AbstractIndexedPropertyWrapper {
         System.arraycopy(oldArray, 0, this.array, 0, Array.getLength(oldArray));
       }
       if (this.parentBean != this) {
-        this.accessor.writeProperty(this.parentBean, this.propertyNameInParent, this.array, new Properties());
+        this.accessor.writeProperty(this.parentBean, this.propertyNameInParent, this.array,
+            CellAnnotation.EMPTY.toProperties());
       }
     }
   }
@@ -164,18 +165,18 @@ public class ArrayWrapper extends AbstractIndexedPropertyWrapper {
    * Return the type of the named property. This will always be the array's component type.
    * 
    * @see com.senacor.ddt.objectmatrix.beanfiller.strategy.propertyutils.AbstractMultiValuedBeanWrapper#getPropertyType(java.lang.String,
-   *      java.util.Properties)
+   *      com.senacor.ddt.objectmatrix.CellAnnotation)
    * @param propertyName
    *          Property name. Not blank.
    * @param annotations
    *          Any available annotations.
    */
-  public Class getPropertyType(final String propertyName, final Properties annotations) {
+  public Class getPropertyType(final String propertyName, final CellAnnotation annotations) {
     return this.componentType;
   }
   
   public Class resolveTypeForInstantiation(final String propertyName, final Class typeToInstantiate,
-      final Properties annotation) {
+      final CellAnnotation annotation) {
     if (typeToInstantiate == null) {
       return getElementType();
     } else if (this.componentType.isAssignableFrom(typeToInstantiate)) {
@@ -184,4 +185,4 @@ public class ArrayWrapper extends AbstractIndexedPropertyWrapper {
       throw new TypeMismatchException(this.componentType, typeToInstantiate);
     }
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -30,8 +30,8 @@
  */
 package com.senacor.ddt.objectmatrix.beanfiller.strategy.propertyutils;
 
-import java.util.Properties;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
 import com.senacor.ddt.objectmatrix.beanfiller.BeanAccessStrategy;
 
 public interface BeanWrapper extends BeanAccessStrategy.ObjectHolder {
@@ -40,7 +40,7 @@ public interface BeanWrapper extends BeanAccessStrategy.ObjectHolder {
   
   Object read(String propertyName);
   
-  Class getPropertyType(String propertyName, Properties annotation);
+  Class getPropertyType(String propertyName, CellAnnotation annotation);
   
-  Class resolveTypeForInstantiation(String propertyName, Class typeToInstantiate, Properties annotation);
-}
\ No newline at end of file
+  Class resolveTypeForInstantiation(String propertyName, Class typeToInstantiate, CellAnnotation annotation);
+}
\ No newline at end of file
@@ -33,8 +33,8 @@ package com.senacor.ddt.objectmatrix.beanfiller.strategy.propertyutils;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Properties;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
 import com.senacor.ddt.typetransformer.Transformer;
 import com.senacor.ddt.util.ParamChecker;
 
@@ -44,7 +44,7 @@ public class CollectionWrapper extends AbstractMultiValuedBeanWrapper implements
   
   private final Map backingMap = new HashMap();
   
-  public CollectionWrapper(final Class type, final Object object, final Properties annotation,
+  public CollectionWrapper(final Class type, final Object object, final CellAnnotation annotation,
       final Transformer transformer) throws InstantiationException, IllegalAccessException, ClassNotFoundException {
     super(transformer);
     ParamChecker.notNull("type", type);
@@ -89,4 +89,4 @@ public class CollectionWrapper extends AbstractMultiValuedBeanWrapper implements
     return !wantedType.isPrimitive();
   }
   
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -43,21 +43,21 @@ import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
+import com.senacor.ddt.objectmatrix.beanfiller.AbstractCellAnnotationBeanAccessStrategy;
 import com.senacor.ddt.objectmatrix.beanfiller.BadIndexException;
-import com.senacor.ddt.objectmatrix.beanfiller.BeanAccessStrategy;
 import com.senacor.ddt.objectmatrix.beanfiller.BeanFiller;
 import com.senacor.ddt.objectmatrix.beanfiller.NoConcreteClassException;
 import com.senacor.ddt.objectmatrix.beanfiller.PropertyAccessException;
 import com.senacor.ddt.typetransformer.Transformer;
 import com.senacor.ddt.util.ParamChecker;
 
-public class JavaBeanAccessStrategy implements BeanAccessStrategy {
+public class JavaBeanAccessStrategy extends AbstractCellAnnotationBeanAccessStrategy {
   private static final Log log = LogFactory.getLog(JavaBeanAccessStrategy.class);
   
   private Transformer transformer;
@@ -68,13 +68,13 @@ public class JavaBeanAccessStrategy implements BeanAccessStrategy {
     // nothing to be done
   }
   
-  public Class getPropertyType(final Object rawBean, final String propertyName, final Properties annotation) {
+  public Class getPropertyType(final Object rawBean, final String propertyName, final CellAnnotation annotation) {
     final BeanWrapper bean = wrap(rawBean, annotation);
     
     return bean.getPropertyType(propertyName, annotation);
   }
   
-  private BeanWrapper wrap(final Object rawBean, final Properties annotation) {
+  private BeanWrapper wrap(final Object rawBean, final CellAnnotation annotation) {
     if (this.wrappedObjects.containsKey(rawBean)) {
       return (BeanWrapper) this.wrappedObjects.get(rawBean);
     } else if (rawBean instanceof BeanWrapper) {
@@ -88,7 +88,7 @@ public class JavaBeanAccessStrategy implements BeanAccessStrategy {
   }
   
   public Object instantiateAndSet(final Object rawBean, final String propertyName, final Class typeToInstantiate,
-      final Properties annotation) {
+      final CellAnnotation annotation) {
     final BeanWrapper bean = wrap(rawBean, annotation);
     try {
       Class type = bean.resolveTypeForInstantiation(propertyName, typeToInstantiate, annotation);
@@ -122,7 +122,7 @@ public class JavaBeanAccessStrategy implements BeanAccessStrategy {
   }
   
   private BeanWrapper createWrapper(final Class type, final Object toBeWrapped, final Object parentBean,
-      final String propertyNameInParent, final Properties annotation) {
+      final String propertyNameInParent, final CellAnnotation annotation) {
     final BeanWrapper wrapper;
     try {
       if (Map.class.isAssignableFrom(type)) {
@@ -152,9 +152,9 @@ public class JavaBeanAccessStrategy implements BeanAccessStrategy {
     return wrapper;
   }
   
-  private int parseMinimumSizeForIndexedProperty(final Properties annotations) {
+  private int parseMinimumSizeForIndexedProperty(final CellAnnotation annotations) {
     try {
-      return Integer.parseInt(annotations.getProperty(BeanFiller.AnnotationKeys.LENGTH, "0"));
+      return Integer.parseInt(annotations.get(BeanFiller.AnnotationKeys.LENGTH, "0"));
     } catch (final NumberFormatException e) {
       throw new BadIndexException("can't parse index", e);
     }
@@ -185,7 +185,7 @@ public class JavaBeanAccessStrategy implements BeanAccessStrategy {
   }
   
   public Object writeProperty(final Object rawBean, final String propertyName, final Object propertyValue,
-      final Properties annotation) {
+      final CellAnnotation annotation) {
     final BeanWrapper bean = wrap(rawBean, annotation);
     final Object actualPropertyValue;
     {
@@ -204,7 +204,7 @@ public class JavaBeanAccessStrategy implements BeanAccessStrategy {
     return propertyValue;
   }
   
-  public Object readProperty(final Object rawBean, final String propertyName, final Properties annotation) {
+  public Object readProperty(final Object rawBean, final String propertyName, final CellAnnotation annotation) {
     final BeanWrapper bean = wrap(rawBean, annotation);
     try {
       final Object property = (bean).read(propertyName);
@@ -233,7 +233,7 @@ public class JavaBeanAccessStrategy implements BeanAccessStrategy {
     this.transformer = transformer;
   }
   
-  public ObjectHolder createHolder(final Object bean, final Properties annotation) {
+  public ObjectHolder createHolder(final Object bean, final CellAnnotation annotation) {
     if (mustBeWrapped(bean.getClass())) {
       return createWrapper(bean.getClass(), bean, null, null, annotation);
     } else {
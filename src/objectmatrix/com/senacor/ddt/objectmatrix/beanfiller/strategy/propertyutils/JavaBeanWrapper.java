@@ -32,10 +32,10 @@ package com.senacor.ddt.objectmatrix.beanfiller.strategy.propertyutils;
 
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
-import java.util.Properties;
 
 import org.apache.commons.beanutils.PropertyUtils;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
 import com.senacor.ddt.objectmatrix.beanfiller.NoSuchPropertyException;
 import com.senacor.ddt.objectmatrix.beanfiller.PropertyAccessException;
 import com.senacor.ddt.objectmatrix.beanfiller.PropertyNotFoundException;
@@ -51,7 +51,7 @@ public class JavaBeanWrapper implements BeanWrapper {
     this.bean = wrapped;
   }
   
-  public Class getPropertyType(final String propertyName, final Properties annotation) {
+  public Class getPropertyType(final String propertyName, final CellAnnotation annotation) {
     PropertyDescriptor pd;
     try {
       pd = PropertyUtils.getPropertyDescriptor(this.bean, propertyName);
@@ -143,7 +143,7 @@ public class JavaBeanWrapper implements BeanWrapper {
   }
   
   public Class resolveTypeForInstantiation(final String propertyName, final Class typeToInstantiate,
-      final Properties annotation) {
+      final CellAnnotation annotation) {
     final Class propertyType = getPropertyType(propertyName, null);
     if (typeToInstantiate == null) {
       return propertyType;
@@ -33,8 +33,8 @@ package com.senacor.ddt.objectmatrix.beanfiller.strategy.propertyutils;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Properties;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
 import com.senacor.ddt.typetransformer.Transformer;
 import com.senacor.ddt.util.ParamChecker;
 
@@ -70,7 +70,7 @@ public class ListWrapper extends AbstractIndexedPropertyWrapper implements BeanW
    * @throws ClassNotFoundException
    *           If the element-type defined by the annotation is not available.
    */
-  public ListWrapper(final Class type, final Object object, final int minimumSize, final Properties annotation,
+  public ListWrapper(final Class type, final Object object, final int minimumSize, final CellAnnotation annotation,
       final Transformer transformer) throws InstantiationException, IllegalAccessException, ClassNotFoundException {
     super(transformer);
     ParamChecker.notNull("type", type);
@@ -120,4 +120,4 @@ public class ListWrapper extends AbstractIndexedPropertyWrapper implements BeanW
   public Object getWrapped() {
     return this.list;
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -33,8 +33,8 @@ package com.senacor.ddt.objectmatrix.beanfiller.strategy.propertyutils;
 import java.lang.reflect.Modifier;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Properties;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
 import com.senacor.ddt.objectmatrix.beanfiller.BeanFiller;
 import com.senacor.ddt.typetransformer.Transformer;
 import com.senacor.ddt.util.ParamChecker;
@@ -47,8 +47,8 @@ public class MapWrapper extends AbstractMultiValuedBeanWrapper implements BeanWr
   
   private final Transformer transformer;
   
-  public MapWrapper(final Class type, final Object object, final Properties annotation, final Transformer transformer)
-      throws InstantiationException, IllegalAccessException, ClassNotFoundException {
+  public MapWrapper(final Class type, final Object object, final CellAnnotation annotation,
+      final Transformer transformer) throws InstantiationException, IllegalAccessException, ClassNotFoundException {
     super(transformer);
     ParamChecker.notNull("type", type);
     ParamChecker.notNull("transformer", transformer);
@@ -70,8 +70,8 @@ public class MapWrapper extends AbstractMultiValuedBeanWrapper implements BeanWr
     parseElementTypeFromAnnotation(annotation);
   }
   
-  protected void parseElementTypeFromAnnotation(final Properties annotation) {
-    final String elementTypeHint = annotation.getProperty(BeanFiller.AnnotationKeys.ELEMENT_TYPE);
+  protected void parseElementTypeFromAnnotation(final CellAnnotation annotation) {
+    final String elementTypeHint = annotation.get(BeanFiller.AnnotationKeys.ELEMENT_TYPE);
     if (elementTypeHint == null) {
       setElementTypeFromString(null); // defaults to object
       this.keyType = String.class; // our keys are strings by default
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.beanfiller.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.senacor.ddt.objectmatrix.csv.CsvStringMatrixReader;
+import com.senacor.ddt.objectmatrix.csv.CsvStringMatrixWriter;
+import com.senacor.ddt.objectmatrix.writeable.MatrixWriteFailedException;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * A DumpSink that writes the entries straight to a CSV file with a single data column, which can be read by
+ * {@link CsvStringMatrixReader}. The first line holds the column name, every further line the key and value of one
+ * entry. Nothing is kept in memory, so the writer should be buffered.
+ * 
+ * @version $Id$
+ */
+public class CsvDumpSink implements DumpSink {
+  private static final char LINE_SEPARATOR = '\n';
+  
+  private final Writer writer;
+  
+  private final char delimiter;
+  
+  private final String colName;
+  
+  private int entries = 0;
+  
+  private boolean headerWritten = false;
+  
+  /**
+   * @param writer
+   *          The writer to write to. Must not be null. It is not closed by this sink.
+   * @param delimiter
+   *          The delimiter separating the fields of a line. Must not be blank.
+   * @param colName
+   *          The name of the data column. Must not be blank.
+   */
+  public CsvDumpSink(final Writer writer, final char delimiter, final String colName) {
+    ParamChecker.notNull("writer", writer);
+    ParamChecker.notBlank("delimiter", delimiter);
+    ParamChecker.notBlank("colName", colName);
+    this.writer = writer;
+    this.delimiter = delimiter;
+    this.colName = colName;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.beanfiller.util.DumpSink#entry(java.lang.String, java.lang.String,
+   *      java.lang.String)
+   */
+  public void entry(final String path, final String value, final String annotation) {
+    try {
+      writeHeader();
+      writeLine(ObjectGraphDumper.toKey(path, annotation), value);
+      this.entries++;
+    } catch (final IOException e) {
+      throw new MatrixWriteFailedException("Failed to write entry " + path, e);
+    }
+  }
+  
+  /**
+   * Write the header line if no entry has been written yet, and flush the writer.
+   * 
+   * @throws MatrixWriteFailedException
+   *           if the writer fails
+   */
+  public void flush() throws MatrixWriteFailedException {
+    try {
+      writeHeader();
+      this.writer.flush();
+    } catch (final IOException e) {
+      throw new MatrixWriteFailedException("Failed to flush column " + this.colName, e);
+    }
+  }
+  
+  /**
+   * @return the number of entries written so far
+   */
+  public int getNumberOfEntries() {
+    return this.entries;
+  }
+  
+  private void writeHeader() throws IOException {
+    if (!this.headerWritten) {
+      writeLine("", this.colName);
+      this.headerWritten = true;
+    }
+  }
+  
+  private void writeLine(final String key, final String value) throws IOException {
+    this.writer.write(CsvStringMatrixWriter.formatField(key, this.delimiter));
+    this.writer.write(this.delimiter);
+    this.writer.write(CsvStringMatrixWriter.formatField(value, this.delimiter));
+    this.writer.write(LINE_SEPARATOR);
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.beanfiller.util;
+
+import com.senacor.ddt.objectmatrix.writeable.WriteableStringMatrix;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * A DumpSink that writes each entry into one column of a {@link WriteableStringMatrix}, using the key of the entry as
+ * row name. Several objects can be dumped into the same matrix side by side, e.g. one per test case.
+ * 
+ * @version $Id$
+ */
+public class MatrixDumpSink implements DumpSink {
+  private final WriteableStringMatrix matrix;
+  
+  private final String colName;
+  
+  /**
+   * @param matrix
+   *          The matrix to write to. Must not be null.
+   * @param colName
+   *          The name of the column the entries are written to. Must not be blank.
+   */
+  public MatrixDumpSink(final WriteableStringMatrix matrix, final String colName) {
+    ParamChecker.notNull("matrix", matrix);
+    ParamChecker.notBlank("colName", colName);
+    this.matrix = matrix;
+    this.colName = colName;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.beanfiller.util.DumpSink#entry(java.lang.String, java.lang.String,
+   *      java.lang.String)
+   */
+  public void entry(final String path, final String value, final String annotation) {
+    this.matrix.setString(this.colName, ObjectGraphDumper.toKey(path, annotation), value);
+  }
+}
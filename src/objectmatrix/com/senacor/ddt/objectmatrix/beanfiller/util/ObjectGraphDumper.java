@@ -58,6 +58,13 @@ import com.senacor.ddt.util.ParamChecker;
  * Utility class to generate Properties out of a given object graph without too much handwriting. The properties are
  * built such that they can be written to a properties file that can be read by {@link PropertyFileStringMatrixReader}
  * or used as the basis for creating other kinds of ObjectMatrix inputs, like CSV files or Excel sheets.
+ * <p>
+ * For large graphs, {@link #dump(Object, String, DumpSink)} streams the entries into a {@link DumpSink} instead of
+ * collecting them, e.g. directly into a CSV file using {@link CsvDumpSink}.
+ * <p>
+ * Subclasses customize the dump by overriding the <code>dump...Into</code> methods, which are used for all sinks. The
+ * older Properties based <code>dump...</code> methods are still called when dumping into Properties, so existing
+ * overrides keep working there.
  * 
  * @author Carl-Eric Menzel
  * @version $Id$
@@ -65,6 +72,17 @@ import com.senacor.ddt.util.ParamChecker;
 public class ObjectGraphDumper {
   private static final Log log = LogFactory.getLog(ObjectGraphDumper.class);
   
+  /**
+   * Annotation declaring the actual type of a bean, whose value is taken from the field.
+   */
+  private static final String TYPE_ANNOTATION =
+      BeanFiller.AnnotationKeys.TYPE_HINT + EmbeddedAnnotationMatrixDecorator.ANNOTATION_KEYVALUE_SEPARATOR;
+  
+  /**
+   * Value written for null beans.
+   */
+  private static final String NULL_VALUE = EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK + "null";
+  
   private Transformer localTransformer = Transformer.get();
   
   private final Set filters = new HashSet();
@@ -116,77 +134,165 @@ public class ObjectGraphDumper {
    * @return The properties object given as parameter <code>result</code>, now containing a useful dump of the bean.
    */
   public Properties dump(final Object bean, final String beanName, final Properties result) {
-    ParamChecker.notNull("beanName", beanName);
     ParamChecker.notNull("result", result);
+    dump(bean, beanName, new PropertiesResult(result));
+    return result;
+  }
+  
+  /**
+   * Dump the given bean into the given sink, using the given bean name as a key prefix. The entries are passed to the
+   * sink one at a time while the object graph is traversed, nothing is collected here. Apart from the sink, memory use
+   * only depends on the depth of the graph, not on its size.
+   * 
+   * @param bean
+   *          The bean to be dumped. May be null.
+   * @param beanName
+   *          The prefix to use. Must not be null but may be blank.
+   * @param sink
+   *          The sink receiving the entries. Must not be null.
+   */
+  public void dump(final Object bean, final String beanName, final DumpSink sink) {
+    ParamChecker.notNull("beanName", beanName);
+    ParamChecker.notNull("sink", sink);
     // output type of root bean (i.e. the one without . or [ in its name. we can't compare the root
     // bean's type to any field type
     // so to be safe we always print its type
     if ((bean != null) && (beanName.indexOf('.') == -1) && (beanName.indexOf('[') == -1)) {
-      result.setProperty(beanName + "~type=", bean.getClass().getName());
+      sink.entry(beanName, bean.getClass().getName(), TYPE_ANNOTATION);
     }
     // only dump this bean if it is not filtered
     if (!matchesFilter(beanName)) {
+      // dumping into Properties goes through the Properties based methods, which subclasses may override
+      final Properties result = (sink instanceof PropertiesResult) ? ((PropertiesResult) sink).getProperties() : null;
       if (bean == null) {
-        result.setProperty(beanName, "~null");
-      } else if (bean.getClass().isArray()) {
-        dumpCollection(Arrays.asList((Object[]) bean), beanName, result);
-      } else if (bean instanceof Collection) {
-        dumpCollection((Collection) bean, beanName, result);
+        sink.entry(beanName, NULL_VALUE, null);
+      } else if (bean.getClass().isArray() || (bean instanceof Collection)) {
+        final Collection collection =
+            bean.getClass().isArray() ? Arrays.asList((Object[]) bean) : (Collection) bean;
+        if (result != null) {
+          dumpCollection(collection, beanName, result);
+        } else {
+          dumpCollectionInto(collection, beanName, sink);
+        }
       } else if (bean instanceof Map) {
-        dumpMap((Map) bean, beanName, result);
+        if (result != null) {
+          dumpMap((Map) bean, beanName, result);
+        } else {
+          dumpMapInto((Map) bean, beanName, sink);
+        }
       } else if (isLeaf(bean.getClass())) {
-        dumpLeaf(bean, beanName, result);
+        if (result != null) {
+          dumpLeaf(bean, beanName, result);
+        } else {
+          dumpLeafInto(bean, beanName, sink);
+        }
       } else {
-        dumpBean(bean, beanName, result);
+        if (result != null) {
+          dumpBean(bean, beanName, result);
+        } else {
+          dumpBeanInto(bean, beanName, sink);
+        }
       }
     }
-    return result;
+  }
+  
+  /**
+   * Dump a part of the graph below the current bean. When dumping into Properties, this goes through
+   * {@link #dump(Object, String, Properties)}, so overrides of that method see every bean, as they always did.
+   */
+  private void dumpChild(final Object bean, final String beanName, final DumpSink sink) {
+    if (sink instanceof PropertiesResult) {
+      dump(bean, beanName, ((PropertiesResult) sink).getProperties());
+    } else {
+      dump(bean, beanName, sink);
+    }
+  }
+  
+  /**
+   * Build the key under which an entry appears in a properties file or as a row name, i.e. the path, followed by the
+   * annotation mark and the annotation if there is one.
+   * 
+   * @param path
+   *          The path of the entry. Must not be null.
+   * @param annotation
+   *          The annotation, or null.
+   * @return the key
+   */
+  public static String toKey(final String path, final String annotation) {
+    ParamChecker.notNull("path", path);
+    if (annotation == null) {
+      return path;
+    }
+    return path + EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK + annotation;
   }
   
   private boolean matchesFilter(final String beanName) {
     return this.filters.contains(beanName);
   }
   
+  /**
+   * @deprecated Override {@link #dumpMapInto(Map, String, DumpSink)} instead, which is used for all sinks. This method
+   *             is only called when dumping into Properties.
+   */
   protected void dumpMap(final Map map, final String beanName, final Properties result) {
+    dumpMapInto(map, beanName, new PropertiesResult(result));
+  }
+  
+  /**
+   * @deprecated Override {@link #dumpCollectionInto(Collection, String, DumpSink)} instead, which is used for all
+   *             sinks. This method is only called when dumping into Properties.
+   */
+  protected void dumpCollection(final Collection collection, final String beanName, final Properties result) {
+    dumpCollectionInto(collection, beanName, new PropertiesResult(result));
+  }
+  
+  /**
+   * @deprecated Override {@link #dumpBeanInto(Object, String, DumpSink)} instead, which is used for all sinks. This
+   *             method is only called when dumping into Properties.
+   */
+  protected void dumpBean(final Object bean, final String beanName, final Properties result) {
+    dumpBeanInto(bean, beanName, new PropertiesResult(result));
+  }
+  
+  /**
+   * @deprecated Override {@link #dumpLeafInto(Object, String, DumpSink)} instead, which is used for all sinks. This
+   *             method is only called when dumping into Properties.
+   */
+  protected void dumpLeaf(final Object leaf, final String leafName, final Properties result) {
+    dumpLeafInto(leaf, leafName, new PropertiesResult(result));
+  }
+  
+  protected void dumpMapInto(final Map map, final String beanName, final DumpSink sink) {
     // TODO cmenzel Auto-generated method stub
     //
     throw new UnsupportedOperationException("Maps are not supported yet");
   }
   
-  protected void dumpCollection(final Collection collection, final String beanName, final Properties result) {
+  protected void dumpCollectionInto(final Collection collection, final String beanName, final DumpSink sink) {
     if (!collection.isEmpty()) {
-      final Iterator iter = collection.iterator();
-      final List elementTypes = new ArrayList(collection.size());
+      // look at the element types first, so the type hints can be emitted without remembering all of them
+      Iterator iter = collection.iterator();
+      final Class firstType = iter.next().getClass();
       boolean allEqualTypes = true;
+      while (allEqualTypes && iter.hasNext()) {
+        allEqualTypes = iter.next().getClass().equals(firstType);
+      }
+      if (allEqualTypes) {
+        sink.entry(beanName, firstType.getName(), BeanFiller.AnnotationKeys.ELEMENT_TYPE);
+      }
+      iter = collection.iterator();
       for (int i = 0; iter.hasNext(); i++) {
         final String indexedBeanName = beanName + "[" + i + "]";
         final Object indexedBean = iter.next();
-        final Class indexedBeanType = indexedBean.getClass();
-        if (!elementTypes.contains(indexedBeanType) && (elementTypes.size() > 0)) {
-          allEqualTypes = false;
-        }
-        elementTypes.add(indexedBeanType);
-        dump(indexedBean, indexedBeanName, result);
-      }
-      if (allEqualTypes) {
-        final String elementTypeHint =
-            beanName + EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK + BeanFiller.AnnotationKeys.ELEMENT_TYPE;
-        final String elementTypeHintValue = ((Class) elementTypes.get(0)).getName();
-        result.setProperty(elementTypeHint, elementTypeHintValue);
-      } else {
-        for (int i = 0; i < elementTypes.size(); i++) {
-          final Class elementType = (Class) elementTypes.get(i);
-          final String elementTypeHint =
-              beanName + "[" + i + "]" + EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK
-                  + BeanFiller.AnnotationKeys.TYPE_HINT;
-          final String elementTypeHintValue = elementType.getName();
-          result.setProperty(elementTypeHint, elementTypeHintValue);
+        if (!allEqualTypes) {
+          sink.entry(indexedBeanName, indexedBean.getClass().getName(), BeanFiller.AnnotationKeys.TYPE_HINT);
         }
+        dumpChild(indexedBean, indexedBeanName, sink);
       }
     }
   }
   
-  protected void dumpBean(final Object bean, final String beanName, final Properties result) {
+  protected void dumpBeanInto(final Object bean, final String beanName, final DumpSink sink) {
     log.debug("dumpBean: " + beanName);
     final PropertyDescriptor[] descriptors = PropertyUtils.getPropertyDescriptors(bean.getClass());
     for (int i = 0; i < descriptors.length; i++) {
@@ -197,26 +303,27 @@ public class ObjectGraphDumper {
       if ((descriptor.getReadMethod() != null) && (descriptor.getWriteMethod() != null)) {
         final String propertyName = descriptor.getName();
         final String qualifiedPropertyName = beanName + "." + propertyName;
+        final Object propertyValue;
         try {
-          final Object propertyValue = PropertyUtils.getProperty(bean, propertyName);
-          if ((propertyValue != null) && !propertyValue.getClass().equals(descriptor.getPropertyType())
-              && !descriptor.getPropertyType().isPrimitive()) {
-            result.setProperty(qualifiedPropertyName + "~type=", propertyValue.getClass().getName());
-          }
-          dump(propertyValue, qualifiedPropertyName, result);
+          propertyValue = PropertyUtils.getProperty(bean, propertyName);
         } catch (final Exception e) {
           throw new RuntimeException("error attempting to read property " + qualifiedPropertyName + "!", e);
         }
+        if ((propertyValue != null) && !propertyValue.getClass().equals(descriptor.getPropertyType())
+            && !descriptor.getPropertyType().isPrimitive()) {
+          sink.entry(qualifiedPropertyName, propertyValue.getClass().getName(), TYPE_ANNOTATION);
+        }
+        dumpChild(propertyValue, qualifiedPropertyName, sink);
       }
     }
   }
   
-  protected void dumpLeaf(final Object leaf, final String leafName, final Properties result) {
+  protected void dumpLeafInto(final Object leaf, final String leafName, final DumpSink sink) {
     String propertyAsString = toString(leaf);
     if (propertyAsString == null) {
       propertyAsString = "";
     }
-    result.setProperty(leafName, propertyAsString);
+    sink.entry(leafName, propertyAsString, null);
   }
   
   protected final boolean isLeaf(final Class propertyType) {
@@ -312,4 +419,14 @@ public class ObjectGraphDumper {
     ParamChecker.notNull("localTransformer", localTransformer);
     this.localTransformer = localTransformer;
   }
+  
+  /**
+   * Marks the sink used by {@link ObjectGraphDumper#dump(Object, String, Properties)}, so that the Properties based
+   * methods are called while dumping into it.
+   */
+  private static final class PropertiesResult extends PropertiesDumpSink {
+    PropertiesResult(final Properties properties) {
+      super(properties);
+    }
+  }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.beanfiller.util;
+
+import java.util.Properties;
+
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * A DumpSink that puts all entries into a Properties object, as {@link ObjectGraphDumper#dump(Object, String)} always
+ * did. The whole dump is held in memory.
+ * 
+ * @version $Id$
+ */
+public class PropertiesDumpSink implements DumpSink {
+  private final Properties properties;
+  
+  /**
+   * @param properties
+   *          The properties to put the entries into. Must not be null.
+   */
+  public PropertiesDumpSink(final Properties properties) {
+    ParamChecker.notNull("properties", properties);
+    this.properties = properties;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.beanfiller.util.DumpSink#entry(java.lang.String, java.lang.String,
+   *      java.lang.String)
+   */
+  public void entry(final String path, final String value, final String annotation) {
+    this.properties.setProperty(ObjectGraphDumper.toKey(path, annotation), value);
+  }
+  
+  /**
+   * @return the properties given to the constructor
+   */
+  public Properties getProperties() {
+    return this.properties;
+  }
+}
@@ -39,6 +39,7 @@ import com.senacor.ddt.util.ParamChecker;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 
 /**
  * /** An {@link ObjectMatrixFactory} implementation that creates ObjectMatrices based on {@link CsvStringMatrixReader},
@@ -98,7 +99,8 @@ public class CsvObjectMatrixFactory extends AbstractDefaultStringMatrixBasedObje
     try {
       final StringMatrixReader[] readers = new StringMatrixReader[this.csvInput.length];
       for (int i = 0; i < this.csvInput.length; i++) {
-        readers[i] = new CsvStringMatrixReader(this.csvInput[i], this.delimiter, this.identifier[i]);
+        readers[i] =
+            new CsvStringMatrixReader(this.csvInput[i], this.delimiter, this.identifier[i], getColumnProjection());
       }
       
       return readers;
@@ -106,4 +108,11 @@ public class CsvObjectMatrixFactory extends AbstractDefaultStringMatrixBasedObje
       throw new ObjectMatrixCreationFailedException("Error creating CSV ObjectMatrix", e);
     }
   }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory#getCacheKey()
+   */
+  protected String getCacheKey() {
+    return "identifiers=" + Arrays.asList(this.identifier) + ";delimiter=" + this.delimiter;
+  }
 }
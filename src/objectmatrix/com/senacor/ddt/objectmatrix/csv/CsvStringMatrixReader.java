@@ -32,15 +32,17 @@
 package com.senacor.ddt.objectmatrix.csv;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
-import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import au.com.bytecode.opencsv.CSVReader;
-
+import com.senacor.ddt.objectmatrix.ColumnProjection;
 import com.senacor.ddt.objectmatrix.DefaultStringMatrix;
+import com.senacor.ddt.objectmatrix.HeapEstimate;
+import com.senacor.ddt.objectmatrix.HeapEstimating;
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
 import com.senacor.ddt.objectmatrix.StringMatrix;
 import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
 import com.senacor.ddt.util.ParamChecker;
@@ -49,35 +51,34 @@ import com.senacor.ddt.util.ParamChecker;
  * A StringMatrixReader implementation that loads a CSV (Character Separated Value) file into memory and then provides
  * indexed-based access to the contained values. Whitespace surrounding field values is trimmed.
  * <p>
- * The delimiting character separating the values can be specified, even as a Regular Expression (internally
- * {@link String#split(String, int)} is used).
+ * The delimiting character separating the values can be specified. Fields containing the delimiter, quotes or line
+ * breaks must be enclosed in double quotes, with quotes inside them doubled, as written by
+ * {@link CsvStringMatrixWriter}.
+ * <p>
+ * All lines in the CSV file must have the same number of delimiters, i.e. the same number of fields. Empty lines are
+ * kept as empty rows.
+ * <p>
+ * The file can be given as a {@link Reader} or as an {@link InputStream} plus its charset. The latter decodes the
+ * bytes in bulk without going through a Reader, which is noticeably faster for large ISO-8859-1 and UTF-8 files.
  * <p>
- * All lines in the CSV file must have the same number of delimiters, i.e. the same number of fields.
+ * If a {@link ColumnProjection} is given, only the columns it selects are kept after the file has been parsed.
+ * <p>
+ * The parsed cells are kept in a {@link SnapshotStringMatrixReader}, which only stores the non-empty cells of files
+ * that are mostly empty.
  * 
  * @author Carl-Eric Menzel
  * @version $Id$
  */
-public class CsvStringMatrixReader implements StringMatrixReader {
+public class CsvStringMatrixReader implements StringMatrixReader, HeapEstimating {
   private static final Log log = LogFactory.getLog(CsvStringMatrixReader.class);
   
   /**
-   * This array contains the full data of the CSV file that was read in. The first index selects the column, the second
-   * index selects the row.
-   * <p>
-   * This makes filling the array a little awkward when reading the file line by line, but it correctly represents the
-   * natural way to access fields in a matrix and also matches the parameter order of all applicable methods in
-   * StringMatrix and ObjectMatrix.
+   * The data of the CSV file that was read in.
    */
-  private final String[][] data;
-  
-  private final int rows;
-  
-  private final int columns;
+  private final SnapshotStringMatrixReader cells;
   
   private final String identifier;
   
-  private final char delim;
-  
   /**
    * Construct a CsvStringMatrixReader instance, reading the CSV file from the given {@link Reader} and using the given
    * delimiter to split the lines into fields. The entire file will be read into memory by this constructor.
@@ -100,76 +101,149 @@ public class CsvStringMatrixReader implements StringMatrixReader {
    */
   public CsvStringMatrixReader(final Reader input, final char delimiter, final String identifier) throws IOException,
       IllegalArgumentException {
-    ParamChecker.notNull("input", input);
-    ParamChecker.notBlank("delimiter", delimiter);
-    ParamChecker.notNull("identifier", identifier);
-    this.identifier = identifier;
-    this.delim = delimiter;
-    
-    final List lines = readFile(input);
-    this.data = buildArray(lines);
-    this.rows = this.data[0].length;
-    this.columns = this.data.length;
-    if (log.isDebugEnabled()) {
-      log.debug("Loaded CSV file with " + this.rows + " rows and " + this.columns + " columns.");
-    }
+    this(input, delimiter, identifier, null);
   }
   
   /**
-   * Read the entire file line-by-line and return the result as a list.
+   * Construct a CsvStringMatrixReader instance that keeps only the columns selected by the given projection.
    * 
    * @param input
-   *          the file to be read
-   * @return a list of strings representing each line in the file
+   *          A Reader providing the CSV file. Must not be null.
+   * @param delimiter
+   *          The delimiter used to separate the values in each line. Must not be empty.
+   * @param identifier
+   *          An arbitrary identifier for the StringMatrix ({@link StringMatrix#getMatrixIdentifier()}). Must not be
+   *          null.
+   * @param projection
+   *          The columns to keep. If null, all columns are kept.
    * @throws IOException
-   *           if something goes wrong
+   *           If the file cannot be read.
+   * @throws IllegalArgumentException
+   *           If the parameters or the file are invalid, see {@link #CsvStringMatrixReader(Reader, char, String)}
    */
-  private List readFile(final Reader input) throws IOException {
-    return new CSVReader(input, this.delim).readAll();
+  public CsvStringMatrixReader(final Reader input, final char delimiter, final String identifier,
+      final ColumnProjection projection) throws IOException, IllegalArgumentException {
+    this(new CsvTokenizer(input, checkDelimiter(delimiter)), identifier, projection);
   }
   
   /**
-   * Convert the list of lines to a String[][] array by splitting each line into fields using the given delimiter regex.
+   * Construct a CsvStringMatrixReader instance, reading the CSV file from the given {@link InputStream} and decoding it
+   * with the given charset. The entire file will be read into memory by this constructor, but the stream is not
+   * closed.
    * 
-   * @param lines
-   *          List of lines
-   * @return the 2-dimensional string array
+   * @param input
+   *          A stream providing the CSV file. Must not be null.
+   * @param delimiter
+   *          The delimiter used to separate the values in each line. Must not be empty.
+   * @param charsetName
+   *          The charset of the file, e.g. "UTF-8" or "ISO-8859-1". Must be supported by the JVM.
+   * @param identifier
+   *          An arbitrary identifier for the StringMatrix ({@link StringMatrix#getMatrixIdentifier()}). Must not be
+   *          null.
+   * @throws IOException
+   *           If the file cannot be read or is not valid in the given charset.
+   * @throws IllegalArgumentException
+   *           If the parameters or the file are invalid, see {@link #CsvStringMatrixReader(Reader, char, String)}
    */
-  private String[][] buildArray(final List lines) {
-    assert !lines.isEmpty() : "lines is unexpectedly empty";
-    
-    final int numberOfLines = lines.size();
-    
-    final String[] firstLine = (String[]) lines.get(0);
-    final int numberOfFields = firstLine.length;
+  public CsvStringMatrixReader(final InputStream input, final char delimiter, final String charsetName,
+      final String identifier) throws IOException, IllegalArgumentException {
+    this(input, delimiter, charsetName, identifier, null);
+  }
+  
+  /**
+   * Construct a CsvStringMatrixReader instance from an {@link InputStream} that keeps only the columns selected by the
+   * given projection.
+   * 
+   * @param input
+   *          A stream providing the CSV file. Must not be null.
+   * @param delimiter
+   *          The delimiter used to separate the values in each line. Must not be empty.
+   * @param charsetName
+   *          The charset of the file, e.g. "UTF-8" or "ISO-8859-1". Must be supported by the JVM.
+   * @param identifier
+   *          An arbitrary identifier for the StringMatrix ({@link StringMatrix#getMatrixIdentifier()}). Must not be
+   *          null.
+   * @param projection
+   *          The columns to keep. If null, all columns are kept.
+   * @throws IOException
+   *           If the file cannot be read or is not valid in the given charset.
+   * @throws IllegalArgumentException
+   *           If the parameters or the file are invalid, see {@link #CsvStringMatrixReader(Reader, char, String)}
+   */
+  public CsvStringMatrixReader(final InputStream input, final char delimiter, final String charsetName,
+      final String identifier, final ColumnProjection projection) throws IOException, IllegalArgumentException {
+    this(new CsvTokenizer(input, charsetName, checkDelimiter(delimiter)), identifier, projection);
+  }
+  
+  private CsvStringMatrixReader(final CsvTokenizer tokenizer, final String identifier,
+      final ColumnProjection projection) throws IOException, IllegalArgumentException {
+    ParamChecker.notNull("identifier", identifier);
+    this.identifier = identifier;
     
-    final String[][] result = new String[numberOfFields][numberOfLines];
-    for (int currentRow = 0; currentRow < lines.size(); currentRow++) {
-      final String[] currentLine = (String[]) lines.get(currentRow);
-      final boolean lineIsEmpty;
-      if ((currentLine.length == 0) || ((currentLine.length == 1) && (currentLine[0].trim().length() == 0))) {
-        // OpenCSV's CSVReader gives us a 1-element string array containing an empty string, if it
-        // encounters
-        // an empty line. we just want to skip over empty lines:
-        lineIsEmpty = true;
-      } else {
-        if (currentLine.length != numberOfFields) {
-          throw new IllegalArgumentException("Field count in line " + currentRow
-              + " differs from field count in first line");
+    final SnapshotStringMatrixReader allCells = readCells(tokenizer);
+    if (projection == null) {
+      this.cells = allCells;
+    } else {
+      final int[] kept = projection.selectColumns(allCells);
+      this.cells = allCells.selectColumns(kept);
+      if (log.isDebugEnabled()) {
+        log.debug("Keeping " + kept.length + " of " + allCells.getNumberOfColumns() + " columns of " + identifier
+            + ".");
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Loaded CSV file with " + getNumberOfRows() + " rows and " + getNumberOfColumns() + " columns"
+          + (this.cells.isSparse() ? ", stored sparsely." : "."));
+    }
+  }
+  
+  private static char checkDelimiter(final char delimiter) {
+    ParamChecker.notBlank("delimiter", delimiter);
+    return delimiter;
+  }
+  
+  /**
+   * Read the entire file record by record and put the trimmed fields straight into the cell storage.
+   * 
+   * @param tokenizer
+   *          the tokenizer reading the file
+   * @return the cells of the file
+   * @throws IOException
+   *           if something goes wrong
+   */
+  private SnapshotStringMatrixReader readCells(final CsvTokenizer tokenizer) throws IOException {
+    final SnapshotStringMatrixReader.Builder builder = new SnapshotStringMatrixReader.Builder(this.identifier);
+    int numberOfFields = -1;
+    int currentRow = 0;
+    while (tokenizer.nextRecord()) {
+      int currentColumn = 0;
+      boolean lineIsEmpty = true;
+      String field;
+      while ((field = tokenizer.nextField()) != null) {
+        if ((numberOfFields >= 0) && (currentColumn >= numberOfFields)) {
+          throw fieldCountMismatch(currentRow);
         }
-        lineIsEmpty = false;
+        final String value = field.trim();
+        lineIsEmpty = lineIsEmpty && (value.length() == 0);
+        builder.set(currentColumn, currentRow, value);
+        currentColumn++;
       }
-      for (int currentColumn = 0; currentColumn < numberOfFields; currentColumn++) {
-        // since we read line by line the outer loop walks over the rows and the inner loop over the
-        // columns.
-        // thus the filling of the array is a little awkward (faster-counting index is the first
-        // index),
-        // but as explained at {@link #data} this makes for more convenient reading access.
-        result[currentColumn][currentRow] = lineIsEmpty ? "" : currentLine[currentColumn].trim();
+      if (numberOfFields < 0) {
+        numberOfFields = currentColumn;
+      } else if ((currentColumn != numberOfFields) && !((currentColumn == 1) && lineIsEmpty)) {
+        // a single blank field is an empty line, which is kept as an empty row
+        throw fieldCountMismatch(currentRow);
       }
+      currentRow++;
     }
-    
-    return result;
+    if (currentRow == 0) {
+      throw new IllegalArgumentException("CSV file " + this.identifier + " is empty");
+    }
+    return builder.build();
+  }
+  
+  private static IllegalArgumentException fieldCountMismatch(final int row) {
+    return new IllegalArgumentException("Field count in line " + row + " differs from field count in first line");
   }
   
   /**
@@ -178,21 +252,21 @@ public class CsvStringMatrixReader implements StringMatrixReader {
    * @see DefaultStringMatrix.StringMatrixReader#getString(int, int)
    */
   public String getString(final int colIndex, final int rowIndex) throws IndexOutOfBoundsException {
-    return this.data[colIndex][rowIndex];
+    return this.cells.getString(colIndex, rowIndex);
   }
   
   /**
    * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfRows()
    */
   public int getNumberOfRows() {
-    return this.rows;
+    return this.cells.getNumberOfRows();
   }
   
   /**
    * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfColumns()
    */
   public int getNumberOfColumns() {
-    return this.columns;
+    return this.cells.getNumberOfColumns();
   }
   
   /**
@@ -201,4 +275,11 @@ public class CsvStringMatrixReader implements StringMatrixReader {
   public String getIdentifier() {
     return this.identifier;
   }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.HeapEstimating#estimateRetainedBytes(com.senacor.ddt.objectmatrix.HeapEstimate)
+   */
+  public void estimateRetainedBytes(final HeapEstimate estimate) {
+    this.cells.estimateRetainedBytes(estimate);
+  }
 }
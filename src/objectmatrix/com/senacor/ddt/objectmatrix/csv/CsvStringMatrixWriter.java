@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.csv;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.objectmatrix.writeable.MatrixWriteFailedException;
+import com.senacor.ddt.objectmatrix.writeable.DefaultWriteableStringMatrix.StringMatrixWriter;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * A StringMatrixWriter implementation that writes a matrix as a CSV (Character Separated Value) file that can be read
+ * by {@link CsvStringMatrixReader}. Fields containing the delimiter, quotes or line breaks are quoted, quotes inside
+ * them are doubled.
+ * <p>
+ * The matrix is written row by row, cell by cell. The characters are encoded into a fixed-size byte buffer, which is
+ * written to the channel whenever it is full, so the output is never held in memory as a whole.
+ * 
+ * @version $Id$
+ */
+public class CsvStringMatrixWriter implements StringMatrixWriter {
+  private static final Log log = LogFactory.getLog(CsvStringMatrixWriter.class);
+  
+  /**
+   * Default size of the byte buffer, i.e. the number of bytes written to the channel at once.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  
+  private static final char QUOTE = '"';
+  
+  private static final char LINE_SEPARATOR = '\n';
+  
+  private final WritableByteChannel channel;
+  
+  private final File file;
+  
+  private final char delimiter;
+  
+  private final Charset charset;
+  
+  private int bufferSize = DEFAULT_BUFFER_SIZE;
+  
+  /**
+   * Write to the given channel. The channel is not closed after writing.
+   * 
+   * @param channel
+   *          The channel to write to. Must not be null.
+   * @param delimiter
+   *          The delimiter separating the fields of a line. Must not be blank.
+   * @param charsetName
+   *          The name of the encoding, e.g. "UTF-8". Must be supported by the JVM.
+   */
+  public CsvStringMatrixWriter(final WritableByteChannel channel, final char delimiter, final String charsetName) {
+    this(channel, null, delimiter, charsetName);
+    ParamChecker.notNull("channel", channel);
+  }
+  
+  /**
+   * Write to the given file, replacing its content. The file is opened for each call to
+   * {@link #write(StringMatrixReader)} and closed afterwards.
+   * 
+   * @param file
+   *          The file to write to. Must not be null.
+   * @param delimiter
+   *          The delimiter separating the fields of a line. Must not be blank.
+   * @param charsetName
+   *          The name of the encoding, e.g. "UTF-8". Must be supported by the JVM.
+   */
+  public CsvStringMatrixWriter(final File file, final char delimiter, final String charsetName) {
+    this(null, file, delimiter, charsetName);
+    ParamChecker.notNull("file", file);
+  }
+  
+  private CsvStringMatrixWriter(final WritableByteChannel channel, final File file, final char delimiter,
+      final String charsetName) {
+    ParamChecker.notBlank("delimiter", delimiter);
+    ParamChecker.notBlank("charsetName", charsetName);
+    ParamChecker.require("delimiter must not be a quote or line break", (delimiter != QUOTE)
+        && (delimiter != LINE_SEPARATOR) && (delimiter != '\r'));
+    this.channel = channel;
+    this.file = file;
+    this.delimiter = delimiter;
+    this.charset = Charset.forName(charsetName);
+  }
+  
+  /**
+   * Size of the byte buffer, i.e. the number of bytes written to the channel at once. Defaults to
+   * {@link #DEFAULT_BUFFER_SIZE}.
+   * 
+   * @param bufferSize
+   *          buffer size in bytes, at least 16
+   * @return <code>this</code>, for method chaining
+   */
+  public CsvStringMatrixWriter setBufferSize(final int bufferSize) {
+    ParamChecker.require("bufferSize must be at least 16", bufferSize >= 16);
+    this.bufferSize = bufferSize;
+    return this;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.writeable.DefaultWriteableStringMatrix.StringMatrixWriter#write
+   */
+  public void write(final StringMatrixReader matrix) throws MatrixWriteFailedException {
+    ParamChecker.notNull("matrix", matrix);
+    try {
+      if (this.file == null) {
+        writeTo(this.channel, matrix);
+      } else {
+        final FileOutputStream out = new FileOutputStream(this.file);
+        try {
+          writeTo(out.getChannel(), matrix);
+        } finally {
+          out.close();
+        }
+      }
+    } catch (final IOException e) {
+      throw new MatrixWriteFailedException("Failed to write " + matrix.getIdentifier(), e);
+    }
+  }
+  
+  private void writeTo(final WritableByteChannel target, final StringMatrixReader matrix) throws IOException {
+    final Output output = new Output(target);
+    final int rows = matrix.getNumberOfRows();
+    final int columns = matrix.getNumberOfColumns();
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < columns; col++) {
+        if (col > 0) {
+          output.append(this.delimiter);
+        }
+        appendField(output, matrix.getString(col, row));
+      }
+      output.append(LINE_SEPARATOR);
+    }
+    output.close();
+    if (log.isDebugEnabled()) {
+      log.debug("Wrote " + matrix.getIdentifier() + " with " + columns + " columns and " + rows + " rows in "
+          + output.batches + " batches.");
+    }
+  }
+  
+  private void appendField(final Output output, final String field) throws IOException {
+    if (field == null) {
+      return;
+    }
+    if (!needsQuotes(field, this.delimiter)) {
+      output.append(field);
+      return;
+    }
+    output.append(QUOTE);
+    for (int i = 0; i < field.length(); i++) {
+      final char c = field.charAt(i);
+      if (c == QUOTE) {
+        output.append(QUOTE);
+      }
+      output.append(c);
+    }
+    output.append(QUOTE);
+  }
+  
+  private static boolean needsQuotes(final String field, final char delimiter) {
+    for (int i = 0; i < field.length(); i++) {
+      final char c = field.charAt(i);
+      if ((c == delimiter) || (c == QUOTE) || (c == LINE_SEPARATOR) || (c == '\r')) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  /**
+   * Format a single field the way this writer does, i.e. quoted if necessary.
+   * 
+   * @param field
+   *          The content of the field. null is written as an empty field.
+   * @param delimiter
+   *          The delimiter used in the file.
+   * @return the field as it appears in the file
+   */
+  public static String formatField(final String field, final char delimiter) {
+    if (field == null) {
+      return "";
+    }
+    if (!needsQuotes(field, delimiter)) {
+      return field;
+    }
+    final StringBuffer quoted = new StringBuffer(field.length() + 2);
+    quoted.append(QUOTE);
+    for (int i = 0; i < field.length(); i++) {
+      final char c = field.charAt(i);
+      if (c == QUOTE) {
+        quoted.append(QUOTE);
+      }
+      quoted.append(c);
+    }
+    return quoted.append(QUOTE).toString();
+  }
+  
+  /**
+   * Collects characters, encodes them and writes the bytes to the channel whenever the byte buffer is full.
+   */
+  private class Output {
+    private final WritableByteChannel target;
+    
+    private final CharBuffer chars = CharBuffer.allocate(CsvStringMatrixWriter.this.bufferSize);
+    
+    private final ByteBuffer bytes = ByteBuffer.allocate(CsvStringMatrixWriter.this.bufferSize);
+    
+    private final CharsetEncoder encoder =
+        CsvStringMatrixWriter.this.charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    
+    private int batches = 0;
+    
+    Output(final WritableByteChannel target) {
+      this.target = target;
+    }
+    
+    void append(final char c) throws IOException {
+      if (!this.chars.hasRemaining()) {
+        encode(false);
+      }
+      this.chars.put(c);
+    }
+    
+    void append(final String string) throws IOException {
+      int offset = 0;
+      while (offset < string.length()) {
+        if (!this.chars.hasRemaining()) {
+          encode(false);
+        }
+        final int count = Math.min(this.chars.remaining(), string.length() - offset);
+        this.chars.put(string, offset, offset + count);
+        offset += count;
+      }
+    }
+    
+    /**
+     * Encode the collected characters, writing out the byte buffer as often as it fills up.
+     */
+    private void encode(final boolean endOfInput) throws IOException {
+      this.chars.flip();
+      while (true) {
+        final CoderResult result = this.encoder.encode(this.chars, this.bytes, endOfInput);
+        if (result.isOverflow()) {
+          flush();
+        } else {
+          break;
+        }
+      }
+      // keeps an incomplete surrogate pair for the next round
+      this.chars.compact();
+    }
+    
+    private void flush() throws IOException {
+      this.bytes.flip();
+      while (this.bytes.hasRemaining()) {
+        this.target.write(this.bytes);
+      }
+      this.bytes.clear();
+      this.batches++;
+    }
+    
+    void close() throws IOException {
+      encode(true);
+      while (this.encoder.flush(this.bytes).isOverflow()) {
+        flush();
+      }
+      if (this.bytes.position() > 0) {
+        flush();
+      }
+    }
+  }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * Splits CSV input into records and fields without building intermediate line arrays. Fields are cut directly out of
+ * the read buffer; only fields that span a buffer boundary or contain escaped quotes are copied into a scratch buffer
+ * first.
+ * <p>
+ * The accepted format is what {@link CsvStringMatrixWriter} produces:
+ * <ul>
+ * <li>Records are terminated by LF, CR or CRLF, or by the end of the input.</li>
+ * <li>A field that starts with a double quote is quoted. It may contain the delimiter and line breaks, and a doubled
+ * quote stands for a single one. Characters following the closing quote are appended as they are.</li>
+ * <li>Quotes inside an unquoted field are ordinary characters.</li>
+ * <li>An empty line is a record consisting of one empty field.</li>
+ * </ul>
+ * Fields are returned untrimmed.
+ * <p>
+ * Input can be given as characters or as bytes plus the name of their charset. ISO-8859-1 bytes are widened to chars
+ * directly, all other charsets are decoded in bulk by a {@link CharsetDecoder} that reports malformed input instead of
+ * silently replacing it.
+ * <p>
+ * Instances are not thread-safe.
+ * 
+ * @version $Id$
+ */
+final class CsvTokenizer {
+  private static final char QUOTE = '"';
+  
+  private static final int BUFFER_SIZE = 64 * 1024;
+  
+  private static final String LATIN_1 = "ISO-8859-1";
+  
+  private final char delimiter;
+  
+  private final char[] buffer = new char[BUFFER_SIZE];
+  
+  private int position = 0;
+  
+  private int limit = 0;
+  
+  private boolean endOfInput = false;
+  
+  private final Reader reader;
+  
+  private final InputStream bytes;
+  
+  private final byte[] latin1Buffer;
+  
+  private final CharsetDecoder decoder;
+  
+  private final ByteBuffer encoded;
+  
+  private final CharBuffer decoded;
+  
+  private boolean bytesExhausted = false;
+  
+  private boolean decoderFlushed = false;
+  
+  private char[] scratch = new char[256];
+  
+  private int scratchLength = 0;
+  
+  private boolean inRecord = false;
+  
+  private int line = 1;
+  
+  /**
+   * @param input
+   *          the characters to tokenize. Must not be null.
+   * @param delimiter
+   *          the field delimiter. Must not be a quote or a line break.
+   */
+  CsvTokenizer(final Reader input, final char delimiter) {
+    this(input, null, null, delimiter);
+  }
+  
+  /**
+   * @param input
+   *          the bytes to tokenize. Must not be null.
+   * @param charsetName
+   *          the charset of the bytes. Must name a supported charset.
+   * @param delimiter
+   *          the field delimiter. Must not be a quote or a line break.
+   */
+  CsvTokenizer(final InputStream input, final String charsetName, final char delimiter) {
+    this(null, input, charsetName, delimiter);
+  }
+  
+  private CsvTokenizer(final Reader reader, final InputStream bytes, final String charsetName, final char delimiter) {
+    ParamChecker.require("delimiter must not be a quote or a line break", (delimiter != QUOTE) && (delimiter != '\n')
+        && (delimiter != '\r'));
+    this.delimiter = delimiter;
+    this.reader = reader;
+    this.bytes = bytes;
+    if (bytes == null) {
+      ParamChecker.notNull("input", reader);
+      this.latin1Buffer = null;
+      this.decoder = null;
+      this.encoded = null;
+      this.decoded = null;
+    } else {
+      ParamChecker.notBlank("charsetName", charsetName);
+      final Charset charset = Charset.forName(charsetName);
+      if (LATIN_1.equals(charset.name())) {
+        this.latin1Buffer = new byte[BUFFER_SIZE];
+        this.decoder = null;
+        this.encoded = null;
+        this.decoded = null;
+      } else {
+        this.latin1Buffer = null;
+        this.decoder =
+            charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(
+                CodingErrorAction.REPORT);
+        this.encoded = ByteBuffer.allocate(BUFFER_SIZE);
+        this.encoded.flip();
+        this.decoded = CharBuffer.wrap(this.buffer);
+      }
+    }
+  }
+  
+  /**
+   * Advance to the next record. The fields of the previous record must have been consumed completely.
+   * 
+   * @return false if the input is exhausted
+   * @throws IOException
+   *           if the input cannot be read or decoded
+   */
+  boolean nextRecord() throws IOException {
+    if (!ensureInput()) {
+      return false;
+    }
+    this.inRecord = true;
+    return true;
+  }
+  
+  /**
+   * @return the next field of the current record, or null if the record has no more fields
+   * @throws IOException
+   *           if the input cannot be read or decoded
+   * @throws IllegalArgumentException
+   *           if a quoted field is not terminated before the end of the input
+   */
+  String nextField() throws IOException, IllegalArgumentException {
+    if (!this.inRecord) {
+      return null;
+    }
+    if (ensureInput() && (this.buffer[this.position] == QUOTE)) {
+      this.position++;
+      readQuoted();
+    }
+    return readUnquoted();
+  }
+  
+  /**
+   * @return the 1-based number of the physical line the tokenizer is currently in
+   */
+  int getLine() {
+    return this.line;
+  }
+  
+  /**
+   * Read the content of a quoted field up to and including its closing quote into the scratch buffer.
+   */
+  private void readQuoted() throws IOException {
+    final int startLine = this.line;
+    int start = this.position;
+    while (true) {
+      if (this.position >= this.limit) {
+        appendToScratch(start, this.position);
+        if (!fill()) {
+          throw new IllegalArgumentException("Quoted field starting in line " + startLine + " is not terminated");
+        }
+        start = 0;
+      }
+      final char c = this.buffer[this.position];
+      if (c == QUOTE) {
+        appendToScratch(start, this.position);
+        this.position++;
+        if (!ensureInput() || (this.buffer[this.position] != QUOTE)) {
+          return;
+        }
+        // doubled quote: the second one starts the next run of content
+        start = this.position;
+      } else if (c == '\n') {
+        this.line++;
+      }
+      this.position++;
+    }
+  }
+  
+  /**
+   * Read up to the next delimiter, line break or the end of the input and return the field, including anything already
+   * collected in the scratch buffer.
+   */
+  private String readUnquoted() throws IOException {
+    int start = this.position;
+    while (true) {
+      if (this.position >= this.limit) {
+        appendToScratch(start, this.position);
+        if (!fill()) {
+          this.inRecord = false;
+          return takeField(0, 0);
+        }
+        start = 0;
+      }
+      final char c = this.buffer[this.position];
+      if (c == this.delimiter) {
+        final String field = takeField(start, this.position);
+        this.position++;
+        return field;
+      }
+      if ((c == '\n') || (c == '\r')) {
+        final String field = takeField(start, this.position);
+        this.position++;
+        this.line++;
+        this.inRecord = false;
+        if ((c == '\r') && ensureInput() && (this.buffer[this.position] == '\n')) {
+          this.position++;
+        }
+        return field;
+      }
+      this.position++;
+    }
+  }
+  
+  private String takeField(final int start, final int end) {
+    if (this.scratchLength == 0) {
+      return new String(this.buffer, start, end - start);
+    }
+    appendToScratch(start, end);
+    final String field = new String(this.scratch, 0, this.scratchLength);
+    this.scratchLength = 0;
+    return field;
+  }
+  
+  private void appendToScratch(final int start, final int end) {
+    final int length = end - start;
+    if (length == 0) {
+      return;
+    }
+    if (this.scratchLength + length > this.scratch.length) {
+      final char[] grown = new char[Math.max(this.scratchLength + length, this.scratch.length * 2)];
+      System.arraycopy(this.scratch, 0, grown, 0, this.scratchLength);
+      this.scratch = grown;
+    }
+    System.arraycopy(this.buffer, start, this.scratch, this.scratchLength, length);
+    this.scratchLength += length;
+  }
+  
+  /**
+   * @return true if at least one character is available at the current position
+   */
+  private boolean ensureInput() throws IOException {
+    return (this.position < this.limit) || fill();
+  }
+  
+  /**
+   * Replace the buffer content with the next chunk of input. Callers must have saved any unconsumed content first.
+   * 
+   * @return false if the input is exhausted
+   */
+  private boolean fill() throws IOException {
+    this.position = 0;
+    this.limit = 0;
+    while (!this.endOfInput && (this.limit == 0)) {
+      final int read;
+      if (this.reader != null) {
+        read = this.reader.read(this.buffer, 0, this.buffer.length);
+      } else if (this.latin1Buffer != null) {
+        read = this.bytes.read(this.latin1Buffer, 0, this.latin1Buffer.length);
+        for (int i = 0; i < read; i++) {
+          this.buffer[i] = (char) (this.latin1Buffer[i] & 0xFF);
+        }
+      } else {
+        read = decode();
+      }
+      if (read < 0) {
+        this.endOfInput = true;
+      } else {
+        this.limit = read;
+      }
+    }
+    return this.limit > 0;
+  }
+  
+  /**
+   * Decode the next chunk of bytes into the buffer.
+   * 
+   * @return the number of chars decoded, or -1 if the input is exhausted
+   */
+  private int decode() throws IOException {
+    if (this.decoderFlushed) {
+      return -1;
+    }
+    this.decoded.clear();
+    while (true) {
+      if (!this.bytesExhausted) {
+        this.encoded.compact();
+        final int read =
+            this.bytes.read(this.encoded.array(), this.encoded.arrayOffset() + this.encoded.position(), this.encoded
+                .remaining());
+        if (read < 0) {
+          this.bytesExhausted = true;
+        } else {
+          this.encoded.position(this.encoded.position() + read);
+        }
+        this.encoded.flip();
+      }
+      CoderResult result = this.decoder.decode(this.encoded, this.decoded, this.bytesExhausted);
+      if (this.bytesExhausted && result.isUnderflow()) {
+        result = this.decoder.flush(this.decoded);
+        this.decoderFlushed = result.isUnderflow();
+      }
+      if (result.isError()) {
+        result.throwException();
+      }
+      if (this.decoded.position() > 0) {
+        return this.decoded.position();
+      }
+      if (this.decoderFlushed) {
+        return -1;
+      }
+    }
+  }
+}
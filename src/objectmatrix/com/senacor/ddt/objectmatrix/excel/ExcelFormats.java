@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.excel;
+
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+
+import java.util.Locale;
+import java.util.TimeZone;
+
+import com.senacor.ddt.objectmatrix.StringMatrix;
+
+/**
+ * Creates the formats used by the Excel readers to normalize typed cells as required by {@link StringMatrix}. The
+ * returned formats are not thread-safe, so callers must not share them between threads.
+ * 
+ * @version $Id$
+ */
+final class ExcelFormats {
+  private ExcelFormats() {
+    // static helper
+  }
+  
+  /**
+   * @return a new format for {@link StringMatrix#FORMAT_NUMBER}
+   */
+  static NumberFormat newNumberFormat() {
+    final DecimalFormat numberFormat = new DecimalFormat(StringMatrix.FORMAT_NUMBER);
+    // even if i specify a pattern, DecimalFormat is STILL locale sensitive. ARGH! therefore, i am
+    // setting it to US to get the
+    // desired normalized output with one decimal point "." and no other special symbols
+    numberFormat.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
+    numberFormat.setDecimalSeparatorAlwaysShown(false);
+    
+    return numberFormat;
+  }
+  
+  /**
+   * @return a new format for {@link StringMatrix#FORMAT_DATE}
+   */
+  static DateFormat newDateFormat() {
+    final SimpleDateFormat dateFormat = new SimpleDateFormat(StringMatrix.FORMAT_DATE);
+    dateFormat.setTimeZone(TimeZone.getTimeZone("GMT")); // dates are adjusted from GMT to local
+    // timezone by java.util.Date,
+    // which can lead to off-by-one errors when only looking at dates
+    // without daytime
+    
+    return dateFormat;
+  }
+}
@@ -47,11 +47,20 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import java.net.URL;
+import java.util.Arrays;
 
 /**
  * An {@link ObjectMatrixFactory} implementation that creates ObjectMatrices based on {@link JExcelStringMatrixReader},
  * i.e. using Microsoft Excel workbooks as datasource. It can open Excel files via a URL, an InputStream or a
- * Classpath-relative path. All parameters supported by {@link JExcelStringMatrixReader} are supported as well.
+ * Classpath-relative path. All parameters supported by {@link JExcelStringMatrixReader} are supported as well. In
+ * {@link #setSnapshot(boolean) snapshot mode} the sheets are copied into memory and the workbook is released right
+ * after loading.
+ * <p>
+ * With {@link #setLoaderThreads(int)} the sheets are copied into snapshots and their title indices and annotations are
+ * built concurrently once the workbook has been parsed. The resulting matrices are always in the order of the given
+ * sheet names. Since JExcel only allows one thread at a time to read from a workbook, more than one loader thread
+ * always implies snapshot mode.
+ * <p>
  * Instances of this class are <em>not</em> reusable. Always construct fresh instances if you need to create another set
  * of ObjectMatrices.
  * 
@@ -67,8 +76,15 @@ public class ExcelObjectMatrixFactory extends AbstractDefaultStringMatrixBasedOb
   
   private boolean transposed;
   
+  private boolean snapshot;
+  
   private final WorkbookSettings workbookSettings = new WorkbookSettings();
   
+  /**
+   * The workbook opened by {@link #createReaders()}, until all sheets have been copied in snapshot mode.
+   */
+  private Workbook workbook;
+  
   /**
    * Construct an ExcelObjectMatrixFactory from the Excel workbook file available at the given URL using the specified
    * sheets.
@@ -136,24 +152,62 @@ public class ExcelObjectMatrixFactory extends AbstractDefaultStringMatrixBasedOb
     assert this.sheets.length > 0 : "sheets are empty";
     assert this.excelInput != null : "excelInput is null";
     
-    Workbook workbook;
     try {
       log.info("Loading Excel file...");
-      workbook = Workbook.getWorkbook(this.excelInput, this.workbookSettings);
+      this.workbook = Workbook.getWorkbook(this.excelInput, this.workbookSettings);
       log.info("Loading Excel file... done.");
     } catch (final Exception e) {
       throw new ObjectMatrixCreationFailedException("Failed to load Excel workbook", e);
     }
     
+    // all sheets are opened here, before any snapshot is taken, see JExcelStringMatrixReader.snapshot()
     final StringMatrixReader[] readers = new StringMatrixReader[this.sheets.length];
     for (int i = 0; i < readers.length; i++) {
-      final JExcelStringMatrixReader reader = new JExcelStringMatrixReader(workbook, this.sheets[i], this.transposed);
-      readers[i] = reader;
+      readers[i] = new JExcelStringMatrixReader(this.workbook, this.sheets[i], this.transposed, getColumnProjection());
+    }
+    if (!this.snapshot && (getLoaderThreads() > 1)) {
+      log.info("Using snapshot mode, since JExcel can't be read by " + getLoaderThreads() + " threads at once.");
     }
     
     return readers;
   }
   
+  /**
+   * In snapshot mode, copy the sheet. This runs on the loader threads, so several sheets are copied concurrently.
+   * 
+   * @see AbstractDefaultStringMatrixBasedObjectMatrixFactory#prepareReader(StringMatrixReader)
+   */
+  protected StringMatrixReader prepareReader(final StringMatrixReader reader) {
+    if (isSnapshot() && (reader instanceof JExcelStringMatrixReader)) {
+      return ((JExcelStringMatrixReader) reader).snapshot();
+    }
+    return reader;
+  }
+  
+  /**
+   * In snapshot mode, nothing references the workbook anymore, so free JExcel's internal buffers right away.
+   * 
+   * @see AbstractDefaultStringMatrixBasedObjectMatrixFactory#readersPrepared()
+   */
+  protected void readersPrepared() {
+    if (isSnapshot() && (this.workbook != null)) {
+      this.workbook.close();
+      this.workbook = null;
+    }
+  }
+  
+  /**
+   * @see AbstractDefaultStringMatrixBasedObjectMatrixFactory#getCacheKey()
+   */
+  protected String getCacheKey() {
+    return "sheets=" + Arrays.asList(this.sheets) + ";transposed=" + this.transposed + ";encoding="
+        + this.workbookSettings.getEncoding();
+  }
+  
+  private boolean isSnapshot() {
+    return this.snapshot || (getLoaderThreads() > 1);
+  }
+  
   /**
    * Set to true if the Excel file contains the data in transposed format.
    * 
@@ -168,6 +222,22 @@ public class ExcelObjectMatrixFactory extends AbstractDefaultStringMatrixBasedOb
     return this;
   }
   
+  /**
+   * Set to true to copy every sheet into an immutable in-memory snapshot while loading. The Excel workbook is closed
+   * and can be garbage collected as soon as all sheets have been read, and all later reads are simple array accesses.
+   * Defaults to false, i.e. all reads go through JExcel, unless more than one loader thread is used.
+   * 
+   * @param snapshot
+   *          flag
+   * @return <code>this</code>, for method chaining
+   * 
+   * @see JExcelStringMatrixReader#snapshot()
+   */
+  public ExcelObjectMatrixFactory setSnapshot(final boolean snapshot) {
+    this.snapshot = snapshot;
+    return this;
+  }
+  
   /**
    * Set the encoding of the Excel file that will be read. This setting is passed directly into {@link WorkbookSettings}
    * .
@@ -31,7 +31,10 @@
 
 package com.senacor.ddt.objectmatrix.excel;
 
-import com.senacor.ddt.objectmatrix.StringMatrix;
+import com.senacor.ddt.objectmatrix.ColumnProjection;
+import com.senacor.ddt.objectmatrix.HeapEstimate;
+import com.senacor.ddt.objectmatrix.HeapEstimating;
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
 import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
 import com.senacor.ddt.util.ParamChecker;
 
@@ -47,13 +50,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.text.DateFormat;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
-import java.text.SimpleDateFormat;
-
-import java.util.Locale;
-import java.util.TimeZone;
 
 /**
  * StringMatrixReader implementation that represents a view on a single sheet of a Microsoft Excel workbook file using
@@ -65,22 +62,41 @@ import java.util.TimeZone;
  * <p>
  * Due to Excel's limitation to 255 columns, this implementation allows transposed sheets: By transposing the table we
  * can have up to 65k "columns". Experience shows that 255 "rows" are usually more than enough for most test cases.
+ * <p>
+ * By default every access goes down into the Excel sheet, so the Workbook must be kept alive as long as the reader is
+ * used. Call {@link #snapshot()} to convert the sheet into an immutable in-memory copy instead.
+ * <p>
+ * If a {@link ColumnProjection} is given, the reader only exposes the columns it selects, and snapshots only copy
+ * those.
+ * <p>
+ * JExcel's Workbook is not thread-safe, not even for reading different sheets. Therefore all readers of one Workbook
+ * synchronize their access on that Workbook instance.
  * 
  * @author Carl-Eric Menzel
  * @version $Id$
  * @version $Id$
  */
-public class JExcelStringMatrixReader implements StringMatrixReader {
+public class JExcelStringMatrixReader implements StringMatrixReader, HeapEstimating {
   private static final Log log = LogFactory.getLog(JExcelStringMatrixReader.class);
   
   private final Sheet sheet;
   
+  /**
+   * The workbook containing {@link #sheet}, used to serialize all access to JExcel.
+   */
+  private final Object workbookLock;
+  
   private final boolean transposed;
   
   private final String identifier;
   
   private final Range[] mergedCells;
   
+  /**
+   * The sheet columns (or rows, if transposed) exposed by this reader, or null if all are exposed.
+   */
+  private final int[] columns;
+  
   /**
    * Construct a new instance, representing a view on a single sheet of the given Excel Workbook.
    * 
@@ -96,13 +112,41 @@ public class JExcelStringMatrixReader implements StringMatrixReader {
     ParamChecker.notNull("sheetName", sheetName);
     this.identifier = "[" + sheetName + "]";
     log.info("Getting sheet '" + sheetName + "'...");
-    this.sheet = workbook.getSheet(sheetName);
+    this.workbookLock = workbook;
+    synchronized (this.workbookLock) {
+      this.sheet = workbook.getSheet(sheetName);
+    }
     if (this.sheet == null) {
       throw new IllegalArgumentException("Could not find sheet named '" + sheetName + "'.");
     }
     this.mergedCells = this.sheet.getMergedCells();
     log.info("Getting sheet '" + sheetName + "'... done.");
     this.transposed = transposed;
+    this.columns = null;
+  }
+  
+  /**
+   * Construct a new instance, representing a view on the columns of a single sheet that are selected by the given
+   * projection.
+   * 
+   * @param workbook
+   *          The Workbook to read a sheet from. Must not be null.
+   * @param sheetName
+   *          The name of the sheet to read. Must not be null.
+   * @param transposed
+   *          Set to true if the data in the given sheet is transposed (swapped columns and rows).
+   * @param projection
+   *          The columns to keep. If null, all columns are kept.
+   */
+  public JExcelStringMatrixReader(final Workbook workbook, final String sheetName, final boolean transposed,
+      final ColumnProjection projection) {
+    final JExcelStringMatrixReader complete = new JExcelStringMatrixReader(workbook, sheetName, transposed);
+    this.sheet = complete.sheet;
+    this.workbookLock = complete.workbookLock;
+    this.transposed = complete.transposed;
+    this.identifier = complete.identifier;
+    this.mergedCells = complete.mergedCells;
+    this.columns = (projection == null) ? null : projection.selectColumns(complete);
   }
   
   /**
@@ -113,12 +157,13 @@ public class JExcelStringMatrixReader implements StringMatrixReader {
    * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getString(int, int)
    */
   public String getString(final int colIndex, final int rowIndex) {
+    final int sheetColIndex = (this.columns == null) ? colIndex : this.columns[colIndex];
     int actualColIndex, actualRowIndex;
     if (isTransposed()) {
       actualColIndex = rowIndex;
-      actualRowIndex = colIndex;
+      actualRowIndex = sheetColIndex;
     } else {
-      actualColIndex = colIndex;
+      actualColIndex = sheetColIndex;
       actualRowIndex = rowIndex;
     }
     if (this.mergedCells.length > 0) {
@@ -138,11 +183,83 @@ public class JExcelStringMatrixReader implements StringMatrixReader {
         }
       }
     }
-    return readCell(actualColIndex, actualRowIndex);
+    // the formats are not thread-safe, so every access creates its own
+    synchronized (this.workbookLock) {
+      return readCell(actualColIndex, actualRowIndex, ExcelFormats.newNumberFormat(), ExcelFormats.newDateFormat());
+    }
+  }
+  
+  /**
+   * Convert the entire sheet into an immutable {@link SnapshotStringMatrixReader}. Every cell is read exactly once,
+   * using a single number and date format for the whole sheet, and merged cells are resolved up front. The snapshot
+   * does not reference this reader or the Workbook, so both can be garbage collected afterwards.
+   * <p>
+   * The workbook is only locked while JExcel loads the records of the sheet. The cells are copied without the lock,
+   * so snapshots of different sheets can be taken concurrently. This requires that no other sheet of the workbook is
+   * opened with {@link Workbook#getSheet(String)} meanwhile, since that makes JExcel drop the cells of the previously
+   * opened sheet. All readers therefore have to be constructed before the first snapshot is taken.
+   * 
+   * @return the snapshot, containing exactly the strings {@link #getString(int, int)} would return.
+   */
+  public SnapshotStringMatrixReader snapshot() {
+    synchronized (this.workbookLock) {
+      // JExcel reads the records of a sheet from the shared workbook data when the sheet is first accessed, or again
+      // if another sheet has been opened since. Afterwards, reading cells only touches this sheet.
+      this.sheet.getRows();
+    }
+    return doSnapshot();
+  }
+  
+  private SnapshotStringMatrixReader doSnapshot() {
+    log.info("Taking snapshot of sheet " + this.identifier + "...");
+    final NumberFormat numberFormat = ExcelFormats.newNumberFormat();
+    final DateFormat dateFormat = ExcelFormats.newDateFormat();
+    final int sheetColumns = this.sheet.getColumns();
+    final int sheetRows = this.sheet.getRows();
+    final String[][] data = new String[getNumberOfSheetColumns()][getNumberOfRows()];
+    for (int col = 0; col < sheetColumns; col++) {
+      for (int row = 0; row < sheetRows; row++) {
+        setSnapshotCell(data, col, row, readCell(col, row, numberFormat, dateFormat));
+      }
+    }
+    // merged ranges show the content of their top left cell everywhere
+    for (int i = 0; i < this.mergedCells.length; i++) {
+      final Cell topLeft = this.mergedCells[i].getTopLeft();
+      final Cell bottomRight = this.mergedCells[i].getBottomRight();
+      final String content = getSnapshotCell(data, topLeft.getColumn(), topLeft.getRow());
+      final int right = Math.min(bottomRight.getColumn(), sheetColumns - 1);
+      final int bottom = Math.min(bottomRight.getRow(), sheetRows - 1);
+      for (int col = topLeft.getColumn(); col <= right; col++) {
+        for (int row = topLeft.getRow(); row <= bottom; row++) {
+          setSnapshotCell(data, col, row, content);
+        }
+      }
+    }
+    log.info("Taking snapshot of sheet " + this.identifier + "... done.");
+    if (this.columns != null) {
+      return new SnapshotStringMatrixReader(ColumnProjection.pickColumns(data, this.columns), this.identifier);
+    }
+    return new SnapshotStringMatrixReader(data, this.identifier);
   }
   
-  private String readCell(final int colIndex, final int rowIndex) {
-    log.debug("Getting string at col " + colIndex + ", row " + rowIndex);
+  private void setSnapshotCell(final String[][] data, final int sheetCol, final int sheetRow, final String content) {
+    if (isTransposed()) {
+      data[sheetRow][sheetCol] = content;
+    } else {
+      data[sheetCol][sheetRow] = content;
+    }
+  }
+  
+  private String getSnapshotCell(final String[][] data, final int sheetCol, final int sheetRow) {
+    return isTransposed() ? data[sheetRow][sheetCol] : data[sheetCol][sheetRow];
+  }
+  
+  private String readCell(final int colIndex, final int rowIndex, final NumberFormat numberFormat,
+      final DateFormat dateFormat) {
+    final boolean debug = log.isDebugEnabled();
+    if (debug) {
+      log.debug("Getting string at col " + colIndex + ", row " + rowIndex);
+    }
     
     Cell cell;
     String result;
@@ -150,23 +267,23 @@ public class JExcelStringMatrixReader implements StringMatrixReader {
     cell = this.sheet.getCell(colIndex, rowIndex);
     
     if (cell.getType().equals(CellType.DATE) || cell.getType().equals(CellType.DATE_FORMULA)) {
-      log.debug("Found date cell.");
-      
       final DateCell dcell = (DateCell) cell;
-      log.debug("Raw value is " + dcell.getDate());
-      result = getDateFormat().format(dcell.getDate());
+      if (debug) {
+        log.debug("Found date cell. Raw value is " + dcell.getDate());
+      }
+      result = dateFormat.format(dcell.getDate());
     } else if (cell.getType().equals(CellType.NUMBER) || cell.getType().equals(CellType.NUMBER_FORMULA)) {
-      log.debug("Found number cell.");
-      
       final NumberCell ncell = (NumberCell) cell;
       final double rawValue = ncell.getValue();
-      log.debug("Raw value is " + rawValue);
+      if (debug) {
+        log.debug("Found number cell. Raw value is " + rawValue);
+      }
       
       if (Double.isNaN(rawValue)) {
         log.debug("Converting NaN to \"\".");
         result = "";
       } else {
-        result = getNumberFormat().format(rawValue);
+        result = numberFormat.format(rawValue);
       }
     } else {
       log.debug("Found cell without special handling.");
@@ -178,40 +295,23 @@ public class JExcelStringMatrixReader implements StringMatrixReader {
       result = "";
     }
     
-    log.debug("Returning string '" + result + "'");
+    if (debug) {
+      log.debug("Returning string '" + result + "'");
+    }
     
     return result;
   }
   
-  private NumberFormat getNumberFormat() {
-    final DecimalFormat numberFormat = new DecimalFormat(StringMatrix.FORMAT_NUMBER);
-    // even if i specify a pattern, DecimalFormat is STILL locale sensitive. ARGH! therefore, i am
-    // setting it to US to get the
-    // desired normalized output with one decimal point "." and no other special symbols
-    numberFormat.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
-    numberFormat.setDecimalSeparatorAlwaysShown(false);
-    
-    return numberFormat;
-  }
-  
-  private DateFormat getDateFormat() {
-    final SimpleDateFormat dateFormat = new SimpleDateFormat(StringMatrix.FORMAT_DATE);
-    dateFormat.setTimeZone(TimeZone.getTimeZone("GMT")); // dates are adjusted from GMT to local
-    // timezone by java.util.Date,
-    // which can lead to off-by-one errors when only looking at dates
-    // without daytime
-    
-    return dateFormat;
-  }
-  
   /**
    * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfRows()
    */
   public int getNumberOfRows() {
-    if (isTransposed()) {
-      return this.sheet.getColumns();
-    } else {
-      return this.sheet.getRows();
+    synchronized (this.workbookLock) {
+      if (isTransposed()) {
+        return this.sheet.getColumns();
+      } else {
+        return this.sheet.getRows();
+      }
     }
   }
   
@@ -219,10 +319,33 @@ public class JExcelStringMatrixReader implements StringMatrixReader {
    * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfColumns()
    */
   public int getNumberOfColumns() {
-    if (isTransposed()) {
-      return this.sheet.getRows();
-    } else {
-      return this.sheet.getColumns();
+    if (this.columns != null) {
+      return this.columns.length;
+    }
+    return getNumberOfSheetColumns();
+  }
+  
+  private int getNumberOfSheetColumns() {
+    synchronized (this.workbookLock) {
+      if (isTransposed()) {
+        return this.sheet.getRows();
+      } else {
+        return this.sheet.getColumns();
+      }
+    }
+  }
+  
+  /**
+   * Only the arrays held by this reader are counted. The cells stay in the Workbook, which is shared by all sheets and
+   * is not read again for the estimate, so neither the sheet nor the workbook lock is touched. Take a
+   * {@link #snapshot()} to get a reader whose cells can be counted.
+   * 
+   * @see com.senacor.ddt.objectmatrix.HeapEstimating#estimateRetainedBytes(com.senacor.ddt.objectmatrix.HeapEstimate)
+   */
+  public void estimateRetainedBytes(final HeapEstimate estimate) {
+    estimate.addReferenceArray(this.mergedCells.length);
+    if (this.columns != null) {
+      estimate.addIntArray(this.columns.length);
     }
   }
   
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.excel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Arrays;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.ObjectMatrixCreationFailedException;
+import com.senacor.ddt.objectmatrix.ObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * An {@link ObjectMatrixFactory} implementation that creates ObjectMatrices based on {@link XlsxStringMatrixReader},
+ * i.e. using Microsoft Excel 2007+ workbooks (.xlsx) as datasource. This is the .xlsx counterpart of
+ * {@link ExcelObjectMatrixFactory} and needs nothing but the JDK. It can open .xlsx files via a File, a URL, an
+ * InputStream or a Classpath-relative path.
+ * <p>
+ * Since .xlsx files are zip archives that must be read with random access, input that does not come from a File is
+ * first copied to a temporary file, which is deleted again as soon as all sheets have been read.
+ * <p>
+ * Instances of this class are <em>not</em> reusable. Always construct fresh instances if you need to create another set
+ * of ObjectMatrices.
+ * 
+ * @version $Id$
+ */
+public class XlsxObjectMatrixFactory extends AbstractDefaultStringMatrixBasedObjectMatrixFactory {
+  private static final Log log = LogFactory.getLog(XlsxObjectMatrixFactory.class);
+  
+  private final File xlsxFile;
+  
+  private final InputStream xlsxInput;
+  
+  private final String[] sheets;
+  
+  private boolean transposed;
+  
+  /**
+   * Construct an XlsxObjectMatrixFactory from the given .xlsx file using the specified sheets.
+   * 
+   * @param xlsxFile
+   *          A readable .xlsx file. Must not be null.
+   * @param sheetNames
+   *          Names of the contained sheets to be used. Must not be null or empty.
+   */
+  public XlsxObjectMatrixFactory(final File xlsxFile, final String[] sheetNames) {
+    this(xlsxFile, null, sheetNames);
+    ParamChecker.notNull("xlsxFile", xlsxFile);
+  }
+  
+  /**
+   * Construct an XlsxObjectMatrixFactory from the .xlsx file available at the given URL using the specified sheets.
+   * 
+   * @param xlsxUrl
+   *          URL of a readable .xlsx file. Must not be null.
+   * @param sheetNames
+   *          Names of the contained sheets to be used. Must not be null or empty.
+   * @throws IOException
+   *           If the call to xlsxUrl.openStream() fails.
+   */
+  public XlsxObjectMatrixFactory(final URL xlsxUrl, final String[] sheetNames) throws IOException {
+    this(nullsafeUrlToStream("xlsxUrl", xlsxUrl), sheetNames);
+  }
+  
+  /**
+   * Construct an XlsxObjectMatrixFactory from the .xlsx file available via the given InputStream using the specified
+   * sheets. The stream is read completely and closed by {@link #create()}.
+   * 
+   * @param xlsxInput
+   *          An InputStream that delivers a valid .xlsx file. Must not be null.
+   * @param sheetNames
+   *          Names of the contained sheets to be used. Must not be null or empty.
+   */
+  public XlsxObjectMatrixFactory(final InputStream xlsxInput, final String[] sheetNames) {
+    this(null, xlsxInput, sheetNames);
+    ParamChecker.notNull("xlsxInput", xlsxInput);
+  }
+  
+  /**
+   * Construct an XlsxObjectMatrixFactory from the .xlsx file available at the given path in the classpath using the
+   * specified sheets. The classloader returned by <code>XlsxObjectMatrixFactory.class.getClassLoader()</code> is used
+   * to open the required InputStream.
+   * 
+   * @param xlsxInClassPath
+   *          Classpath-relative path to a valid .xlsx file. Must not be null.
+   * @param sheetNames
+   *          Names of the contained sheets to be used. Must not be null or empty.
+   */
+  public XlsxObjectMatrixFactory(final String xlsxInClassPath, final String[] sheetNames) {
+    this(XlsxObjectMatrixFactory.class.getClassLoader().getResourceAsStream(xlsxInClassPath), sheetNames);
+  }
+  
+  /**
+   * Convenience constructor to be used when you only need a single sheet from the workbook. Delegates to
+   * {@link XlsxObjectMatrixFactory#XlsxObjectMatrixFactory(String, String[])}, see there.
+   * 
+   * @param xlsxInClassPath
+   *          -
+   * @param sheetName
+   *          -
+   */
+  public XlsxObjectMatrixFactory(final String xlsxInClassPath, final String sheetName) {
+    this(xlsxInClassPath, new String[] { sheetName });
+  }
+  
+  private XlsxObjectMatrixFactory(final File xlsxFile, final InputStream xlsxInput, final String[] sheetNames) {
+    ParamChecker.notNull("sheetNames", sheetNames);
+    ParamChecker.require("need at least one sheet name", sheetNames.length > 0);
+    this.xlsxFile = xlsxFile;
+    this.xlsxInput = xlsxInput;
+    this.sheets = sheetNames;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory#createReaders()
+   */
+  public StringMatrixReader[] createReaders() {
+    File file = this.xlsxFile;
+    try {
+      if (file == null) {
+        file = copyToTemporaryFile(this.xlsxInput);
+      }
+      final XlsxWorkbook workbook = new XlsxWorkbook(file);
+      try {
+        final StringMatrixReader[] readers = new StringMatrixReader[this.sheets.length];
+        for (int i = 0; i < readers.length; i++) {
+          readers[i] = new XlsxStringMatrixReader(workbook, this.sheets[i], this.transposed, getColumnProjection());
+        }
+        return readers;
+      } finally {
+        workbook.close();
+      }
+    } catch (final IOException e) {
+      throw new ObjectMatrixCreationFailedException("Failed to load .xlsx workbook", e);
+    } finally {
+      if ((this.xlsxFile == null) && (file != null) && !file.delete()) {
+        log.warn("Could not delete temporary file " + file);
+      }
+    }
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory#getCacheKey()
+   */
+  protected String getCacheKey() {
+    return "sheets=" + Arrays.asList(this.sheets) + ";transposed=" + this.transposed;
+  }
+  
+  private static File copyToTemporaryFile(final InputStream input) throws IOException {
+    final File file = File.createTempFile("ddt-", ".xlsx");
+    file.deleteOnExit();
+    log.debug("Copying .xlsx input to temporary file " + file);
+    final OutputStream out = new FileOutputStream(file);
+    try {
+      final byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    } finally {
+      out.close();
+      input.close();
+    }
+    return file;
+  }
+  
+  /**
+   * Set to true if the workbook contains the data in transposed format.
+   * 
+   * @param transposed
+   *          flag
+   * @return <code>this</code>, for method chaining
+   * 
+   * @see XlsxStringMatrixReader#isTransposed()
+   */
+  public XlsxObjectMatrixFactory setTransposed(final boolean transposed) {
+    this.transposed = transposed;
+    return this;
+  }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.excel;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.senacor.ddt.objectmatrix.ColumnProjection;
+import com.senacor.ddt.objectmatrix.HeapEstimate;
+import com.senacor.ddt.objectmatrix.HeapEstimating;
+import com.senacor.ddt.objectmatrix.MatrixReadFailedException;
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
+import com.senacor.ddt.objectmatrix.StringMatrix;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * StringMatrixReader implementation that represents a single sheet of a Microsoft Excel 2007+ workbook (.xlsx). This is
+ * the .xlsx counterpart of {@link JExcelStringMatrixReader} and produces the same strings for the same data: numbers
+ * and dates are formatted as specified by {@link StringMatrix#FORMAT_NUMBER} and {@link StringMatrix#FORMAT_DATE},
+ * merged cells show the content of their top left cell everywhere, and transposed sheets are supported.
+ * <p>
+ * The sheet's XML is parsed in a single streaming pass by the constructor and kept as an immutable grid of strings, so
+ * the {@link XlsxWorkbook} is not needed anymore afterwards.
+ * 
+ * @version $Id$
+ */
+public class XlsxStringMatrixReader implements StringMatrixReader, HeapEstimating {
+  private static final Log log = LogFactory.getLog(XlsxStringMatrixReader.class);
+  
+  private final StringMatrixReader cells;
+  
+  private final boolean transposed;
+  
+  /**
+   * Read a single sheet of the given workbook.
+   * 
+   * @param workbook
+   *          The workbook to read a sheet from. Must not be null.
+   * @param sheetName
+   *          The name of the sheet to read. Must not be null.
+   * @param transposed
+   *          Set to true if the data in the given sheet is transposed (swapped columns and rows).
+   * @throws MatrixReadFailedException
+   *           if the sheet can't be read or parsed
+   */
+  public XlsxStringMatrixReader(final XlsxWorkbook workbook, final String sheetName, final boolean transposed)
+      throws MatrixReadFailedException {
+    this(workbook, sheetName, transposed, null);
+  }
+  
+  /**
+   * Read a single sheet of the given workbook, keeping only the columns selected by the given projection.
+   * 
+   * @param workbook
+   *          The workbook to read a sheet from. Must not be null.
+   * @param sheetName
+   *          The name of the sheet to read. Must not be null.
+   * @param transposed
+   *          Set to true if the data in the given sheet is transposed (swapped columns and rows).
+   * @param projection
+   *          The columns to keep. If null, all columns are kept.
+   * @throws MatrixReadFailedException
+   *           if the sheet can't be read or parsed
+   */
+  public XlsxStringMatrixReader(final XlsxWorkbook workbook, final String sheetName, final boolean transposed,
+      final ColumnProjection projection) throws MatrixReadFailedException {
+    ParamChecker.notNull("workbook", workbook);
+    ParamChecker.notNull("sheetName", sheetName);
+    this.transposed = transposed;
+    log.info("Reading sheet '" + sheetName + "'...");
+    final SheetHandler handler = new SheetHandler(workbook, "[" + sheetName + "]");
+    try {
+      workbook.parseSheet(sheetName, handler);
+    } catch (final IOException e) {
+      throw new MatrixReadFailedException("Failed to read sheet '" + sheetName + "' from " + workbook.getName(), e);
+    }
+    final SnapshotStringMatrixReader allCells = handler.build();
+    this.cells = (projection == null) ? allCells : projection.project(allCells);
+    log.info("Reading sheet '" + sheetName + "'... done.");
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getString(int, int)
+   */
+  public String getString(final int colIndex, final int rowIndex) throws IndexOutOfBoundsException {
+    return this.cells.getString(colIndex, rowIndex);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfRows()
+   */
+  public int getNumberOfRows() {
+    return this.cells.getNumberOfRows();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfColumns()
+   */
+  public int getNumberOfColumns() {
+    return this.cells.getNumberOfColumns();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getIdentifier()
+   */
+  public String getIdentifier() {
+    return this.cells.getIdentifier();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.HeapEstimating#estimateRetainedBytes(com.senacor.ddt.objectmatrix.HeapEstimate)
+   */
+  public void estimateRetainedBytes(final HeapEstimate estimate) {
+    estimate.addReader(this.cells);
+  }
+  
+  /**
+   * @return true if this reader transposes the underlying sheet.
+   * @see #XlsxStringMatrixReader(XlsxWorkbook, String, boolean)
+   */
+  public boolean isTransposed() {
+    return this.transposed;
+  }
+  
+  /**
+   * Convert a cell reference like "AB12" into 0-based column and row indices.
+   * 
+   * @param reference
+   *          the reference
+   * @return an array containing column and row index, or null if the reference is malformed
+   */
+  static int[] parseReference(final String reference) {
+    int col = 0;
+    int i = 0;
+    while ((i < reference.length()) && Character.isLetter(reference.charAt(i))) {
+      col = (col * 26) + (Character.toUpperCase(reference.charAt(i)) - 'A' + 1);
+      i++;
+    }
+    if ((i == 0) || (i == reference.length())) {
+      return null;
+    }
+    try {
+      return new int[] { col - 1, Integer.parseInt(reference.substring(i)) - 1 };
+    } catch (final NumberFormatException e) {
+      return null;
+    }
+  }
+  
+  /**
+   * Streams through a worksheet part and collects the formatted cells.
+   */
+  private class SheetHandler extends DefaultHandler {
+    private final XlsxWorkbook workbook;
+    
+    private final String identifier;
+    
+    private final SnapshotStringMatrixReader.Builder builder;
+    
+    private final NumberFormat numberFormat = ExcelFormats.newNumberFormat();
+    
+    private final DateFormat dateFormat = ExcelFormats.newDateFormat();
+    
+    private final List mergedRanges = new ArrayList();
+    
+    private final StringBuffer text = new StringBuffer();
+    
+    private int row = -1;
+    
+    private int col = -1;
+    
+    private String type;
+    
+    private int style;
+    
+    private String value;
+    
+    private boolean inText;
+    
+    private boolean inInlineString;
+    
+    private boolean inPhonetic;
+    
+    SheetHandler(final XlsxWorkbook workbook, final String identifier) {
+      this.workbook = workbook;
+      this.identifier = identifier;
+      this.builder = new SnapshotStringMatrixReader.Builder(identifier);
+    }
+    
+    public void startElement(final String uri, final String localName, final String qName,
+        final Attributes attributes) {
+      final String element = XlsxWorkbook.localName(qName);
+      if ("row".equals(element)) {
+        final String r = XlsxWorkbook.attribute(attributes, "r");
+        this.row = (r == null) ? this.row + 1 : Integer.parseInt(r) - 1;
+        this.col = -1;
+      } else if ("c".equals(element)) {
+        startCell(attributes);
+      } else if ("v".equals(element)) {
+        this.text.setLength(0);
+        this.inText = true;
+      } else if ("is".equals(element)) {
+        this.text.setLength(0);
+        this.inInlineString = true;
+      } else if ("rPh".equals(element)) {
+        this.inPhonetic = true;
+      } else if ("t".equals(element)) {
+        this.inText = this.inInlineString && !this.inPhonetic;
+      } else if ("mergeCell".equals(element)) {
+        final String ref = XlsxWorkbook.attribute(attributes, "ref");
+        if (ref != null) {
+          this.mergedRanges.add(ref);
+        }
+      }
+    }
+    
+    private void startCell(final Attributes attributes) {
+      final String ref = XlsxWorkbook.attribute(attributes, "r");
+      final int[] position = (ref == null) ? null : parseReference(ref);
+      if (position == null) {
+        this.col++;
+      } else {
+        this.col = position[0];
+        this.row = position[1];
+      }
+      this.type = XlsxWorkbook.attribute(attributes, "t");
+      final String s = XlsxWorkbook.attribute(attributes, "s");
+      this.style = (s == null) ? 0 : Integer.parseInt(s);
+      this.value = null;
+    }
+    
+    public void endElement(final String uri, final String localName, final String qName) {
+      final String element = XlsxWorkbook.localName(qName);
+      if ("v".equals(element)) {
+        this.value = this.text.toString();
+        this.inText = false;
+      } else if ("t".equals(element)) {
+        this.inText = false;
+      } else if ("rPh".equals(element)) {
+        this.inPhonetic = false;
+      } else if ("is".equals(element)) {
+        this.value = this.text.toString();
+        this.inInlineString = false;
+      } else if ("c".equals(element)) {
+        set(this.col, this.row, format());
+      }
+    }
+    
+    public void characters(final char[] ch, final int start, final int length) {
+      if (this.inText) {
+        this.text.append(ch, start, length);
+      }
+    }
+    
+    /**
+     * Format the current cell the same way {@link JExcelStringMatrixReader} does.
+     */
+    private String format() {
+      if (this.value == null) {
+        return "";
+      } else if ("s".equals(this.type)) {
+        return this.workbook.getSharedString(Integer.parseInt(this.value.trim()));
+      } else if ("b".equals(this.type)) {
+        return String.valueOf("1".equals(this.value.trim()));
+      } else if ((this.type == null) || "n".equals(this.type)) {
+        final double number;
+        try {
+          number = Double.parseDouble(this.value);
+        } catch (final NumberFormatException e) {
+          throw new MatrixReadFailedException("Malformed number '" + this.value + "' in cell at col " + this.col
+              + ", row " + this.row + " of sheet " + this.identifier, e);
+        }
+        if (Double.isNaN(number)) {
+          return "";
+        } else if (this.workbook.isDateStyle(this.style)) {
+          return this.dateFormat.format(this.workbook.toDate(number));
+        } else {
+          return this.numberFormat.format(number);
+        }
+      } else {
+        // inline strings, formula strings, errors: the text is the content
+        return this.value;
+      }
+    }
+    
+    private void set(final int sheetCol, final int sheetRow, final String content) {
+      if (XlsxStringMatrixReader.this.transposed) {
+        this.builder.set(sheetRow, sheetCol, content);
+      } else {
+        this.builder.set(sheetCol, sheetRow, content);
+      }
+    }
+    
+    private String get(final int sheetCol, final int sheetRow) {
+      if (XlsxStringMatrixReader.this.transposed) {
+        return this.builder.get(sheetRow, sheetCol);
+      } else {
+        return this.builder.get(sheetCol, sheetRow);
+      }
+    }
+    
+    /**
+     * Fill in the merged ranges and return the finished grid.
+     */
+    SnapshotStringMatrixReader build() {
+      for (int i = 0; i < this.mergedRanges.size(); i++) {
+        final String range = (String) this.mergedRanges.get(i);
+        final int colon = range.indexOf(':');
+        final int[] topLeft = parseReference((colon < 0) ? range : range.substring(0, colon));
+        final int[] bottomRight = parseReference((colon < 0) ? range : range.substring(colon + 1));
+        if ((topLeft == null) || (bottomRight == null)) {
+          log.warn("Ignoring malformed merged range '" + range + "'");
+          continue;
+        }
+        final String content = get(topLeft[0], topLeft[1]);
+        for (int c = topLeft[0]; c <= bottomRight[0]; c++) {
+          for (int r = topLeft[1]; r <= bottomRight[1]; r++) {
+            set(c, r, content);
+          }
+        }
+      }
+      return this.builder.build();
+    }
+  }
+}
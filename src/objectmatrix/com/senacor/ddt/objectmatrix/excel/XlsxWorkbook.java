@@ -0,0 +1,533 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.excel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.senacor.ddt.objectmatrix.MatrixReadFailedException;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * A Microsoft Excel 2007+ workbook (.xlsx, Office Open XML) that is read using nothing but the JDK: The file is opened
+ * as a {@link ZipFile} and its XML parts are streamed through a SAX parser, no DOM is ever built.
+ * <p>
+ * Opening a workbook reads only the workbook-wide parts: the list of sheets, the cell styles (to tell dates from plain
+ * numbers) and the shared strings table, which is loaded exactly once. The sheets themselves are parsed by
+ * {@link XlsxStringMatrixReader}, one pass per sheet.
+ * <p>
+ * Instances are safe for concurrent use by several readers once constructed. Call {@link #close()} when all required
+ * sheets have been read.
+ * 
+ * @version $Id$
+ */
+public class XlsxWorkbook {
+  private static final Log log = LogFactory.getLog(XlsxWorkbook.class);
+  
+  private static final String WORKBOOK_PART = "xl/workbook.xml";
+  
+  private static final String WORKBOOK_RELATIONSHIPS_PART = "xl/_rels/workbook.xml.rels";
+  
+  private static final String DEFAULT_SHARED_STRINGS_PART = "xl/sharedStrings.xml";
+  
+  private static final String DEFAULT_STYLES_PART = "xl/styles.xml";
+  
+  private static final String[] NO_STRINGS = new String[0];
+  
+  /**
+   * Excel's serial day number of 1970-01-01 in the 1900 date system.
+   */
+  private static final int UNIX_EPOCH_SERIAL = 25569;
+  
+  /**
+   * Days between the 1900 and the 1904 date system.
+   */
+  private static final int DATE_1904_OFFSET = 1462;
+  
+  /**
+   * The first serial number after Excel's non-existent 1900-02-29.
+   */
+  private static final int FIRST_SERIAL_AFTER_LEAP_BUG = 61;
+  
+  private static final long SECONDS_PER_DAY = 24L * 60 * 60;
+  
+  private final ZipFile zip;
+  
+  private final String name;
+  
+  /**
+   * Maps sheet names to the names of their zip entries, in workbook order.
+   */
+  private final Map sheetParts = new LinkedHashMap();
+  
+  private final String[] sharedStrings;
+  
+  /**
+   * Indexed by cell style (the <code>s</code> attribute of a cell): true if the style formats numbers as dates.
+   */
+  private final boolean[] dateStyles;
+  
+  private boolean date1904;
+  
+  /**
+   * Open the given .xlsx file and read the workbook-wide parts.
+   * 
+   * @param file
+   *          a readable .xlsx file. Must not be null.
+   * @throws IOException
+   *           if the file can't be read
+   * @throws MatrixReadFailedException
+   *           if the file is not a valid .xlsx workbook
+   */
+  public XlsxWorkbook(final File file) throws IOException, MatrixReadFailedException {
+    ParamChecker.notNull("file", file);
+    this.name = file.getName();
+    this.zip = new ZipFile(file);
+    boolean success = false;
+    try {
+      log.info("Loading workbook structure of " + this.name + "...");
+      final Map relationships = new HashMap();
+      parse(WORKBOOK_RELATIONSHIPS_PART, new RelationshipsHandler(relationships), true);
+      parse(WORKBOOK_PART, new WorkbookHandler(relationships), true);
+      
+      final List strings = new ArrayList();
+      parse(findPart(relationships, "/sharedStrings", DEFAULT_SHARED_STRINGS_PART), new SharedStringsHandler(strings),
+          false);
+      this.sharedStrings = (String[]) strings.toArray(NO_STRINGS);
+      
+      final StylesHandler styles = new StylesHandler();
+      parse(findPart(relationships, "/styles", DEFAULT_STYLES_PART), styles, false);
+      this.dateStyles = styles.getDateStyles();
+      log.info("Loading workbook structure of " + this.name + "... done. Found " + this.sheetParts.size()
+          + " sheets and " + this.sharedStrings.length + " shared strings.");
+      success = true;
+    } finally {
+      if (!success) {
+        this.zip.close();
+      }
+    }
+  }
+  
+  /**
+   * @return the names of all sheets, in workbook order
+   */
+  public String[] getSheetNames() {
+    return (String[]) this.sheetParts.keySet().toArray(NO_STRINGS);
+  }
+  
+  /**
+   * Close the underlying file. Readers that have already been created remain usable.
+   * 
+   * @throws IOException
+   *           if closing fails
+   */
+  public void close() throws IOException {
+    this.zip.close();
+  }
+  
+  /**
+   * Stream the XML of the given sheet through the given handler.
+   */
+  void parseSheet(final String sheetName, final DefaultHandler handler) throws IOException {
+    final String part = (String) this.sheetParts.get(sheetName);
+    if (part == null) {
+      throw new IllegalArgumentException("Could not find sheet named '" + sheetName + "'.");
+    }
+    parse(part, handler, true);
+  }
+  
+  /**
+   * @param index
+   *          index into the shared strings table
+   * @return the shared string
+   */
+  String getSharedString(final int index) {
+    if ((index < 0) || (index >= this.sharedStrings.length)) {
+      throw new MatrixReadFailedException("Shared string index " + index + " out of range in " + this.name);
+    }
+    return this.sharedStrings[index];
+  }
+  
+  /**
+   * @param style
+   *          the style index of a cell
+   * @return true if numbers in cells with this style are dates
+   */
+  boolean isDateStyle(final int style) {
+    return (style >= 0) && (style < this.dateStyles.length) && this.dateStyles[style];
+  }
+  
+  /**
+   * Convert an Excel serial date number into a Date, interpreting it as GMT just like JExcel does.
+   * 
+   * @param serial
+   *          days since the start of the workbook's date system, the fraction being the time of day
+   * @return the date
+   */
+  Date toDate(final double serial) {
+    double days = serial;
+    if ((days >= 1) || (days <= -1)) {
+      if (this.date1904) {
+        days += DATE_1904_OFFSET;
+      } else if (days < FIRST_SERIAL_AFTER_LEAP_BUG) {
+        // Excel believes 1900 was a leap year
+        days += 1;
+      }
+      days -= UNIX_EPOCH_SERIAL;
+    }
+    // values without a day part are plain times of day, which JExcel places on 1970-01-01.
+    // like JExcel, round to full seconds to get rid of floating point noise
+    return new Date(Math.round(days * SECONDS_PER_DAY) * 1000);
+  }
+  
+  /**
+   * @return the file name of the workbook
+   */
+  String getName() {
+    return this.name;
+  }
+  
+  private String findPart(final Map relationships, final String typeSuffix, final String defaultPart) {
+    final String part = (String) relationships.get(typeSuffix);
+    return (part == null) ? defaultPart : part;
+  }
+  
+  private void parse(final String part, final DefaultHandler handler, final boolean required) throws IOException {
+    final ZipEntry entry = this.zip.getEntry(part);
+    if (entry == null) {
+      if (required) {
+        throw new MatrixReadFailedException("Missing part '" + part + "' in " + this.name
+            + ". Is this really an .xlsx file?");
+      }
+      return;
+    }
+    final InputStream in = this.zip.getInputStream(entry);
+    try {
+      newParser().parse(new InputSource(in), handler);
+    } catch (final SAXException e) {
+      throw new MatrixReadFailedException("Failed to parse part '" + part + "' in " + this.name, e);
+    } finally {
+      in.close();
+    }
+  }
+  
+  private static SAXParser newParser() {
+    final SAXParserFactory factory = SAXParserFactory.newInstance();
+    factory.setNamespaceAware(false);
+    factory.setValidating(false);
+    try {
+      // workbooks never contain a DTD, so refuse to resolve any
+      factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+    } catch (final Exception e) {
+      log.debug("XML parser does not support disallowing DTDs, continuing without.");
+    }
+    try {
+      return factory.newSAXParser();
+    } catch (final ParserConfigurationException e) {
+      throw new MatrixReadFailedException("Could not create XML parser", e);
+    } catch (final SAXException e) {
+      throw new MatrixReadFailedException("Could not create XML parser", e);
+    }
+  }
+  
+  /**
+   * Strip any namespace prefix, since the parser is not namespace-aware and prefixes vary between producers.
+   */
+  static String localName(final String qName) {
+    return qName.substring(qName.indexOf(':') + 1);
+  }
+  
+  /**
+   * Get an attribute by its local name, ignoring its namespace prefix.
+   */
+  static String attribute(final Attributes attributes, final String localName) {
+    for (int i = 0; i < attributes.getLength(); i++) {
+      if (localName.equals(localName(attributes.getQName(i)))) {
+        return attributes.getValue(i);
+      }
+    }
+    return null;
+  }
+  
+  /**
+   * Resolve a relationship target relative to the <code>xl/</code> folder.
+   */
+  private static String resolvePart(final String target) {
+    if (target.startsWith("/")) {
+      return target.substring(1);
+    } else {
+      return "xl/" + target;
+    }
+  }
+  
+  /**
+   * Decide whether an Excel number format code formats dates or times. Quoted text, escaped and padding characters and
+   * bracketed sections like colors or locales are ignored, elapsed time sections like <code>[h]</code> count as
+   * time. Only the first section of the format (the one for positive numbers) is looked at.
+   * 
+   * @param formatCode
+   *          the format code, e.g. <code>dd.mm.yyyy</code>
+   * @return true if the format shows a date or a time
+   */
+  static boolean isDateFormatCode(final String formatCode) {
+    boolean quoted = false;
+    for (int i = 0; i < formatCode.length(); i++) {
+      final char c = formatCode.charAt(i);
+      if (quoted) {
+        quoted = (c != '"');
+      } else if (c == '"') {
+        quoted = true;
+      } else if ((c == '\\') || (c == '_') || (c == '*')) {
+        i++; // skip the next character
+      } else if (c == '[') {
+        final int end = formatCode.indexOf(']', i);
+        if (end < 0) {
+          return false;
+        }
+        if (isElapsedTime(formatCode.substring(i + 1, end))) {
+          return true;
+        }
+        i = end;
+      } else if (c == ';') {
+        return false;
+      } else {
+        switch (Character.toLowerCase(c)) {
+        case 'y':
+        case 'm':
+        case 'd':
+        case 'h':
+        case 's':
+          return true;
+        default:
+          break;
+        }
+      }
+    }
+    return false;
+  }
+  
+  private static boolean isElapsedTime(final String bracketedSection) {
+    if (bracketedSection.length() == 0) {
+      return false;
+    }
+    final String lower = bracketedSection.toLowerCase();
+    for (int i = 0; i < lower.length(); i++) {
+      if ("hms".indexOf(lower.charAt(i)) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * @param numberFormatId
+   *          a built-in number format id
+   * @return true if the built-in format is a date or time format
+   */
+  static boolean isBuiltInDateFormat(final int numberFormatId) {
+    return ((numberFormatId >= 14) && (numberFormatId <= 22)) || ((numberFormatId >= 27) && (numberFormatId <= 36))
+        || ((numberFormatId >= 45) && (numberFormatId <= 47)) || ((numberFormatId >= 50) && (numberFormatId <= 58));
+  }
+  
+  /**
+   * Reads <code>xl/_rels/workbook.xml.rels</code>, mapping relationship ids to parts. Parts that exist only once per
+   * workbook (shared strings, styles) are additionally mapped by the last segment of their type.
+   */
+  private static class RelationshipsHandler extends DefaultHandler {
+    private final Map relationships;
+    
+    RelationshipsHandler(final Map relationships) {
+      this.relationships = relationships;
+    }
+    
+    public void startElement(final String uri, final String localName, final String qName,
+        final Attributes attributes) {
+      if ("Relationship".equals(localName(qName))) {
+        final String id = attribute(attributes, "Id");
+        final String target = attribute(attributes, "Target");
+        final String type = attribute(attributes, "Type");
+        if ((id != null) && (target != null)) {
+          final String part = resolvePart(target);
+          this.relationships.put(id, part);
+          if (type != null) {
+            this.relationships.put(type.substring(type.lastIndexOf('/')), part);
+          }
+        }
+      }
+    }
+  }
+  
+  /**
+   * Reads <code>xl/workbook.xml</code>: the sheets and the date system.
+   */
+  private class WorkbookHandler extends DefaultHandler {
+    private final Map relationships;
+    
+    WorkbookHandler(final Map relationships) {
+      this.relationships = relationships;
+    }
+    
+    public void startElement(final String uri, final String localName, final String qName,
+        final Attributes attributes) {
+      final String element = localName(qName);
+      if ("sheet".equals(element)) {
+        final String sheetName = attribute(attributes, "name");
+        final String part = (String) this.relationships.get(attribute(attributes, "id"));
+        if ((sheetName != null) && (part != null)) {
+          XlsxWorkbook.this.sheetParts.put(sheetName, part);
+        }
+      } else if ("workbookPr".equals(element)) {
+        final String date1904 = attribute(attributes, "date1904");
+        XlsxWorkbook.this.date1904 = "1".equals(date1904) || "true".equalsIgnoreCase(date1904);
+      }
+    }
+  }
+  
+  /**
+   * Reads the shared strings table. Each <code>si</code> element is one string, which may be split into several
+   * formatted runs. Phonetic hints are ignored.
+   */
+  private static class SharedStringsHandler extends DefaultHandler {
+    private final List strings;
+    
+    private final StringBuffer text = new StringBuffer();
+    
+    private boolean inText;
+    
+    private boolean inPhonetic;
+    
+    SharedStringsHandler(final List strings) {
+      this.strings = strings;
+    }
+    
+    public void startElement(final String uri, final String localName, final String qName,
+        final Attributes attributes) {
+      final String element = localName(qName);
+      if ("si".equals(element)) {
+        this.text.setLength(0);
+      } else if ("rPh".equals(element)) {
+        this.inPhonetic = true;
+      } else if ("t".equals(element)) {
+        this.inText = !this.inPhonetic;
+      }
+    }
+    
+    public void endElement(final String uri, final String localName, final String qName) {
+      final String element = localName(qName);
+      if ("si".equals(element)) {
+        this.strings.add(this.text.toString());
+      } else if ("rPh".equals(element)) {
+        this.inPhonetic = false;
+      } else if ("t".equals(element)) {
+        this.inText = false;
+      }
+    }
+    
+    public void characters(final char[] ch, final int start, final int length) {
+      if (this.inText) {
+        this.text.append(ch, start, length);
+      }
+    }
+  }
+  
+  /**
+   * Reads the number formats and cell styles from <code>xl/styles.xml</code> to find out which styles are dates.
+   */
+  private static class StylesHandler extends DefaultHandler {
+    private final Map customFormats = new HashMap();
+    
+    private final List styleFormatIds = new ArrayList();
+    
+    private boolean inCellStyles;
+    
+    public void startElement(final String uri, final String localName, final String qName,
+        final Attributes attributes) {
+      final String element = localName(qName);
+      if ("numFmt".equals(element)) {
+        final String id = attribute(attributes, "numFmtId");
+        final String code = attribute(attributes, "formatCode");
+        if ((id != null) && (code != null)) {
+          this.customFormats.put(id, code);
+        }
+      } else if ("cellXfs".equals(element)) {
+        this.inCellStyles = true;
+      } else if ("xf".equals(element) && this.inCellStyles) {
+        final String id = attribute(attributes, "numFmtId");
+        this.styleFormatIds.add((id == null) ? "0" : id);
+      }
+    }
+    
+    public void endElement(final String uri, final String localName, final String qName) {
+      if ("cellXfs".equals(localName(qName))) {
+        this.inCellStyles = false;
+      }
+    }
+    
+    boolean[] getDateStyles() {
+      final boolean[] result = new boolean[this.styleFormatIds.size()];
+      for (int i = 0; i < result.length; i++) {
+        final String id = (String) this.styleFormatIds.get(i);
+        final String customCode = (String) this.customFormats.get(id);
+        if (customCode != null) {
+          result[i] = isDateFormatCode(customCode);
+        } else {
+          try {
+            result[i] = isBuiltInDateFormat(Integer.parseInt(id));
+          } catch (final NumberFormatException e) {
+            result[i] = false;
+          }
+        }
+      }
+      return result;
+    }
+  }
+}
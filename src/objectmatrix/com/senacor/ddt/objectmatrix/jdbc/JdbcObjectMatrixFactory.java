@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.ObjectMatrixCreationFailedException;
+import com.senacor.ddt.objectmatrix.ObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * An {@link ObjectMatrixFactory} implementation that creates ObjectMatrices based on {@link JdbcStringMatrixReader},
+ * i.e. using the results of SQL queries as datasource. Each query yields one matrix, each row of its result one test
+ * case.
+ * <p>
+ * A connection is taken from the DataSource for each query and closed as soon as the result has been read. The
+ * statements are forward-only and read-only, and the number of rows fetched from the database at once can be set with
+ * {@link #setFetchSize(int)}.
+ * 
+ * @version $Id$
+ */
+public class JdbcObjectMatrixFactory extends AbstractDefaultStringMatrixBasedObjectMatrixFactory {
+  private static final Log log = LogFactory.getLog(JdbcObjectMatrixFactory.class);
+  
+  private final DataSource dataSource;
+  
+  private final String[] queries;
+  
+  private final String[] identifier;
+  
+  private int fetchSize = 0;
+  
+  private String nameColumn = null;
+  
+  private Map columnPaths = null;
+  
+  /**
+   * Construct a JdbcObjectMatrixFactory from one or more queries.
+   * 
+   * @param dataSource
+   *          The DataSource to take the connections from. Must not be null.
+   * @param queries
+   *          One or more SQL queries. Must not be null or empty.
+   * @param identifier
+   *          The identifiers of the given queries. Must be of the exact same length as queries.
+   */
+  public JdbcObjectMatrixFactory(final DataSource dataSource, final String[] queries, final String[] identifier) {
+    ParamChecker.notNull("dataSource", dataSource);
+    ParamChecker.notBlankAnywhere("queries", queries);
+    ParamChecker.notNullAnywhere("identifier", identifier);
+    ParamChecker.require("queries[] and identifier[] must have the same length", queries.length == identifier.length);
+    this.dataSource = dataSource;
+    this.queries = queries;
+    this.identifier = identifier;
+  }
+  
+  /**
+   * Construct a JdbcObjectMatrixFactory from a single query.
+   * 
+   * @see #JdbcObjectMatrixFactory(DataSource, String[], String[])
+   */
+  public JdbcObjectMatrixFactory(final DataSource dataSource, final String query, final String identifier) {
+    this(dataSource, new String[] { query }, new String[] { identifier });
+  }
+  
+  /**
+   * Number of rows to fetch from the database at once. Defaults to 0, i.e. the driver's default.
+   * 
+   * @param fetchSize
+   *          number of rows, at least 0
+   * @return <code>this</code>, for method chaining
+   * @see Statement#setFetchSize(int)
+   */
+  public JdbcObjectMatrixFactory setFetchSize(final int fetchSize) {
+    ParamChecker.require("fetchSize must not be negative", fetchSize >= 0);
+    this.fetchSize = fetchSize;
+    return this;
+  }
+  
+  /**
+   * The label of the database column holding the test case names. If not set, the test cases are named
+   * "row <i>n</i>".
+   * 
+   * @param nameColumn
+   *          The label, or null.
+   * @return <code>this</code>, for method chaining
+   */
+  public JdbcObjectMatrixFactory setNameColumn(final String nameColumn) {
+    this.nameColumn = nameColumn;
+    return this;
+  }
+  
+  /**
+   * Map database columns to row titles, e.g. BeanFiller paths. Columns that are not mapped keep their label.
+   * 
+   * @param columnPaths
+   *          Map<String, String> from column label to row title. May be null. The map is copied.
+   * @return <code>this</code>, for method chaining
+   */
+  public JdbcObjectMatrixFactory setColumnPaths(final Map columnPaths) {
+    this.columnPaths = (columnPaths == null) ? null : new HashMap(columnPaths);
+    return this;
+  }
+  
+  public StringMatrixReader[] createReaders() {
+    final StringMatrixReader[] readers = new StringMatrixReader[this.queries.length];
+    for (int i = 0; i < this.queries.length; i++) {
+      try {
+        readers[i] = createReader(this.queries[i], this.identifier[i]);
+      } catch (final SQLException e) {
+        throw new ObjectMatrixCreationFailedException("Error creating JDBC ObjectMatrix " + this.identifier[i], e);
+      }
+    }
+    return readers;
+  }
+  
+  /**
+   * The rows come from a database rather than from a cached source file, so they are never cached.
+   * 
+   * @return null
+   * @see com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory#getCacheKey()
+   */
+  protected String getCacheKey() {
+    return null;
+  }
+  
+  private StringMatrixReader createReader(final String query, final String matrixIdentifier) throws SQLException {
+    log.debug("Running query for " + matrixIdentifier + ": " + query);
+    final Connection connection = this.dataSource.getConnection();
+    try {
+      final Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      try {
+        statement.setFetchSize(this.fetchSize);
+        final ResultSet resultSet = statement.executeQuery(query);
+        try {
+          return new JdbcStringMatrixReader(resultSet, this.nameColumn, this.columnPaths, matrixIdentifier,
+              getColumnProjection());
+        } finally {
+          resultSet.close();
+        }
+      } finally {
+        statement.close();
+      }
+    } finally {
+      connection.close();
+    }
+  }
+}
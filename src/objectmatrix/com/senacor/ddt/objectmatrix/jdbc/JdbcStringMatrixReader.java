@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.DateFormat;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.objectmatrix.ColumnProjection;
+import com.senacor.ddt.objectmatrix.HeapEstimate;
+import com.senacor.ddt.objectmatrix.HeapEstimating;
+import com.senacor.ddt.objectmatrix.MatrixReadFailedException;
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
+import com.senacor.ddt.objectmatrix.StringMatrix;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * A StringMatrixReader implementation that reads the rows of a JDBC ResultSet. Each database row becomes a column of
+ * the matrix, i.e. a test case, titled with the value of the name column. Each other database column becomes a row,
+ * titled with its label or the path it is mapped to, e.g. <code>CUSTOMER_NAME</code> to
+ * <code>customer.name</code>.
+ * <p>
+ * The result set is read once, front to back, and the values are put straight into the columnar store of a
+ * {@link SnapshotStringMatrixReader}. Numbers and dates are formatted as specified by
+ * {@link StringMatrix#FORMAT_NUMBER} and {@link StringMatrix#FORMAT_DATE}, SQL <code>NULL</code> becomes an empty
+ * cell.
+ * 
+ * @version $Id$
+ */
+public class JdbcStringMatrixReader implements StringMatrixReader, HeapEstimating {
+  private static final Log log = LogFactory.getLog(JdbcStringMatrixReader.class);
+  
+  private final SnapshotStringMatrixReader cells;
+  
+  private final String identifier;
+  
+  /**
+   * Read all rows of the given result set, using the labels of the database columns as row titles.
+   * 
+   * @param resultSet
+   *          The result set, positioned before the first row. Must not be null. It is read to the end but not closed.
+   * @param nameColumn
+   *          The label of the database column holding the test case names. It does not become a row. If null, the test
+   *          cases are named "row <i>n</i>".
+   * @param identifier
+   *          An arbitrary identifier for the StringMatrix ({@link StringMatrix#getMatrixIdentifier()}). Must not be
+   *          null.
+   * @throws SQLException
+   *           if reading the result set fails
+   */
+  public JdbcStringMatrixReader(final ResultSet resultSet, final String nameColumn, final String identifier)
+      throws SQLException {
+    this(resultSet, nameColumn, null, identifier, null);
+  }
+  
+  /**
+   * Read all rows of the given result set, keeping only the columns selected by the given projection.
+   * 
+   * @param resultSet
+   *          The result set, positioned before the first row. Must not be null. It is read to the end but not closed.
+   * @param nameColumn
+   *          The label of the database column holding the test case names. It does not become a row. If null, the test
+   *          cases are named "row <i>n</i>".
+   * @param columnPaths
+   *          Map<String, String> from database column labels to the row titles to use instead, e.g. BeanFiller paths.
+   *          Labels are compared ignoring case. Columns that are not mapped keep their label. May be null.
+   * @param identifier
+   *          An arbitrary identifier for the StringMatrix ({@link StringMatrix#getMatrixIdentifier()}). Must not be
+   *          null.
+   * @param projection
+   *          The test cases to keep. If null, all are kept.
+   * @throws SQLException
+   *           if reading the result set fails
+   */
+  public JdbcStringMatrixReader(final ResultSet resultSet, final String nameColumn, final Map columnPaths,
+      final String identifier, final ColumnProjection projection) throws SQLException {
+    ParamChecker.notNull("resultSet", resultSet);
+    ParamChecker.notNull("identifier", identifier);
+    this.identifier = identifier;
+    
+    final ResultSetMetaData metaData = resultSet.getMetaData();
+    final int columnCount = metaData.getColumnCount();
+    // the matrix row of each database column, or 0 for the name column
+    final int[] rows = new int[columnCount + 1];
+    final int[] types = new int[columnCount + 1];
+    int nameIndex = 0;
+    final SnapshotStringMatrixReader.Builder builder = new SnapshotStringMatrixReader.Builder(identifier);
+    builder.set(0, 0, "");
+    int rowCount = 0;
+    for (int i = 1; i <= columnCount; i++) {
+      final String label = metaData.getColumnLabel(i);
+      types[i] = metaData.getColumnType(i);
+      if ((nameColumn != null) && nameColumn.equalsIgnoreCase(label)) {
+        nameIndex = i;
+      } else {
+        rows[i] = ++rowCount;
+        builder.set(0, rows[i], getRowTitle(label, columnPaths));
+      }
+    }
+    if ((nameColumn != null) && (nameIndex == 0)) {
+      throw new MatrixReadFailedException("Name column '" + nameColumn + "' not found in " + identifier);
+    }
+    
+    final NumberFormat numberFormat = newNumberFormat();
+    final DateFormat dateFormat = new SimpleDateFormat(StringMatrix.FORMAT_DATE);
+    int column = 0;
+    while (resultSet.next()) {
+      column++;
+      for (int i = 1; i <= columnCount; i++) {
+        final String value = getValue(resultSet, i, types[i], numberFormat, dateFormat);
+        if (i == nameIndex) {
+          builder.set(column, 0, value);
+        } else {
+          builder.set(column, rows[i], value);
+        }
+      }
+      if (nameIndex == 0) {
+        builder.set(column, 0, "row " + column);
+      }
+    }
+    
+    final SnapshotStringMatrixReader allCells = builder.build();
+    if (projection == null) {
+      this.cells = allCells;
+    } else {
+      this.cells = allCells.selectColumns(projection.selectColumns(allCells));
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Loaded " + column + " database rows with " + columnCount + " columns into " + identifier
+          + (this.cells.isSparse() ? ", stored sparsely." : "."));
+    }
+  }
+  
+  private static String getRowTitle(final String label, final Map columnPaths) {
+    if (columnPaths != null) {
+      if (columnPaths.containsKey(label)) {
+        return (String) columnPaths.get(label);
+      }
+      final Iterator iter = columnPaths.entrySet().iterator();
+      while (iter.hasNext()) {
+        final Map.Entry entry = (Map.Entry) iter.next();
+        if (label.equalsIgnoreCase((String) entry.getKey())) {
+          return (String) entry.getValue();
+        }
+      }
+    }
+    return label;
+  }
+  
+  private static String getValue(final ResultSet resultSet, final int index, final int type,
+      final NumberFormat numberFormat, final DateFormat dateFormat) throws SQLException {
+    switch (type) {
+      case Types.DECIMAL:
+      case Types.NUMERIC:
+      case Types.DOUBLE:
+      case Types.FLOAT:
+      case Types.REAL:
+        final BigDecimal number = resultSet.getBigDecimal(index);
+        return (number == null) ? "" : numberFormat.format(number);
+      case Types.DATE:
+      case Types.TIME:
+      case Types.TIMESTAMP:
+        final Timestamp date = resultSet.getTimestamp(index);
+        return (date == null) ? "" : dateFormat.format(date);
+      default:
+        final String string = resultSet.getString(index);
+        return (string == null) ? "" : string;
+    }
+  }
+  
+  private static NumberFormat newNumberFormat() {
+    final DecimalFormat numberFormat = new DecimalFormat(StringMatrix.FORMAT_NUMBER);
+    // US symbols, so the decimal point is always "."
+    numberFormat.setDecimalFormatSymbols(new DecimalFormatSymbols(Locale.US));
+    numberFormat.setDecimalSeparatorAlwaysShown(false);
+    return numberFormat;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getString(int, int)
+   */
+  public String getString(final int colIndex, final int rowIndex) throws IndexOutOfBoundsException {
+    return this.cells.getString(colIndex, rowIndex);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfRows()
+   */
+  public int getNumberOfRows() {
+    return this.cells.getNumberOfRows();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfColumns()
+   */
+  public int getNumberOfColumns() {
+    return this.cells.getNumberOfColumns();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getIdentifier()
+   */
+  public String getIdentifier() {
+    return this.identifier;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.HeapEstimating#estimateRetainedBytes(com.senacor.ddt.objectmatrix.HeapEstimate)
+   */
+  public void estimateRetainedBytes(final HeapEstimate estimate) {
+    this.cells.estimateRetainedBytes(estimate);
+  }
+}
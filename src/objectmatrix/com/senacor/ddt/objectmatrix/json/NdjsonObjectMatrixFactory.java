@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.ObjectMatrixCreationFailedException;
+import com.senacor.ddt.objectmatrix.ObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * An {@link ObjectMatrixFactory} implementation that creates ObjectMatrices based on {@link NdjsonStringMatrixReader},
+ * i.e. using JSON lines with one object per test case as datasource.
+ * 
+ * @version $Id$
+ */
+public class NdjsonObjectMatrixFactory extends AbstractDefaultStringMatrixBasedObjectMatrixFactory {
+  private final Reader[] input;
+  
+  private final String[] identifier;
+  
+  private String nameKey = NdjsonStringMatrixReader.DEFAULT_NAME_KEY;
+  
+  /**
+   * Construct an NdjsonObjectMatrixFactory from one or more inputs.
+   * 
+   * @param input
+   *          One or more Reader instances providing JSON lines. Must not be null or empty.
+   * @param identifier
+   *          The identifiers of the given inputs. Must be of the exact same length as input.
+   */
+  public NdjsonObjectMatrixFactory(final Reader[] input, final String[] identifier) {
+    ParamChecker.notNullAnywhere("input", input);
+    ParamChecker.notNullAnywhere("identifier", identifier);
+    ParamChecker.require("input[] and identifier[] must have the same length", input.length == identifier.length);
+    this.input = input;
+    this.identifier = identifier;
+  }
+  
+  /**
+   * Construct an NdjsonObjectMatrixFactory from a single input.
+   * 
+   * @see #NdjsonObjectMatrixFactory(Reader[], String[])
+   */
+  public NdjsonObjectMatrixFactory(final Reader input, final String identifier) {
+    this(new Reader[] { input }, new String[] { identifier });
+  }
+  
+  /**
+   * The top-level key holding the name of the test case. Defaults to
+   * {@link NdjsonStringMatrixReader#DEFAULT_NAME_KEY}.
+   * 
+   * @param nameKey
+   *          The key. Must not be blank.
+   * @return <code>this</code>, for method chaining
+   */
+  public NdjsonObjectMatrixFactory setNameKey(final String nameKey) {
+    ParamChecker.notBlank("nameKey", nameKey);
+    this.nameKey = nameKey;
+    return this;
+  }
+  
+  public StringMatrixReader[] createReaders() {
+    try {
+      final StringMatrixReader[] readers = new StringMatrixReader[this.input.length];
+      for (int i = 0; i < this.input.length; i++) {
+        readers[i] =
+            new NdjsonStringMatrixReader(this.input[i], this.nameKey, this.identifier[i], getColumnProjection());
+      }
+      return readers;
+    } catch (final IOException e) {
+      throw new ObjectMatrixCreationFailedException("Error creating JSON lines ObjectMatrix", e);
+    }
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory#getCacheKey()
+   */
+  protected String getCacheKey() {
+    return "identifiers=" + Arrays.asList(this.identifier) + ";nameKey=" + this.nameKey;
+  }
+}
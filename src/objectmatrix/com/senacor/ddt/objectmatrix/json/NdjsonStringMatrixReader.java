@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.senacor.ddt.objectmatrix.ColumnProjection;
+import com.senacor.ddt.objectmatrix.EmbeddedAnnotationMatrixDecorator;
+import com.senacor.ddt.objectmatrix.HeapEstimate;
+import com.senacor.ddt.objectmatrix.HeapEstimating;
+import com.senacor.ddt.objectmatrix.MatrixReadFailedException;
+import com.senacor.ddt.objectmatrix.ObjectMatrix;
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
+import com.senacor.ddt.objectmatrix.StringMatrix;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+
+/**
+ * A StringMatrixReader implementation that reads JSON lines (NDJSON), i.e. a sequence of JSON objects, usually one per
+ * line. Each object becomes a column, titled with the value of its name key (see
+ * {@link #NdjsonStringMatrixReader(Reader, String, String, ColumnProjection)}), or "line <i>n</i>" if it has none.
+ * <p>
+ * Nested objects and arrays are flattened into the paths understood by the BeanFiller, each of which becomes a row:
+ * 
+ * <pre>
+ * {"testCase": "test1", "bean": {"list": [{"name": "a"}], "count": 2}}
+ * </pre>
+ * 
+ * yields the column "test1" with the rows "bean.list[0].name" and "bean.count". Strings are unescaped, numbers and
+ * booleans are taken as written, and <code>null</code> becomes the annotation "~null". Strings may contain annotations
+ * just like the cells of a CSV file. The rows appear in the order in which their paths are first encountered.
+ * <p>
+ * The input is parsed in a single pass by a small tokenizer, without building a document tree. Apart from the cells,
+ * only the entries of the current object are held in memory.
+ * 
+ * @version $Id$
+ */
+public class NdjsonStringMatrixReader implements StringMatrixReader, HeapEstimating {
+  private static final Log log = LogFactory.getLog(NdjsonStringMatrixReader.class);
+  
+  /**
+   * The key holding the name of the test case, unless another one is given.
+   */
+  public static final String DEFAULT_NAME_KEY = "testCase";
+  
+  private static final String NULL_CELL =
+      EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK + ObjectMatrix.AnnotationKeys.NULL;
+  
+  private final SnapshotStringMatrixReader cells;
+  
+  private final String identifier;
+  
+  /**
+   * Read the given input, taking the column titles from {@link #DEFAULT_NAME_KEY}.
+   * 
+   * @param input
+   *          A Reader providing the JSON lines. Must not be null. It is read to the end but not closed.
+   * @param identifier
+   *          An arbitrary identifier for the StringMatrix ({@link StringMatrix#getMatrixIdentifier()}). Must not be
+   *          null.
+   * @throws IOException
+   *           If the input cannot be read.
+   * @throws MatrixReadFailedException
+   *           If the input is not valid JSON or contains something other than objects at the top level.
+   */
+  public NdjsonStringMatrixReader(final Reader input, final String identifier) throws IOException,
+      MatrixReadFailedException {
+    this(input, DEFAULT_NAME_KEY, identifier, null);
+  }
+  
+  /**
+   * Read the given input, keeping only the columns selected by the given projection.
+   * 
+   * @param input
+   *          A Reader providing the JSON lines. Must not be null. It is read to the end but not closed.
+   * @param nameKey
+   *          The top-level key holding the name of the test case. It does not become a row. Must not be blank.
+   * @param identifier
+   *          An arbitrary identifier for the StringMatrix ({@link StringMatrix#getMatrixIdentifier()}). Must not be
+   *          null.
+   * @param projection
+   *          The columns to keep. If null, all columns are kept.
+   * @throws IOException
+   *           If the input cannot be read.
+   * @throws MatrixReadFailedException
+   *           If the input is not valid JSON or contains something other than objects at the top level.
+   */
+  public NdjsonStringMatrixReader(final Reader input, final String nameKey, final String identifier,
+      final ColumnProjection projection) throws IOException, MatrixReadFailedException {
+    ParamChecker.notNull("input", input);
+    ParamChecker.notBlank("nameKey", nameKey);
+    ParamChecker.notNull("identifier", identifier);
+    this.identifier = identifier;
+    
+    final SnapshotStringMatrixReader allCells = new Parser(input, nameKey, identifier).parse();
+    if (projection == null) {
+      this.cells = allCells;
+    } else {
+      this.cells = allCells.selectColumns(projection.selectColumns(allCells));
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Loaded JSON lines with " + getNumberOfRows() + " rows and " + getNumberOfColumns() + " columns"
+          + (this.cells.isSparse() ? ", stored sparsely." : "."));
+    }
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getString(int, int)
+   */
+  public String getString(final int colIndex, final int rowIndex) throws IndexOutOfBoundsException {
+    return this.cells.getString(colIndex, rowIndex);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfRows()
+   */
+  public int getNumberOfRows() {
+    return this.cells.getNumberOfRows();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getNumberOfColumns()
+   */
+  public int getNumberOfColumns() {
+    return this.cells.getNumberOfColumns();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader#getIdentifier()
+   */
+  public String getIdentifier() {
+    return this.identifier;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.HeapEstimating#estimateRetainedBytes(com.senacor.ddt.objectmatrix.HeapEstimate)
+   */
+  public void estimateRetainedBytes(final HeapEstimate estimate) {
+    this.cells.estimateRetainedBytes(estimate);
+  }
+  
+  /**
+   * Recursive descent parser that reads the input through a small buffer and writes the values of each object into a
+   * column of the builder.
+   */
+  private static class Parser {
+    private static final int EOF = -1;
+    
+    private final Reader input;
+    
+    private final String nameKey;
+    
+    private final char[] buffer = new char[8192];
+    
+    private int position = 0;
+    
+    private int limit = 0;
+    
+    private int line = 1;
+    
+    private final SnapshotStringMatrixReader.Builder builder;
+    
+    /**
+     * Map<String, Integer> from path to row index.
+     */
+    private final Map rows = new HashMap();
+    
+    /**
+     * The path of the value being parsed.
+     */
+    private final StringBuffer path = new StringBuffer();
+    
+    /**
+     * Reused for strings and numbers.
+     */
+    private final StringBuffer token = new StringBuffer();
+    
+    /**
+     * Paths and values of the current object.
+     */
+    private final List paths = new ArrayList();
+    
+    private final List values = new ArrayList();
+    
+    Parser(final Reader input, final String nameKey, final String identifier) {
+      this.input = input;
+      this.nameKey = nameKey;
+      this.builder = new SnapshotStringMatrixReader.Builder(identifier);
+      this.builder.set(0, 0, "");
+    }
+    
+    SnapshotStringMatrixReader parse() throws IOException {
+      int column = 1;
+      while (skipWhitespace() != EOF) {
+        final int objectLine = this.line;
+        expect('{');
+        parseObject();
+        addColumn(column++, objectLine);
+      }
+      return this.builder.build();
+    }
+    
+    private void addColumn(final int column, final int objectLine) {
+      String title = "line " + objectLine;
+      for (int i = 0; i < this.paths.size(); i++) {
+        final String key = (String) this.paths.get(i);
+        if (this.nameKey.equals(key)) {
+          title = (String) this.values.get(i);
+          continue;
+        }
+        Integer row = (Integer) this.rows.get(key);
+        if (row == null) {
+          row = new Integer(this.rows.size() + 1);
+          this.rows.put(key, row);
+          this.builder.set(0, row.intValue(), key);
+        }
+        this.builder.set(column, row.intValue(), (String) this.values.get(i));
+      }
+      this.builder.set(column, 0, title);
+      this.paths.clear();
+      this.values.clear();
+    }
+    
+    /**
+     * Parse the members of an object whose opening brace has been read.
+     */
+    private void parseObject() throws IOException {
+      if (skipWhitespace() == '}') {
+        read();
+        return;
+      }
+      while (true) {
+        skipWhitespace();
+        expect('"');
+        final String key = parseString();
+        skipWhitespace();
+        expect(':');
+        final int length = this.path.length();
+        if (length > 0) {
+          this.path.append('.');
+        }
+        this.path.append(key);
+        parseValue();
+        this.path.setLength(length);
+        if (skipWhitespace() == ',') {
+          read();
+        } else {
+          expect('}');
+          return;
+        }
+      }
+    }
+    
+    /**
+     * Parse the elements of an array whose opening bracket has been read.
+     */
+    private void parseArray() throws IOException {
+      if (skipWhitespace() == ']') {
+        read();
+        return;
+      }
+      for (int index = 0; true; index++) {
+        final int length = this.path.length();
+        this.path.append('[').append(index).append(']');
+        parseValue();
+        this.path.setLength(length);
+        if (skipWhitespace() == ',') {
+          read();
+        } else {
+          expect(']');
+          return;
+        }
+      }
+    }
+    
+    private void parseValue() throws IOException {
+      final int c = skipWhitespace();
+      if (c == '{') {
+        read();
+        parseObject();
+      } else if (c == '[') {
+        read();
+        parseArray();
+      } else if (c == '"') {
+        read();
+        addValue(parseString());
+      } else if ((c == '-') || ((c >= '0') && (c <= '9'))) {
+        addValue(parseNumber());
+      } else if (c == 't') {
+        expectLiteral("true");
+        addValue("true");
+      } else if (c == 'f') {
+        expectLiteral("false");
+        addValue("false");
+      } else if (c == 'n') {
+        expectLiteral("null");
+        addValue(NULL_CELL);
+      } else {
+        throw error("unexpected " + describe(c));
+      }
+    }
+    
+    private void addValue(final String value) {
+      this.paths.add(this.path.toString());
+      this.values.add(value);
+    }
+    
+    /**
+     * Parse the rest of a string whose opening quote has been read.
+     */
+    private String parseString() throws IOException {
+      this.token.setLength(0);
+      while (true) {
+        final int c = read();
+        if (c == '"') {
+          return this.token.toString();
+        } else if (c == '\\') {
+          final int escaped = read();
+          switch (escaped) {
+            case '"':
+            case '\\':
+            case '/':
+              this.token.append((char) escaped);
+              break;
+            case 'b':
+              this.token.append('\b');
+              break;
+            case 'f':
+              this.token.append('\f');
+              break;
+            case 'n':
+              this.token.append('\n');
+              break;
+            case 'r':
+              this.token.append('\r');
+              break;
+            case 't':
+              this.token.append('\t');
+              break;
+            case 'u':
+              this.token.append(parseUnicodeEscape());
+              break;
+            default:
+              throw error("invalid escape sequence \\" + describe(escaped));
+          }
+        } else if ((c == EOF) || (c == '\n')) {
+          throw error("unterminated string");
+        } else {
+          this.token.append((char) c);
+        }
+      }
+    }
+    
+    private char parseUnicodeEscape() throws IOException {
+      int value = 0;
+      for (int i = 0; i < 4; i++) {
+        final int digit = Character.digit((char) read(), 16);
+        if (digit == -1) {
+          throw error("invalid unicode escape");
+        }
+        value = (value << 4) + digit;
+      }
+      return (char) value;
+    }
+    
+    private String parseNumber() throws IOException {
+      this.token.setLength(0);
+      int c = peek();
+      while ((c == '-') || (c == '+') || (c == '.') || (c == 'e') || (c == 'E') || ((c >= '0') && (c <= '9'))) {
+        this.token.append((char) read());
+        c = peek();
+      }
+      return this.token.toString();
+    }
+    
+    private void expectLiteral(final String literal) throws IOException {
+      for (int i = 0; i < literal.length(); i++) {
+        if (read() != literal.charAt(i)) {
+          throw error("expected " + literal);
+        }
+      }
+    }
+    
+    private void expect(final char expected) throws IOException {
+      final int c = read();
+      if (c != expected) {
+        throw error("expected '" + expected + "' but found " + describe(c));
+      }
+    }
+    
+    /**
+     * Skip whitespace and return the next character without consuming it.
+     */
+    private int skipWhitespace() throws IOException {
+      int c = peek();
+      while ((c == ' ') || (c == '\t') || (c == '\n') || (c == '\r')) {
+        read();
+        c = peek();
+      }
+      return c;
+    }
+    
+    private int peek() throws IOException {
+      if (this.position == this.limit) {
+        this.limit = this.input.read(this.buffer, 0, this.buffer.length);
+        this.position = 0;
+        if (this.limit <= 0) {
+          this.limit = 0;
+          return EOF;
+        }
+      }
+      return this.buffer[this.position];
+    }
+    
+    private int read() throws IOException {
+      final int c = peek();
+      if (c != EOF) {
+        this.position++;
+        if (c == '\n') {
+          this.line++;
+        }
+      }
+      return c;
+    }
+    
+    private static String describe(final int c) {
+      return (c == EOF) ? "end of input" : "'" + (char) c + "'";
+    }
+    
+    private MatrixReadFailedException error(final String message) {
+      return new MatrixReadFailedException("Invalid JSON in line " + this.line + ": " + message);
+    }
+  }
+}
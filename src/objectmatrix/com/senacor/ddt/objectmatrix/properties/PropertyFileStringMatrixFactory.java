@@ -31,11 +31,14 @@
 
 package com.senacor.ddt.objectmatrix.properties;
 
+import java.util.Arrays;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory;
 import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
 
 /**
  * FIXME: Testen. Dokumentieren.
@@ -50,6 +53,8 @@ public class PropertyFileStringMatrixFactory extends AbstractDefaultStringMatrix
   
   private final String identifier;
   
+  private int fileLoaderThreads = 1;
+  
   public PropertyFileStringMatrixFactory(final String[] fileNames, final String identifier) {
     this.fileNames = fileNames;
     this.identifier = identifier;
@@ -60,7 +65,29 @@ public class PropertyFileStringMatrixFactory extends AbstractDefaultStringMatrix
     }
   }
   
+  /**
+   * Maximum number of threads loading the property files. Defaults to 1, i.e. all files are loaded one after another
+   * by the calling thread.
+   * 
+   * @param fileLoaderThreads
+   *          number of threads, at least 1
+   * @return <code>this</code>, for method chaining
+   */
+  public PropertyFileStringMatrixFactory setFileLoaderThreads(final int fileLoaderThreads) {
+    ParamChecker.require("fileLoaderThreads must be at least 1", fileLoaderThreads >= 1);
+    this.fileLoaderThreads = fileLoaderThreads;
+    return this;
+  }
+  
   protected StringMatrixReader[] createReaders() {
-    return new StringMatrixReader[] { new PropertyFileStringMatrixReader(this.fileNames, this.identifier) };
+    return new StringMatrixReader[] { new PropertyFileStringMatrixReader(this.fileNames, this.identifier,
+        getColumnProjection(), this.fileLoaderThreads) };
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory#getCacheKey()
+   */
+  protected String getCacheKey() {
+    return "files=" + Arrays.asList(this.fileNames) + ";identifier=" + this.identifier;
   }
 }
@@ -37,136 +37,313 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.senacor.ddt.objectmatrix.ColumnProjection;
+import com.senacor.ddt.objectmatrix.HeapEstimate;
+import com.senacor.ddt.objectmatrix.HeapEstimating;
 import com.senacor.ddt.objectmatrix.MatrixReadFailedException;
 import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
 import com.senacor.ddt.util.ParamChecker;
 
 /**
- * FIXME: Testen. Dokumentieren.
+ * A StringMatrixReader that reads a set of property files from the classpath. Each file becomes a column titled with
+ * the file name, each key that has a non-empty value in at least one of the files becomes a row. The rows are sorted by
+ * key. Keys missing from a file are read as empty strings.
+ * <p>
+ * The files can be loaded by several threads. All cells are copied into an array when the reader is created, so
+ * {@link #getString(int, int)} is a plain array access and the reader is thread-safe.
  * 
  * @author Ralph Winzinger
  * @author Carl-Eric Menzel
+ * @version $Id$
  */
-public class PropertyFileStringMatrixReader implements StringMatrixReader {
+public class PropertyFileStringMatrixReader implements StringMatrixReader, HeapEstimating {
   private static final String TESTCASE_NAME_ROWNAME = "__testCaseName__";
   
   private static final Log log = LogFactory.getLog(PropertyFileStringMatrixReader.class);
   
-  private final List propertySets = new ArrayList();
+  /**
+   * The cells, indexed by column and row. Column 0 holds the keys, row 0 the file names.
+   */
+  private final String[][] cells;
   
-  private final List propertyNames = new ArrayList();
+  private final int numberOfRows;
   
   private final String identifier;
   
   public PropertyFileStringMatrixReader(final String[] fileNames, final String identifier) {
+    this(fileNames, identifier, null);
+  }
+  
+  /**
+   * Read only the files whose names are wanted by the given projection, plus the files they refer to with
+   * <code>ref</code> annotations. The other files are not opened at all.
+   * 
+   * @param fileNames
+   *          the classpath-relative names of the files, each of which becomes a column
+   * @param identifier
+   *          the identifier of the matrix
+   * @param projection
+   *          the columns to keep. If null, all files are read.
+   */
+  public PropertyFileStringMatrixReader(final String[] fileNames, final String identifier,
+      final ColumnProjection projection) {
+    this(fileNames, identifier, projection, 1);
+  }
+  
+  /**
+   * Like {@link #PropertyFileStringMatrixReader(String[], String, ColumnProjection)}, loading up to
+   * <code>threads</code> files at the same time.
+   * 
+   * @param fileNames
+   *          the classpath-relative names of the files, each of which becomes a column
+   * @param identifier
+   *          the identifier of the matrix
+   * @param projection
+   *          the columns to keep. If null, all files are read.
+   * @param threads
+   *          maximum number of threads loading files, at least 1. With 1, all files are loaded by the calling thread.
+   */
+  public PropertyFileStringMatrixReader(final String[] fileNames, final String identifier,
+      final ColumnProjection projection, final int threads) {
     ParamChecker.notBlank("identifier", identifier);
     ParamChecker.notBlankAnywhere("fileNames", fileNames);
+    ParamChecker.require("threads must be at least 1", threads >= 1);
     this.identifier = identifier;
-    for (int i = 0; i < fileNames.length; i++) {
-      final String fileName = fileNames[i];
-      this.log.info("reading '" + fileName + "' ...");
-      final Properties properties = new Properties();
-      try {
-        final InputStream is = getClass().getClassLoader().getResourceAsStream(fileName);
-        if (is == null) {
-          throw new RuntimeException("file '" + fileName + "' not found");
+    final Properties[] loaded = new Properties[fileNames.length];
+    final int poolSize = Math.min(threads, fileNames.length);
+    final ExecutorService executor = (poolSize > 1) ? Executors.newFixedThreadPool(poolSize) : null;
+    try {
+      // List<Integer>
+      List batch = new ArrayList();
+      for (int i = 0; i < fileNames.length; i++) {
+        if ((projection == null) || projection.isWanted(fileNames[i])) {
+          batch.add(new Integer(i));
+        } else {
+          log.debug("skipping '" + fileNames[i] + "' because it is not wanted");
+        }
+      }
+      while (!batch.isEmpty()) {
+        loadFiles(fileNames, batch, loaded, executor);
+        // load the files referred to by the files loaded so far
+        batch = (projection == null) ? Collections.EMPTY_LIST : findReferencedFiles(fileNames, batch, loaded);
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+    
+    // List<Properties>
+    final List columns = new ArrayList(loaded.length);
+    for (int i = 0; i < loaded.length; i++) {
+      if ((loaded[i] != null) && (loaded[i].get(TESTCASE_NAME_ROWNAME) != null)) {
+        columns.add(loaded[i]);
+      }
+    }
+    final List propertyNames = collectPropertyNames(columns);
+    this.numberOfRows = propertyNames.size() + 1;
+    this.cells = new String[columns.size() + 1][];
+    this.cells[0] = new String[this.numberOfRows];
+    this.cells[0][0] = "reserved";
+    for (int j = 1; j < this.numberOfRows; j++) {
+      this.cells[0][j] = (String) propertyNames.get(j - 1);
+    }
+    for (int i = 1; i < this.cells.length; i++) {
+      this.cells[i] = createColumn((Properties) columns.get(i - 1));
+    }
+  }
+  
+  /**
+   * Load the files at the given indices, on the executor if there is one.
+   */
+  private void loadFiles(final String[] fileNames, final List indices, final Properties[] loaded,
+      final ExecutorService executor) {
+    if ((executor == null) || (indices.size() == 1)) {
+      for (int k = 0; k < indices.size(); k++) {
+        final int i = ((Integer) indices.get(k)).intValue();
+        loaded[i] = loadFile(fileNames[i]);
+      }
+      return;
+    }
+    final Future[] results = new Future[indices.size()];
+    for (int k = 0; k < results.length; k++) {
+      final String fileName = fileNames[((Integer) indices.get(k)).intValue()];
+      results[k] = executor.submit(new Callable() {
+        public Object call() {
+          return loadFile(fileName);
+        }
+      });
+    }
+    try {
+      for (int k = 0; k < results.length; k++) {
+        loaded[((Integer) indices.get(k)).intValue()] = (Properties) results[k].get();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MatrixReadFailedException("Interrupted while reading property files", e);
+    } catch (final ExecutionException e) {
+      // rethrow the original exception, just as in the sequential case
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new MatrixReadFailedException("Failed to read property files", cause);
+      }
+    }
+  }
+  
+  /**
+   * @return the indices of the files referred to by the given files that have not been loaded yet
+   */
+  private static List findReferencedFiles(final String[] fileNames, final List indices, final Properties[] loaded) {
+    // Map<String, Integer>
+    final Map fileIndices = new HashMap();
+    for (int i = fileNames.length - 1; i >= 0; i--) {
+      fileIndices.put(fileNames[i], new Integer(i));
+    }
+    final Set referenced = new HashSet();
+    final List result = new ArrayList();
+    for (int k = 0; k < indices.size(); k++) {
+      final Properties properties = loaded[((Integer) indices.get(k)).intValue()];
+      final Iterator valueIt = properties.values().iterator();
+      while (valueIt.hasNext()) {
+        final String target = ColumnProjection.getReferenceTarget((String) valueIt.next());
+        final Integer index = (target == null) ? null : (Integer) fileIndices.get(target);
+        if ((index != null) && (loaded[index.intValue()] == null) && referenced.add(index)) {
+          result.add(index);
         }
+      }
+    }
+    return result;
+  }
+  
+  /**
+   * @return the properties of the given file, or empty properties if it could not be read
+   */
+  private Properties loadFile(final String fileName) {
+    log.info("reading '" + fileName + "' ...");
+    final Properties properties = new Properties();
+    try {
+      final InputStream is = getClass().getClassLoader().getResourceAsStream(fileName);
+      if (is == null) {
+        throw new RuntimeException("file '" + fileName + "' not found");
+      }
+      try {
         properties.load(is);
-        // add filename as testcase-name
-        properties.put(TESTCASE_NAME_ROWNAME, fileName);
-        this.propertySets.add(properties);
-        this.log.info("read ok");
-        
-        final Iterator keyIt = properties.keySet().iterator();
-        while (keyIt.hasNext()) {
-          final String key = (String) keyIt.next();
-          if ((properties.get(key) == null) || (((String) properties.get(key)).length() == 0)) {
-            this.log.info("skipping '" + key + "' because it is empty");
-            continue;
-          }
-          if (!this.propertyNames.contains(key)) {
-            this.propertyNames.add(key);
-          }
-          final String value = properties.getProperty(key);
-          this.log.debug(key + " -> " + value);
+      } finally {
+        is.close();
+      }
+      // add filename as testcase-name
+      properties.put(TESTCASE_NAME_ROWNAME, fileName);
+      log.info("read ok");
+    } catch (final IOException e) {
+      log.error("error reading file - skipping", e);
+    }
+    return properties;
+  }
+  
+  /**
+   * @return the sorted union of all keys with non-empty values
+   */
+  private static List collectPropertyNames(final List columns) {
+    final Set seen = new HashSet();
+    final List propertyNames = new ArrayList();
+    for (int i = 0; i < columns.size(); i++) {
+      final Properties properties = (Properties) columns.get(i);
+      final Iterator entryIt = properties.entrySet().iterator();
+      while (entryIt.hasNext()) {
+        final Map.Entry entry = (Map.Entry) entryIt.next();
+        final String key = (String) entry.getKey();
+        if ((entry.getValue() == null) || (((String) entry.getValue()).length() == 0)) {
+          log.info("skipping '" + key + "' because it is empty");
+        } else if (seen.add(key)) {
+          propertyNames.add(key);
         }
-        
+      }
+      if (log.isDebugEnabled()) {
         final StringWriter sw = new StringWriter();
         properties.list(new PrintWriter(sw));
-        this.log.debug("contents:");
-        this.log.debug(sw.toString());
-      } catch (final IOException e) {
-        this.log.error("error reading file - skipping", e);
+        log.debug("contents:");
+        log.debug(sw.toString());
       }
     }
     
-    Collections.sort(this.propertyNames);
+    Collections.sort(propertyNames);
     
-    if (this.log.isDebugEnabled()) {
-      this.log.debug("sorted propertyNames:");
-      
-      for (int i = 0; i < this.propertyNames.size(); i++) {
-        final String name = (String) this.propertyNames.get(i);
-        this.log.debug(name);
+    if (log.isDebugEnabled()) {
+      log.debug("sorted propertyNames:");
+      for (int i = 0; i < propertyNames.size(); i++) {
+        log.debug(propertyNames.get(i));
       }
     }
+    return propertyNames;
   }
   
-  public String getString(final int i, final int j) throws IndexOutOfBoundsException, MatrixReadFailedException {
-    String propertyName = null;
-    Properties properties = null;
-    
-    if (j == 0) {
-      // Zugriff auf erste Zeile (Name der TestCases bzw. 'reserved' in der ersten Spalte)
-      if (i == 0) {
-        // erste Spalte -> 'reserved'
-        return "reserved";
+  /**
+   * @return the column for the given file, with the file name in row 0
+   */
+  private String[] createColumn(final Properties properties) {
+    final String[] column = new String[this.numberOfRows];
+    column[0] = (String) properties.get(TESTCASE_NAME_ROWNAME);
+    int missing = 0;
+    for (int j = 1; j < this.numberOfRows; j++) {
+      final String value = (String) properties.get(this.cells[0][j]);
+      if (value == null) {
+        column[j] = "";
+        missing++;
       } else {
-        // Spalte 2-n -> TestCase-Name (ist als 'virtueller' Eintrag realisiert)
-        // Spaltenindex muss um eine Stelle zurückgezählt werden, da die erste Spalte (Feldnamen)
-        // virtuell ist
-        properties = (Properties) this.propertySets.get(i - 1);
-        return (String) properties.get(TESTCASE_NAME_ROWNAME);
-      }
-    } else {
-      // Zugriff auf Zeile 2-n
-      // Zeilenindex muss um eine Stelle zurückgezählt werden, da die erste Zeile (Testcase-Namen)
-      // virtuell ist
-      propertyName = (String) this.propertyNames.get(j - 1);
-      if (i == 0) {
-        // erste Spalte -> Feldname
-        return propertyName;
-      } else {
-        // Zeile 2-n, Spalte 2-n -> echter Inhalt
-        // Spaltenindex muss um eine Stelle zurückgezählt werden, da die erste Spalte (Feldnamen)
-        // virtuell ist
-        properties = (Properties) this.propertySets.get(i - 1);
-        if (properties.get(propertyName) == null) {
-          this.log.warn("Property '" + propertyName + "' not existing in File '"
-              + ((String) properties.get(TESTCASE_NAME_ROWNAME)) + "'");
-          return "";
-        }
-        return (String) properties.get(propertyName);
+        column[j] = value;
       }
     }
+    if ((missing > 0) && log.isDebugEnabled()) {
+      log.debug(missing + " properties not existing in file '" + column[0] + "'");
+    }
+    return column;
+  }
+  
+  public String getString(final int i, final int j) throws IndexOutOfBoundsException, MatrixReadFailedException {
+    return this.cells[i][j];
   }
   
   public int getNumberOfRows() throws MatrixReadFailedException {
-    return this.propertyNames.size() + 1;
+    return this.numberOfRows;
   }
   
   public int getNumberOfColumns() throws MatrixReadFailedException {
-    return this.propertySets.size() + 1;
+    return this.cells.length;
   }
   
   public String getIdentifier() throws MatrixReadFailedException {
     return this.identifier;
   }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.HeapEstimating#estimateRetainedBytes(com.senacor.ddt.objectmatrix.HeapEstimate)
+   */
+  public void estimateRetainedBytes(final HeapEstimate estimate) {
+    estimate.addCells(this.cells.length, this.numberOfRows);
+    for (int col = 0; col < this.cells.length; col++) {
+      for (int row = 0; row < this.numberOfRows; row++) {
+        estimate.addString(this.cells[col][row]);
+      }
+    }
+  }
 }
@@ -1,37 +1,323 @@
 package com.senacor.ddt.objectmatrix.writeable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.senacor.ddt.objectmatrix.ColumnNotFoundException;
 import com.senacor.ddt.objectmatrix.DefaultStringMatrix;
+import com.senacor.ddt.objectmatrix.EmbeddedAnnotationMatrixDecorator;
 import com.senacor.ddt.objectmatrix.MatrixReadFailedException;
+import com.senacor.ddt.objectmatrix.RowNotFoundException;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.util.ParamChecker;
+import com.senacor.ddt.util.StringUtils;
 
-public class DefaultWriteableStringMatrix extends DefaultStringMatrix implements WriteableStringMatrix {
+/**
+ * The default {@link WriteableStringMatrix} implementation. Like {@link DefaultStringMatrix}, it has the column titles
+ * in row 0 and the row titles in column 0, both of which are named "Reserved". The cells are held in memory column by
+ * column, and each column grows as rows are added. {@link #write()} hands the whole matrix to a
+ * {@link StringMatrixWriter} as a {@link StringMatrixReader}, so the writer can stream it cell by cell.
+ * <p>
+ * Instances are not thread-safe.
+ * 
+ * @version $Id$
+ */
+public class DefaultWriteableStringMatrix implements WriteableStringMatrix {
+  /**
+   * Interface used by {@link DefaultWriteableStringMatrix} to actually write the data to an underlying data sink.
+   */
   public interface StringMatrixWriter {
-    // not yet implemented
+    /**
+     * Write all cells of the given matrix, including the title row and column.
+     * 
+     * @param matrix
+     *          The matrix to write. Must not be null.
+     * @throws MatrixWriteFailedException
+     *           if writing fails for any reason
+     */
+    void write(StringMatrixReader matrix) throws MatrixWriteFailedException;
   }
   
+  private static final String[] NO_ROWS = new String[0];
+  
+  private final StringMatrixWriter writer;
+  
+  private final String identifier;
+  
+  /**
+   * The cells, indexed as <code>columns[column][row]</code>. Columns may be shorter than {@link #rowCount}, missing
+   * cells are empty.
+   */
+  private String[][] columns = new String[8][];
+  
+  private int columnCount = 0;
+  
+  private int rowCount = 0;
+  
+  private final List colTitles = new ArrayList();
+  
+  private final List rowTitles = new ArrayList();
+  
+  private final Map colTitleToIndicesMap = new HashMap();
+  
+  private final Map rowTitleToIndicesMap = new HashMap();
+  
+  /**
+   * Create a matrix containing the cells of the given reader, with the titles at the default indices (0,0).
+   * 
+   * @param reader
+   *          The initial content. Must not be null.
+   * @param writer
+   *          The writer used by {@link #write()}. Must not be null.
+   */
   public DefaultWriteableStringMatrix(final StringMatrixReader reader, final StringMatrixWriter writer) {
-    super(reader);
+    ParamChecker.notNull("reader", reader);
+    ParamChecker.notNull("writer", writer);
+    this.writer = writer;
+    this.identifier = reader.getIdentifier();
+    // validates the titles just like a read-only matrix would
+    final DefaultStringMatrix titles = new DefaultStringMatrix(reader);
+    final List colNames = titles.getColNames();
+    final List rowNames = titles.getRowNames();
+    if (colNames.isEmpty() || rowNames.isEmpty()) {
+      addTitleCell();
+    } else {
+      for (int col = 0; col < colNames.size(); col++) {
+        addTitle((String) colNames.get(col), this.colTitles, this.colTitleToIndicesMap);
+        for (int row = 0; row < rowNames.size(); row++) {
+          set(col, row, reader.getString(col, row));
+        }
+      }
+      for (int row = 0; row < rowNames.size(); row++) {
+        addTitle((String) rowNames.get(row), this.rowTitles, this.rowTitleToIndicesMap);
+      }
+    }
   }
   
+  /**
+   * Create an empty matrix, containing only the title cell.
+   * 
+   * @param writer
+   *          The writer used by {@link #write()}. Must not be null.
+   */
   public DefaultWriteableStringMatrix(final StringMatrixWriter writer) {
-    this(new StringMatrixReader() {
-      
-      public String getString(final int colIndex, final int rowIndex) throws IndexOutOfBoundsException,
-          MatrixReadFailedException {
-        throw new IndexOutOfBoundsException();
+    ParamChecker.notNull("writer", writer);
+    this.writer = writer;
+    this.identifier = "";
+    addTitleCell();
+  }
+  
+  private void addTitleCell() {
+    addTitle(Tokens.RESERVED, this.colTitles, this.colTitleToIndicesMap);
+    addTitle(Tokens.RESERVED, this.rowTitles, this.rowTitleToIndicesMap);
+    set(0, 0, "");
+  }
+  
+  private static void addTitle(final String title, final List titles, final Map indices) {
+    indices.put(title, new Integer(titles.size()));
+    titles.add(title);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.writeable.WriteableStringMatrix#setString(java.lang.String, java.lang.String,
+   *      java.lang.String)
+   */
+  public void setString(final String colName, final String rowName, final String value) {
+    set(getOrAddColumn(colName), getOrAddRow(rowName), value);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.writeable.WriteableStringMatrix#setAnnotatedString(java.lang.String,
+   *      java.lang.String, java.lang.String, java.lang.String, java.lang.String)
+   */
+  public void setAnnotatedString(final String colName, final String rowName, final String content,
+      final String annotationKey, final String annotationValue) {
+    setString(colName, rowName, formatAnnotatedCell(content, annotationKey, annotationValue));
+  }
+  
+  /**
+   * Combine content and annotation in the syntax read by {@link EmbeddedAnnotationMatrixDecorator}.
+   * 
+   * @param content
+   *          The content of the cell. Must not contain the annotation mark. null is treated like an empty string.
+   * @param annotationKey
+   *          The key of the annotation. Must not be blank or contain the annotation mark or key-value separator.
+   * @param annotationValue
+   *          The value of the annotation. If null or empty, only the key is written.
+   * @return the cell
+   */
+  public static String formatAnnotatedCell(final String content, final String annotationKey,
+      final String annotationValue) {
+    ParamChecker.notBlank("annotationKey", annotationKey);
+    ParamChecker.require("content must not contain the annotation mark", (content == null)
+        || (content.indexOf(EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK) == -1));
+    ParamChecker.require("annotationKey must not contain the annotation mark or key-value separator", (annotationKey
+        .indexOf(EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK) == -1)
+        && (annotationKey.indexOf(EmbeddedAnnotationMatrixDecorator.ANNOTATION_KEYVALUE_SEPARATOR) == -1));
+    final StringBuffer cell = new StringBuffer();
+    if (content != null) {
+      cell.append(content);
+    }
+    cell.append(EmbeddedAnnotationMatrixDecorator.ANNOTATION_MARK).append(annotationKey);
+    if ((annotationValue != null) && (annotationValue.length() > 0)) {
+      cell.append(EmbeddedAnnotationMatrixDecorator.ANNOTATION_KEYVALUE_SEPARATOR).append(annotationValue);
+    }
+    return cell.toString();
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.writeable.WriteableStringMatrix#write()
+   */
+  public void write() throws MatrixWriteFailedException {
+    this.writer.write(new StringMatrixReader() {
+      public String getString(final int colIndex, final int rowIndex) {
+        return DefaultWriteableStringMatrix.this.getString(colIndex, rowIndex);
       }
       
-      public int getNumberOfRows() throws MatrixReadFailedException {
-        return 0;
+      public int getNumberOfRows() {
+        return DefaultWriteableStringMatrix.this.rowCount;
       }
       
-      public int getNumberOfColumns() throws MatrixReadFailedException {
-        return 0;
+      public int getNumberOfColumns() {
+        return DefaultWriteableStringMatrix.this.columnCount;
       }
       
-      public String getIdentifier() throws MatrixReadFailedException {
-        return "";
+      public String getIdentifier() {
+        return DefaultWriteableStringMatrix.this.identifier;
       }
-      
-    }, writer);
+    });
+  }
+  
+  private int getOrAddColumn(final String colName) {
+    ParamChecker.notBlank("colName", colName);
+    final Integer col = (Integer) this.colTitleToIndicesMap.get(colName);
+    if (col != null) {
+      return col.intValue();
+    }
+    final int index = this.columnCount;
+    addTitle(colName, this.colTitles, this.colTitleToIndicesMap);
+    set(index, 0, colName);
+    return index;
+  }
+  
+  private int getOrAddRow(final String rowName) {
+    ParamChecker.notBlank("rowName", rowName);
+    final Integer row = (Integer) this.rowTitleToIndicesMap.get(rowName);
+    if (row != null) {
+      return row.intValue();
+    }
+    final int index = this.rowCount;
+    addTitle(rowName, this.rowTitles, this.rowTitleToIndicesMap);
+    set(0, index, rowName);
+    return index;
+  }
+  
+  /**
+   * Set a cell, growing the buffer if necessary.
+   */
+  private void set(final int colIndex, final int rowIndex, final String content) {
+    if (colIndex >= this.columnCount) {
+      if (colIndex >= this.columns.length) {
+        final String[][] grown = new String[Math.max(colIndex + 1, this.columns.length * 2)][];
+        System.arraycopy(this.columns, 0, grown, 0, this.columnCount);
+        this.columns = grown;
+      }
+      for (int i = this.columnCount; i <= colIndex; i++) {
+        this.columns[i] = NO_ROWS;
+      }
+      this.columnCount = colIndex + 1;
+    }
+    String[] column = this.columns[colIndex];
+    if (rowIndex >= column.length) {
+      final String[] grown = new String[Math.max(rowIndex + 1, Math.max(16, column.length * 2))];
+      System.arraycopy(column, 0, grown, 0, column.length);
+      column = grown;
+      this.columns[colIndex] = column;
+    }
+    column[rowIndex] = (content == null) ? "" : content;
+    if (rowIndex >= this.rowCount) {
+      this.rowCount = rowIndex + 1;
+    }
+  }
+  
+  /**
+   * @param colIndex
+   *          0-based column index
+   * @param rowIndex
+   *          0-based row index
+   * @return the content of the given cell, or an empty string if it hasn't been set
+   * @throws IndexOutOfBoundsException
+   *           if the indices fall outside the matrix
+   */
+  public String getString(final int colIndex, final int rowIndex) throws IndexOutOfBoundsException {
+    if ((colIndex < 0) || (colIndex >= this.columnCount) || (rowIndex < 0) || (rowIndex >= this.rowCount)) {
+      throw new IndexOutOfBoundsException("No cell at column " + colIndex + ", row " + rowIndex);
+    }
+    final String[] column = this.columns[colIndex];
+    if ((rowIndex < column.length) && (column[rowIndex] != null)) {
+      return column[rowIndex];
+    }
+    return "";
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getString(java.lang.String, java.lang.String)
+   */
+  public String getString(final String colName, final String rowName) throws MatrixReadFailedException {
+    final Integer col = (Integer) this.colTitleToIndicesMap.get(colName);
+    if (col == null) {
+      throw new ColumnNotFoundException("Column '" + colName + "' doesn't exist");
+    }
+    final Integer row = (Integer) this.rowTitleToIndicesMap.get(rowName);
+    if (row == null) {
+      throw new RowNotFoundException("Row '" + rowName + "' doesn't exist");
+    }
+    return getString(col.intValue(), row.intValue());
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getRowNames()
+   */
+  public List getRowNames() {
+    return Collections.unmodifiableList(this.rowTitles);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getColNames()
+   */
+  public List getColNames() {
+    return Collections.unmodifiableList(this.colTitles);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#filterRowNames(java.lang.String, java.lang.String, java.lang.String)
+   */
+  public List filterRowNames(final String rowPrefix, final String rowInfix, final String rowSuffix) {
+    return StringUtils.filterStringList(rowPrefix, rowInfix, rowSuffix, this.rowTitles);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#filterColumnNames(java.lang.String, java.lang.String,
+   *      java.lang.String)
+   */
+  public List filterColumnNames(final String colPrefix, final String colInfix, final String colSuffix) {
+    return StringUtils.filterStringList(colPrefix, colInfix, colSuffix, this.colTitles);
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#getMatrixIdentifier()
+   */
+  public String getMatrixIdentifier() {
+    return this.identifier;
+  }
+  
+  /**
+   * @see com.senacor.ddt.objectmatrix.StringMatrix#isDefinedAt(java.lang.String, java.lang.String)
+   */
+  public boolean isDefinedAt(final String colName, final String rowName) {
+    return !StringUtils.isNullOrBlank(getString(colName, rowName));
   }
 }
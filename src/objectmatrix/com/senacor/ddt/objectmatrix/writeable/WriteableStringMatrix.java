@@ -2,6 +2,49 @@ package com.senacor.ddt.objectmatrix.writeable;
 
 import com.senacor.ddt.objectmatrix.StringMatrix;
 
+/**
+ * A {@link StringMatrix} whose cells can be changed and which can be written to an underlying data sink. Rows and
+ * columns are added as needed when a cell is set.
+ * 
+ * @version $Id$
+ */
 public interface WriteableStringMatrix extends StringMatrix {
-  // not yet implemented
+  /**
+   * Set the content of a cell. A column or row that does not exist yet is added after the existing ones.
+   * 
+   * @param colName
+   *          Name of the column. Must not be blank.
+   * @param rowName
+   *          Name of the row. Must not be blank.
+   * @param value
+   *          The new content of the cell. null is treated like an empty string.
+   */
+  void setString(String colName, String rowName, String value);
+  
+  /**
+   * Set the content of a cell together with a cell annotation. The cell is stored in the embedded annotation syntax,
+   * i.e. as <code>content~key=value</code>, so it is read back by
+   * {@link com.senacor.ddt.objectmatrix.EmbeddedAnnotationMatrixDecorator}.
+   * 
+   * @param colName
+   *          Name of the column. Must not be blank.
+   * @param rowName
+   *          Name of the row. Must not be blank.
+   * @param content
+   *          The content of the cell. Must not contain the annotation mark. null is treated like an empty string.
+   * @param annotationKey
+   *          The key of the annotation. Must not be blank or contain the annotation mark or key-value separator.
+   * @param annotationValue
+   *          The value of the annotation. If null or empty, only the key is written.
+   */
+  void setAnnotatedString(String colName, String rowName, String content, String annotationKey,
+      String annotationValue);
+  
+  /**
+   * Write the whole matrix, including the title row and column, to the underlying data sink.
+   * 
+   * @throws MatrixWriteFailedException
+   *           if anything goes wrong
+   */
+  void write() throws MatrixWriteFailedException;
 }
@@ -33,8 +33,10 @@ package com.senacor.ddt.objectmatrix;
 
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import junit.framework.TestCase;
@@ -167,6 +169,31 @@ public class AnnotatedStringMatrixTest extends TestCase {
     assertEquals(4, p2.size());
   }
   
+  public void testIdenticalAnnotationsAreShared() throws Exception {
+    assertSame(CellAnnotation.forCell(this.matrix, "Col1", "embeddedAnnotation"), CellAnnotation.forCell(this.matrix,
+        "Col2", "embeddedAnnotation"));
+    assertSame(CellAnnotation.forCell(this.matrix, "Col1", "Row1"), CellAnnotation.forCell(this.matrix, "Col2",
+        "Row2"));
+    assertEquals(0, this.matrix.getAnnotation("Col1", "Row1").size());
+  }
+  
+  public void testModifiedAnnotationPropertiesAreNotShared() throws Exception {
+    final Properties p = this.matrix.getAnnotation("Col1", "embeddedAnnotation");
+    p.setProperty("embedded", "changed");
+    final Map more = new HashMap();
+    more.put("other", "value");
+    p.putAll(more);
+    assertEquals("value", this.matrix.getAnnotation("Col2", "embeddedAnnotation").getProperty("embedded"));
+    p.keySet().remove("embedded");
+    assertEquals("value", this.matrix.getAnnotation("Col1", "embeddedAnnotation").getProperty("embedded"));
+    assertEquals(1, this.matrix.getAnnotation("Col2", "embeddedAnnotation").size());
+  }
+  
+  public void testUnderlyingNamesAreStillReadable() throws Exception {
+    assertEquals("foo", this.matrix.getString("Col1", "embeddedAnnotation~embedded=value"));
+    assertEquals(0, this.matrix.getAnnotation("Col1", "embeddedAnnotation~embedded=value").size());
+  }
+  
   public void testSimpleCellAnnotation() throws Exception {
     final Properties p = this.matrix.getAnnotation("Col1", "cellAnnotation");
     final String value = p.getProperty("cellAnnotation");
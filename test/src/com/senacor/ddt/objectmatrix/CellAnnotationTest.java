@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+public class CellAnnotationTest extends TestCase {
+  public void testEmpty() {
+    final CellAnnotation empty = new CellAnnotation.Builder().build();
+    assertSame(CellAnnotation.EMPTY, empty);
+    assertTrue(empty.isEmpty());
+    assertFalse(empty.has(ObjectMatrix.AnnotationKeys.NULL));
+    assertNull(empty.get(ObjectMatrix.AnnotationKeys.NULL));
+    assertEquals("x", empty.get(ObjectMatrix.AnnotationKeys.NULL, "x"));
+    assertEquals(0, empty.toProperties().size());
+  }
+  
+  public void testSingle() {
+    final CellAnnotation single = new CellAnnotation.Builder().put(new String("null"), "").build();
+    assertEquals(1, single.size());
+    assertTrue(single.has(ObjectMatrix.AnnotationKeys.NULL));
+    assertSame(ObjectMatrix.AnnotationKeys.NULL, single.getKey(0));
+    assertEquals("", single.get("null"));
+    assertFalse(single.has("default"));
+  }
+  
+  public void testSmallReplacesValues() {
+    final CellAnnotation small =
+        new CellAnnotation.Builder().put("a", "1").put("b", "2").put("c", "3").put("d", "4").put("e", "5")
+            .put("a", "6").build();
+    assertEquals(5, small.size());
+    assertEquals("6", small.get("a"));
+    assertEquals("5", small.get("e"));
+    assertFalse(small.has("f"));
+    assertFalse(small.has(null));
+  }
+  
+  public void testEqualsIgnoresOrder() {
+    final CellAnnotation ab = new CellAnnotation.Builder().put("a", "1").put("b", "2").build();
+    final CellAnnotation ba = new CellAnnotation.Builder().put("b", "2").put("a", "1").build();
+    assertEquals(ab, ba);
+    assertEquals(ab.hashCode(), ba.hashCode());
+    assertFalse(ab.equals(new CellAnnotation.Builder().put("a", "1").put("b", "3").build()));
+    assertFalse(ab.equals(new CellAnnotation.Builder().put("a", "1").build()));
+  }
+  
+  public void testPropertiesAdapter() {
+    final Properties properties = new Properties();
+    properties.setProperty("type", "java.util.ArrayList");
+    properties.setProperty("length", "3");
+    final CellAnnotation annotation = CellAnnotation.valueOf(properties);
+    assertEquals(2, annotation.size());
+    assertEquals("3", annotation.get("length"));
+    
+    final Properties adapter = annotation.toProperties();
+    assertEquals(properties, adapter);
+    assertNotSame(adapter, annotation.toProperties());
+    assertEquals(annotation, CellAnnotation.valueOf(adapter));
+  }
+  
+  public void testPropertiesOnlyMatrixAndMap() {
+    final Properties properties = new Properties();
+    properties.setProperty("ref", "other");
+    final InvocationHandler handler = new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) {
+        assertEquals("getAnnotation", method.getName());
+        return properties;
+      }
+    };
+    // implementations written against the interfaces alone
+    final AnnotatedStringMatrix matrix =
+        (AnnotatedStringMatrix) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class[] { AnnotatedStringMatrix.class }, handler);
+    final ObjectMap map =
+        (ObjectMap) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { ObjectMap.class }, handler);
+    assertEquals("other", CellAnnotation.forCell(matrix, "col", "row").get("ref"));
+    assertEquals("other", CellAnnotation.forKey(map, "key").get("ref"));
+  }
+  
+  public void testModifiedPropertiesDoNotChangeTheAnnotation() {
+    final CellAnnotation annotation = new CellAnnotation.Builder().put("ref", "other").put("type", "x.Y").build();
+    final Properties adapter = annotation.toProperties();
+    adapter.setProperty("type", "x.Z");
+    final Map more = new HashMap();
+    more.put("length", "3");
+    adapter.putAll(more);
+    adapter.keySet().remove("ref");
+    adapter.entrySet().clear();
+    
+    assertEquals(2, annotation.size());
+    assertEquals("other", annotation.get("ref"));
+    assertEquals("x.Y", annotation.get("type"));
+    assertNull(annotation.get("length"));
+    assertEquals(annotation, CellAnnotation.valueOf(annotation.toProperties()));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.csv.CsvObjectMatrixFactory;
+
+public class CompositeObjectMatrixTest extends TestCase {
+  private static ObjectMatrix csv(final String content, final String identifier) {
+    return new CsvObjectMatrixFactory(new StringReader(content), ';', identifier).create()[0];
+  }
+  
+  private final ObjectMatrix first = csv(";test1;test2\nname;a;b\ncount;1;2\n", "first");
+  
+  private final ObjectMatrix second = csv(";test3\nname;c\nextra;x\n", "second");
+  
+  private final CompositeObjectMatrix composite =
+      new CompositeObjectMatrix(new ObjectMatrix[] { this.first, this.second }, "both");
+  
+  public void testNames() {
+    assertEquals(Arrays.asList(new String[] { "test1", "test2", "test3" }), this.composite.getColNames());
+    assertEquals(Arrays.asList(new String[] { "Reserved", "name", "count", "extra" }), this.composite.getRowNames());
+    assertTrue(this.composite.getColNames().contains("test3"));
+    assertFalse(this.composite.getColNames().contains("test4"));
+    assertEquals(Arrays.asList(new String[] { "test3" }), this.composite.filterColumnNames(null, null, "3"));
+    assertEquals("both", this.composite.getMatrixIdentifier());
+  }
+  
+  public void testDelegatesByColumn() {
+    assertEquals("b", this.composite.getString("test2", "name"));
+    assertEquals("c", this.composite.getString("test3", "name"));
+    assertEquals(new Integer(2), this.composite.getInteger("test2", "count"));
+    assertSame(this.second, this.composite.getMatrixForColumn("test3"));
+    assertTrue(this.composite.isDefinedAt("test3", "extra"));
+    assertEquals("c", this.composite.getObjectMapForColumn("test3").getString("name"));
+    try {
+      this.composite.getString("test4", "name");
+      fail("column does not exist");
+    } catch (final ColumnNotFoundException e) {
+      // expected
+    }
+    try {
+      this.composite.getString("test1", "extra");
+      fail("row does not exist in the first matrix");
+    } catch (final KeyNotFoundException e) {
+      // expected
+    }
+  }
+  
+  public void testRowMapSpansAllMatrices() {
+    final ObjectMap row = this.composite.getObjectMapForRow("name");
+    assertEquals(Arrays.asList(new String[] { "test1", "test2", "test3" }), row.getKeys());
+    assertEquals("a", row.getString("test1"));
+    assertEquals("c", row.getString("test3"));
+  }
+  
+  public void testDuplicateColumns() {
+    try {
+      new CompositeObjectMatrix(new ObjectMatrix[] { this.first, csv(";test2\nname;z\n", "third") }, "dup");
+      fail("test2 exists twice");
+    } catch (final DuplicateColumnTitleException e) {
+      // expected
+    }
+  }
+  
+  public void testFactoryUnion() {
+    final ObjectMatrix union =
+        new CompositeObjectMatrixFactory(new ObjectMatrixFactory[] {
+            new CsvObjectMatrixFactory(new StringReader(";test1\nname;a\n"), ';', "one"),
+            new CsvObjectMatrixFactory(new StringReader(";test2\nname;b\n"), ';', "two") }).setUnionIdentifier(
+            "union").create()[0];
+    assertEquals("union", union.getMatrixIdentifier());
+    assertEquals("b", union.getString("test2", "name"));
+  }
+}
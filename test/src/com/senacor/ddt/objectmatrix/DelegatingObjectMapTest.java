@@ -32,6 +32,7 @@
 package com.senacor.ddt.objectmatrix;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -150,4 +151,34 @@ public class DelegatingObjectMapTest extends TestCase {
       StringAssert.assertContains("row", e.getMessage());
     }
   }
+  
+  public void testContainsKey() throws Exception {
+    createMatrix("keyList");
+    DelegatingObjectMap map = (DelegatingObjectMap) createColMap("keyList");
+    assertTrue(map.containsKey("Foo"));
+    assertFalse(map.containsKey("Quux"));
+    assertFalse(map.containsKey(""));
+    assertFalse(map.containsKey(StringMatrix.Tokens.RESERVED));
+    assertTrue(((DelegatingObjectMap) createRowMap("keyList")).containsKey("Quux"));
+  }
+  
+  public void testReservedKeysIgnoreCase() throws Exception {
+    final List names = Arrays.asList(new String[] { "", "Reserved", "RESERVED", "reserved", "Foo" });
+    assertEquals(Arrays.asList(new String[] { "Foo" }), DelegatingObjectMap.createKeyIndex(names).getStrings());
+  }
+  
+  public void testMapsAreSharedByMatrix() throws Exception {
+    createMatrix("keyList");
+    ObjectMap map = this.matrix.getObjectMapForColumn("keyList");
+    assertSame(map, this.matrix.getObjectMapForColumn("keyList"));
+    assertSame(this.matrix.getObjectMapForRow("keyList"), this.matrix.getObjectMapForRow("keyList"));
+    assertNotSame(map, this.matrix.getObjectMapForRow("keyList"));
+    assertEquals(createColMap("keyList").getKeys(), map.getKeys());
+    try {
+      this.matrix.getObjectMapForColumn("nonexistant column");
+      fail("should have thrown exception");
+    } catch (IllegalArgumentException e) {
+      StringAssert.assertContains("column", e.getMessage());
+    }
+  }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.MatrixDiff.Difference;
+import com.senacor.ddt.typetransformer.Transformer;
+
+public class MatrixDiffTest extends TestCase {
+  private static IndexedStringMatrix matrix(final String[][] columns, final String identifier) {
+    return new DefaultStringMatrix(new SnapshotStringMatrixReader(columns, identifier));
+  }
+  
+  private static List differences(final MatrixDiff diff) {
+    final List result = new ArrayList();
+    final Iterator iter = diff.iterator();
+    while (iter.hasNext()) {
+      result.add(iter.next().toString());
+    }
+    return result;
+  }
+  
+  private final IndexedStringMatrix expected =
+      matrix(new String[][] { { "", "a", "b", "c" }, { "test1", "1", "2", "3" }, { "test2", "4", "5.0", "6" },
+          { "old", "x", "y", "z" } }, "expected");
+  
+  // rows and columns in a different order, "c" and "old" removed, "d" and "new" added
+  private final IndexedStringMatrix actual =
+      matrix(new String[][] { { "", "b", "a", "d" }, { "test2", "5", "4", "7" }, { "new", "", "", "" },
+          { "test1", "2", "1", null } }, "actual");
+  
+  public void testAlignsByTitle() {
+    final MatrixDiff diff = new MatrixDiff(this.expected, this.actual).setThreads(1);
+    assertEquals(Arrays.asList(new String[] { "old" }), diff.getMissingColumns());
+    assertEquals(Arrays.asList(new String[] { "new" }), diff.getAddedColumns());
+    assertEquals(Arrays.asList(new String[] { "c" }), diff.getMissingRows());
+    assertEquals(Arrays.asList(new String[] { "d" }), diff.getAddedRows());
+    assertEquals(4, diff.getNumberOfComparedCells());
+    assertEquals(Arrays.asList(new String[] { "[test2, b] expected '5.0' but was '5'" }), differences(diff));
+  }
+  
+  public void testTypedComparison() {
+    final MatrixDiff diff =
+        new MatrixDiff(this.expected, this.actual).setTypedComparison(Transformer.get(), BigDecimal.class);
+    assertTrue(differences(diff).isEmpty());
+  }
+  
+  public void testParallelComparisonKeepsColumnOrder() {
+    final int columns = 50;
+    final int rows = 200;
+    final String[][] before = new String[columns + 1][rows + 1];
+    final String[][] after = new String[columns + 1][rows + 1];
+    for (int col = 0; col <= columns; col++) {
+      for (int row = 0; row <= rows; row++) {
+        if (col == 0) {
+          before[col][row] = (row == 0) ? "" : "row" + row;
+        } else if (row == 0) {
+          before[col][row] = "col" + col;
+        } else {
+          before[col][row] = String.valueOf(col * row);
+        }
+        after[col][row] = before[col][row];
+      }
+    }
+    for (int col = 1; col <= columns; col += 7) {
+      after[col][col] = "changed";
+    }
+    final MatrixDiff diff = new MatrixDiff(matrix(before, "before"), matrix(after, "after")).setThreads(4);
+    final Iterator iter = diff.iterator();
+    for (int col = 1; col <= columns; col += 7) {
+      final Difference difference = (Difference) iter.next();
+      assertEquals("col" + col, difference.getColumn());
+      assertEquals("row" + col, difference.getRow());
+      assertEquals("changed", difference.getActual());
+    }
+    assertFalse(iter.hasNext());
+    // each iterator starts over
+    assertEquals(8, differences(diff).size());
+  }
+}
@@ -50,6 +50,20 @@ public class MultiColumnCellTest extends TestCase {
     validate(matrix);
   }
   
+  public void testMultiColumnCellsSnapshot() throws Exception {
+    StringMatrix matrix =
+        new DefaultStringMatrix(new JExcelStringMatrixReader(Workbook.getWorkbook(getClass().getResourceAsStream(
+            "MultiColumnCellTest.xls")), "MultiColumnCellTest", false).snapshot());
+    validate(matrix);
+  }
+  
+  public void testMultiColumnCellsTransposedSnapshot() throws Exception {
+    StringMatrix matrix =
+        new DefaultStringMatrix(new JExcelStringMatrixReader(Workbook.getWorkbook(getClass().getResourceAsStream(
+            "MultiColumnCellTest.xls")), "MultiColumnCellTestTransposed", true).snapshot());
+    validate(matrix);
+  }
+  
   private void validate(StringMatrix matrix) {
     assertEquals("I'm in 1", matrix.getString("Col1", "Row1"));
     assertEquals("I'm in 2", matrix.getString("Col2", "Row1"));
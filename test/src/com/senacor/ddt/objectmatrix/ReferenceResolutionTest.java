@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.csv.CsvStringMatrixReader;
+
+public class ReferenceResolutionTest extends TestCase {
+  private static ObjectMatrix createMatrix(final String csv) throws Exception {
+    return new DelegatingObjectMatrix(new EmbeddedAnnotationMatrixDecorator(new DefaultStringMatrix(
+        new CsvStringMatrixReader(new StringReader(csv), ';', "references"))));
+  }
+  
+  public void testChainIsCollapsed() throws Exception {
+    final ObjectMatrix matrix =
+        createMatrix(";base;middle;last;direct\n" + "value;foo;~ref=base;~ref=middle;bar\n"
+            + "other;baz;~ref=last;~ref=base;~ref=middle\n");
+    assertEquals("foo", matrix.getString("last", "value"));
+    assertEquals("foo", matrix.getString("middle", "value"));
+    assertEquals("bar", matrix.getString("direct", "value"));
+    // the references differ per row
+    assertEquals("baz", matrix.getString("middle", "other"));
+    assertEquals("baz", matrix.getString("direct", "other"));
+  }
+  
+  public void testReferencedCellAnnotationsApply() throws Exception {
+    final ObjectMatrix matrix = createMatrix(";base;copy\n" + "value~default-value=x;;~ref=base\n");
+    assertEquals("x", matrix.getString("copy", "value"));
+  }
+  
+  public void testCycleIsReportedAtLoadTime() throws Exception {
+    try {
+      createMatrix(";a;b;c\n" + "ok;1;2;3\n" + "cycle;~ref=b;~ref=c;~ref=a\n");
+      fail("should have thrown exception");
+    } catch (final CircularReferenceException e) {
+      assertTrue(e.getMessage(), e.getMessage().indexOf("'cycle'") > 0);
+    }
+  }
+  
+  public void testSelfReferenceIsReportedAtLoadTime() throws Exception {
+    try {
+      createMatrix(";a\n" + "self;~ref=a\n");
+      fail("should have thrown exception");
+    } catch (final CircularReferenceException e) {
+      // expected
+    }
+  }
+  
+  public void testMissingTargetIsReportedOnRead() throws Exception {
+    final ObjectMatrix matrix = createMatrix(";a;b\n" + "row;~ref=missing;1\n");
+    assertEquals("1", matrix.getString("b", "row"));
+    try {
+      matrix.getString("a", "row");
+      fail("should have thrown exception");
+    } catch (final ColumnNotFoundException e) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.csv.CsvObjectMatrixFactory;
+
+public class ReloadingObjectMatrixFactoryTest extends TestCase {
+  private File file;
+  
+  private int loads;
+  
+  private final ReloadingObjectMatrixFactory.FactoryBuilder builder =
+      new ReloadingObjectMatrixFactory.FactoryBuilder() {
+        public ObjectMatrixFactory createFactory(final File source) throws IOException {
+          ReloadingObjectMatrixFactoryTest.this.loads++;
+          return new CsvObjectMatrixFactory(new StringReader(read(source)), ';', source.getName());
+        }
+      };
+  
+  protected void setUp() throws Exception {
+    this.file = File.createTempFile("ddt-reload", ".csv");
+    write("a", 1000);
+  }
+  
+  protected void tearDown() throws Exception {
+    this.file.delete();
+  }
+  
+  private static String read(final File source) throws IOException {
+    final StringBuffer content = new StringBuffer();
+    final Reader in = new FileReader(source);
+    try {
+      final char[] buffer = new char[1024];
+      int count;
+      while ((count = in.read(buffer)) != -1) {
+        content.append(buffer, 0, count);
+      }
+    } finally {
+      in.close();
+    }
+    return content.toString();
+  }
+  
+  private void write(final String value, final long lastModified) throws IOException {
+    final Writer out = new FileWriter(this.file);
+    try {
+      out.write(";test1\nname;" + value + "\n");
+    } finally {
+      out.close();
+    }
+    this.file.setLastModified(lastModified);
+  }
+  
+  private ReloadingObjectMatrixFactory createFactory() {
+    return new ReloadingObjectMatrixFactory(new File[] { this.file }, this.builder);
+  }
+  
+  public void testReloadsOnlyChangedContent() throws Exception {
+    final ReloadingObjectMatrixFactory factory = createFactory();
+    final ObjectMatrix first = factory.create()[0];
+    assertEquals("a", first.getString("test1", "name"));
+    assertSame(first, factory.create()[0]);
+    assertEquals(0, factory.checkForChanges());
+    
+    // touched, but same content
+    write("a", 2000);
+    assertEquals(0, factory.checkForChanges());
+    assertEquals(1, this.loads);
+    
+    write("bb", 3000);
+    assertEquals(1, factory.checkForChanges());
+    assertEquals(2, this.loads);
+    assertEquals(1, factory.getReloadCount());
+    assertEquals("bb", factory.create()[0].getString("test1", "name"));
+    // matrices handed out earlier are not affected
+    assertEquals("a", first.getString("test1", "name"));
+  }
+  
+  public void testKeepsPreviousMatricesIfParsingFails() throws Exception {
+    final ReloadingObjectMatrixFactory factory = createFactory();
+    final ObjectMatrix first = factory.create()[0];
+    final Writer out = new FileWriter(this.file);
+    out.write(";test1;test1\nname;x;y\n");
+    out.close();
+    assertEquals(0, factory.checkForChanges());
+    assertSame(first, factory.create()[0]);
+  }
+  
+  public void testWatcherReloadsInBackground() throws Exception {
+    final ReloadingObjectMatrixFactory factory = createFactory().setCheckInterval(10).start();
+    try {
+      write("c", 5000);
+      for (int i = 0; (i < 500) && (factory.getReloadCount() == 0); i++) {
+        Thread.sleep(10);
+      }
+      assertEquals("c", factory.create()[0].getString("test1", "name"));
+    } finally {
+      factory.stop();
+    }
+  }
+}
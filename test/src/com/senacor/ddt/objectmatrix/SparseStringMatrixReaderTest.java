@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix;
+
+import java.io.StringReader;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.objectmatrix.csv.CsvStringMatrixReader;
+import com.senacor.ddt.util.StringPool;
+
+public class SparseStringMatrixReaderTest extends TestCase {
+  private static String[][] sparseData() {
+    final String[][] data = new String[4][10];
+    for (int col = 0; col < data.length; col++) {
+      for (int row = 0; row < data[col].length; row++) {
+        data[col][row] = "";
+      }
+    }
+    data[0][0] = "title";
+    data[1][3] = "a";
+    data[1][9] = "b";
+    data[3][0] = "c";
+    data[3][5] = null;
+    return data;
+  }
+  
+  public void testSameContentAsDenseArray() {
+    final String[][] data = sparseData();
+    final SparseStringMatrixReader reader = new SparseStringMatrixReader(data, "sparse");
+    assertEquals(4, reader.getNumberOfColumns());
+    assertEquals(10, reader.getNumberOfRows());
+    assertEquals(5, reader.getNumberOfNonEmptyCells());
+    assertEquals("sparse", reader.getIdentifier());
+    for (int col = 0; col < data.length; col++) {
+      for (int row = 0; row < data[col].length; row++) {
+        assertEquals(data[col][row], reader.getString(col, row));
+      }
+    }
+  }
+  
+  public void testIndicesOutOfBounds() {
+    final SparseStringMatrixReader reader = new SparseStringMatrixReader(sparseData(), "sparse");
+    try {
+      reader.getString(0, 10);
+      fail();
+    } catch (final IndexOutOfBoundsException e) {
+      // expected
+    }
+    try {
+      reader.getString(4, 0);
+      fail();
+    } catch (final IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+  
+  public void testSelectColumns() {
+    final SparseStringMatrixReader reader =
+        new SparseStringMatrixReader(sparseData(), "sparse").selectColumns(new int[] { 3, 1 });
+    assertEquals(2, reader.getNumberOfColumns());
+    assertEquals("c", reader.getString(0, 0));
+    assertEquals("a", reader.getString(1, 3));
+    assertEquals("b", reader.getString(1, 9));
+    assertEquals("", reader.getString(1, 0));
+    assertEquals(4, reader.getNumberOfNonEmptyCells());
+  }
+  
+  public void testSnapshotChoosesStorageByFillRatio() {
+    final SnapshotStringMatrixReader sparse = new SnapshotStringMatrixReader(sparseData(), "sparse");
+    assertTrue(sparse.isSparse());
+    assertEquals("b", sparse.getString(1, 9));
+    assertNull(sparse.getString(3, 5));
+    assertTrue(sparse.selectColumns(new int[] { 1 }).isSparse());
+    
+    final SnapshotStringMatrixReader dense =
+        new SnapshotStringMatrixReader(new String[][] { { "a", "b" }, { "", "c" } }, "dense");
+    assertFalse(dense.isSparse());
+    assertEquals("", dense.getString(1, 0));
+    assertFalse(new SnapshotStringMatrixReader(new String[0][0], "empty").isSparse());
+  }
+  
+  public void testCopyOfReaderChoosesStorageByFillRatio() {
+    final String[][] data = sparseData();
+    final SnapshotStringMatrixReader sparse =
+        new SnapshotStringMatrixReader(new SnapshotStringMatrixReader(data, "sparse"), new StringPool(100));
+    assertTrue(sparse.isSparse());
+    assertSameCells(data, sparse);
+    
+    // the last column makes the matrix too full for sparse storage
+    for (int row = 0; row < data[3].length; row++) {
+      data[3][row] = "x" + row;
+    }
+    final SnapshotStringMatrixReader dense =
+        new SnapshotStringMatrixReader(new SparseStringMatrixReader(data, "dense"));
+    assertFalse(dense.isSparse());
+    assertSameCells(data, dense);
+  }
+  
+  public void testHeapEstimateFollowsStorage() {
+    final SnapshotStringMatrixReader sparse = new SnapshotStringMatrixReader(sparseData(), "sparse");
+    final HeapEstimate sparseEstimate = new HeapEstimate();
+    sparseEstimate.addReader(sparse);
+    
+    // a reader that does not describe its storage is counted as a dense table
+    final HeapEstimate denseEstimate = new HeapEstimate();
+    denseEstimate.addReader(new StringMatrixReader() {
+      public String getString(int colIndex, int rowIndex) {
+        return sparse.getString(colIndex, rowIndex);
+      }
+      
+      public int getNumberOfRows() {
+        return sparse.getNumberOfRows();
+      }
+      
+      public int getNumberOfColumns() {
+        return sparse.getNumberOfColumns();
+      }
+      
+      public String getIdentifier() {
+        return sparse.getIdentifier();
+      }
+    });
+    final HeapEstimate table = new HeapEstimate();
+    table.addCells(4, 10);
+    assertEquals(table.getCellBytes(), denseEstimate.getCellBytes());
+    assertTrue(sparseEstimate.getCellBytes() < denseEstimate.getCellBytes());
+    assertTrue(sparseEstimate.getStringBytes() > 0);
+  }
+  
+  private static void assertSameCells(final String[][] expected, final StringMatrixReader actual) {
+    assertEquals(expected.length, actual.getNumberOfColumns());
+    for (int col = 0; col < expected.length; col++) {
+      for (int row = 0; row < expected[col].length; row++) {
+        assertEquals(expected[col][row], actual.getString(col, row));
+      }
+    }
+  }
+  
+  public void testSparseCsvFile() throws Exception {
+    final StringBuffer csv = new StringBuffer(";test1;test2;test3;test4;test5\n");
+    for (int i = 0; i < 50; i++) {
+      csv.append("row" + i + ";;" + ((i == 7) ? "x" : "") + ";;;\n");
+    }
+    final CsvStringMatrixReader reader = new CsvStringMatrixReader(new StringReader(csv.toString()), ';', "csv");
+    assertEquals(6, reader.getNumberOfColumns());
+    assertEquals(51, reader.getNumberOfRows());
+    assertEquals("x", reader.getString(2, 8));
+    assertEquals("row7", reader.getString(0, 8));
+    assertEquals("", reader.getString(5, 50));
+  }
+}
@@ -35,8 +35,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Properties;
 
+import com.senacor.ddt.objectmatrix.CellAnnotation;
 import com.senacor.ddt.typetransformer.Transformer;
 
 import junit.framework.TestCase;
@@ -59,7 +59,7 @@ public class CollectionWrapperTest extends TestCase {
       }
       
     };
-    CollectionWrapper wrapper = new CollectionWrapper(Collection.class, coll, new Properties(), Transformer.get());
+    CollectionWrapper wrapper = new CollectionWrapper(Collection.class, coll, CellAnnotation.EMPTY, Transformer.get());
     assertEquals(0, coll.size());
     wrapper.write("1", Boolean.TRUE);
     assertEquals(1, coll.size());
@@ -31,6 +31,8 @@
 
 package com.senacor.ddt.objectmatrix.beanfiller.util;
 
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
@@ -39,7 +41,13 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.StringTokenizer;
 
+import com.senacor.ddt.objectmatrix.StringMatrix;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.objectmatrix.csv.CsvObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.writeable.DefaultWriteableStringMatrix;
+import com.senacor.ddt.objectmatrix.writeable.DefaultWriteableStringMatrix.StringMatrixWriter;
 import com.senacor.ddt.typetransformer.Transformer;
 
 import junit.framework.TestCase;
@@ -240,6 +248,80 @@ public class ObjectGraphDumperTest extends TestCase {
     assertMatch(expected, props, false);
   }
   
+  public void testSinkReceivesEntriesInOrder() throws Exception {
+    CollectionBean colBean = new CollectionBean();
+    colBean.getCollection().add(createSimpleBean());
+    colBean.getCollection().add(new LeafNode(TEST_STRING_2));
+    final List keys = new ArrayList();
+    final Properties props = new Properties();
+    dumper.dump(colBean, "myBean", new DumpSink() {
+      public void entry(String path, String value, String annotation) {
+        keys.add(ObjectGraphDumper.toKey(path, annotation));
+        props.setProperty(ObjectGraphDumper.toKey(path, annotation), value);
+      }
+    });
+    assertEquals("myBean~type=", keys.get(0));
+    // the type hint of each element comes right before the element
+    int hint = keys.indexOf("myBean.collection[1]~type");
+    assertEquals("myBean.collection[1]", keys.get(hint + 1));
+    assertTrue(keys.indexOf("myBean.collection[0]~type") < keys.indexOf("myBean.collection[0].theString"));
+    assertEquals(keys.size(), props.size());
+    assertMatch(dumper.dump(colBean, "myBean"), props, true);
+  }
+  
+  public void testCsvDumpSink() throws Exception {
+    ListBean listBean = new ListBean();
+    listBean.getList().add(createSimpleBean());
+    listBean.setTheString("a;b \"c\"");
+    StringWriter out = new StringWriter();
+    CsvDumpSink sink = new CsvDumpSink(out, ';', "expected");
+    dumper.dump(listBean, "myBean", sink);
+    sink.flush();
+    assertEquals(sink.getNumberOfEntries() + 1, new StringTokenizer(out.toString(), "\n").countTokens());
+    
+    StringMatrix reread = new CsvObjectMatrixFactory(new StringReader(out.toString()), ';', "dump").create()[0];
+    assertEquals("a;b \"c\"", reread.getString("expected", "myBean.theString"));
+    assertEquals(TEST_STRING, reread.getString("expected", "myBean.list[0].leaf"));
+    assertEquals(sink.getNumberOfEntries(), reread.getRowNames().size());
+  }
+  
+  public void testMatrixDumpSink() throws Exception {
+    DefaultWriteableStringMatrix matrix = new DefaultWriteableStringMatrix(new StringMatrixWriter() {
+      public void write(StringMatrixReader reader) {
+        fail("not written");
+      }
+    });
+    dumper.dump(createSimpleBean(), "myBean", new MatrixDumpSink(matrix, "first"));
+    SimpleBean second = createSimpleBean();
+    second.setTheString(TEST_STRING_2);
+    dumper.dump(second, "myBean", new MatrixDumpSink(matrix, "second"));
+    assertEquals(TEST_STRING, matrix.getString("first", "myBean.theString"));
+    assertEquals(TEST_STRING_2, matrix.getString("second", "myBean.theString"));
+    assertEquals(SimpleBean.class.getName(), matrix.getString("second", "myBean~type="));
+  }
+  
+  public void testPropertiesMethodsAreStillOverridable() throws Exception {
+    final List leafNames = new ArrayList();
+    ObjectGraphDumper legacy = new ObjectGraphDumper() {
+      protected void dumpLeaf(Object leaf, String leafName, Properties result) {
+        leafNames.add(leafName);
+        result.setProperty(leafName, "overridden");
+      }
+    };
+    legacy.addLeafType(LeafNode.class);
+    Properties props = legacy.dump(createSimpleBean(), "myBean");
+    assertTrue(leafNames.contains("myBean.theString"));
+    assertEquals("overridden", props.getProperty("myBean.theString"));
+    assertEquals("overridden", props.getProperty("myBean.leaf"));
+    
+    // other sinks use the new methods only
+    final Properties other = new Properties();
+    leafNames.clear();
+    legacy.dump(createSimpleBean(), "myBean", new PropertiesDumpSink(other));
+    assertTrue(leafNames.isEmpty());
+    assertEquals(TEST_STRING, other.getProperty("myBean.theString"));
+  }
+  
   private SimpleBean createSimpleBean() {
     SimpleBean bean = new SimpleBean();
     bean.setTheString(TEST_STRING);
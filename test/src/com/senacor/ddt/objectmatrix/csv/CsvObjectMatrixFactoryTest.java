@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.csv;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.MatrixLoadListener;
+import com.senacor.ddt.objectmatrix.MatrixLoadStatistics;
+import com.senacor.ddt.objectmatrix.ObjectMatrix;
+
+public class CsvObjectMatrixFactoryTest extends TestCase {
+  private static final String CSV = ";test1;test2\n" + "currency;EUR;EUR~type=foo\n" + "active;true;true\n";
+  
+  private static CsvObjectMatrixFactory createFactory() {
+    return new CsvObjectMatrixFactory(new Reader[] { new StringReader(CSV), new StringReader(CSV) }, ';',
+        new String[] { "first", "second" });
+  }
+  
+  public void testStringPoolSharesEqualStrings() {
+    final CsvObjectMatrixFactory factory = createFactory();
+    factory.setStringPoolSize(100);
+    final ObjectMatrix[] matrices = factory.create();
+    assertEquals("EUR", matrices[0].getString("test1", "currency"));
+    assertSame(matrices[0].getString("test1", "currency"), matrices[1].getString("test2", "currency"));
+    assertSame(matrices[0].getString("test1", "active"), matrices[1].getString("test1", "active"));
+    assertTrue(factory.getStringBytesSaved() > 0);
+  }
+  
+  public void testStringPoolSharesEqualStringsOnLoaderThreads() {
+    final CsvObjectMatrixFactory factory = createFactory();
+    factory.setStringPoolSize(100);
+    factory.setLoaderThreads(2);
+    final ObjectMatrix[] matrices = factory.create();
+    assertSame(matrices[0].getString("test1", "currency"), matrices[1].getString("test2", "currency"));
+    assertTrue(factory.getStringBytesSaved() > 0);
+  }
+  
+  public void testStringsAreNotSharedByDefault() {
+    final CsvObjectMatrixFactory factory = createFactory();
+    final ObjectMatrix[] matrices = factory.create();
+    assertNotSame(matrices[0].getString("test1", "currency"), matrices[1].getString("test1", "currency"));
+    assertEquals(0, factory.getStringBytesSaved());
+  }
+  
+  public void testLoadListenerIsToldAboutEachMatrix() {
+    final CsvObjectMatrixFactory factory = createFactory();
+    factory.setLoaderThreads(2);
+    final RecordingListener listener = new RecordingListener();
+    factory.addLoadListener(listener);
+    factory.create();
+    
+    assertEquals(2, listener.loaded.size());
+    assertNotNull(listener.finished);
+    assertEquals("first", listener.finished[0].getIdentifier());
+    assertEquals("second", listener.finished[1].getIdentifier());
+    final MatrixLoadStatistics first = listener.finished[0];
+    assertTrue(listener.loaded.contains(first));
+    assertEquals(3, first.getNumberOfColumns());
+    assertEquals(3, first.getNumberOfRows());
+    assertTrue(first.getCellBytes() > 0);
+    assertTrue(first.getStringBytes() > 0);
+    assertTrue(first.getAnnotationBytes() > 0);
+    assertEquals(first.getCellBytes() + first.getStringBytes() + first.getAnnotationBytes(), first
+        .getRetainedBytes());
+    assertTrue(first.toString().startsWith("Matrix first: 3 columns x 3 rows"));
+  }
+  
+  public void testLazyLoadReportsNoMatrices() {
+    final CsvObjectMatrixFactory factory = createFactory();
+    factory.setLazy(true);
+    final RecordingListener listener = new RecordingListener();
+    factory.addLoadListener(listener);
+    factory.create();
+    assertEquals(0, listener.loaded.size());
+    assertEquals(0, listener.finished.length);
+  }
+  
+  public void testRemovedListenerIsNotCalled() {
+    final CsvObjectMatrixFactory factory = createFactory();
+    final RecordingListener listener = new RecordingListener();
+    factory.addLoadListener(listener);
+    factory.removeLoadListener(listener);
+    factory.create();
+    assertNull(listener.finished);
+  }
+  
+  public void testLoadStatisticsCanBeLoggedWithoutListener() {
+    final CsvObjectMatrixFactory factory = createFactory();
+    factory.setLogLoadStatistics(true);
+    final List messages = Collections.synchronizedList(new ArrayList());
+    // commons-logging writes to java.util.logging here
+    final Logger logger = Logger.getLogger(AbstractDefaultStringMatrixBasedObjectMatrixFactory.class.getName());
+    final Handler handler = new Handler() {
+      public void publish(LogRecord record) {
+        if (Level.INFO.equals(record.getLevel())) {
+          messages.add(record.getMessage());
+        }
+      }
+      
+      public void flush() {
+        // nothing buffered
+      }
+      
+      public void close() {
+        // nothing to release
+      }
+    };
+    logger.addHandler(handler);
+    try {
+      factory.create();
+    } finally {
+      logger.removeHandler(handler);
+    }
+    assertEquals(3, messages.size());
+    int perMatrix = 0;
+    for (int i = 0; i < messages.size(); i++) {
+      if (((String) messages.get(i)).startsWith("Matrix ")) {
+        perMatrix++;
+      }
+    }
+    assertEquals(2, perMatrix);
+  }
+  
+  private static class RecordingListener implements MatrixLoadListener {
+    private final List loaded = Collections.synchronizedList(new ArrayList());
+    
+    private MatrixLoadStatistics[] finished;
+    
+    public void matrixLoaded(final MatrixLoadStatistics statistics) {
+      this.loaded.add(statistics);
+    }
+    
+    public void loadFinished(final MatrixLoadStatistics[] matrices, final long readNanos, final long buildNanos,
+        final long objectNanos) {
+      this.finished = matrices;
+    }
+  }
+}
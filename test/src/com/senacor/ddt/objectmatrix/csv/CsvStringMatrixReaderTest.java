@@ -33,7 +33,14 @@ package com.senacor.ddt.objectmatrix.csv;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
 
 public class CsvStringMatrixReaderTest extends TestCase {
   private static final String IDENTIFIER =
@@ -67,4 +74,114 @@ public class CsvStringMatrixReaderTest extends TestCase {
     assertEquals("foo\nbar", reader.getString(0, 6));
     assertEquals("foo\"bar", reader.getString(0, 7));
   }
+  
+  public void testLineEndingsAndEmptyLines() throws Exception {
+    final CsvStringMatrixReader csv =
+        new CsvStringMatrixReader(new StringReader("a;b\r\nc;d\re;f\n\n  \ng;h\n"), ';', "endings");
+    assertEquals(2, csv.getNumberOfColumns());
+    assertEquals(6, csv.getNumberOfRows());
+    assertEquals("d", csv.getString(1, 1));
+    assertEquals("e", csv.getString(0, 2));
+    assertEquals("", csv.getString(1, 3));
+    assertEquals("", csv.getString(0, 4));
+    assertEquals("h", csv.getString(1, 5));
+  }
+  
+  public void testQuotesInsideFields() throws Exception {
+    final CsvStringMatrixReader csv =
+        new CsvStringMatrixReader(new StringReader("a\"b;\"\";\"x\"y;\"\"\"\"\"\"\n"), ';', "quotes");
+    assertEquals(1, csv.getNumberOfRows());
+    assertEquals("a\"b", csv.getString(0, 0));
+    assertEquals("", csv.getString(1, 0));
+    assertEquals("xy", csv.getString(2, 0));
+    assertEquals("\"\"", csv.getString(3, 0));
+  }
+  
+  public void testFieldCountMismatch() throws Exception {
+    try {
+      new CsvStringMatrixReader(new StringReader("a;b\nc;d\ne;f;g\n"), ';', "mismatch");
+      fail("expected IllegalArgumentException");
+    } catch (final IllegalArgumentException e) {
+      assertEquals("Field count in line 2 differs from field count in first line", e.getMessage());
+    }
+    try {
+      new CsvStringMatrixReader(new StringReader("a;b\nc\n"), ';', "mismatch");
+      fail("expected IllegalArgumentException");
+    } catch (final IllegalArgumentException e) {
+      assertEquals("Field count in line 1 differs from field count in first line", e.getMessage());
+    }
+  }
+  
+  public void testUnterminatedQuote() throws Exception {
+    try {
+      new CsvStringMatrixReader(new StringReader("a;b\n\"c\nd;e\n"), ';', "unterminated");
+      fail("expected IllegalArgumentException");
+    } catch (final IllegalArgumentException e) {
+      assertEquals("Quoted field starting in line 2 is not terminated", e.getMessage());
+    }
+  }
+  
+  public void testEmptyFile() throws Exception {
+    try {
+      new CsvStringMatrixReader(new StringReader(""), ';', "empty");
+      fail("expected IllegalArgumentException");
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  public void testBytes() throws Exception {
+    final String content = "\u00e4;\"\u20ac;\n\u00df\"\r\n";
+    final CsvStringMatrixReader utf8 =
+        new CsvStringMatrixReader(new ByteArrayInputStream(content.getBytes("UTF-8")), ';', "UTF-8", "utf8");
+    assertEquals("\u00e4", utf8.getString(0, 0));
+    assertEquals("\u20ac;\n\u00df", utf8.getString(1, 0));
+    
+    final CsvStringMatrixReader latin1 =
+        new CsvStringMatrixReader(new ByteArrayInputStream("\u00e4;\u00ff".getBytes("ISO-8859-1")), ';',
+            "ISO-8859-1", "latin1");
+    assertEquals("\u00e4", latin1.getString(0, 0));
+    assertEquals("\u00ff", latin1.getString(1, 0));
+  }
+  
+  public void testMalformedBytes() throws Exception {
+    try {
+      new CsvStringMatrixReader(new ByteArrayInputStream("\u00e4;b".getBytes("ISO-8859-1")), ';', "UTF-8", "broken");
+      fail("expected IOException");
+    } catch (final IOException e) {
+      // expected
+    }
+  }
+  
+  public void testReadsWhatTheWriterWrites() throws Exception {
+    // long fields and many rows make fields and quote pairs straddle the tokenizer's buffer boundaries
+    final StringBuffer longField = new StringBuffer();
+    for (int i = 0; i < 20000; i++) {
+      longField.append("\"\u00e4;\n");
+    }
+    final String[][] data = new String[3][3000];
+    for (int row = 0; row < 3000; row++) {
+      data[0][row] = "row" + row;
+      data[1][row] = (row % 3 == 0) ? "say \"hi\";\r\nbye" : "\u20ac" + row;
+      data[2][row] = (row == 1500) ? longField.toString() : "";
+    }
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new CsvStringMatrixWriter(Channels.newChannel(out), ';', "UTF-8").write(new SnapshotStringMatrixReader(data,
+        "written"));
+    
+    final CsvStringMatrixReader fromBytes =
+        new CsvStringMatrixReader(new ByteArrayInputStream(out.toByteArray()), ';', "UTF-8", "bytes");
+    final CsvStringMatrixReader fromChars =
+        new CsvStringMatrixReader(new StringReader(out.toString("UTF-8")), ';', "chars");
+    final CsvStringMatrixReader[] readers = { fromBytes, fromChars };
+    for (int i = 0; i < readers.length; i++) {
+      assertEquals(3, readers[i].getNumberOfColumns());
+      assertEquals(3000, readers[i].getNumberOfRows());
+      for (int row = 0; row < 3000; row++) {
+        for (int col = 0; col < 3; col++) {
+          assertEquals(data[col][row].trim(), readers[i].getString(col, row));
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.CellAnnotation;
+import com.senacor.ddt.objectmatrix.ObjectMatrix;
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+import com.senacor.ddt.objectmatrix.writeable.DefaultWriteableStringMatrix;
+
+public class CsvStringMatrixWriterTest extends TestCase {
+  private static String write(final StringMatrixReader matrix, final int bufferSize) throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new CsvStringMatrixWriter(Channels.newChannel(out), ';', "UTF-8").setBufferSize(bufferSize).write(matrix);
+    return out.toString("UTF-8");
+  }
+  
+  public void testWritesLinesAndQuotes() throws Exception {
+    final StringMatrixReader matrix =
+        new SnapshotStringMatrixReader(new String[][] { { "", "a" }, { "test1", "x;y" }, { "test2", "say \"hi\"" } },
+            "quoted");
+    assertEquals(";test1;test2\na;\"x;y\";\"say \"\"hi\"\"\"\n", write(matrix, 16));
+  }
+  
+  public void testRoundTrip() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final DefaultWriteableStringMatrix matrix =
+        new DefaultWriteableStringMatrix(new CsvStringMatrixWriter(Channels.newChannel(out), ';', "UTF-8")
+            .setBufferSize(64));
+    for (int i = 0; i < 200; i++) {
+      matrix.setString("test" + (i % 7), "row" + i, "value \u00e4" + i);
+    }
+    matrix.setAnnotatedString("test1", "bean.ref", "", "ref", "test2");
+    matrix.write();
+    
+    final ObjectMatrix reread =
+        new CsvObjectMatrixFactory(new InputStreamReader(new ByteArrayInputStream(out.toByteArray()), "UTF-8"), ';',
+            "reread").create()[0];
+    assertEquals("value \u00e4" + 15, reread.getString("test1", "row15"));
+    assertEquals("test2", CellAnnotation.forCell(reread, "test1", "bean.ref").get("ref"));
+    assertEquals(8, reread.getColNames().size());
+  }
+}
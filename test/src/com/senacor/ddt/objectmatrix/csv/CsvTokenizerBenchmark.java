@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.objectmatrix.csv;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Command line benchmark comparing {@link CsvTokenizer} with OpenCSV's <code>CSVReader.readNext()</code>. Only the
+ * parsing is timed, no matrix storage is involved. This is not a unit test and is not run by the build.
+ * <p>
+ * Usage: <code>CsvTokenizerBenchmark file [megabytes [charset [rounds]]]</code>. If the file does not exist, a file of
+ * about the given size (default 1024 MB) with 20 columns per row is generated; every fifth field is quoted and
+ * contains the delimiter and a non-ASCII character. The charset defaults to UTF-8 and is used both for generating and
+ * for reading the file.
+ * <p>
+ * OpenCSV is no longer a dependency. It is only measured if its <code>CSVReader</code> is found on the classpath.
+ * 
+ * @version $Id$
+ */
+public final class CsvTokenizerBenchmark {
+  private static final char DELIMITER = ';';
+  
+  private static final int COLUMNS = 20;
+  
+  private static final String OPENCSV_READER = "au.com.bytecode.opencsv.CSVReader";
+  
+  private CsvTokenizerBenchmark() {
+    // no instances
+  }
+  
+  public static void main(final String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("Usage: CsvTokenizerBenchmark file [megabytes [charset [rounds]]]");
+      System.exit(1);
+    }
+    final File file = new File(args[0]);
+    final long megabytes = (args.length > 1) ? Long.parseLong(args[1]) : 1024;
+    final String charsetName = (args.length > 2) ? args[2] : "UTF-8";
+    final int rounds = (args.length > 3) ? Integer.parseInt(args[3]) : 3;
+    
+    if (!file.exists()) {
+      generate(file, megabytes * 1024 * 1024, charsetName);
+    }
+    System.out.println(file + ": " + (file.length() / (1024 * 1024)) + " MB, " + charsetName + ", java "
+        + System.getProperty("java.version"));
+    
+    Class openCsv = null;
+    try {
+      openCsv = Class.forName(OPENCSV_READER);
+    } catch (final ClassNotFoundException e) {
+      System.out.println("OpenCSV not on the classpath, measuring the tokenizer only");
+    }
+    
+    for (int round = 1; round <= rounds; round++) {
+      final StringBuffer line = new StringBuffer("round " + round + ":");
+      long start = System.currentTimeMillis();
+      long fields = tokenizeBytes(file, charsetName);
+      line.append(" tokenizer from bytes ").append(System.currentTimeMillis() - start).append(" ms,");
+      start = System.currentTimeMillis();
+      checkFields(fields, tokenizeReader(file, charsetName));
+      line.append(" tokenizer from reader ").append(System.currentTimeMillis() - start).append(" ms");
+      if (openCsv != null) {
+        start = System.currentTimeMillis();
+        checkFields(fields, readOpenCsv(openCsv, file, charsetName));
+        line.append(", OpenCSV readNext ").append(System.currentTimeMillis() - start).append(" ms");
+      }
+      line.append(" (").append(fields).append(" fields)");
+      System.out.println(line);
+    }
+  }
+  
+  private static void generate(final File file, final long size, final String charsetName) throws IOException {
+    System.out.println("generating " + file);
+    final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), charsetName), 1 << 16);
+    try {
+      long written = 0;
+      for (long row = 0; written < size; row++) {
+        final StringBuffer line = new StringBuffer(256);
+        for (int column = 0; column < COLUMNS; column++) {
+          if (column > 0) {
+            line.append(DELIMITER);
+          }
+          if ((column % 5) == 0) {
+            line.append("\"v\u00e4l").append(DELIMITER).append(row).append('"');
+          } else {
+            line.append("value").append(column).append('_').append(row);
+          }
+        }
+        line.append('\n');
+        out.write(line.toString());
+        // close enough for the size check, the only non-ASCII character takes two bytes in UTF-8
+        written += line.length() + (COLUMNS / 5);
+      }
+    } finally {
+      out.close();
+    }
+  }
+  
+  private static long tokenizeBytes(final File file, final String charsetName) throws IOException {
+    final InputStream in = new FileInputStream(file);
+    try {
+      return count(new CsvTokenizer(in, charsetName, DELIMITER));
+    } finally {
+      in.close();
+    }
+  }
+  
+  private static long tokenizeReader(final File file, final String charsetName) throws IOException {
+    final Reader in = new InputStreamReader(new FileInputStream(file), charsetName);
+    try {
+      return count(new CsvTokenizer(in, DELIMITER));
+    } finally {
+      in.close();
+    }
+  }
+  
+  private static long count(final CsvTokenizer tokenizer) throws IOException {
+    long fields = 0;
+    while (tokenizer.nextRecord()) {
+      while (tokenizer.nextField() != null) {
+        fields++;
+      }
+    }
+    return fields;
+  }
+  
+  private static long readOpenCsv(final Class readerClass, final File file, final String charsetName)
+      throws Exception {
+    final Constructor constructor = readerClass.getConstructor(new Class[] { Reader.class, Character.TYPE });
+    final Method readNext = readerClass.getMethod("readNext", new Class[0]);
+    final Method close = readerClass.getMethod("close", new Class[0]);
+    final Object reader =
+        constructor.newInstance(new Object[] { new InputStreamReader(new FileInputStream(file), charsetName),
+            new Character(DELIMITER) });
+    try {
+      long fields = 0;
+      String[] line;
+      while ((line = (String[]) readNext.invoke(reader, new Object[0])) != null) {
+        fields += line.length;
+      }
+      return fields;
+    } finally {
+      close.invoke(reader, new Object[0]);
+    }
+  }
+  
+  private static void checkFields(final long expected, final long actual) {
+    if (expected != actual) {
+      throw new IllegalStateException("Expected " + expected + " fields but got " + actual);
+    }
+  }
+}
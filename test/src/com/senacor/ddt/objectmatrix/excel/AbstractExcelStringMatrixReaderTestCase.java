@@ -44,9 +44,17 @@ public abstract class AbstractExcelStringMatrixReaderTestCase extends TestCase {
   
   protected String sheetName = "Test";
   
+  protected boolean snapshot = false;
+  
   protected void setUp() throws Exception {
     InputStream in = getClass().getClassLoader().getResourceAsStream("test.xls");
-    stringMatrixReader = new JExcelStringMatrixReader(Workbook.getWorkbook(in), sheetName, transposed);
+    JExcelStringMatrixReader excelReader =
+        new JExcelStringMatrixReader(Workbook.getWorkbook(in), sheetName, transposed);
+    if (snapshot) {
+      stringMatrixReader = excelReader.snapshot();
+    } else {
+      stringMatrixReader = excelReader;
+    }
     in.close();
   }
   
@@ -59,4 +67,8 @@ public abstract class AbstractExcelStringMatrixReaderTestCase extends TestCase {
     transposed = true;
     sheetName = "TestTransposed";
   }
+  
+  protected final void useSnapshot() {
+    snapshot = true;
+  }
 }
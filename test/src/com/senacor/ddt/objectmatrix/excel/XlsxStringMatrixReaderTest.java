@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.excel;
+
+import java.io.File;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.ObjectMatrix;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+
+public class XlsxStringMatrixReaderTest extends TestCase {
+  private static final String XLSX = "com/senacor/ddt/objectmatrix/excel/XlsxTest.xlsx";
+  
+  private XlsxWorkbook workbook;
+  
+  protected void setUp() throws Exception {
+    final URL url = getClass().getClassLoader().getResource(XLSX);
+    this.workbook = new XlsxWorkbook(new File(url.getFile()));
+  }
+  
+  protected void tearDown() throws Exception {
+    this.workbook.close();
+  }
+  
+  public void testSheetNames() {
+    assertEquals(2, this.workbook.getSheetNames().length);
+    assertEquals("Test", this.workbook.getSheetNames()[0]);
+    assertEquals("TestTransposed", this.workbook.getSheetNames()[1]);
+  }
+  
+  public void testCellTypes() {
+    assertCells(new XlsxStringMatrixReader(this.workbook, "Test", false));
+  }
+  
+  public void testTransposedCellTypes() {
+    assertCells(new XlsxStringMatrixReader(this.workbook, "TestTransposed", true));
+  }
+  
+  public void testUnknownSheet() {
+    try {
+      new XlsxStringMatrixReader(this.workbook, "NoSuchSheet", false);
+      fail("should have thrown exception");
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+  }
+  
+  public void testParseReference() {
+    assertEquals(0, XlsxStringMatrixReader.parseReference("A1")[0]);
+    assertEquals(0, XlsxStringMatrixReader.parseReference("A1")[1]);
+    assertEquals(27, XlsxStringMatrixReader.parseReference("AB12")[0]);
+    assertEquals(11, XlsxStringMatrixReader.parseReference("AB12")[1]);
+    assertNull(XlsxStringMatrixReader.parseReference("12"));
+    assertNull(XlsxStringMatrixReader.parseReference("AB"));
+  }
+  
+  public void testDateFormatCodes() {
+    assertTrue(XlsxWorkbook.isDateFormatCode("dd\\.mm\\.yyyy"));
+    assertTrue(XlsxWorkbook.isDateFormatCode("[$-407]d/m/yy h:mm"));
+    assertTrue(XlsxWorkbook.isDateFormatCode("[h]:mm"));
+    assertFalse(XlsxWorkbook.isDateFormatCode("#,##0.00"));
+    assertFalse(XlsxWorkbook.isDateFormatCode("[Red]0.00\\ \"days\""));
+    assertFalse(XlsxWorkbook.isDateFormatCode("0.00_y"));
+  }
+  
+  public void testFactory() {
+    final ObjectMatrix[] matrices = new XlsxObjectMatrixFactory(XLSX, "Test").create();
+    assertEquals(1, matrices.length);
+    assertEquals("[Test]", matrices[0].getMatrixIdentifier());
+    assertEquals("Foo", matrices[0].getString("Col 1", "String"));
+    assertEquals("Row", matrices[0].getRowNames().get(8));
+    
+    final ObjectMatrix transposed =
+        new XlsxObjectMatrixFactory(XLSX, "TestTransposed").setTransposed(true).create()[0];
+    assertEquals(matrices[0].getColNames(), transposed.getColNames());
+    assertEquals(matrices[0].getRowNames(), transposed.getRowNames());
+  }
+  
+  private void assertCells(final StringMatrixReader reader) {
+    assertEquals(4, reader.getNumberOfColumns());
+    assertEquals(9, reader.getNumberOfRows());
+    assertEquals("Col 3", reader.getString(3, 0));
+    assertEquals("Row~anno", reader.getString(0, 8));
+    // shared, rich text (without phonetic run) and inline strings
+    assertEquals("Foo", reader.getString(1, 1));
+    assertEquals("Bar", reader.getString(2, 1));
+    assertEquals(" Baz ", reader.getString(3, 1));
+    // numbers, with and without a non-date number format
+    assertEquals("42", reader.getString(1, 2));
+    assertEquals("0.5", reader.getString(2, 2));
+    assertEquals("1234.56789", reader.getString(3, 2));
+    // built-in date, custom date and built-in time formats; times without a date are anchored at 1970 like jxl does
+    assertEquals("2007-03-15T00:00:00.000", reader.getString(1, 3));
+    assertEquals("2007-03-15T12:00:00.000", reader.getString(2, 3));
+    assertEquals("1970-01-01T18:00:00.000", reader.getString(3, 3));
+    assertEquals("true", reader.getString(1, 4));
+    assertEquals("false", reader.getString(2, 4));
+    // cached formula results
+    assertEquals("abc", reader.getString(1, 5));
+    assertEquals("3", reader.getString(2, 5));
+    assertEquals("#DIV/0!", reader.getString(3, 5));
+    // merged cells repeat the top left content
+    assertEquals("across", reader.getString(1, 6));
+    assertEquals("across", reader.getString(2, 6));
+    assertEquals("across", reader.getString(3, 6));
+    // empty and missing cells
+    assertEquals("", reader.getString(1, 7));
+    assertEquals("", reader.getString(3, 8));
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.ObjectMatrix;
+
+/**
+ * There is no embedded database on the test classpath, so the JDBC objects are simulated with dynamic proxies.
+ */
+public class JdbcStringMatrixReaderTest extends TestCase {
+  private static final String[] LABELS = new String[] { "TEST_CASE", "CUSTOMER_NAME", "AMOUNT", "CREATED" };
+  
+  private static final int[] TYPES = new int[] { Types.VARCHAR, Types.VARCHAR, Types.DECIMAL, Types.TIMESTAMP };
+  
+  private static final Timestamp CREATED;
+  
+  static {
+    final Calendar calendar = Calendar.getInstance();
+    calendar.clear();
+    calendar.set(2007, Calendar.MARCH, 4, 5, 6, 7);
+    CREATED = new Timestamp(calendar.getTime().getTime());
+  }
+  
+  private static final Object[][] ROWS =
+      new Object[][] { { "test1", "Smith", new BigDecimal("12.50"), CREATED }, { "test2", null, null, null } };
+  
+  /**
+   * List<String> of the names of the methods called on the proxies.
+   */
+  private final List calls = new ArrayList();
+  
+  private Object proxy(final Class type, final InvocationHandler handler) {
+    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { type }, new InvocationHandler() {
+      public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        JdbcStringMatrixReaderTest.this.calls.add(method.getName() + ((args == null) ? "" : "" + args[0]));
+        return handler.invoke(proxy, method, args);
+      }
+    });
+  }
+  
+  private ResultSet resultSet() {
+    final ResultSetMetaData metaData = (ResultSetMetaData) proxy(ResultSetMetaData.class, new InvocationHandler() {
+      public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        if (method.getName().equals("getColumnCount")) {
+          return new Integer(LABELS.length);
+        }
+        final int column = ((Integer) args[0]).intValue() - 1;
+        return method.getName().equals("getColumnLabel") ? (Object) LABELS[column] : new Integer(TYPES[column]);
+      }
+    });
+    return (ResultSet) proxy(ResultSet.class, new InvocationHandler() {
+      private int row = -1;
+      
+      public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        final String name = method.getName();
+        if (name.equals("getMetaData")) {
+          return metaData;
+        } else if (name.equals("next")) {
+          return Boolean.valueOf(++this.row < ROWS.length);
+        } else if (name.startsWith("get")) {
+          return ROWS[this.row][((Integer) args[0]).intValue() - 1];
+        }
+        return null;
+      }
+    });
+  }
+  
+  public void testReadsOneTestCasePerRow() throws Exception {
+    final Map paths = new HashMap();
+    paths.put("customer_name", "customer.name");
+    final JdbcStringMatrixReader reader = new JdbcStringMatrixReader(resultSet(), "test_case", paths, "jdbc", null);
+    assertEquals(3, reader.getNumberOfColumns());
+    assertEquals(4, reader.getNumberOfRows());
+    assertEquals("test2", reader.getString(2, 0));
+    assertEquals("customer.name", reader.getString(0, 1));
+    assertEquals("AMOUNT", reader.getString(0, 2));
+    assertEquals("Smith", reader.getString(1, 1));
+    assertEquals("12.5", reader.getString(1, 2));
+    assertEquals("2007-03-04T05:06:07.000", reader.getString(1, 3));
+    assertEquals("", reader.getString(2, 1));
+    assertEquals("", reader.getString(2, 3));
+  }
+  
+  public void testWithoutNameColumn() throws Exception {
+    final JdbcStringMatrixReader reader = new JdbcStringMatrixReader(resultSet(), null, "jdbc");
+    assertEquals(5, reader.getNumberOfRows());
+    assertEquals("row 2", reader.getString(2, 0));
+    assertEquals("test2", reader.getString(2, 1));
+  }
+  
+  public void testFactory() throws Exception {
+    final Statement statement = (Statement) proxy(Statement.class, new InvocationHandler() {
+      public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        return method.getName().equals("executeQuery") ? resultSet() : null;
+      }
+    });
+    final Connection connection = (Connection) proxy(Connection.class, new InvocationHandler() {
+      public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        return method.getName().equals("createStatement") ? statement : null;
+      }
+    });
+    final DataSource dataSource = (DataSource) proxy(DataSource.class, new InvocationHandler() {
+      public Object invoke(final Object proxy, final Method method, final Object[] args) {
+        return connection;
+      }
+    });
+    final ObjectMatrix matrix =
+        new JdbcObjectMatrixFactory(dataSource, "select * from customer", "customers").setFetchSize(250)
+            .setNameColumn("TEST_CASE").create()[0];
+    assertEquals(new BigDecimal("12.5"), matrix.getBigDecimal("test1", "AMOUNT"));
+    assertTrue(this.calls.contains("setFetchSize250"));
+    assertTrue(this.calls.contains("executeQueryselect * from customer"));
+    // result set, statement and connection
+    int closed = 0;
+    for (int i = 0; i < this.calls.size(); i++) {
+      if ("close".equals(this.calls.get(i))) {
+        closed++;
+      }
+    }
+    assertEquals(3, closed);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.json;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.ColumnProjection;
+import com.senacor.ddt.objectmatrix.MatrixReadFailedException;
+import com.senacor.ddt.objectmatrix.ObjectMatrix;
+
+public class NdjsonStringMatrixReaderTest extends TestCase {
+  private static final String LINES =
+      "{\"testCase\": \"test1\", \"bean\": {\"name\": \"a \\\"b\\\"\", \"list\": [{\"x\": 1}, {\"x\": 2.5e1}]}}\n"
+          + "\n"
+          + "{\"bean\": {\"name\": \"\\u00e4\\n\", \"flag\": true, \"other\": null, \"empty\": []},"
+          + " \"testCase\": \"test2\"}\n"
+          + "{\"bean\": {\"name\": \"c\"}}\n";
+  
+  private static NdjsonStringMatrixReader read(final String content) throws Exception {
+    return new NdjsonStringMatrixReader(new StringReader(content), "json");
+  }
+  
+  public void testFlattensObjects() throws Exception {
+    final NdjsonStringMatrixReader reader = read(LINES);
+    assertEquals(4, reader.getNumberOfColumns());
+    // title row, bean.name, bean.list[0].x, bean.list[1].x, bean.flag, bean.other
+    assertEquals(6, reader.getNumberOfRows());
+    assertEquals("test1", reader.getString(1, 0));
+    assertEquals("test2", reader.getString(2, 0));
+    assertEquals("line 4", reader.getString(3, 0));
+    assertEquals("bean.name", reader.getString(0, 1));
+    assertEquals("a \"b\"", reader.getString(1, 1));
+    assertEquals("\u00e4\n", reader.getString(2, 1));
+    assertEquals("bean.list[1].x", reader.getString(0, 3));
+    assertEquals("2.5e1", reader.getString(1, 3));
+    assertEquals("", reader.getString(2, 3));
+    assertEquals("true", reader.getString(2, 4));
+    assertEquals("~null", reader.getString(2, 5));
+  }
+  
+  public void testFactory() throws Exception {
+    final ObjectMatrix matrix = new NdjsonObjectMatrixFactory(new StringReader(LINES), "json").create()[0];
+    assertEquals(Arrays.asList(new String[] { "Reserved", "test1", "test2", "line 4" }), matrix.getColNames());
+    assertEquals(new Integer(1), matrix.getInteger("test1", "bean.list[0].x"));
+    assertEquals(Boolean.TRUE, matrix.getBoolean("test2", "bean.flag"));
+    assertNull(matrix.getString("test2", "bean.other"));
+  }
+  
+  public void testNameKeyAndProjection() throws Exception {
+    final NdjsonStringMatrixReader reader =
+        new NdjsonStringMatrixReader(new StringReader("{\"id\": \"a\", \"v\": 1}\n{\"id\": \"b\", \"v\": 2}"), "id",
+            "json", new ColumnProjection(Arrays.asList(new String[] { "b" })));
+    assertEquals(2, reader.getNumberOfColumns());
+    assertEquals("b", reader.getString(1, 0));
+    assertEquals("2", reader.getString(1, 1));
+  }
+  
+  public void testSyntaxErrors() throws Exception {
+    final String[] invalid = new String[] { "[1]", "{\"a\" 1}", "{\"a\": tru}", "{\"a\": \"b}", "{\"a\": 1" };
+    for (int i = 0; i < invalid.length; i++) {
+      try {
+        read(invalid[i]);
+        fail("invalid JSON accepted: " + invalid[i]);
+      } catch (final MatrixReadFailedException e) {
+        // expected
+      }
+    }
+  }
+}
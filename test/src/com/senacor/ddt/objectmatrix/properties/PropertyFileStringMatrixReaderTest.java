@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.properties;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.ColumnProjection;
+import com.senacor.ddt.objectmatrix.ObjectMatrix;
+
+public class PropertyFileStringMatrixReaderTest extends TestCase {
+  private static final String DIR = "com/senacor/ddt/objectmatrix/properties/";
+  
+  private static final String FIRST = DIR + "first.properties";
+  
+  private static final String SECOND = DIR + "second.properties";
+  
+  private static final String OTHER = DIR + "other.properties";
+  
+  private static final String[] FILES = new String[] { FIRST, SECOND, OTHER };
+  
+  public void testMergesKeysOfAllFiles() throws Exception {
+    final PropertyFileStringMatrixReader reader = new PropertyFileStringMatrixReader(FILES, "props");
+    assertEquals(4, reader.getNumberOfColumns());
+    // __testCaseName__, bean.count, bean.extra, bean.name, bean.other; bean.empty is empty everywhere
+    assertEquals(6, reader.getNumberOfRows());
+    assertEquals("reserved", reader.getString(0, 0));
+    assertEquals(SECOND, reader.getString(2, 0));
+    assertEquals("__testCaseName__", reader.getString(0, 1));
+    assertEquals("bean.count", reader.getString(0, 2));
+    assertEquals("bean.name", reader.getString(0, 4));
+    assertEquals("first", reader.getString(1, 4));
+    assertEquals("x", reader.getString(2, 3));
+    // missing keys are empty
+    assertEquals("", reader.getString(1, 3));
+  }
+  
+  public void testParallelLoadingKeepsFileOrder() throws Exception {
+    final PropertyFileStringMatrixReader sequential = new PropertyFileStringMatrixReader(FILES, "props");
+    final PropertyFileStringMatrixReader parallel = new PropertyFileStringMatrixReader(FILES, "props", null, 3);
+    assertEquals(sequential.getNumberOfRows(), parallel.getNumberOfRows());
+    for (int i = 0; i < sequential.getNumberOfColumns(); i++) {
+      for (int j = 0; j < sequential.getNumberOfRows(); j++) {
+        assertEquals(sequential.getString(i, j), parallel.getString(i, j));
+      }
+    }
+  }
+  
+  public void testProjectionFollowsReferences() throws Exception {
+    final PropertyFileStringMatrixReader reader =
+        new PropertyFileStringMatrixReader(FILES, "props", new ColumnProjection(Arrays.asList(new String[] { FIRST })),
+            2);
+    assertEquals(3, reader.getNumberOfColumns());
+    assertEquals(FIRST, reader.getString(1, 0));
+    assertEquals(OTHER, reader.getString(2, 0));
+  }
+  
+  public void testFactory() throws Exception {
+    final ObjectMatrix matrix =
+        new PropertyFileStringMatrixFactory(FILES, "props").setFileLoaderThreads(2).create()[0];
+    assertEquals("second", matrix.getString(SECOND, "bean.name"));
+    assertEquals(new Integer(1), matrix.getObject(FIRST, "bean.count", Integer.class));
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+package com.senacor.ddt.objectmatrix.writeable;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.ColumnNotFoundException;
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+
+public class DefaultWriteableStringMatrixTest extends TestCase {
+  private StringMatrixReader written;
+  
+  private final DefaultWriteableStringMatrix.StringMatrixWriter writer =
+      new DefaultWriteableStringMatrix.StringMatrixWriter() {
+        public void write(final StringMatrixReader matrix) {
+          DefaultWriteableStringMatrixTest.this.written = new SnapshotStringMatrixReader(matrix);
+        }
+      };
+  
+  public void testAddsColumnsAndRows() {
+    final DefaultWriteableStringMatrix matrix = new DefaultWriteableStringMatrix(this.writer);
+    matrix.setString("test1", "bean.name", "Anna");
+    matrix.setString("test2", "bean.age", "42");
+    matrix.setString("test1", "bean.age", "17");
+    assertEquals(Arrays.asList(new String[] { "Reserved", "test1", "test2" }), matrix.getColNames());
+    assertEquals(Arrays.asList(new String[] { "Reserved", "bean.name", "bean.age" }), matrix.getRowNames());
+    assertEquals("Anna", matrix.getString("test1", "bean.name"));
+    assertEquals("", matrix.getString("test2", "bean.name"));
+    assertFalse(matrix.isDefinedAt("test2", "bean.name"));
+    assertTrue(matrix.isDefinedAt("test1", "bean.age"));
+    assertEquals(Arrays.asList(new String[] { "bean.age" }), matrix.filterRowNames(null, null, "age"));
+    try {
+      matrix.getString("test3", "bean.age");
+      fail();
+    } catch (final ColumnNotFoundException e) {
+      // expected
+    }
+  }
+  
+  public void testWriteIncludesTitles() {
+    final DefaultWriteableStringMatrix matrix = new DefaultWriteableStringMatrix(this.writer);
+    matrix.setString("test1", "bean.name", "Anna");
+    matrix.setAnnotatedString("test2", "bean.name", "Bob", "type", "foo");
+    matrix.write();
+    assertEquals(3, this.written.getNumberOfColumns());
+    assertEquals(2, this.written.getNumberOfRows());
+    assertEquals("", this.written.getString(0, 0));
+    assertEquals("test2", this.written.getString(2, 0));
+    assertEquals("bean.name", this.written.getString(0, 1));
+    assertEquals("Bob~type=foo", this.written.getString(2, 1));
+  }
+  
+  public void testStartsWithReaderContent() {
+    final StringMatrixReader initial =
+        new SnapshotStringMatrixReader(new String[][] { { "", "name" }, { "test1~type=x", "Anna" } }, "initial");
+    final DefaultWriteableStringMatrix matrix = new DefaultWriteableStringMatrix(initial, this.writer);
+    assertEquals("initial", matrix.getMatrixIdentifier());
+    assertEquals("Anna", matrix.getString("test1~type=x", "name"));
+    matrix.setString("test2", "name", "Bob");
+    matrix.write();
+    assertEquals("test1~type=x", this.written.getString(1, 0));
+    assertEquals("Bob", this.written.getString(2, 1));
+  }
+  
+  public void testFormatAnnotatedCell() {
+    assertEquals("a~ref=test1", DefaultWriteableStringMatrix.formatAnnotatedCell("a", "ref", "test1"));
+    assertEquals("~empty", DefaultWriteableStringMatrix.formatAnnotatedCell(null, "empty", null));
+    try {
+      DefaultWriteableStringMatrix.formatAnnotatedCell("a~b", "ref", "x");
+      fail();
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+  }
+}
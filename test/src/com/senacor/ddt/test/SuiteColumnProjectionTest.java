@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2007 Senacor Technologies AG.
+ *  
+ * All rights reserved. Redistribution and use in source and binary forms,
+ * with or without modification, are permitted provided that the following
+ * conditions are met: 
+ *
+ * Redistributions of source code must retain the above copyright notice, 
+ * this list of conditions and the following disclaimer. 
+ *
+ * Redistributions in binary form must reproduce the above copyright 
+ * notice, this list of conditions and the following disclaimer in the 
+ * documentation and/or other materials provided with the distribution. 
+ *
+ * Neither the name of Senacor Technologies AG nor the names of its 
+ * contributors may be used to endorse or promote products derived from 
+ * this software without specific prior written permission. 
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS 
+ * IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED 
+ * TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A 
+ * PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER 
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, 
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, 
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR 
+ * PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF 
+ * LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING 
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS 
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE. 
+ */
+
+package com.senacor.ddt.test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+
+import com.senacor.ddt.objectmatrix.AbstractDefaultStringMatrixBasedObjectMatrixFactory;
+import com.senacor.ddt.objectmatrix.ColumnProjection;
+import com.senacor.ddt.objectmatrix.SnapshotStringMatrixReader;
+import com.senacor.ddt.objectmatrix.DefaultStringMatrix.StringMatrixReader;
+
+public class SuiteColumnProjectionTest extends TestCase {
+  private RecordingFactory factory;
+  
+  private TestSuiteConfiguration config;
+  
+  protected void setUp() throws Exception {
+    this.factory = new RecordingFactory();
+    this.config = new TestSuiteConfiguration();
+  }
+  
+  public void testProjectionIsOptIn() {
+    this.config.addTestCaseFilter(new NameListTestCaseFilter(new String[] { "T2" }));
+    assertEquals(1, prepare().length);
+    assertNull(this.factory.projection);
+  }
+  
+  public void testNameListsAreIntersected() {
+    this.config.setProjectColumns(true);
+    this.config.addTestCaseFilter(new NameListTestCaseFilter(new String[] { "T1", "T2" }));
+    this.config.addTestCaseFilter(new NameListTestCaseFilter(new String[] { "T2", "T3" }));
+    final TestCaseData[] tcds = prepare();
+    assertEquals(1, tcds.length);
+    assertEquals("T2", tcds[0].getTestCaseName());
+    assertEquals(new HashSet(Arrays.asList(new String[] { "T2" })), this.factory.projection.getWantedColumns());
+  }
+  
+  public void testFactoryIsNotChanged() {
+    this.config.setProjectColumns(true);
+    this.config.addTestCaseFilter(new NameListTestCaseFilter(new String[] { "T2" }));
+    prepare();
+    assertNotNull(this.factory.projection);
+    assertEquals(4, this.factory.create()[0].getColNames().size());
+    assertNull(this.factory.projection);
+  }
+  
+  public void testExcludingNameListIsNotProjected() {
+    this.config.setProjectColumns(true);
+    this.config.addTestCaseFilter(new ExcludingNameListTestCaseFilter(new String[] { "T2" }));
+    assertEquals(2, prepare().length);
+    assertNull(this.factory.projection);
+  }
+  
+  public void testSingleNameRangeIsProjected() {
+    this.config.setProjectColumns(true);
+    this.config.setFirstTestCaseName("T3");
+    this.config.setLastTestCaseName("T3");
+    final TestCaseData[] tcds = prepare();
+    assertEquals(1, tcds.length);
+    assertEquals("T3", tcds[0].getTestCaseName());
+    assertEquals(new HashSet(Arrays.asList(new String[] { "T3" })), this.factory.projection.getWantedColumns());
+  }
+  
+  public void testNameRangeIsNotProjected() {
+    this.config.setProjectColumns(true);
+    this.config.setFirstTestCaseName("T2");
+    assertEquals(2, prepare().length);
+    assertNull(this.factory.projection);
+  }
+  
+  private TestCaseData[] prepare() {
+    return new PreparingBuilder(this.factory, this.config).prepare();
+  }
+  
+  private static class PreparingBuilder extends AbstractTestSuiteBuilder {
+    PreparingBuilder(final RecordingFactory factory, final TestSuiteConfiguration config) {
+      super(factory, config);
+    }
+    
+    TestCaseData[] prepare() {
+      return prepareSuite();
+    }
+  }
+  
+  /**
+   * Remembers the projection the readers were created with.
+   */
+  private static class RecordingFactory extends AbstractDefaultStringMatrixBasedObjectMatrixFactory {
+    private ColumnProjection projection;
+    
+    protected StringMatrixReader[] createReaders() {
+      this.projection = getColumnProjection();
+      final StringMatrixReader reader =
+          new SnapshotStringMatrixReader(new String[][] { { "", "a" }, { "T1", "1" }, { "T2", "2" }, { "T3", "3" } },
+              "test");
+      return new StringMatrixReader[] { (this.projection == null) ? reader : this.projection.project(reader) };
+    }
+  }
+}